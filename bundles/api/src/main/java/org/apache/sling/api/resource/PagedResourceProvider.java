@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.api.resource;
+
+import java.util.Iterator;
+
+import aQute.bnd.annotation.ConsumerType;
+
+/**
+ * A paged resource provider is an extension of a resource provider which
+ * can efficiently list a range of the children of a resource without
+ * iterating over all preceding children.
+ *
+ * This extension is supported for services directly implementing the
+ * {@link ResourceProvider} interface and {@link ResourceProvider}s
+ * returned through a {@link ResourceProviderFactory}.
+ * <p>
+ * The resource resolver only uses this extension if the provider is the
+ * only one providing children for the parent resource. Otherwise the
+ * children of all providers are merged and the range is selected from the
+ * merged children.
+ *
+ * @since 2.5.0
+ */
+@ConsumerType
+public interface PagedResourceProvider extends ResourceProvider {
+
+    /**
+     * Returns an <code>Iterator</code> of {@link Resource} objects loaded
+     * from the children of the given <code>Resource</code>, starting at the
+     * child with index <code>offset</code> and returning at most
+     * <code>limit</code> children. The children are returned in the same
+     * order as by {@link #listChildren(Resource)}.
+     *
+     * @param parent The {@link Resource Resource} whose children are requested.
+     * @param offset The number of children to skip.
+     * @param limit The maximum number of children to return. A negative
+     *            value returns all remaining children.
+     * @return An <code>Iterator</code> of {@link Resource} objects or
+     *         <code>null</code> if the resource provider cannot have children
+     *         for the parent resource.
+     * @throws NullPointerException If <code>parent</code> is <code>null</code>.
+     * @throws org.apache.sling.api.SlingException If any reason occurs
+     *             accessing the child resource iterator.
+     * @throws IllegalStateException if this resource provider has already been
+     *             closed.
+     * @see #listChildren(Resource)
+     */
+    Iterator<Resource> listChildren(Resource parent, long offset, long limit);
+}
@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.api.resource;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.sling.api.SlingException;
+
+/**
+ * The <code>ParallelResourceVisitor</code> traverses a resource tree
+ * with a bounded number of worker threads.
+ * <p>
+ * The resources above the split depth are visited by the calling thread.
+ * Each resource at the split depth is the root of a subtree which is
+ * handed to the next free worker. Every worker obtains its own resource
+ * resolver by {@link ResourceResolver#clone(java.util.Map) cloning} the
+ * resolver of the start resource and closes it when the traversal is done.
+ * <p>
+ * A parent is always visited before its children but apart from that the
+ * order in which resources are visited is undefined. Concrete subclasses
+ * must therefore implement {@link #visit(Resource)} in a thread safe way.
+ * <p>
+ * The traversal can be stopped with {@link #cancel()} from any thread and
+ * its progress can be queried with {@link #getVisitedCount()},
+ * {@link #getElapsedTime()} and {@link #getThroughput()} while it is running.
+ *
+ * @since 2.5
+ */
+public abstract class ParallelResourceVisitor extends AbstractResourceVisitor {
+
+    /** The default depth at which the tree is split into subtrees. */
+    public static final int DEFAULT_SPLIT_DEPTH = 1;
+
+    /** Queue entry telling a worker to stop, compared by identity. */
+    private static final String END_MARKER = new String("");
+
+    private final int workers;
+
+    private final int splitDepth;
+
+    private final AtomicLong visited = new AtomicLong();
+
+    private volatile boolean cancelled;
+
+    private volatile long startTime;
+
+    private volatile long endTime;
+
+    /**
+     * Create a visitor using the number of available processors as
+     * worker count and the {@link #DEFAULT_SPLIT_DEPTH}.
+     */
+    public ParallelResourceVisitor() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_SPLIT_DEPTH);
+    }
+
+    /**
+     * Create a visitor.
+     * @param workers The maximum number of worker threads, at least one
+     * @param splitDepth The depth, relative to the start resource, of the
+     *        subtrees handed to the workers. With a depth of <code>0</code>
+     *        the whole tree is traversed by one worker.
+     * @throws IllegalArgumentException If <code>workers</code> is less than
+     *         one or <code>splitDepth</code> is negative.
+     */
+    public ParallelResourceVisitor(final int workers, final int splitDepth) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be at least 1: " + workers);
+        }
+        if (splitDepth < 0) {
+            throw new IllegalArgumentException("splitDepth must not be negative: " + splitDepth);
+        }
+        this.workers = workers;
+        this.splitDepth = splitDepth;
+    }
+
+    /**
+     * Visit the given resource and all its descendants. This method returns
+     * when the whole tree has been visited or the traversal has been
+     * cancelled.
+     * @param res The resource
+     * @throws SlingException If a worker could not obtain a resource
+     *         resolver or the traversal was interrupted.
+     * @throws RuntimeException If {@link #visit(Resource)} failed. The
+     *         remaining traversal is cancelled in this case.
+     */
+    @Override
+    public void accept(final Resource res) {
+        if (res == null) {
+            return;
+        }
+        this.cancelled = false;
+        this.visited.set(0);
+        this.endTime = 0;
+        this.startTime = System.currentTimeMillis();
+
+        final BlockingQueue<String> queue = new LinkedBlockingQueue<String>(this.workers * 16);
+        final ExecutorService executor = Executors.newFixedThreadPool(this.workers, new WorkerThreadFactory());
+        final List<Future<Void>> futures = new ArrayList<Future<Void>>(this.workers);
+        try {
+            for (int i = 0; i < this.workers; i++) {
+                futures.add(executor.submit(new Worker(res.getResourceResolver(), queue)));
+            }
+            try {
+                this.split(res, 0, queue, futures);
+            } finally {
+                for (int i = 0; i < this.workers; i++) {
+                    this.put(queue, END_MARKER, futures, false);
+                }
+            }
+            for (final Future<Void> f : futures) {
+                f.get();
+            }
+        } catch (final InterruptedException ie) {
+            this.cancelled = true;
+            Thread.currentThread().interrupt();
+            throw new SlingException("Traversal of " + res.getPath() + " interrupted", ie);
+        } catch (final ExecutionException ee) {
+            this.cancelled = true;
+            final Throwable cause = ee.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new SlingException("Traversal of " + res.getPath() + " failed", cause);
+        } catch (final RuntimeException re) {
+            this.cancelled = true;
+            throw re;
+        } finally {
+            executor.shutdownNow();
+            this.endTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Visit the resources above the split depth and queue the subtrees
+     * at the split depth.
+     */
+    private void split(final Resource res, final int depth,
+            final BlockingQueue<String> queue, final List<Future<Void>> futures)
+    throws InterruptedException, ExecutionException {
+        if (this.cancelled) {
+            return;
+        }
+        if (depth == this.splitDepth) {
+            this.put(queue, res.getPath(), futures, true);
+            return;
+        }
+        this.visitAndCount(res);
+        final Iterator<Resource> children = res.listChildren();
+        while (children.hasNext() && !this.cancelled) {
+            this.split(children.next(), depth + 1, queue, futures);
+        }
+    }
+
+    /**
+     * Put an entry into the queue. While the queue is full the workers are
+     * checked: if <code>failFast</code> is set the failure of a worker is
+     * reported, and the entry is dropped once no worker is left to take it.
+     */
+    private void put(final BlockingQueue<String> queue, final String entry,
+            final List<Future<Void>> futures, final boolean failFast)
+    throws InterruptedException, ExecutionException {
+        while (!queue.offer(entry, 100, TimeUnit.MILLISECONDS)) {
+            boolean alive = false;
+            for (final Future<Void> f : futures) {
+                if (!f.isDone()) {
+                    alive = true;
+                } else if (failFast) {
+                    f.get();
+                }
+            }
+            if (!alive) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Visit the subtree below the given resource on the current thread.
+     */
+    private void traverse(final Resource res) {
+        this.visitAndCount(res);
+        this.traverseChildren(res.listChildren());
+    }
+
+    /**
+     * Visit the given resources and their descendants on the current
+     * thread. Unlike the inherited implementation this does not call
+     * {@link #accept(Resource)}, which would start a new parallel traversal
+     * for every child.
+     * @param children The list of resources
+     */
+    @Override
+    protected final void traverseChildren(final Iterator<Resource> children) {
+        while (children.hasNext() && !this.cancelled) {
+            this.traverse(children.next());
+        }
+    }
+
+    private void visitAndCount(final Resource res) {
+        this.visit(res);
+        this.visited.incrementAndGet();
+    }
+
+    /**
+     * Stop the traversal. Resources which are being visited are completed,
+     * no further resources are visited afterwards.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * @return <code>true</code> if the traversal has been cancelled.
+     */
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * @return The number of resources visited so far.
+     */
+    public long getVisitedCount() {
+        return this.visited.get();
+    }
+
+    /**
+     * @return The time in milliseconds the current or last traversal took,
+     *         <code>0</code> if no traversal has been started.
+     */
+    public long getElapsedTime() {
+        final long start = this.startTime;
+        if (start == 0) {
+            return 0;
+        }
+        final long end = this.endTime;
+        return (end == 0 ? System.currentTimeMillis() : end) - start;
+    }
+
+    /**
+     * @return The number of resources visited per second by the current
+     *         or last traversal.
+     */
+    public double getThroughput() {
+        final long elapsed = this.getElapsedTime();
+        if (elapsed == 0) {
+            return 0;
+        }
+        return this.getVisitedCount() * 1000.0 / elapsed;
+    }
+
+    /**
+     * A worker takes subtree paths from the queue and traverses each
+     * subtree with its own resource resolver.
+     */
+    private final class Worker implements Callable<Void> {
+
+        private final ResourceResolver parentResolver;
+
+        private final BlockingQueue<String> queue;
+
+        Worker(final ResourceResolver parentResolver, final BlockingQueue<String> queue) {
+            this.parentResolver = parentResolver;
+            this.queue = queue;
+        }
+
+        public Void call() throws Exception {
+            ResourceResolver resolver = null;
+            boolean completed = false;
+            try {
+                while (true) {
+                    final String path = this.queue.take();
+                    if (path == END_MARKER) {
+                        completed = true;
+                        return null;
+                    }
+                    if (cancelled) {
+                        continue;
+                    }
+                    if (resolver == null) {
+                        resolver = this.parentResolver.clone(null);
+                    }
+                    final Resource res = resolver.getResource(path);
+                    if (res != null) {
+                        traverse(res);
+                    }
+                }
+            } finally {
+                if (!completed) {
+                    cancelled = true;
+                }
+                if (resolver != null) {
+                    resolver.close();
+                }
+            }
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+
+        private final AtomicInteger threadCounter = new AtomicInteger();
+
+        private final String prefix = "ParallelResourceVisitor-" + POOL_COUNTER.incrementAndGet() + "-";
+
+        public Thread newThread(final Runnable r) {
+            final Thread t = new Thread(r, this.prefix + this.threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.api.resource;
+
+import aQute.bnd.annotation.ConsumerType;
+
+/**
+ * The <code>PrimitiveValueMap</code> extends the {@link ValueMap} with
+ * accessors for primitive values. Unlike {@link ValueMap#get(String, Object)}
+ * these accessors neither box the value nor the default value.
+ * <p>
+ * A value is converted like {@link ValueMap#get(String, Class)} would convert
+ * it into the corresponding wrapper type. If the property is missing or the
+ * conversion fails, the default value is returned. For a multi value property
+ * the first value is used.
+ *
+ * @since 2.5
+ */
+@ConsumerType
+public interface PrimitiveValueMap extends ValueMap {
+
+    /**
+     * Get a named property as a <code>long</code>.
+     * @param name The name of the property
+     * @param defaultValue The value to return if the property does not exist
+     *            or cannot be converted.
+     * @return The value of the property or the default value.
+     */
+    long getLong(String name, long defaultValue);
+
+    /**
+     * Get a named property as an <code>int</code>.
+     * @param name The name of the property
+     * @param defaultValue The value to return if the property does not exist
+     *            or cannot be converted.
+     * @return The value of the property or the default value.
+     */
+    int getInt(String name, int defaultValue);
+
+    /**
+     * Get a named property as a <code>double</code>.
+     * @param name The name of the property
+     * @param defaultValue The value to return if the property does not exist
+     *            or cannot be converted.
+     * @return The value of the property or the default value.
+     */
+    double getDouble(String name, double defaultValue);
+
+    /**
+     * Get a named property as a <code>boolean</code>.
+     * @param name The name of the property
+     * @param defaultValue The value to return if the property does not exist
+     *            or cannot be converted.
+     * @return The value of the property or the default value.
+     */
+    boolean getBoolean(String name, boolean defaultValue);
+}
@@ -18,7 +18,9 @@
  */
 package org.apache.sling.api.resource;
 
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
@@ -330,6 +332,25 @@ public interface ResourceResolver extends Adaptable {
      */
     Resource getResource(Resource base, String path);
 
+    /**
+     * Returns the resources for all the given paths. This method is
+     * equivalent to calling {@link #getResource(String)} for each path but
+     * may be implemented more efficiently.
+     *
+     * @param paths The absolute or relative paths of the resources to get.
+     * @return A list of the same size as the <code>paths</code> collection
+     *         containing the resource for each path in iteration order of the
+     *         collection. The entry for a path is <code>null</code> if no
+     *         resource exists for the path.
+     * @throws NullPointerException If <code>paths</code> is <code>null</code>.
+     * @throws org.apache.sling.api.SlingException If an error occurs trying
+     *             to load the resources.
+     * @throws IllegalStateException if this resource resolver has already been
+     *             {@link #close() closed}.
+     * @since 2.5
+     */
+    List<Resource> getResources(Collection<String> paths);
+
     /**
      * Returns the search path used by the {@link #getResource(String)} method
      * to search for resources by relative path. If no search path is set an
@@ -369,6 +390,30 @@ public interface ResourceResolver extends Adaptable {
      */
     Iterator<Resource> listChildren(Resource parent);
 
+    /**
+     * Returns an <code>Iterator</code> of a range of the {@link Resource}
+     * objects loaded from the children of the given <code>Resource</code>.
+     * The iterator returns the same resources as skipping the first
+     * <code>offset</code> resources of {@link #listChildren(Resource)} and
+     * then returning at most <code>limit</code> resources. Resource providers
+     * implementing the {@link PagedResourceProvider} extension select the
+     * range without loading the skipped children.
+     *
+     * @param parent The {@link Resource Resource} whose children are requested.
+     * @param offset The number of children to skip.
+     * @param limit The maximum number of children to return. A negative
+     *            value returns all remaining children.
+     * @return An <code>Iterator</code> of {@link Resource} objects.
+     * @throws NullPointerException If <code>parent</code> is <code>null</code>.
+     * @throws IllegalArgumentException If <code>offset</code> is negative.
+     * @throws org.apache.sling.api.SlingException If any error occurs acquiring
+     *             the child resource iterator.
+     * @throws IllegalStateException if this resource resolver has already been
+     *             {@link #close() closed}.
+     * @since 2.5
+     */
+    Iterator<Resource> listChildren(Resource parent, long offset, long limit);
+
     /**
      * Returns an <code>Iterable</code> of {@link Resource} objects loaded from
      * the children of the given <code>Resource</code>.
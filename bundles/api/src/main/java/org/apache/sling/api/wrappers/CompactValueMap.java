@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.api.wrappers;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * <code>CompactValueMap</code> is an immutable value map which keeps the
+ * names and values of its properties in two arrays. It is intended for
+ * resource providers which read all properties of a resource at once:
+ * compared to a hash map it needs no entry object per property and looking
+ * up one of the few dozen properties of a typical resource is a scan of
+ * the name array.
+ * <p>
+ * Modifying methods throw an <code>UnsupportedOperationException</code>.
+ *
+ * @since 2.4
+ */
+public class CompactValueMap extends ValueMapDecorator {
+
+    /**
+     * Creates a value map from the given names and values. The arrays
+     * are not copied and must not be modified afterwards.
+     * @param names The property names
+     * @param values The property values, in the order of the names
+     * @throws IllegalArgumentException If the arrays differ in length or
+     *         a name or value is <code>null</code>.
+     */
+    public CompactValueMap(final String[] names, final Object[] values) {
+        super(new ArrayMap(names, values));
+    }
+
+    /**
+     * Creates a value map with a copy of the given map.
+     * @param map The properties
+     * @throws IllegalArgumentException If a name or value is <code>null</code>.
+     */
+    public CompactValueMap(final Map<String, Object> map) {
+        super(ArrayMap.copyOf(map));
+    }
+
+    /**
+     * Map on a name array and a value array.
+     */
+    private static final class ArrayMap extends AbstractMap<String, Object> {
+
+        private final String[] names;
+
+        private final Object[] values;
+
+        private final int[] hashes;
+
+        private Set<Map.Entry<String, Object>> entrySet;
+
+        static ArrayMap copyOf(final Map<String, Object> map) {
+            final String[] names = new String[map.size()];
+            final Object[] values = new Object[names.length];
+            int i = 0;
+            for (final Map.Entry<String, Object> entry : map.entrySet()) {
+                names[i] = entry.getKey();
+                values[i] = entry.getValue();
+                i++;
+            }
+            return new ArrayMap(names, values);
+        }
+
+        ArrayMap(final String[] names, final Object[] values) {
+            if (names.length != values.length) {
+                throw new IllegalArgumentException("Got " + names.length
+                    + " names but " + values.length + " values");
+            }
+            this.names = names;
+            this.values = values;
+            this.hashes = new int[names.length];
+            for (int i = 0; i < names.length; i++) {
+                if (names[i] == null || values[i] == null) {
+                    throw new IllegalArgumentException("Null name or value at index " + i);
+                }
+                this.hashes[i] = names[i].hashCode();
+            }
+        }
+
+        private int indexOf(final Object key) {
+            if (key != null) {
+                final int hash = key.hashCode();
+                for (int i = 0; i < this.names.length; i++) {
+                    if (this.hashes[i] == hash && this.names[i].equals(key)) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public Object get(final Object key) {
+            final int index = indexOf(key);
+            return index == -1 ? null : this.values[index];
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return indexOf(key) != -1;
+        }
+
+        @Override
+        public int size() {
+            return this.names.length;
+        }
+
+        @Override
+        public Set<Map.Entry<String, Object>> entrySet() {
+            if (this.entrySet == null) {
+                this.entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+
+                    @Override
+                    public Iterator<Map.Entry<String, Object>> iterator() {
+                        return new EntryIterator();
+                    }
+
+                    @Override
+                    public int size() {
+                        return names.length;
+                    }
+                };
+            }
+            return this.entrySet;
+        }
+
+        private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+            private int index;
+
+            public boolean hasNext() {
+                return this.index < names.length;
+            }
+
+            public Map.Entry<String, Object> next() {
+                if (this.index >= names.length) {
+                    throw new NoSuchElementException();
+                }
+                return new ArrayEntry(this.index++);
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        }
+
+        private final class ArrayEntry implements Map.Entry<String, Object> {
+
+            private final int index;
+
+            ArrayEntry(final int index) {
+                this.index = index;
+            }
+
+            public String getKey() {
+                return names[this.index];
+            }
+
+            public Object getValue() {
+                return values[this.index];
+            }
+
+            public Object setValue(final Object value) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public boolean equals(final Object o) {
+                if (!(o instanceof Map.Entry<?, ?>)) {
+                    return false;
+                }
+                final Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+                return getKey().equals(e.getKey()) && getValue().equals(e.getValue());
+            }
+
+            @Override
+            public int hashCode() {
+                return hashes[this.index] ^ getValue().hashCode();
+            }
+
+            @Override
+            public String toString() {
+                return getKey() + "=" + getValue();
+            }
+        }
+    }
+}
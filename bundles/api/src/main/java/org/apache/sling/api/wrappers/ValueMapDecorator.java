@@ -23,14 +23,15 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.sling.api.resource.PrimitiveValueMap;
 import org.apache.sling.api.resource.ValueMap;
 
 /**
  * <code>ValueMapDecorator</code> decorates another {@link Map}
  * to provide a basic implementation for the additional methods
- * of a {@link ValueMap}.
+ * of a {@link ValueMap} and a {@link PrimitiveValueMap}.
  */
-public class ValueMapDecorator implements ValueMap {
+public class ValueMapDecorator implements PrimitiveValueMap {
 
     /**
      * underlying map
@@ -121,6 +122,90 @@ public class ValueMapDecorator implements ValueMap {
         return value == null ? defaultValue : value;
     }
 
+    /**
+     * {@inheritDoc}
+     * @since 2.4
+     */
+    public long getLong(final String name, final long defaultValue) {
+        final Object obj = getPrimitiveSource(name);
+        if (obj instanceof Long || obj instanceof Integer
+                || obj instanceof Short || obj instanceof Byte) {
+            return ((Number) obj).longValue();
+        } else if (obj != null) {
+            try {
+                return Long.parseLong(obj.toString());
+            } catch (NumberFormatException e) {
+                // fall back to default
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 2.4
+     */
+    public int getInt(final String name, final int defaultValue) {
+        final Object obj = getPrimitiveSource(name);
+        if (obj instanceof Integer || obj instanceof Short || obj instanceof Byte) {
+            return ((Number) obj).intValue();
+        } else if (obj != null) {
+            try {
+                return Integer.parseInt(obj.toString());
+            } catch (NumberFormatException e) {
+                // fall back to default
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 2.4
+     */
+    public double getDouble(final String name, final double defaultValue) {
+        final Object obj = getPrimitiveSource(name);
+        if (obj instanceof Number) {
+            return ((Number) obj).doubleValue();
+        } else if (obj != null) {
+            try {
+                return Double.parseDouble(obj.toString());
+            } catch (NumberFormatException e) {
+                // fall back to default
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 2.4
+     */
+    public boolean getBoolean(final String name, final boolean defaultValue) {
+        final Object obj = getPrimitiveSource(name);
+        if (obj instanceof Boolean) {
+            return ((Boolean) obj).booleanValue();
+        } else if (obj != null) {
+            return Boolean.parseBoolean(obj.toString());
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Returns the value to convert into a primitive, which is the first
+     * element if the value is an array.
+     * @param name The name of the property
+     * @return The value or <code>null</code>
+     */
+    private Object getPrimitiveSource(final String name) {
+        final Object obj = get(name);
+        if (obj instanceof Object[]) {
+            final Object[] array = (Object[]) obj;
+            return array.length > 0 ? array[0] : null;
+        }
+        return obj;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.api.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelResourceVisitorTest {
+
+    /** Number of children of each resource in the test tree. */
+    private static final int FANOUT = 4;
+
+    /** Depth of the test tree below the root. */
+    private static final int DEPTH = 3;
+
+    /** 1 + 4 + 16 + 64 resources. */
+    private static final int TREE_SIZE = 85;
+
+    private final Map<String, TreeResource> tree = new HashMap<String, TreeResource>();
+
+    private final AtomicInteger openResolvers = new AtomicInteger();
+
+    private final AtomicInteger closedResolvers = new AtomicInteger();
+
+    private TreeResource root;
+
+    @Before
+    public void setUp() {
+        this.root = this.createTree(null, "/root", 0);
+    }
+
+    @Test public void testVisitsEveryResourceOnce() {
+        for (int splitDepth = 0; splitDepth <= DEPTH + 1; splitDepth++) {
+            final RecordingVisitor visitor = new RecordingVisitor(3, splitDepth);
+            visitor.accept(this.root);
+
+            assertNull(visitor.failure, visitor.failure);
+            assertEquals(TREE_SIZE, visitor.visits.size());
+            for (final Map.Entry<String, AtomicInteger> e : visitor.visits.entrySet()) {
+                assertEquals(e.getKey(), 1, e.getValue().get());
+            }
+            assertEquals(TREE_SIZE, visitor.getVisitedCount());
+            assertFalse(visitor.isCancelled());
+            assertEquals(this.openResolvers.get(), this.closedResolvers.get());
+        }
+    }
+
+    @Test public void testSubtreesAreVisitedByWorkers() {
+        final RecordingVisitor visitor = new RecordingVisitor(2, 1);
+        visitor.accept(this.root);
+
+        assertNull(visitor.failure, visitor.failure);
+        assertTrue(visitor.threads.contains(Thread.currentThread()));
+        // the calling thread and at most two workers
+        assertTrue(visitor.threads.size() <= 3);
+    }
+
+    @Test public void testTraverseChildrenStaysOnCallingThread() {
+        final RecordingVisitor visitor = new RecordingVisitor(2, 1);
+        visitor.traverseChildren(this.root.listChildren());
+
+        assertEquals(TREE_SIZE - 1, visitor.visits.size());
+        assertEquals(TREE_SIZE - 1, visitor.getVisitedCount());
+        assertEquals(1, visitor.threads.size());
+        assertTrue(visitor.threads.contains(Thread.currentThread()));
+        assertEquals(0, this.openResolvers.get());
+    }
+
+    @Test public void testExceptionIsPropagated() throws InterruptedException {
+        final IllegalStateException error = new IllegalStateException("failed");
+        final RecordingVisitor visitor = new RecordingVisitor(2, 1) {
+            @Override
+            protected void visit(final Resource res) {
+                super.visit(res);
+                if (res.getPath().equals("/root/1/2")) {
+                    throw error;
+                }
+            }
+        };
+        try {
+            visitor.accept(this.root);
+            fail("Expected the exception of visit to be thrown");
+        } catch (final IllegalStateException ise) {
+            assertSame(error, ise);
+        }
+        assertTrue(visitor.isCancelled());
+        assertTrue(visitor.getVisitedCount() < TREE_SIZE);
+        this.assertStopped(visitor);
+        assertEquals(this.openResolvers.get(), this.closedResolvers.get());
+    }
+
+    @Test public void testCancel() throws InterruptedException {
+        final RecordingVisitor visitor = new RecordingVisitor(2, 1) {
+            @Override
+            protected void visit(final Resource res) {
+                super.visit(res);
+                if (this.visits.size() == 10) {
+                    this.cancel();
+                }
+            }
+        };
+        visitor.accept(this.root);
+
+        assertTrue(visitor.isCancelled());
+        assertTrue(visitor.getVisitedCount() < TREE_SIZE);
+        this.assertStopped(visitor);
+        assertEquals(this.openResolvers.get(), this.closedResolvers.get());
+    }
+
+    @Test public void testWorkersAreShutDown() throws InterruptedException {
+        final RecordingVisitor visitor = new RecordingVisitor(4, 2);
+        visitor.accept(this.root);
+
+        assertEquals(TREE_SIZE, visitor.getVisitedCount());
+        assertTrue(visitor.getElapsedTime() >= 0);
+        this.assertStopped(visitor);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoWorkers() {
+        new RecordingVisitor(0, 1);
+    }
+
+    /**
+     * Assert that all worker threads used by the visitor terminate.
+     */
+    private void assertStopped(final RecordingVisitor visitor) throws InterruptedException {
+        for (final Thread t : visitor.threads) {
+            if (t != Thread.currentThread()) {
+                t.join(5000);
+                assertFalse(t.getName() + " still running", t.isAlive());
+            }
+        }
+    }
+
+    private TreeResource createTree(final TreeResource parent, final String path, final int depth) {
+        final TreeResource res = new TreeResource(path);
+        this.tree.put(path, res);
+        if (depth < DEPTH) {
+            for (int i = 0; i < FANOUT; i++) {
+                res.children.add(this.createTree(res, path + "/" + i, depth + 1));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Creates a resolver which only supports getting resources of the test
+     * tree, cloning and closing.
+     */
+    private ResourceResolver createResolver() {
+        return (ResourceResolver) Proxy.newProxyInstance(this.getClass().getClassLoader(),
+                new Class<?>[] {ResourceResolver.class},
+                new InvocationHandler() {
+
+                    public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                        if (method.getName().equals("getResource") && args.length == 1) {
+                            return tree.get(args[0]);
+                        } else if (method.getName().equals("clone")) {
+                            openResolvers.incrementAndGet();
+                            return createResolver();
+                        } else if (method.getName().equals("close")) {
+                            closedResolvers.incrementAndGet();
+                            return null;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private class TreeResource extends AbstractResource {
+
+        private final String path;
+
+        private final List<Resource> children = new ArrayList<Resource>();
+
+        private final ResourceResolver resolver = createResolver();
+
+        TreeResource(final String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return this.path;
+        }
+
+        public String getResourceType() {
+            return "test";
+        }
+
+        public String getResourceSuperType() {
+            return null;
+        }
+
+        public ResourceMetadata getResourceMetadata() {
+            return new ResourceMetadata();
+        }
+
+        public ResourceResolver getResourceResolver() {
+            return this.resolver;
+        }
+
+        @Override
+        public Iterator<Resource> listChildren() {
+            return this.children.iterator();
+        }
+    }
+
+    /**
+     * Records which resources are visited by which threads and checks that
+     * every parent is visited before its children.
+     */
+    private static class RecordingVisitor extends ParallelResourceVisitor {
+
+        final ConcurrentHashMap<String, AtomicInteger> visits = new ConcurrentHashMap<String, AtomicInteger>();
+
+        final Set<Thread> threads = new CopyOnWriteArraySet<Thread>();
+
+        volatile String failure;
+
+        RecordingVisitor(final int workers, final int splitDepth) {
+            super(workers, splitDepth);
+        }
+
+        @Override
+        protected void visit(final Resource res) {
+            this.threads.add(Thread.currentThread());
+            final String path = res.getPath();
+            final String parent = path.substring(0, path.lastIndexOf('/'));
+            if (parent.length() > 0 && !this.visits.containsKey(parent)) {
+                this.failure = path + " visited before its parent";
+            }
+            final AtomicInteger count = new AtomicInteger();
+            final AtomicInteger existing = this.visits.putIfAbsent(path, count);
+            (existing == null ? count : existing).incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.api.wrappers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class CompactValueMapTest {
+
+    private CompactValueMap createMap() {
+        final Map<String, Object> props = new LinkedHashMap<String, Object>();
+        props.put("long", 42L);
+        props.put("int", 7);
+        props.put("double", 1.5d);
+        props.put("bool", Boolean.TRUE);
+        props.put("string", "13");
+        props.put("multi", new String[] {"3", "4"});
+        return new CompactValueMap(props);
+    }
+
+    @Test
+    public void testMapAccess() {
+        final CompactValueMap map = createMap();
+        assertEquals(6, map.size());
+        assertEquals(42L, map.get("long"));
+        assertTrue(map.containsKey("string"));
+        assertFalse(map.containsKey("missing"));
+        assertNull(map.get("missing"));
+        assertEquals(Integer.valueOf(13), map.get("string", Integer.class));
+        assertEquals("default", map.get("missing", "default"));
+
+        int count = 0;
+        for (final Map.Entry<String, Object> entry : map.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+            count++;
+        }
+        assertEquals(6, count);
+    }
+
+    @Test
+    public void testPrimitiveAccess() {
+        final CompactValueMap map = createMap();
+        assertEquals(42L, map.getLong("long", 0));
+        assertEquals(7L, map.getLong("int", 0));
+        assertEquals(13L, map.getLong("string", 0));
+        assertEquals(3L, map.getLong("multi", 0));
+        assertEquals(-1L, map.getLong("missing", -1));
+        assertEquals(-1L, map.getLong("double", -1));
+        assertEquals(7, map.getInt("int", 0));
+        assertEquals(42, map.getInt("long", 0));
+        assertEquals(1.5d, map.getDouble("double", 0), 0);
+        assertEquals(42d, map.getDouble("long", 0), 0);
+        assertTrue(map.getBoolean("bool", false));
+        assertFalse(map.getBoolean("string", true));
+        assertTrue(map.getBoolean("missing", true));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() {
+        createMap().put("other", "value");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLengthMismatch() {
+        new CompactValueMap(new String[] {"a", "b"}, new Object[] {"1"});
+    }
+}
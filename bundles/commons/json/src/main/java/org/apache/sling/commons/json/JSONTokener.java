@@ -24,15 +24,30 @@ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
 SOFTWARE.
 */
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+
 /**
- * A JSONTokener takes a source string and extracts characters and tokens from
- * it. It is used by the JSONObject and JSONArray constructors to parse
- * JSON source strings.
+ * A JSONTokener takes a source string or a character stream and extracts
+ * characters and tokens from it. It is used by the JSONObject and JSONArray
+ * constructors to parse JSON source strings.
+ * <p>
+ * If the tokener reads from a <code>Reader</code>, the characters are read
+ * in chunks into a small fixed size buffer, so the complete source does not
+ * have to be held in memory.
  * @author JSON.org
  * @version 2
  */
 public class JSONTokener {
 
+    /**
+     * The size of the buffer used when reading from a <code>Reader</code>.
+     */
+    private static final int BUFFER_SIZE = 1024;
+
     /**
      * The index of the next character.
      */
@@ -40,10 +55,36 @@ public class JSONTokener {
 
 
     /**
-     * The source string being tokenized.
+     * The source string being tokenized, null if tokenizing a reader.
      */
     private String mySource;
 
+    /**
+     * The reader providing the source, null if tokenizing a string.
+     */
+    private final Reader reader;
+
+    /**
+     * The characters read from the reader: the last character returned
+     * followed by the characters read ahead. Null if tokenizing a string,
+     * which is indexed directly.
+     */
+    private final char[] buffer;
+
+    /**
+     * The number of valid characters in the buffer.
+     */
+    private int bufferLength;
+
+    /**
+     * The position of the next character in the buffer.
+     */
+    private int bufferPos;
+
+    /**
+     * The exception thrown by the reader, if any.
+     */
+    private IOException readerException;
 
     /**
      * Construct a JSONTokener from a string.
@@ -53,20 +94,90 @@ public class JSONTokener {
     public JSONTokener(String s) {
         this.myIndex = 0;
         this.mySource = s;
+        this.reader = null;
+        this.buffer = null;
     }
 
+    /**
+     * Construct a JSONTokener from a reader. The reader is not closed
+     * by the tokener.
+     *
+     * @param reader A reader providing the source.
+     */
+    public JSONTokener(Reader reader) {
+        this.myIndex = 0;
+        this.mySource = null;
+        this.reader = reader;
+        this.buffer = new char[BUFFER_SIZE];
+        this.bufferLength = 0;
+        this.bufferPos = 0;
+    }
+
+    /**
+     * Construct a JSONTokener from an UTF-8 encoded input stream. The
+     * stream is not closed by the tokener.
+     *
+     * @param is An input stream providing the source.
+     */
+    public JSONTokener(InputStream is) {
+        this(createReader(is));
+    }
+
+    private static Reader createReader(final InputStream is) {
+        try {
+            return new InputStreamReader(is, "UTF-8");
+        } catch (final UnsupportedEncodingException uee) {
+            // UTF-8 is always supported
+            throw new RuntimeException(uee);
+        }
+    }
 
     /**
      * Back up one character. This provides a sort of lookahead capability,
      * so that you can test for a digit or letter before attempting to parse
-     * the next number or identifier.
+     * the next number or identifier. If reading from a reader only the
+     * last character can be backed up.
      */
     public void back() {
-        if (this.myIndex > 0) {
+        if (this.reader == null) {
+            if (this.myIndex > 0) {
+                this.myIndex -= 1;
+            }
+        } else if (this.myIndex > 0 && this.bufferPos > 0) {
             this.myIndex -= 1;
+            this.bufferPos -= 1;
         }
     }
 
+    /**
+     * Read the next chunk of characters from the reader into the
+     * buffer, keeping the last character to support {@link #back()}.
+     * @return true if characters have been read.
+     */
+    private boolean fill() {
+        if (this.reader == null || this.readerException != null) {
+            return false;
+        }
+        final int offset = (this.bufferLength > 0 ? 1 : 0);
+        final char last = (this.bufferLength > 0 ? this.buffer[this.bufferLength - 1] : 0);
+        try {
+            int count;
+            do {
+                count = this.reader.read(this.buffer, offset, this.buffer.length - offset);
+            } while (count == 0);
+            if (count < 0) {
+                return false;
+            }
+            this.buffer[0] = (offset > 0 ? last : this.buffer[0]);
+            this.bufferLength = offset + count;
+            this.bufferPos = offset;
+            return true;
+        } catch (final IOException ioe) {
+            // treated as end of input, reported by syntaxError()
+            this.readerException = ioe;
+            return false;
+        }
+    }
 
 
     /**
@@ -95,7 +206,10 @@ public class JSONTokener {
      * @return true if not yet at the end of the source.
      */
     public boolean more() {
-        return this.myIndex < this.mySource.length();
+        if (this.reader == null) {
+            return this.myIndex < this.mySource.length();
+        }
+        return this.bufferPos < this.bufferLength || fill();
     }
 
 
@@ -105,8 +219,15 @@ public class JSONTokener {
      * @return The next character, or 0 if past the end of the source string.
      */
     public char next() {
+        if (this.reader == null) {
+            if (this.myIndex < this.mySource.length()) {
+                return this.mySource.charAt(this.myIndex++);
+            }
+            return 0;
+        }
         if (more()) {
-            char c = this.mySource.charAt(this.myIndex);
+            char c = this.buffer[this.bufferPos];
+            this.bufferPos += 1;
             this.myIndex += 1;
             return c;
         }
@@ -141,13 +262,23 @@ public class JSONTokener {
      *   n characters remaining in the source string.
      */
      public String next(int n) throws JSONException {
-         int i = this.myIndex;
-         int j = i + n;
-         if (j >= this.mySource.length()) {
-            throw syntaxError("Substring bounds error");
+         if (this.reader == null) {
+             int i = this.myIndex;
+             int j = i + n;
+             if (j >= this.mySource.length()) {
+                throw syntaxError("Substring bounds error");
+             }
+             this.myIndex += n;
+             return this.mySource.substring(i, j);
+         }
+         final char[] chars = new char[n];
+         for (int i = 0; i < n; i++) {
+             if (!more()) {
+                 throw syntaxError("Substring bounds error");
+             }
+             chars[i] = next();
          }
-         this.myIndex += n;
-         return this.mySource.substring(i, j);
+         return new String(chars);
      }
 
 
@@ -209,7 +340,7 @@ public class JSONTokener {
      */
     public String nextString(char quote) throws JSONException {
         char c;
-        StringBuffer sb = new StringBuffer();
+        StringBuilder sb = new StringBuilder();
         for (;;) {
             c = next();
             switch (c) {
@@ -262,7 +393,7 @@ public class JSONTokener {
      * @return   A string.
      */
     public String nextTo(char d) {
-        StringBuffer sb = new StringBuffer();
+        StringBuilder sb = new StringBuilder();
         for (;;) {
             char c = next();
             if (c == d || c == 0 || c == '\n' || c == '\r') {
@@ -284,7 +415,7 @@ public class JSONTokener {
      */
     public String nextTo(String delimiters) {
         char c;
-        StringBuffer sb = new StringBuffer();
+        StringBuilder sb = new StringBuilder();
         for (;;) {
             c = next();
             if (delimiters.indexOf(c) >= 0 || c == 0 ||
@@ -331,7 +462,7 @@ public class JSONTokener {
          * formatting character.
          */
 
-        StringBuffer sb = new StringBuffer();
+        StringBuilder sb = new StringBuilder();
         char b = c;
         while (c >= ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
             sb.append(c);
@@ -411,10 +542,16 @@ public class JSONTokener {
     public char skipTo(char to) {
         char c;
         int index = this.myIndex;
+        int pos = this.bufferPos;
         do {
             c = next();
             if (c == 0) {
-                this.myIndex = index;
+                // characters already read from a reader can't be restored
+                if (this.reader == null) {
+                    this.myIndex = index;
+                } else {
+                    this.bufferPos = pos;
+                }
                 return c;
             }
         } while (c != to);
@@ -429,11 +566,41 @@ public class JSONTokener {
      * @param to A string to skip past.
      */
     public void skipPast(String to) {
-        this.myIndex = this.mySource.indexOf(to, this.myIndex);
-        if (this.myIndex < 0) {
-            this.myIndex = this.mySource.length();
-        } else {
-            this.myIndex += to.length();
+        if (this.reader == null) {
+            this.myIndex = this.mySource.indexOf(to, this.myIndex);
+            if (this.myIndex < 0) {
+                this.myIndex = this.mySource.length();
+            } else {
+                this.myIndex += to.length();
+            }
+            return;
+        }
+        // keep the last characters read and compare them with the string
+        final int length = to.length();
+        if (length == 0) {
+            return;
+        }
+        final char[] window = new char[length];
+        int start = 0;
+        int count = 0;
+        while (more()) {
+            // the ring buffer starts with the oldest character
+            window[start] = next();
+            start = (start + 1 == length ? 0 : start + 1);
+            if (count < length) {
+                count++;
+            }
+            if (count == length) {
+                int i = 0;
+                int pos = start;
+                while (i < length && window[pos] == to.charAt(i)) {
+                    i++;
+                    pos = (pos + 1 == length ? 0 : pos + 1);
+                }
+                if (i == length) {
+                    return;
+                }
+            }
         }
     }
 
@@ -445,6 +612,9 @@ public class JSONTokener {
      * @return  A JSONException object, suitable for throwing
      */
     public JSONException syntaxError(String message) {
+        if (this.readerException != null) {
+            return new JSONException(message + toString(), this.readerException);
+        }
         return new JSONException(message + toString());
     }
 
@@ -455,6 +625,9 @@ public class JSONTokener {
      * @return " at character [this.myIndex] of [this.mySource]"
      */
     public String toString() {
+        if (this.reader != null) {
+            return " at character " + this.myIndex;
+        }
         return " at character " + this.myIndex + " of " + this.mySource;
     }
 }
\ No newline at end of file
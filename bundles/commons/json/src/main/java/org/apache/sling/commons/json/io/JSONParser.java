@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.commons.json.io;
+
+import java.io.InputStream;
+import java.io.Reader;
+
+import org.apache.sling.commons.json.JSONException;
+import org.apache.sling.commons.json.JSONTokener;
+
+/**
+ * The <code>JSONParser</code> is a pull parser for JSON text. It is the
+ * reading counterpart of the {@link JSONWriter}: instead of building a
+ * tree of <code>JSONObject</code>s and <code>JSONArray</code>s, the text is
+ * read incrementally and reported as a sequence of {@link Event}s.
+ * <pre>
+ * final JSONParser parser = new JSONParser(reader);
+ * JSONParser.Event event;
+ * while ((event = parser.next()) != JSONParser.Event.END_DOCUMENT) {
+ *     ...
+ * }</pre>
+ * <p>
+ * The parser accepts the same lenient syntax as the <code>JSONObject</code>
+ * and <code>JSONArray</code> constructors. Values are reported as
+ * <code>Boolean</code>, <code>Integer</code>, <code>Long</code>,
+ * <code>Double</code>, <code>String</code> or <code>JSONObject.NULL</code>.
+ * Empty array elements are reported as <code>null</code> values.
+ */
+public class JSONParser {
+
+    /** The events reported by the parser. */
+    public enum Event {
+        START_OBJECT,
+        END_OBJECT,
+        START_ARRAY,
+        END_ARRAY,
+        KEY,
+        VALUE,
+        END_DOCUMENT
+    }
+
+    /**
+     * The current mode. Values:
+     * 'A' (after an array element),
+     * 'a' (at the start of an array),
+     * 'd' (done),
+     * 'i' (initial),
+     * 'k' (after a key),
+     * 'O' (after an object member),
+     * 'o' (at the start of an object).
+     */
+    private char mode;
+
+    /** The object/array stack, 'a' for arrays and 'o' for objects. */
+    private char[] stack = new char[16];
+
+    /** The stack top index. A value of 0 indicates that the stack is empty. */
+    private int top;
+
+    /** The tokener providing the characters. */
+    private final JSONTokener tokener;
+
+    /** The last key read. */
+    private String key;
+
+    /** The last value read. */
+    private Object value;
+
+    /**
+     * Create a parser reading from the given reader. The reader is
+     * not closed by the parser.
+     */
+    public JSONParser(final Reader reader) {
+        this(new JSONTokener(reader));
+    }
+
+    /**
+     * Create a parser reading from the given UTF-8 encoded stream.
+     * The stream is not closed by the parser.
+     */
+    public JSONParser(final InputStream is) {
+        this(new JSONTokener(is));
+    }
+
+    /**
+     * Create a parser reading from the given tokener.
+     */
+    public JSONParser(final JSONTokener tokener) {
+        this.tokener = tokener;
+        this.mode = 'i';
+    }
+
+    /**
+     * Advance to the next event.
+     * @return The next event, {@link Event#END_DOCUMENT} once the complete
+     *         value has been read.
+     * @throws JSONException If the text is not valid.
+     */
+    public Event next() throws JSONException {
+        this.key = null;
+        this.value = null;
+        char c;
+        switch (this.mode) {
+            case 'i':
+            case 'k':
+                return this.readValue();
+            case 'd':
+                return Event.END_DOCUMENT;
+            case 'o':
+                if (this.tokener.nextClean() == '}') {
+                    return this.end(Event.END_OBJECT);
+                }
+                this.tokener.back();
+                return this.readKey();
+            case 'a':
+                if (this.tokener.nextClean() == ']') {
+                    return this.end(Event.END_ARRAY);
+                }
+                this.tokener.back();
+                return this.readElement();
+            case 'O':
+                c = this.tokener.nextClean();
+                if (c == ';' || c == ',') {
+                    if (this.tokener.nextClean() == '}') {
+                        return this.end(Event.END_OBJECT);
+                    }
+                    this.tokener.back();
+                    return this.readKey();
+                } else if (c == '}') {
+                    return this.end(Event.END_OBJECT);
+                }
+                throw this.tokener.syntaxError("Expected a ',' or '}'");
+            default:
+                c = this.tokener.nextClean();
+                if (c == ';' || c == ',') {
+                    if (this.tokener.nextClean() == ']') {
+                        return this.end(Event.END_ARRAY);
+                    }
+                    this.tokener.back();
+                    return this.readElement();
+                } else if (c == ']') {
+                    return this.end(Event.END_ARRAY);
+                }
+                throw this.tokener.syntaxError("Expected a ',' or ']'");
+        }
+    }
+
+    /**
+     * The key, if the current event is {@link Event#KEY}.
+     */
+    public String getKey() {
+        return this.key;
+    }
+
+    /**
+     * The value, if the current event is {@link Event#VALUE}.
+     */
+    public Object getValue() {
+        return this.value;
+    }
+
+    /**
+     * The number of currently open objects and arrays.
+     */
+    public int getDepth() {
+        return this.top;
+    }
+
+    private Event readKey() throws JSONException {
+        if (this.tokener.nextClean() == 0) {
+            throw this.tokener.syntaxError("A JSONObject text must end with '}'");
+        }
+        this.tokener.back();
+        final String k = this.tokener.nextValue().toString();
+
+        // The key is followed by ':'. We will also tolerate '=' or '=>'.
+        final char c = this.tokener.nextClean();
+        if (c == '=') {
+            if (this.tokener.next() != '>') {
+                this.tokener.back();
+            }
+        } else if (c != ':') {
+            throw this.tokener.syntaxError("Expected a ':' after a key");
+        }
+        this.key = k;
+        this.mode = 'k';
+        return Event.KEY;
+    }
+
+    private Event readElement() throws JSONException {
+        if (this.tokener.nextClean() == ',') {
+            this.tokener.back();
+            this.afterValue();
+            return Event.VALUE;
+        }
+        this.tokener.back();
+        return this.readValue();
+    }
+
+    private Event readValue() throws JSONException {
+        final char c = this.tokener.nextClean();
+        if (c == '{') {
+            this.push('o');
+            return Event.START_OBJECT;
+        } else if (c == '[') {
+            this.push('a');
+            return Event.START_ARRAY;
+        }
+        this.tokener.back();
+        this.value = this.tokener.nextValue();
+        this.afterValue();
+        return Event.VALUE;
+    }
+
+    private Event end(final Event event) {
+        this.top -= 1;
+        this.afterValue();
+        return event;
+    }
+
+    private void afterValue() {
+        if (this.top == 0) {
+            this.mode = 'd';
+        } else {
+            this.mode = (this.stack[this.top - 1] == 'o' ? 'O' : 'A');
+        }
+    }
+
+    private void push(final char c) {
+        if (this.top == this.stack.length) {
+            final char[] newStack = new char[this.stack.length * 2];
+            System.arraycopy(this.stack, 0, newStack, 0, this.top);
+            this.stack = newStack;
+        }
+        this.stack[this.top] = c;
+        this.top += 1;
+        this.mode = (c == 'o' ? 'o' : 'a');
+    }
+}
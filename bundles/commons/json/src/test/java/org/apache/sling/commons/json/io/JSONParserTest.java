@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.commons.json.io;
+
+import java.io.StringReader;
+
+import junit.framework.TestCase;
+
+import org.apache.sling.commons.json.JSONException;
+import org.apache.sling.commons.json.JSONObject;
+import org.apache.sling.commons.json.JSONTokener;
+
+public class JSONParserTest extends TestCase {
+
+    private static final String TEXT =
+        "{\"a\":\"x\\ty\", 'b' : [1, 2.5, 3000000000, true, null, {}], c=>{\"d\":[]},}";
+
+    public void testEvents() throws JSONException {
+        final JSONParser p = new JSONParser(new StringReader(TEXT));
+        assertEquals(JSONParser.Event.START_OBJECT, p.next());
+        assertEquals(JSONParser.Event.KEY, p.next());
+        assertEquals("a", p.getKey());
+        assertEquals(JSONParser.Event.VALUE, p.next());
+        assertEquals("x\ty", p.getValue());
+        assertEquals(JSONParser.Event.KEY, p.next());
+        assertEquals("b", p.getKey());
+        assertEquals(JSONParser.Event.START_ARRAY, p.next());
+        assertEquals(2, p.getDepth());
+        assertEquals(JSONParser.Event.VALUE, p.next());
+        assertEquals(Integer.valueOf(1), p.getValue());
+        assertEquals(JSONParser.Event.VALUE, p.next());
+        assertEquals(Double.valueOf(2.5), p.getValue());
+        assertEquals(JSONParser.Event.VALUE, p.next());
+        assertEquals(Long.valueOf(3000000000L), p.getValue());
+        assertEquals(JSONParser.Event.VALUE, p.next());
+        assertEquals(Boolean.TRUE, p.getValue());
+        assertEquals(JSONParser.Event.VALUE, p.next());
+        assertEquals(JSONObject.NULL, p.getValue());
+        assertEquals(JSONParser.Event.START_OBJECT, p.next());
+        assertEquals(JSONParser.Event.END_OBJECT, p.next());
+        assertEquals(JSONParser.Event.END_ARRAY, p.next());
+        assertEquals(JSONParser.Event.KEY, p.next());
+        assertEquals("c", p.getKey());
+        assertEquals(JSONParser.Event.START_OBJECT, p.next());
+        assertEquals(JSONParser.Event.KEY, p.next());
+        assertEquals(JSONParser.Event.START_ARRAY, p.next());
+        assertEquals(JSONParser.Event.END_ARRAY, p.next());
+        assertEquals(JSONParser.Event.END_OBJECT, p.next());
+        assertEquals(JSONParser.Event.END_OBJECT, p.next());
+        assertEquals(0, p.getDepth());
+        assertEquals(JSONParser.Event.END_DOCUMENT, p.next());
+    }
+
+    public void testSyntaxError() {
+        final JSONParser p = new JSONParser(new StringReader("[1 : 2]"));
+        try {
+            p.next();
+            p.next();
+            p.next();
+            fail("Expected syntax error");
+        } catch (final JSONException expected) {
+            // expected
+        }
+    }
+
+    /**
+     * A document larger than the tokener buffer must give the same
+     * result when read from a reader and from a string.
+     */
+    public void testReaderTokener() throws JSONException {
+        final JSONObject expected = new JSONObject();
+        for (int i = 0; i < 500; i++) {
+            expected.put("key" + i, "value \u00e9 " + i);
+        }
+        final String text = expected.toString();
+        final JSONObject fromString = new JSONObject(new JSONTokener(text));
+        final JSONObject fromReader = new JSONObject(new JSONTokener(new StringReader(text)));
+        assertEquals(fromString.toString(), fromReader.toString());
+        assertEquals(text, fromReader.toString());
+    }
+
+    /**
+     * Skipping past a string must leave the string and the reader tokener
+     * at the same character, also for partial and overlapping matches.
+     */
+    public void testSkipPast() throws JSONException {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append('*');
+        }
+        text.append("*/*/x*/y");
+        for (final String to : new String[] {"*/", "*/y", "**/x", "missing"}) {
+            final JSONTokener fromString = new JSONTokener(text.toString());
+            final JSONTokener fromReader = new JSONTokener(new StringReader(text.toString()));
+            fromString.skipPast(to);
+            fromReader.skipPast(to);
+            assertEquals(to, fromString.toString().substring(0, fromString.toString().indexOf(" of ")),
+                fromReader.toString());
+            assertEquals(to, fromString.next(), fromReader.next());
+        }
+    }
+}
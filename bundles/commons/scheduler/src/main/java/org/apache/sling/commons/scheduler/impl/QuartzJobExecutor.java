@@ -45,6 +45,42 @@ public class QuartzJobExecutor implements Job {
     /** Is this instance the leader? */
     public static final AtomicBoolean IS_LEADER = new AtomicBoolean(true);
 
+    /**
+     * Check whether a job with the given run on information is executed on
+     * this instance, based on the current discovery information. If there is
+     * no discovery information or no Sling ID available, the job is
+     * executed anyway.
+     * @param runOn The run on information of the job or <code>null</code>
+     * @return <code>true</code> if the job is executed on this instance.
+     */
+    static boolean isExecutedOnThisInstance(final String[] runOn) {
+        if ( runOn == null ) {
+            return true;
+        }
+        if ( isRunOnLeader(runOn) ) {
+            return !DISCOVERY_INFO_AVAILABLE.get() || IS_LEADER.get();
+        }
+        final String myId = SLING_ID;
+        if ( myId == null ) {
+            return true;
+        }
+        for(final String id : runOn ) {
+            if ( myId.equals(id) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether the run on information is one of the leader or single
+     * values rather than a list of Sling IDs.
+     */
+    private static boolean isRunOnLeader(final String[] runOn) {
+        return runOn.length == 1 && (Scheduler.VALUE_RUN_ON_LEADER.equals(runOn[0])
+                                     || Scheduler.VALUE_RUN_ON_SINGLE.equals(runOn[0]));
+    }
+
     /**
      * @see org.quartz.Job#execute(org.quartz.JobExecutionContext)
      */
@@ -57,38 +93,19 @@ public class QuartzJobExecutor implements Job {
         // check run on information
         final String[] runOn = (String[])data.get(QuartzScheduler.DATA_MAP_RUN_ON);
         if ( runOn != null ) {
-            if ( runOn.length == 1 && Scheduler.VALUE_RUN_ON_LEADER.equals(runOn[0])
-                 || runOn.length == 1 && Scheduler.VALUE_RUN_ON_SINGLE.equals(runOn[0]) ) {
-                if ( DISCOVERY_INFO_AVAILABLE.get() ) {
-                    if ( !IS_LEADER.get() ) {
-                        logger.debug("Excluding job {} with name {} and config {}.",
-                                new Object[] {job, data.get(QuartzScheduler.DATA_MAP_NAME), runOn[0]});
-                        return;
-                    }
-                } else {
-                    logger.warn("No discovery info available. Executing job {} with name {} and config {} anyway.",
-                            new Object[] {job, data.get(QuartzScheduler.DATA_MAP_NAME), runOn[0]});
-                }
-            } else { // sling IDs
-                final String myId = SLING_ID;
-                boolean schedule = false;
-                if ( myId == null ) {
-                    logger.warn("No Sling ID available. Executing job {} with name {} and config {} anyway.",
-                            new Object[] {job, data.get(QuartzScheduler.DATA_MAP_NAME), Arrays.toString(runOn)});
-                    schedule = true;
-                } else {
-                    for(final String id : runOn ) {
-                        if ( myId.equals(id) ) {
-                            schedule = true;
-                            break;
-                        }
-                    }
-                }
-                if ( !schedule ) {
-                    logger.debug("Excluding job {} with name {} and config {}.",
-                            new Object[] {job, data.get(QuartzScheduler.DATA_MAP_NAME), Arrays.toString(runOn)});
-                    return;
-                }
+            final boolean leader = isRunOnLeader(runOn);
+            final String config = leader ? runOn[0] : Arrays.toString(runOn);
+            if ( !isExecutedOnThisInstance(runOn) ) {
+                logger.debug("Excluding job {} with name {} and config {}.",
+                        new Object[] {job, data.get(QuartzScheduler.DATA_MAP_NAME), config});
+                return;
+            }
+            if ( leader && !DISCOVERY_INFO_AVAILABLE.get() ) {
+                logger.warn("No discovery info available. Executing job {} with name {} and config {} anyway.",
+                        new Object[] {job, data.get(QuartzScheduler.DATA_MAP_NAME), config});
+            } else if ( !leader && SLING_ID == null ) {
+                logger.warn("No Sling ID available. Executing job {} with name {} and config {} anyway.",
+                        new Object[] {job, data.get(QuartzScheduler.DATA_MAP_NAME), config});
             }
         }
 
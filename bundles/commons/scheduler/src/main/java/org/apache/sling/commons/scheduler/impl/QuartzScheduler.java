@@ -38,6 +38,7 @@ import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
 import org.quartz.CronExpression;
 import org.quartz.CronScheduleBuilder;
+import org.quartz.CronTrigger;
 import org.quartz.JobBuilder;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
@@ -48,7 +49,9 @@ import org.quartz.SimpleTrigger;
 import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
 import org.quartz.impl.DirectSchedulerFactory;
+import org.quartz.impl.matchers.GroupMatcher;
 import org.quartz.simpl.RAMJobStore;
+import org.quartz.spi.MutableTrigger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,7 +60,7 @@ import org.slf4j.LoggerFactory;
  *
  */
 @Component(metatype=true,label="%scheduler.name",description="%scheduler.description")
-@Service(value=Scheduler.class)
+@Service(value={Scheduler.class, QuartzScheduler.class})
 public class QuartzScheduler implements Scheduler {
 
     /** Default logger. */
@@ -85,6 +88,9 @@ public class QuartzScheduler implements Scheduler {
     /** The quartz scheduler. */
     private volatile org.quartz.Scheduler scheduler;
 
+    /** Lock for scheduling and for pausing/resuming jobs restricted to some instances. */
+    private final Object ownershipLock = new Object();
+
     @Reference
     private ThreadPoolManager threadPoolManager;
 
@@ -364,6 +370,41 @@ public class QuartzScheduler implements Scheduler {
         }
     }
 
+    /**
+     * Pause all jobs which are restricted to instances and which are currently
+     * not executed on this instance, resume all others. This way Quartz does
+     * not fire triggers of jobs which are then discarded anyway.
+     * Called by the {@link TopologyHandler} on topology changes.
+     */
+    void updateJobOwnership() {
+        final org.quartz.Scheduler s = this.scheduler;
+        if ( s == null ) {
+            return;
+        }
+        synchronized ( this.ownershipLock ) {
+            try {
+                for(final JobKey key : s.getJobKeys(GroupMatcher.anyJobGroup())) {
+                    final JobDetail detail = s.getJobDetail(key);
+                    if ( detail == null ) {
+                        continue;
+                    }
+                    final String[] runOn = (String[])detail.getJobDataMap().get(DATA_MAP_RUN_ON);
+                    if ( runOn == null ) {
+                        continue;
+                    }
+                    if ( QuartzJobExecutor.isExecutedOnThisInstance(runOn) ) {
+                        s.resumeJob(key);
+                    } else {
+                        this.logger.debug("Pausing job {} not executed on this instance.", key.getName());
+                        s.pauseJob(key);
+                    }
+                }
+            } catch (final SchedulerException se) {
+                this.logger.warn("Unable to update paused jobs on topology change.", se);
+            }
+        }
+    }
+
     /** Used by the web console plugin. */
     org.quartz.Scheduler getScheduler() {
         return this.scheduler;
@@ -595,6 +636,9 @@ public class QuartzScheduler implements Scheduler {
         }
 
         final Trigger trigger = opts.trigger.withIdentity(name).build();
+        if ( opts.runOn != null ) {
+            this.skipMisfiresOnResume(trigger);
+        }
 
         // create the data map
         final JobDataMap jobDataMap = this.initDataMap(name, job, opts);
@@ -602,6 +646,28 @@ public class QuartzScheduler implements Scheduler {
         final JobDetail detail = this.createJobDetail(name, jobDataMap, opts.canRunConcurrently);
 
         this.logger.debug("Scheduling job {} with name {} and trigger {}", new Object[] {job, name, trigger});
-        s.scheduleJob(detail, trigger);
+        synchronized ( this.ownershipLock ) {
+            s.scheduleJob(detail, trigger);
+            if ( !QuartzJobExecutor.isExecutedOnThisInstance(opts.runOn) ) {
+                this.logger.debug("Pausing job {} not executed on this instance.", name);
+                s.pauseJob(detail.getKey());
+            }
+        }
+    }
+
+    /**
+     * Jobs restricted to some instances are paused while they are not
+     * executed on this instance. Repeating triggers of those jobs should not
+     * catch up on the fire times missed while paused once they are resumed,
+     * but just continue with the next fire time.
+     */
+    private void skipMisfiresOnResume(final Trigger trigger) {
+        if ( trigger instanceof MutableTrigger ) {
+            if ( trigger instanceof CronTrigger ) {
+                ((MutableTrigger)trigger).setMisfireInstruction(CronTrigger.MISFIRE_INSTRUCTION_DO_NOTHING);
+            } else if ( trigger instanceof SimpleTrigger && ((SimpleTrigger)trigger).getRepeatCount() != 0 ) {
+                ((MutableTrigger)trigger).setMisfireInstruction(SimpleTrigger.MISFIRE_INSTRUCTION_RESCHEDULE_NEXT_WITH_REMAINING_COUNT);
+            }
+        }
     }
 }
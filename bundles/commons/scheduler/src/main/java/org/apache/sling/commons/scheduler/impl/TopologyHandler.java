@@ -17,6 +17,7 @@
 package org.apache.sling.commons.scheduler.impl;
 
 import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.Service;
 import org.apache.sling.discovery.TopologyEvent;
 import org.apache.sling.discovery.TopologyEvent.Type;
@@ -30,6 +31,9 @@ import org.apache.sling.discovery.TopologyEventListener;
 @Service(value=TopologyEventListener.class)
 public class TopologyHandler implements TopologyEventListener {
 
+    @Reference
+    private QuartzScheduler scheduler;
+
     /**
      * @see org.apache.sling.discovery.TopologyEventListener#handleTopologyEvent(org.apache.sling.discovery.TopologyEvent)
      */
@@ -41,6 +45,10 @@ public class TopologyHandler implements TopologyEventListener {
         } else if ( event.getType() == Type.TOPOLOGY_CHANGING ) {
             QuartzJobExecutor.IS_LEADER.set(false);
             QuartzJobExecutor.DISCOVERY_INFO_AVAILABLE.set(false);
+        } else {
+            return;
         }
+        // pause the jobs not executed on this instance anymore, resume the others
+        this.scheduler.updateJobOwnership();
     }
 }
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.commons.scheduler.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.Dictionary;
+
+import org.apache.sling.commons.scheduler.ScheduleOptions;
+import org.apache.sling.commons.threads.ThreadPool;
+import org.apache.sling.commons.threads.ThreadPoolConfig;
+import org.apache.sling.commons.threads.ThreadPoolManager;
+import org.apache.sling.discovery.InstanceDescription;
+import org.apache.sling.discovery.TopologyEvent;
+import org.apache.sling.discovery.TopologyView;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.osgi.framework.BundleContext;
+import org.quartz.Trigger.TriggerState;
+import org.quartz.TriggerKey;
+
+/**
+ * Test that topology changes pause the jobs not executed on this
+ * instance and resume the others.
+ */
+@RunWith(JMock.class)
+public class TopologyHandlerTest {
+
+    /** A cron expression not firing during the test. */
+    private static final String EXPR = "0 0 0 1 1 ? 2099";
+
+    private final Mockery mockery = new JUnit4Mockery();
+
+    private QuartzScheduler scheduler;
+
+    private TopologyHandler handler;
+
+    private int viewCount;
+
+    private final Runnable job = new Runnable() {
+        public void run() {
+            // nothing to do
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        resetDiscoveryInfo();
+
+        final ThreadPoolManager threadPoolManager = this.mockery.mock(ThreadPoolManager.class);
+        final ThreadPool threadPool = this.mockery.mock(ThreadPool.class);
+        final ThreadPoolConfig threadPoolConfig = this.mockery.mock(ThreadPoolConfig.class);
+        final BundleContext bundleContext = this.mockery.mock(BundleContext.class);
+        this.mockery.checking(new Expectations() {{
+            allowing(threadPoolManager).get(null); will(returnValue(threadPool));
+            allowing(threadPoolManager).release(threadPool);
+            allowing(threadPool).getConfiguration(); will(returnValue(threadPoolConfig));
+            allowing(threadPoolConfig).getMaxPoolSize(); will(returnValue(5));
+            allowing(threadPoolConfig).getQueueSize(); will(returnValue(-1));
+            allowing(bundleContext).registerService(with(any(String.class)), with(any(Object.class)), with(any(Dictionary.class)));
+            will(returnValue(null));
+        }});
+
+        this.scheduler = new QuartzScheduler();
+        setField(this.scheduler, "threadPoolManager", threadPoolManager);
+        this.scheduler.activate(bundleContext, Collections.<String, Object> emptyMap());
+
+        this.handler = new TopologyHandler();
+        setField(this.handler, "scheduler", this.scheduler);
+
+        schedule("leader", this.scheduler.EXPR(EXPR).onLeaderOnly(true));
+        schedule("single", this.scheduler.EXPR(EXPR).onSingleInstanceOnly(true));
+        schedule("instances", this.scheduler.EXPR(EXPR).onInstancesOnly(new String[] {"id-1", "id-3"}));
+        schedule("everywhere", this.scheduler.EXPR(EXPR));
+    }
+
+    @After
+    public void tearDown() {
+        this.scheduler.deactivate();
+        resetDiscoveryInfo();
+    }
+
+    @Test
+    public void testNoDiscoveryInfo() throws Exception {
+        assertRunning("leader", "single", "instances", "everywhere");
+    }
+
+    @Test
+    public void testInitAsLeader() throws Exception {
+        this.handler.handleTopologyEvent(new TopologyEvent(TopologyEvent.Type.TOPOLOGY_INIT, null, view("id-1", true)));
+        assertRunning("leader", "single", "instances", "everywhere");
+    }
+
+    @Test
+    public void testInitAsOtherInstance() throws Exception {
+        this.handler.handleTopologyEvent(new TopologyEvent(TopologyEvent.Type.TOPOLOGY_INIT, null, view("id-2", false)));
+        assertPaused("leader", "single", "instances");
+        assertRunning("everywhere");
+    }
+
+    @Test
+    public void testLeaderChanges() throws Exception {
+        final TopologyView first = view("id-1", false);
+        this.handler.handleTopologyEvent(new TopologyEvent(TopologyEvent.Type.TOPOLOGY_INIT, null, first));
+        assertPaused("leader", "single");
+        assertRunning("instances", "everywhere");
+
+        // this instance becomes the leader
+        final TopologyView second = view("id-1", true);
+        this.handler.handleTopologyEvent(new TopologyEvent(TopologyEvent.Type.TOPOLOGY_CHANGED, first, second));
+        assertRunning("leader", "single", "instances", "everywhere");
+
+        // and loses it again
+        final TopologyView third = view("id-1", false);
+        this.handler.handleTopologyEvent(new TopologyEvent(TopologyEvent.Type.TOPOLOGY_CHANGED, second, third));
+        assertPaused("leader", "single");
+        assertRunning("instances", "everywhere");
+    }
+
+    @Test
+    public void testTopologyChanging() throws Exception {
+        final TopologyView view = view("id-2", false);
+        this.handler.handleTopologyEvent(new TopologyEvent(TopologyEvent.Type.TOPOLOGY_INIT, null, view));
+        assertPaused("leader", "single", "instances");
+
+        // without discovery information leader jobs run anyway,
+        // jobs for other instances stay paused
+        this.handler.handleTopologyEvent(new TopologyEvent(TopologyEvent.Type.TOPOLOGY_CHANGING, view, null));
+        assertRunning("leader", "single", "everywhere");
+        assertPaused("instances");
+    }
+
+    @Test
+    public void testPropertiesChangedIgnored() throws Exception {
+        final TopologyView view = view("id-2", false);
+        this.handler.handleTopologyEvent(new TopologyEvent(TopologyEvent.Type.TOPOLOGY_INIT, null, view));
+        this.handler.handleTopologyEvent(new TopologyEvent(TopologyEvent.Type.PROPERTIES_CHANGED, view, view("id-2", true)));
+        assertPaused("leader", "single", "instances");
+    }
+
+    @Test
+    public void testJobScheduledWhileNotOwned() throws Exception {
+        this.handler.handleTopologyEvent(new TopologyEvent(TopologyEvent.Type.TOPOLOGY_INIT, null, view("id-3", false)));
+        schedule("new-leader", this.scheduler.EXPR(EXPR).onLeaderOnly(true));
+        schedule("new-instances", this.scheduler.EXPR(EXPR).onInstancesOnly(new String[] {"id-3"}));
+        assertPaused("new-leader");
+        assertRunning("new-instances", "instances");
+    }
+
+    private void schedule(final String name, final ScheduleOptions options) {
+        assertTrue(this.scheduler.schedule(this.job, options.name(name)));
+    }
+
+    private TopologyView view(final String slingId, final boolean isLeader) {
+        this.viewCount++;
+        final TopologyView view = this.mockery.mock(TopologyView.class, "view" + this.viewCount);
+        final InstanceDescription local = this.mockery.mock(InstanceDescription.class, "local" + this.viewCount);
+        this.mockery.checking(new Expectations() {{
+            allowing(view).getLocalInstance(); will(returnValue(local));
+            allowing(local).getSlingId(); will(returnValue(slingId));
+            allowing(local).isLeader(); will(returnValue(isLeader));
+        }});
+        return view;
+    }
+
+    private void assertPaused(final String... names) throws Exception {
+        for (final String name : names) {
+            assertEquals(name, TriggerState.PAUSED, getState(name));
+        }
+    }
+
+    private void assertRunning(final String... names) throws Exception {
+        for (final String name : names) {
+            assertEquals(name, TriggerState.NORMAL, getState(name));
+        }
+    }
+
+    private TriggerState getState(final String name) throws Exception {
+        return this.scheduler.getScheduler().getTriggerState(TriggerKey.triggerKey(name));
+    }
+
+    private static void resetDiscoveryInfo() {
+        QuartzJobExecutor.DISCOVERY_INFO_AVAILABLE.set(false);
+        QuartzJobExecutor.IS_LEADER.set(true);
+        QuartzJobExecutor.SLING_ID = null;
+    }
+
+    private static void setField(final Object o, final String name, final Object value) throws Exception {
+        final Field f = o.getClass().getDeclaredField(name);
+        f.setAccessible(true);
+        f.set(o, value);
+    }
+}
@@ -53,6 +53,9 @@ public class DefaultThreadPool
 
     protected final ModifiableThreadPoolConfig configuration;
 
+    /** The statistics of the executed tasks. */
+    protected final TaskStatistics statistics;
+
     /**
      * Create a new thread pool.
      * @param name - The name of the thread pool. If null {@link DefaultThreadPoolManager#DEFAULT_THREADPOOL_NAME}
@@ -126,13 +129,15 @@ public class DefaultThreadPool
                 handler = new ThreadPoolExecutor.CallerRunsPolicy();
                 break;
         }
-        this.executor = new ThreadPoolExecutor(this.configuration.getMinPoolSize(),
+        final StatisticsThreadPoolExecutor statisticsExecutor = new StatisticsThreadPoolExecutor(this.configuration.getMinPoolSize(),
                 this.configuration.getMaxPoolSize(),
                 this.configuration.getKeepAliveTime(),
                 TimeUnit.MILLISECONDS,
                 queue,
                 threadFactory,
                 handler);
+        this.statistics = statisticsExecutor.getStatistics();
+        this.executor = statisticsExecutor;
         this.logger.info("Thread pool [{}] initialized.", name);
     }
 
@@ -219,6 +224,13 @@ public class DefaultThreadPool
         return this.executor;
     }
 
+    /**
+     * Return the statistics of the tasks executed by this pool.
+     */
+    public TaskStatistics getStatistics() {
+        return this.statistics;
+    }
+
     private void checkExecutor() {
         if ( this.executor == null ) {
             throw new IllegalStateException("Thread pool " + this.name + " is already shutdown.");
@@ -404,6 +404,13 @@ public class DefaultThreadPoolManager
             return null;
         }
 
+        public TaskStatistics getStatistics() {
+            if ( this.pool != null ) {
+                return this.pool.getStatistics();
+            }
+            return null;
+        }
+
         protected void unregisterMBean() {
             if ( this.mbeanRegistration != null ) {
                 this.mbeanRegistration.unregister();
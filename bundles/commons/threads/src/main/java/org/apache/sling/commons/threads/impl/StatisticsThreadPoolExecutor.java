@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.commons.threads.impl;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A thread pool executor recording the queue wait time and the execution
+ * time of each task in the {@link TaskStatistics}.
+ * <p>
+ * The tasks are queued as they are, so the queue, <code>remove</code> and
+ * <code>shutdownNow</code> work on the submitted tasks. The time a task has
+ * been queued is kept in a map with weak keys, which also drops the entries
+ * of tasks removed from the queue or rejected.
+ */
+class StatisticsThreadPoolExecutor extends ThreadPoolExecutor {
+
+    private final TaskStatistics statistics = new TaskStatistics();
+
+    /** The time in nanoseconds the tasks waiting in the queue have been queued. */
+    private final Map<Runnable, Long> queued = Collections.synchronizedMap(new WeakHashMap<Runnable, Long>());
+
+    /** The time in nanoseconds the task run by the current thread has been started. */
+    private final ThreadLocal<long[]> started = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
+
+    StatisticsThreadPoolExecutor(final int corePoolSize,
+            final int maximumPoolSize,
+            final long keepAliveTime,
+            final TimeUnit unit,
+            final BlockingQueue<Runnable> workQueue,
+            final ThreadFactory threadFactory,
+            final RejectedExecutionHandler handler) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler);
+    }
+
+    TaskStatistics getStatistics() {
+        return this.statistics;
+    }
+
+    /**
+     * Remember the time the command has been queued.
+     * @see java.util.concurrent.ThreadPoolExecutor#execute(java.lang.Runnable)
+     */
+    @Override
+    public void execute(final Runnable command) {
+        if ( command == null ) {
+            throw new NullPointerException();
+        }
+        this.queued.put(command, System.nanoTime());
+        super.execute(command);
+    }
+
+    @Override
+    protected void beforeExecute(final Thread t, final Runnable r) {
+        super.beforeExecute(t, r);
+        final long now = System.nanoTime();
+        this.started.get()[0] = now;
+        final Long queuedAt = this.queued.remove(r);
+        if ( queuedAt != null ) {
+            this.statistics.recordQueueWait(now - queuedAt);
+        }
+    }
+
+    @Override
+    protected void afterExecute(final Runnable r, final Throwable t) {
+        this.statistics.recordExecution(System.nanoTime() - this.started.get()[0]);
+        super.afterExecute(r, t);
+    }
+}
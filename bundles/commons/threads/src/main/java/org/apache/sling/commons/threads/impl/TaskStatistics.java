@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.commons.threads.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The task statistics collect the queue wait times and the execution times
+ * of the tasks run by a thread pool. The times are recorded in histograms
+ * with fixed buckets.
+ */
+final class TaskStatistics {
+
+    /**
+     * The upper bounds (inclusive, in ms) of the histogram buckets. An
+     * additional last bucket holds all larger values.
+     */
+    private static final long[] BUCKET_BOUNDS = {1, 10, 100, 1000, 10000, 60000};
+
+    private final AtomicLongArray queueWaitHistogram = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+
+    private final AtomicLongArray executionHistogram = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+
+    private final AtomicLong queueWaitCount = new AtomicLong();
+
+    private final AtomicLong queueWaitTotalNanos = new AtomicLong();
+
+    private final AtomicLong executionCount = new AtomicLong();
+
+    private final AtomicLong executionTotalNanos = new AtomicLong();
+
+    /**
+     * Record the time a task waited in the queue.
+     * @param nanos The wait time in nanoseconds.
+     */
+    void recordQueueWait(final long nanos) {
+        queueWaitCount.incrementAndGet();
+        queueWaitTotalNanos.addAndGet(nanos);
+        queueWaitHistogram.incrementAndGet(getBucket(nanos));
+    }
+
+    /**
+     * Record the execution time of a task.
+     * @param nanos The execution time in nanoseconds.
+     */
+    void recordExecution(final long nanos) {
+        executionCount.incrementAndGet();
+        executionTotalNanos.addAndGet(nanos);
+        executionHistogram.incrementAndGet(getBucket(nanos));
+    }
+
+    /**
+     * Return the labels of the histogram buckets.
+     * @return The labels, one per bucket.
+     */
+    public String[] getHistogramBuckets() {
+        final String[] labels = new String[BUCKET_BOUNDS.length + 1];
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            labels[i] = "<= " + BUCKET_BOUNDS[i] + "ms";
+        }
+        labels[BUCKET_BOUNDS.length] = "> " + BUCKET_BOUNDS[BUCKET_BOUNDS.length - 1] + "ms";
+        return labels;
+    }
+
+    /**
+     * Return the queue wait time histogram.
+     * @return The number of tasks per bucket.
+     */
+    public long[] getQueueWaitTimeHistogram() {
+        return toArray(queueWaitHistogram);
+    }
+
+    /**
+     * Return the execution time histogram.
+     * @return The number of tasks per bucket.
+     */
+    public long[] getExecutionTimeHistogram() {
+        return toArray(executionHistogram);
+    }
+
+    /**
+     * Return the average queue wait time.
+     * @return The average queue wait time in ms.
+     */
+    public double getAverageQueueWaitTimeMs() {
+        return average(queueWaitTotalNanos.get(), queueWaitCount.get());
+    }
+
+    /**
+     * Return the average execution time.
+     * @return The average execution time in ms.
+     */
+    public double getAverageExecutionTimeMs() {
+        return average(executionTotalNanos.get(), executionCount.get());
+    }
+
+    private static int getBucket(final long nanos) {
+        final long millis = nanos / 1000000L;
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            if (millis <= BUCKET_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS.length;
+    }
+
+    private static long[] toArray(final AtomicLongArray histogram) {
+        final long[] result = new long[histogram.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = histogram.get(i);
+        }
+        return result;
+    }
+
+    private static double average(final long totalNanos, final long count) {
+        if (count == 0) {
+            return 0;
+        }
+        return totalNanos / 1000000.0 / count;
+    }
+}
@@ -100,6 +100,51 @@ class ThreadPoolMBeanImpl extends StandardMBean implements ThreadPoolMBean {
         }
     }
 
+    public String[] getTaskHistogramBuckets() {
+        final TaskStatistics statistics = this.entry.getStatistics();
+        if ( statistics != null ) {
+            return statistics.getHistogramBuckets();
+        } else {
+            return null;
+        }
+    }
+
+    public long[] getTaskQueueWaitTimeHistogram() {
+        final TaskStatistics statistics = this.entry.getStatistics();
+        if ( statistics != null ) {
+            return statistics.getQueueWaitTimeHistogram();
+        } else {
+            return null;
+        }
+    }
+
+    public long[] getTaskExecutionTimeHistogram() {
+        final TaskStatistics statistics = this.entry.getStatistics();
+        if ( statistics != null ) {
+            return statistics.getExecutionTimeHistogram();
+        } else {
+            return null;
+        }
+    }
+
+    public double getTaskAverageQueueWaitTimeMs() {
+        final TaskStatistics statistics = this.entry.getStatistics();
+        if ( statistics != null ) {
+            return statistics.getAverageQueueWaitTimeMs();
+        } else {
+            return -1;
+        }
+    }
+
+    public double getTaskAverageExecutionTimeMs() {
+        final TaskStatistics statistics = this.entry.getStatistics();
+        if ( statistics != null ) {
+            return statistics.getAverageExecutionTimeMs();
+        } else {
+            return -1;
+        }
+    }
+
     public long getKeepAliveTime() {
         return this.entry.getConfig().getKeepAliveTime();
     }
@@ -121,6 +121,24 @@ public class WebConsolePrinter {
                     pw.print("- task count : ");
                     pw.println(tpe.getTaskCount());
                 }
+                final TaskStatistics statistics = entry.getStatistics();
+                if ( statistics != null ) {
+                    final String[] buckets = statistics.getHistogramBuckets();
+                    final long[] queueWait = statistics.getQueueWaitTimeHistogram();
+                    final long[] execution = statistics.getExecutionTimeHistogram();
+                    pw.print("- average queue wait time (ms) : ");
+                    pw.println(statistics.getAverageQueueWaitTimeMs());
+                    pw.print("- average execution time (ms) : ");
+                    pw.println(statistics.getAverageExecutionTimeMs());
+                    for(int i=0; i<buckets.length; i++) {
+                        pw.print("- tasks queue wait / execution ");
+                        pw.print(buckets[i]);
+                        pw.print(" : ");
+                        pw.print(queueWait[i]);
+                        pw.print(" / ");
+                        pw.println(execution[i]);
+                    }
+                }
                 pw.println();
             }
         } else {
@@ -79,6 +79,45 @@ public interface ThreadPoolMBean {
      */
     long getExecutorTaskCount();
 
+    /**
+     * Retrieve the labels of the buckets of the task time histograms.
+     * 
+     * @return the bucket labels or null if the thread pool does not have an Executor
+     */
+    String[] getTaskHistogramBuckets();
+
+    /**
+     * Retrieve the histogram of the times tasks waited in the queue before
+     * being executed. Each value is the number of tasks in the bucket with
+     * the same index in {@link #getTaskHistogramBuckets()}.
+     * 
+     * @return the queue wait time histogram or null if the thread pool does not have an Executor
+     */
+    long[] getTaskQueueWaitTimeHistogram();
+
+    /**
+     * Retrieve the histogram of the task execution times. Each value is the
+     * number of tasks in the bucket with the same index in
+     * {@link #getTaskHistogramBuckets()}.
+     * 
+     * @return the execution time histogram or null if the thread pool does not have an Executor
+     */
+    long[] getTaskExecutionTimeHistogram();
+
+    /**
+     * Retrieve the average time tasks waited in the queue.
+     * 
+     * @return the average queue wait time in ms or -1 if the thread pool does not have an Executor
+     */
+    double getTaskAverageQueueWaitTimeMs();
+
+    /**
+     * Retrieve the average task execution time.
+     * 
+     * @return the average execution time in ms or -1 if the thread pool does not have an Executor
+     */
+    double getTaskAverageExecutionTimeMs();
+
     /**
      * Return the configured keep alive time.
      * 
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.commons.threads.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StatisticsThreadPoolExecutorTest {
+
+    private StatisticsThreadPoolExecutor executor;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    /** Blocks the single thread of the executor until released. */
+    private final Runnable blocker = new Runnable() {
+        public void run() {
+            try {
+                release.await();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    };
+
+    @Before
+    public void setUp() {
+        executor = new StatisticsThreadPoolExecutor(1, 1, 1000, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), Executors.defaultThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testQueuedTasksAreNotWrapped() {
+        final Runnable task = new Runnable() {
+            public void run() {
+            }
+        };
+        executor.execute(blocker);
+        executor.execute(task);
+        assertSame(task, executor.getQueue().peek());
+        assertTrue(executor.remove(task));
+        executor.execute(task);
+
+        final List<Runnable> pending = executor.shutdownNow();
+        assertEquals(1, pending.size());
+        assertSame(task, pending.get(0));
+    }
+
+    @Test
+    public void testStatistics() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(2);
+        final Runnable task = new Runnable() {
+            public void run() {
+                done.countDown();
+            }
+        };
+        executor.execute(blocker);
+        executor.execute(task);
+        executor.execute(task);
+        Thread.sleep(20);
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        final TaskStatistics statistics = executor.getStatistics();
+        assertEquals(3, sum(statistics.getExecutionTimeHistogram()));
+        // the same task queued twice is timed once, the entry of the first
+        // submission has been replaced
+        final long waits = sum(statistics.getQueueWaitTimeHistogram());
+        assertTrue(waits >= 2 && waits <= 3);
+        assertTrue(statistics.getAverageQueueWaitTimeMs() > 0);
+        assertTrue(statistics.getAverageExecutionTimeMs() > 0);
+    }
+
+    private static long sum(final long[] histogram) {
+        long sum = 0;
+        for (final long count : histogram) {
+            sum += count;
+        }
+        return sum;
+    }
+}
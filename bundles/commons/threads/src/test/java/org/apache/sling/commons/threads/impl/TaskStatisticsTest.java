@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.commons.threads.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TaskStatisticsTest {
+
+    private static final long MS = 1000000L;
+
+    @Test
+    public void testEmpty() {
+        final TaskStatistics statistics = new TaskStatistics();
+        assertEquals(0, statistics.getAverageQueueWaitTimeMs(), 0);
+        assertEquals(0, statistics.getAverageExecutionTimeMs(), 0);
+        assertArrayEquals(new long[7], statistics.getQueueWaitTimeHistogram());
+        assertArrayEquals(new long[7], statistics.getExecutionTimeHistogram());
+    }
+
+    @Test
+    public void testBuckets() {
+        final TaskStatistics statistics = new TaskStatistics();
+        assertArrayEquals(new String[] {"<= 1ms", "<= 10ms", "<= 100ms", "<= 1000ms", "<= 10000ms", "<= 60000ms",
+                "> 60000ms"}, statistics.getHistogramBuckets());
+
+        // bounds are inclusive
+        statistics.recordExecution(0);
+        statistics.recordExecution(1 * MS);
+        statistics.recordExecution(2 * MS);
+        statistics.recordExecution(10 * MS);
+        statistics.recordExecution(1000 * MS);
+        statistics.recordExecution(60001 * MS);
+        assertArrayEquals(new long[] {2, 2, 0, 1, 0, 0, 1}, statistics.getExecutionTimeHistogram());
+        assertArrayEquals(new long[7], statistics.getQueueWaitTimeHistogram());
+    }
+
+    @Test
+    public void testAverages() {
+        final TaskStatistics statistics = new TaskStatistics();
+        statistics.recordQueueWait(1 * MS);
+        statistics.recordQueueWait(4 * MS);
+        statistics.recordExecution(10 * MS);
+        assertEquals(2.5, statistics.getAverageQueueWaitTimeMs(), 0.001);
+        assertEquals(10, statistics.getAverageExecutionTimeMs(), 0.001);
+        assertArrayEquals(new long[] {1, 1, 0, 0, 0, 0, 0}, statistics.getQueueWaitTimeHistogram());
+    }
+}
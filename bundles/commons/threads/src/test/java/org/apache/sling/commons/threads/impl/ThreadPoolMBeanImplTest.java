@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.commons.threads.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.commons.threads.ModifiableThreadPoolConfig;
+import org.apache.sling.commons.threads.ThreadPool;
+import org.apache.sling.commons.threads.impl.DefaultThreadPoolManager.Entry;
+import org.junit.Test;
+
+public class ThreadPoolMBeanImplTest {
+
+    @Test
+    public void testTaskStatistics() throws Exception {
+        final Entry entry = new Entry(null, new ModifiableThreadPoolConfig(), "test", null);
+        final ThreadPoolMBeanImpl mbean = new ThreadPoolMBeanImpl(entry);
+
+        final ThreadPool pool = entry.incUsage();
+        final CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            pool.execute(new Runnable() {
+                public void run() {
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        entry.getExecutor().shutdown();
+        assertTrue(entry.getExecutor().awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(7, mbean.getTaskHistogramBuckets().length);
+        assertEquals(3, sum(mbean.getTaskQueueWaitTimeHistogram()));
+        assertEquals(3, sum(mbean.getTaskExecutionTimeHistogram()));
+        assertTrue(mbean.getTaskAverageQueueWaitTimeMs() >= 0);
+        assertTrue(mbean.getTaskAverageExecutionTimeMs() >= 0);
+
+        entry.decUsage();
+        assertNull(mbean.getTaskHistogramBuckets());
+        assertNull(mbean.getTaskQueueWaitTimeHistogram());
+        assertNull(mbean.getTaskExecutionTimeHistogram());
+        assertEquals(-1, mbean.getTaskAverageQueueWaitTimeMs(), 0);
+        assertEquals(-1, mbean.getTaskAverageExecutionTimeMs(), 0);
+    }
+
+    private static long sum(final long[] histogram) {
+        long sum = 0;
+        for (final long count : histogram) {
+            sum += count;
+        }
+        return sum;
+    }
+}
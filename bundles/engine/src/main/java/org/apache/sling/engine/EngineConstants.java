@@ -231,6 +231,72 @@ public class EngineConstants {
      */
     public static final String FILTER_SCOPE_REQUEST = "REQUEST";
 
+    /**
+     * The name of the service registration property of a
+     * <code>javax.servlet.Filter</code> service restricting the filter to
+     * resources whose path starts with one of the given path prefixes. A
+     * prefix matches the resource at that path and all resources below it.
+     * <p>
+     * The property is expected to be a scalar String, an array of Strings or
+     * a Vector of Strings. If it is missing the filter applies to all paths.
+     * <p>
+     * Filters restricted by this or any of the other <code>sling.filter.*</code>
+     * conditions are not called at all for requests, includes and forwards
+     * they do not apply to. If more than one condition is set, all of them
+     * must match.
+     *
+     * @see #SLING_FILTER_RESOURCE_TYPES
+     * @see #SLING_FILTER_EXTENSIONS
+     * @see #SLING_FILTER_METHODS
+     * @since 2.2, Sling Engine 2.3
+     */
+    public static final String SLING_FILTER_PATHS = "sling.filter.paths";
+
+    /**
+     * The name of the service registration property of a
+     * <code>javax.servlet.Filter</code> service restricting the filter to
+     * resources of one of the given resource types. The resource type of the
+     * resource must be equal to one of the values, super types are not
+     * considered.
+     * <p>
+     * The property is expected to be a scalar String, an array of Strings or
+     * a Vector of Strings. If it is missing the filter applies to all resource
+     * types.
+     *
+     * @see #SLING_FILTER_PATHS
+     * @since 2.2, Sling Engine 2.3
+     */
+    public static final String SLING_FILTER_RESOURCE_TYPES = "sling.filter.resourceTypes";
+
+    /**
+     * The name of the service registration property of a
+     * <code>javax.servlet.Filter</code> service restricting the filter to
+     * requests with one of the given extensions. Requests without an
+     * extension do not match.
+     * <p>
+     * The property is expected to be a scalar String, an array of Strings or
+     * a Vector of Strings. If it is missing the filter applies to all
+     * extensions.
+     *
+     * @see #SLING_FILTER_PATHS
+     * @since 2.2, Sling Engine 2.3
+     */
+    public static final String SLING_FILTER_EXTENSIONS = "sling.filter.extensions";
+
+    /**
+     * The name of the service registration property of a
+     * <code>javax.servlet.Filter</code> service restricting the filter to
+     * requests with one of the given HTTP methods. Case of the values is
+     * ignored.
+     * <p>
+     * The property is expected to be a scalar String, an array of Strings or
+     * a Vector of Strings. If it is missing the filter applies to all methods.
+     *
+     * @see #SLING_FILTER_PATHS
+     * @since 2.2, Sling Engine 2.3
+     */
+    public static final String SLING_FILTER_METHODS = "sling.filter.methods";
+
     /**
      * The name of the service registration property previously used to place an
      * order amongst filters. Starting with the Sling Engine 2.2, filters should
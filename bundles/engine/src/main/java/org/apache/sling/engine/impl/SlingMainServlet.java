@@ -18,6 +18,7 @@
  */
 package org.apache.sling.engine.impl;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.SocketException;
 import java.util.ArrayList;
@@ -59,6 +60,7 @@ import org.apache.sling.engine.impl.helper.SlingServletContext;
 import org.apache.sling.engine.impl.parameters.ParameterSupport;
 import org.apache.sling.engine.impl.request.RequestData;
 import org.apache.sling.engine.impl.request.RequestHistoryConsolePlugin;
+import org.apache.sling.engine.impl.request.RequestTraceExporter;
 import org.apache.sling.engine.jmx.RequestProcessorMBean;
 import org.apache.sling.engine.servlets.ErrorHandler;
 import org.osgi.framework.BundleContext;
@@ -111,6 +113,27 @@ public class SlingMainServlet extends GenericServlet {
     @Property
     private static final String PROP_DEFAULT_PARAMETER_ENCODING = "sling.default.parameter.encoding";
 
+    @Property(intValue = 0)
+    private static final String PROP_TRACE_SAMPLE_RATE = "sling.tracker.sample.rate";
+
+    @Property(longValue = 0)
+    private static final String PROP_TRACE_SLOW_THRESHOLD = "sling.tracker.slow.threshold";
+
+    private static final String DEFAULT_TRACE_FILE = "logs/request-trace.json";
+
+    @Property(value = DEFAULT_TRACE_FILE)
+    private static final String PROP_TRACE_FILE = "sling.tracker.trace.file";
+
+    private static final long DEFAULT_TRACE_FILE_SIZE = 10 * 1024 * 1024;
+
+    @Property(longValue = DEFAULT_TRACE_FILE_SIZE)
+    private static final String PROP_TRACE_FILE_SIZE = "sling.tracker.trace.file.size";
+
+    private static final int DEFAULT_TRACE_FILE_COUNT = 5;
+
+    @Property(intValue = DEFAULT_TRACE_FILE_COUNT)
+    private static final String PROP_TRACE_FILE_COUNT = "sling.tracker.trace.file.count";
+
     @Reference
     private HttpService httpService;
 
@@ -172,6 +195,8 @@ public class SlingMainServlet extends GenericServlet {
 
     private ServiceRegistration requestProcessorMBeanRegistration;
 
+    private RequestTraceExporter traceExporter;
+
     // ---------- Servlet API -------------------------------------------------
 
     @Override
@@ -438,6 +463,20 @@ public class SlingMainServlet extends GenericServlet {
             log.debug("Unable to register mbean");
         }
 
+        // setup the export of sampled request traces
+        final RequestTraceExporter exporter = new RequestTraceExporter(
+            OsgiUtil.toInteger(componentConfig.get(PROP_TRACE_SAMPLE_RATE), 0),
+            OsgiUtil.toLong(componentConfig.get(PROP_TRACE_SLOW_THRESHOLD), 0),
+            getTraceFile(bundleContext, OsgiUtil.toString(componentConfig.get(PROP_TRACE_FILE), DEFAULT_TRACE_FILE)),
+            OsgiUtil.toLong(componentConfig.get(PROP_TRACE_FILE_SIZE), DEFAULT_TRACE_FILE_SIZE),
+            OsgiUtil.toInteger(componentConfig.get(PROP_TRACE_FILE_COUNT), DEFAULT_TRACE_FILE_COUNT));
+        if (exporter.isEnabled()) {
+            traceExporter = exporter;
+            requestProcessor.setTraceExporter(exporter);
+        } else {
+            exporter.dispose();
+        }
+
         // provide the SlingRequestProcessor service
         Hashtable<String, String> srpProps = new Hashtable<String, String>();
         srpProps.put(Constants.SERVICE_VENDOR, "The Apache Software Foundation");
@@ -451,6 +490,21 @@ public class SlingMainServlet extends GenericServlet {
         setServerInfo();
     }
 
+    /**
+     * Resolves a relative trace file name against the <code>sling.home</code>
+     * directory.
+     */
+    private File getTraceFile(final BundleContext bundleContext, final String fileName) {
+        File file = new File(fileName);
+        if (!file.isAbsolute()) {
+            final String home = bundleContext.getProperty("sling.home");
+            if (home != null) {
+                file = new File(home, fileName);
+            }
+        }
+        return file.getAbsoluteFile();
+    }
+
     @Deactivate
     protected void deactivate() {
         // unregister the sling request processor
@@ -464,6 +518,12 @@ public class SlingMainServlet extends GenericServlet {
             requestProcessorMBeanRegistration = null;
         }
 
+        if (traceExporter != null) {
+            requestProcessor.setTraceExporter(null);
+            traceExporter.dispose();
+            traceExporter = null;
+        }
+
         // unregister request recorder plugin
         try {
             RequestHistoryConsolePlugin.destroyPlugin();
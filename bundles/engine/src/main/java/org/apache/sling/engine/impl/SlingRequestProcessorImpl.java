@@ -56,6 +56,7 @@ import org.apache.sling.engine.impl.filter.SlingComponentFilterChain;
 import org.apache.sling.engine.impl.request.ContentData;
 import org.apache.sling.engine.impl.request.RequestData;
 import org.apache.sling.engine.impl.request.RequestHistoryConsolePlugin;
+import org.apache.sling.engine.impl.request.RequestTraceExporter;
 import org.apache.sling.engine.servlets.ErrorHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -77,6 +78,8 @@ public class SlingRequestProcessorImpl implements SlingRequestProcessor {
 
     private RequestProcessorMBeanImpl mbean;
 
+    private volatile RequestTraceExporter traceExporter;
+
     // ---------- helper setters
 
     void setServerInfo(final String serverInfo) {
@@ -111,6 +114,10 @@ public class SlingRequestProcessorImpl implements SlingRequestProcessor {
         this.mbean = mbean;
     }
 
+    void setTraceExporter(final RequestTraceExporter traceExporter) {
+        this.traceExporter = traceExporter;
+    }
+
     // ---------- SlingRequestProcessor interface
 
     public void processRequest(final HttpServletRequest servletRequest,
@@ -140,7 +147,7 @@ public class SlingRequestProcessorImpl implements SlingRequestProcessor {
             Resource resource = requestData.initResource(resourceResolver);
             requestData.initServlet(resource, sr);
 
-            Filter[] filters = filterManager.getFilters(FilterChainType.REQUEST);
+            Filter[] filters = filterManager.getFilters(FilterChainType.REQUEST, request);
             if (filters != null) {
                 FilterChain processor = new RequestSlingFilterChain(this,
                     filters);
@@ -229,6 +236,10 @@ public class SlingRequestProcessorImpl implements SlingRequestProcessor {
             if (mbean != null) {
                 mbean.addRequestData(requestData);
             }
+            final RequestTraceExporter exporter = traceExporter;
+            if (exporter != null) {
+                exporter.requestDone(requestData);
+            }
         }
     }
 
@@ -250,7 +261,7 @@ public class SlingRequestProcessorImpl implements SlingRequestProcessor {
             final FilterChainType filterChainType) throws IOException,
             ServletException {
 
-        Filter filters[] = filterManager.getFilters(filterChainType);
+        Filter filters[] = filterManager.getFilters(filterChainType, request);
         if (filters != null) {
 
             FilterChain processor = new SlingComponentFilterChain(filters);
@@ -312,7 +323,7 @@ public class SlingRequestProcessorImpl implements SlingRequestProcessor {
         // the response output stream if reset does not reset this
         response = new ErrorResponseWrapper(response);
 
-        Filter[] filters = filterManager.getFilters(FilterChainType.ERROR);
+        Filter[] filters = filterManager.getFilters(FilterChainType.ERROR, request);
         if (filters != null && filters.length > 0) {
             FilterChain processor = new AbstractSlingFilterChain(filters) {
 
@@ -344,7 +355,7 @@ public class SlingRequestProcessorImpl implements SlingRequestProcessor {
         // the response output stream if reset does not reset this
         response = new ErrorResponseWrapper(response);
 
-        Filter[] filters = filterManager.getFilters(FilterChainType.ERROR);
+        Filter[] filters = filterManager.getFilters(FilterChainType.ERROR, request);
         if (filters != null && filters.length > 0) {
             FilterChain processor = new AbstractSlingFilterChain(filters) {
 
@@ -89,7 +89,13 @@ public class WebConsoleConfigPrinter {
                 pw.print(entry.getFilter().getClass());
                 pw.print(" (");
                 pw.print(entry.getFitlerId());
-                pw.println(")");
+                pw.print(")");
+                if ( entry.getPredicate() != null ) {
+                    pw.print(" [");
+                    pw.print(entry.getPredicate());
+                    pw.print("]");
+                }
+                pw.println();
             }
         }
     }
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl.filter;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.commons.osgi.OsgiUtil;
+import org.apache.sling.engine.EngineConstants;
+import org.osgi.framework.ServiceReference;
+
+/**
+ * The <code>FilterPredicate</code> holds the conditions declared by the
+ * <code>sling.filter.*</code> service properties of a filter and decides
+ * whether the filter applies to the current request, include or forward.
+ * Instances are immutable.
+ */
+public class FilterPredicate {
+
+    /** The path prefixes, without trailing slash, or <code>null</code> */
+    private final String[] paths;
+
+    private final Set<String> resourceTypes;
+
+    private final Set<String> extensions;
+
+    /** The upper case methods or <code>null</code> */
+    private final Set<String> methods;
+
+    private FilterPredicate(final String[] paths, final Set<String> resourceTypes,
+            final Set<String> extensions, final Set<String> methods) {
+        this.paths = paths;
+        this.resourceTypes = resourceTypes;
+        this.extensions = extensions;
+        this.methods = methods;
+    }
+
+    /**
+     * Creates the predicate for the filter service or returns
+     * <code>null</code> if the service does not declare any condition.
+     */
+    public static FilterPredicate create(final ServiceReference reference) {
+        String[] paths = toArray(reference.getProperty(EngineConstants.SLING_FILTER_PATHS));
+        final Set<String> resourceTypes = toSet(reference.getProperty(EngineConstants.SLING_FILTER_RESOURCE_TYPES), false);
+        final Set<String> extensions = toSet(reference.getProperty(EngineConstants.SLING_FILTER_EXTENSIONS), false);
+        final Set<String> methods = toSet(reference.getProperty(EngineConstants.SLING_FILTER_METHODS), true);
+        if (paths == null && resourceTypes == null && extensions == null && methods == null) {
+            return null;
+        }
+        if (paths != null) {
+            for (int i = 0; i < paths.length; i++) {
+                if (paths[i].length() > 1 && paths[i].endsWith("/")) {
+                    paths[i] = paths[i].substring(0, paths[i].length() - 1);
+                }
+            }
+        }
+        return new FilterPredicate(paths, resourceTypes, extensions, methods);
+    }
+
+    /**
+     * Returns <code>true</code> if the filter applies to the request in its
+     * current dispatch state.
+     */
+    public boolean matches(final SlingHttpServletRequest request) {
+        if (this.methods != null && !this.methods.contains(request.getMethod().toUpperCase())) {
+            return false;
+        }
+        if (this.extensions != null) {
+            final String extension = request.getRequestPathInfo().getExtension();
+            if (extension == null || !this.extensions.contains(extension)) {
+                return false;
+            }
+        }
+        if (this.paths != null || this.resourceTypes != null) {
+            final Resource resource = request.getResource();
+            if (resource == null) {
+                return false;
+            }
+            if (this.resourceTypes != null && !this.resourceTypes.contains(resource.getResourceType())) {
+                return false;
+            }
+            if (this.paths != null && !matchesPath(resource.getPath())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matchesPath(final String path) {
+        if (path == null) {
+            return false;
+        }
+        for (final String prefix : this.paths) {
+            if (path.startsWith(prefix)
+                && (path.length() == prefix.length() || prefix.equals("/") || path.charAt(prefix.length()) == '/')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] toArray(final Object value) {
+        final String[] values = OsgiUtil.toStringArray(value, null);
+        return (values == null || values.length == 0) ? null : values;
+    }
+
+    private static Set<String> toSet(final Object value, final boolean upperCase) {
+        final String[] values = toArray(value);
+        if (values == null) {
+            return null;
+        }
+        final Set<String> set = new HashSet<String>();
+        for (final String v : values) {
+            set.add(upperCase ? v.toUpperCase() : v);
+        }
+        return set;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        append(sb, EngineConstants.SLING_FILTER_PATHS, this.paths == null ? null : Arrays.asList(this.paths));
+        append(sb, EngineConstants.SLING_FILTER_RESOURCE_TYPES, this.resourceTypes);
+        append(sb, EngineConstants.SLING_FILTER_EXTENSIONS, this.extensions);
+        append(sb, EngineConstants.SLING_FILTER_METHODS, this.methods);
+        return sb.toString();
+    }
+
+    private static void append(final StringBuilder sb, final String name, final Object value) {
+        if (value != null) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(name).append('=').append(value);
+        }
+    }
+}
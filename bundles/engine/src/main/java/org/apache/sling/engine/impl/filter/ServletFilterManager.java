@@ -22,6 +22,7 @@ import javax.servlet.Filter;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
 
+import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.commons.osgi.OsgiUtil;
 import org.apache.sling.engine.EngineConstants;
 import org.apache.sling.engine.impl.helper.SlingFilterConfig;
@@ -123,6 +124,17 @@ public class ServletFilterManager extends ServiceTracker {
         return getFilterChain(chain).getFilters();
     }
 
+    /**
+     * Returns the filters of the chain which apply to the request in its
+     * current dispatch state, <code>null</code> if there are none.
+     *
+     * @see EngineConstants#SLING_FILTER_PATHS
+     */
+    public Filter[] getFilters(final FilterChainType chain,
+            final SlingHttpServletRequest request) {
+        return getFilterChain(chain).getFilters(request);
+    }
+
     @Override
     public Object addingService(ServiceReference reference) {
         Object service = super.addingService(reference);
@@ -208,6 +220,9 @@ public class ServletFilterManager extends ServiceTracker {
                         ? ((Integer) orderObj).intValue()
                         : 0;
 
+                // the conditions restricting the requests to filter
+                final FilterPredicate predicate = FilterPredicate.create(reference);
+
                 // register by scope
                 String[] scopes = OsgiUtil.toStringArray(
                         reference.getProperty(EngineConstants.SLING_FILTER_SCOPE), null);
@@ -221,13 +236,13 @@ public class ServletFilterManager extends ServiceTracker {
                         try {
                             FilterChainType type = FilterChainType.valueOf(scope.toString());
                             getFilterChain(type).addFilter(filter, serviceId,
-                                order);
+                                order, predicate);
 
                             if (type == FilterChainType.COMPONENT) {
                                 getFilterChain(FilterChainType.INCLUDE).addFilter(
-                                    filter, serviceId, order);
+                                    filter, serviceId, order, predicate);
                                 getFilterChain(FilterChainType.FORWARD).addFilter(
-                                    filter, serviceId, order);
+                                    filter, serviceId, order, predicate);
                             }
 
                         } catch (IllegalArgumentException iae) {
@@ -239,7 +254,7 @@ public class ServletFilterManager extends ServiceTracker {
                         "A Filter (Service ID %s) has been registered without a filter.scope property.",
                         reference.getProperty(Constants.SERVICE_ID)));
                     getFilterChain(FilterChainType.REQUEST).addFilter(filter,
-                        serviceId, order);
+                        serviceId, order, predicate);
                 }
 
             } catch (ServletException ce) {
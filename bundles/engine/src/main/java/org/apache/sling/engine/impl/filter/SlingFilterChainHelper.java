@@ -24,29 +24,45 @@ import java.util.TreeSet;
 
 import javax.servlet.Filter;
 
+import org.apache.sling.api.SlingHttpServletRequest;
+
 /**
  * The <code>SlingFilterChainHelper</code> class is used by Sling to
  * support building lists of <code>Filter</code>s. To ensure filter
  * ordering, each filter is optionally registered with an ordering index. If
  * none is provided the default ordering index is Integer.MAX_VALUE to append
  * the filter to the end of the list.
+ * <p>
+ * Modifications are synchronized and publish an immutable snapshot of the
+ * chain, so reading the filters does not need any lock.
  */
 public class SlingFilterChainHelper {
 
-    SortedSet<FilterListEntry> filterList;
+    /** The filter entries, guarded by this */
+    private SortedSet<FilterListEntry> filterList;
 
-    Filter[] filters;
+    /** The current snapshot of the filter list */
+    private volatile Chain chain = Chain.EMPTY;
 
-    SlingFilterChainHelper() {
+    public SlingFilterChainHelper() {
     }
 
-    public synchronized Filter addFilter(Filter filter,
+    public Filter addFilter(Filter filter,
             Long filterId, int order) {
-        filters = null;
+        return addFilter(filter, filterId, order, null);
+    }
+
+    /**
+     * Adds a filter which is only called for requests matching the
+     * <code>predicate</code>, or for all requests if it is <code>null</code>.
+     */
+    public synchronized Filter addFilter(Filter filter,
+            Long filterId, int order, FilterPredicate predicate) {
         if (filterList == null) {
             filterList = new TreeSet<FilterListEntry>();
         }
-        filterList.add(new FilterListEntry(filter, filterId, order));
+        filterList.add(new FilterListEntry(filter, filterId, order, predicate));
+        update();
         return filter;
     }
 
@@ -54,19 +70,19 @@ public class SlingFilterChainHelper {
         // will be returned after cleaning the lists
         Filter[] removedFilters = getFilters();
 
-        filters = null;
         filterList = null;
+        update();
 
         return removedFilters;
     }
 
     public synchronized Filter removeFilter(Filter filter) {
         if (filterList != null) {
-            filters = null;
             for (Iterator<FilterListEntry> fi = filterList.iterator(); fi.hasNext();) {
                 FilterListEntry test = fi.next();
                 if (test.getFilter().equals(filter)) {
                     fi.remove();
+                    update();
                     return test.getFilter();
                 }
             }
@@ -78,13 +94,13 @@ public class SlingFilterChainHelper {
 
     public synchronized boolean removeFilterById(Object filterId) {
         if (filterList != null) {
-            filters = null;
             for (Iterator<FilterListEntry> fi = filterList.iterator(); fi.hasNext();) {
                 FilterListEntry test = fi.next();
                 if (test.getFitlerId() == filterId
                     || (test.getFitlerId() != null && test.getFitlerId().equals(
                         filterId))) {
                     fi.remove();
+                    update();
                     return true;
                 }
             }
@@ -94,36 +110,96 @@ public class SlingFilterChainHelper {
         return false;
     }
 
+    /**
+     * Publishes a new snapshot of the filter list. Called with the lock held.
+     */
+    private void update() {
+        if (filterList == null || filterList.isEmpty()) {
+            chain = Chain.EMPTY;
+        } else {
+            chain = new Chain(filterList.toArray(new FilterListEntry[filterList.size()]));
+        }
+    }
+
     /**
      * Returns the list of <code>Filter</code>s added to this instance
      * or <code>null</code> if no filters have been added.
      */
-    public synchronized Filter[] getFilters() {
-        if (filters == null) {
-            if (filterList != null && !filterList.isEmpty()) {
-                Filter[] tmp = new Filter[filterList.size()];
-                int i = 0;
-                for (FilterListEntry entry : filterList) {
-                    tmp[i] = entry.getFilter();
-                    i++;
-                }
-                filters = tmp;
+    public Filter[] getFilters() {
+        return chain.filters;
+    }
+
+    /**
+     * Returns the list of <code>Filter</code>s which apply to the request in
+     * its current dispatch state or <code>null</code> if there are none.
+     * If all filters apply the shared filter array is returned.
+     */
+    public Filter[] getFilters(final SlingHttpServletRequest request) {
+        final Chain current = chain;
+        if (!current.conditional) {
+            return current.filters;
+        }
+
+        final FilterListEntry[] entries = current.entries;
+        final Filter[] matching = new Filter[entries.length];
+        int count = 0;
+        for (final FilterListEntry entry : entries) {
+            final FilterPredicate predicate = entry.getPredicate();
+            if (predicate == null || predicate.matches(request)) {
+                matching[count++] = entry.getFilter();
             }
         }
-        return filters;
+
+        if (count == entries.length) {
+            return current.filters;
+        } else if (count == 0) {
+            return null;
+        }
+        final Filter[] result = new Filter[count];
+        System.arraycopy(matching, 0, result, 0, count);
+        return result;
     }
 
     /**
      * Returns the list of <code>FilterListEntry</code>s added to this instance
      * or <code>null</code> if no filters have been added.
      */
-    public synchronized FilterListEntry[] getFilterListEntries() {
-        FilterListEntry[] result = null;
-        if (filterList != null && !filterList.isEmpty()) {
-            result = new FilterListEntry[filterList.size()];
-            filterList.toArray(result);
+    public FilterListEntry[] getFilterListEntries() {
+        final FilterListEntry[] entries = chain.entries;
+        return (entries == null) ? null : entries.clone();
+    }
+
+    /**
+     * Immutable snapshot of the filter list.
+     */
+    private static final class Chain {
+
+        static final Chain EMPTY = new Chain(null);
+
+        /** The entries or <code>null</code> if there are no filters */
+        final FilterListEntry[] entries;
+
+        /** The filters or <code>null</code> if there are no filters */
+        final Filter[] filters;
+
+        /** Whether any of the filters has conditions */
+        final boolean conditional;
+
+        Chain(final FilterListEntry[] entries) {
+            this.entries = entries;
+            if (entries == null) {
+                this.filters = null;
+                this.conditional = false;
+            } else {
+                this.filters = new Filter[entries.length];
+                boolean hasPredicate = false;
+                for (int i = 0; i < entries.length; i++) {
+                    this.filters[i] = entries[i].getFilter();
+                    hasPredicate |= entries[i].getPredicate() != null;
+                }
+                this.conditional = hasPredicate;
+            }
         }
-        return result;
     }
 
     public static class FilterListEntry implements Comparable<FilterListEntry> {
@@ -134,10 +210,13 @@ public class SlingFilterChainHelper {
 
         private final int order;
 
-        FilterListEntry(Filter filter, Long filterId, int order) {
+        private final FilterPredicate predicate;
+
+        FilterListEntry(Filter filter, Long filterId, int order, FilterPredicate predicate) {
             this.filter = filter;
             this.filterId = filterId;
             this.order = order;
+            this.predicate = predicate;
         }
 
         public Filter getFilter() {
@@ -152,6 +231,14 @@ public class SlingFilterChainHelper {
             return order;
         }
 
+        /**
+         * Returns the conditions of the filter or <code>null</code> if the
+         * filter applies to all requests.
+         */
+        public FilterPredicate getPredicate() {
+            return predicate;
+        }
+
         /**
          * Note: this class has a natural ordering that is inconsistent with
          * equals.
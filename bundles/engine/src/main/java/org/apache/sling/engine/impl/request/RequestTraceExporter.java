@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl.request;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.sling.api.request.RequestProgressTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The <code>RequestTraceExporter</code> writes the request progress of
+ * sampled requests to a rolling trace file in the Trace Event Format, which
+ * can be loaded into the Chrome <code>about:tracing</code> viewer and similar
+ * tools for offline analysis.
+ * <p>
+ * A request is sampled if it is one of every <code>sampleRate</code> requests
+ * or if it took at least <code>slowThreshold</code> milliseconds. The events
+ * are formatted on the request thread and written to the file by a
+ * background thread. If the writer cannot keep up, the events of further
+ * requests are dropped.
+ * <p>
+ * Each file is a JSON array of events which is left open, as allowed by the
+ * format. Once the file exceeds the maximum size it is renamed to
+ * <code>&lt;name&gt;.1</code>, older files are shifted up to the configured
+ * number of files.
+ */
+public class RequestTraceExporter {
+
+    /** The number of sampled requests which may wait for being written */
+    private static final int QUEUE_SIZE = 1000;
+
+    /** The process id used for all events */
+    private static final long PID = 1;
+
+    /** default log */
+    private final Logger log = LoggerFactory.getLogger(RequestTraceExporter.class);
+
+    private final int sampleRate;
+
+    private final long slowThreshold;
+
+    private final File file;
+
+    private final long maxFileSize;
+
+    private final int fileCount;
+
+    /** Counts all requests, the count is used as thread id of the events */
+    private final AtomicLong requestCounter = new AtomicLong();
+
+    private final AtomicLong droppedRequests = new AtomicLong();
+
+    private final ThreadPoolExecutor executor;
+
+    /** The current trace file, only accessed by the writer thread */
+    private Writer writer;
+
+    private long fileSize;
+
+    /**
+     * @param sampleRate Export one in this number of requests, <code>0</code>
+     *            to not sample by count
+     * @param slowThreshold Export requests taking at least this number of
+     *            milliseconds, <code>0</code> to not sample by time
+     * @param file The trace file
+     * @param maxFileSize The size in bytes after which the file is rolled
+     * @param fileCount The number of files to keep, including the current one
+     */
+    public RequestTraceExporter(final int sampleRate, final long slowThreshold,
+            final File file, final long maxFileSize, final int fileCount) {
+        this(sampleRate, slowThreshold, file, maxFileSize, fileCount,
+            new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(QUEUE_SIZE), new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        final Thread t = new Thread(r, "Apache Sling Request Trace Writer");
+                        t.setDaemon(true);
+                        return t;
+                    }
+                }));
+    }
+
+    /**
+     * Creates an exporter writing with the given single threaded executor.
+     */
+    RequestTraceExporter(final int sampleRate, final long slowThreshold,
+            final File file, final long maxFileSize, final int fileCount,
+            final ThreadPoolExecutor executor) {
+        this.sampleRate = sampleRate;
+        this.slowThreshold = slowThreshold;
+        this.file = file;
+        this.maxFileSize = maxFileSize;
+        this.fileCount = Math.max(1, fileCount);
+        this.executor = executor;
+    }
+
+    /**
+     * Returns <code>true</code> if requests are exported at all.
+     */
+    public boolean isEnabled() {
+        return sampleRate > 0 || slowThreshold > 0;
+    }
+
+    /**
+     * Called after the request has been processed to export its progress if
+     * it is sampled.
+     */
+    public void requestDone(final RequestData requestData) {
+        final long requestId = requestCounter.incrementAndGet();
+        if (!isSampled(requestId, requestData.getElapsedTimeMsec())) {
+            return;
+        }
+
+        final HttpServletRequest request = requestData.getServletRequest();
+        export(requestData.getRequestProgressTracker(), requestId,
+            request.getMethod() + " " + request.getRequestURI());
+    }
+
+    /**
+     * Returns whether the request with the given id and processing time is
+     * exported.
+     */
+    boolean isSampled(final long requestId, final long elapsedTimeMsec) {
+        return (sampleRate > 0 && requestId % sampleRate == 0)
+            || (slowThreshold > 0 && elapsedTimeMsec >= slowThreshold);
+    }
+
+    /**
+     * Returns the number of sampled requests dropped because the writer
+     * could not keep up.
+     */
+    long getDroppedRequestCount() {
+        return droppedRequests.get();
+    }
+
+    /**
+     * Formats the events of the sampled request and hands them to the
+     * writer thread.
+     */
+    void export(final RequestProgressTracker tracker, final long requestId, final String name) {
+        if (!(tracker instanceof SlingRequestProgressTracker)) {
+            return;
+        }
+
+        final StringBuilder events = new StringBuilder();
+        try {
+            tracker.done();
+            ((SlingRequestProgressTracker) tracker).writeTraceEvents(events, PID, requestId, name);
+        } catch (IOException ioe) {
+            // not expected writing to a StringBuilder
+            return;
+        }
+
+        try {
+            executor.execute(new Runnable() {
+                public void run() {
+                    write(events);
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            if (droppedRequests.incrementAndGet() % QUEUE_SIZE == 1) {
+                log.warn("Trace writer cannot keep up, {} sampled requests dropped so far", droppedRequests);
+            }
+        }
+    }
+
+    /**
+     * Stops the writer thread after writing the pending events and closes
+     * the trace file.
+     */
+    public void dispose() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("dispose: Pending request traces not written to {}", file);
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        // the writer thread has terminated or is abandoned
+        closeWriter();
+    }
+
+    // ---------- internal, only called on the writer thread
+
+    private void write(final CharSequence events) {
+        try {
+            if (writer == null) {
+                openWriter();
+            }
+            writer.append(events);
+            writer.flush();
+            fileSize += events.length();
+            if (fileSize >= maxFileSize) {
+                closeWriter();
+                roll();
+            }
+        } catch (IOException ioe) {
+            log.error("Cannot write request trace to " + file, ioe);
+            closeWriter();
+        }
+    }
+
+    private void openWriter() throws IOException {
+        final File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory()) {
+            parent.mkdirs();
+        }
+        fileSize = file.length();
+        writer = new OutputStreamWriter(new FileOutputStream(file, true), "UTF-8");
+        if (fileSize == 0) {
+            writer.write("[\n");
+            fileSize = 2;
+        }
+    }
+
+    private synchronized void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ioe) {
+                // ignore
+            }
+            writer = null;
+        }
+    }
+
+    private void roll() {
+        if (fileCount == 1) {
+            file.delete();
+            return;
+        }
+        final File oldest = new File(file.getPath() + "." + (fileCount - 1));
+        oldest.delete();
+        for (int i = fileCount - 2; i > 0; i--) {
+            final File f = new File(file.getPath() + "." + i);
+            if (f.exists()) {
+                f.renameTo(new File(file.getPath() + "." + (i + 1)));
+            }
+        }
+        if (!file.renameTo(new File(file.getPath() + ".1"))) {
+            log.warn("roll: Cannot rename {}, overwriting it", file);
+            file.delete();
+        }
+    }
+}
@@ -16,6 +16,8 @@
  */
 package org.apache.sling.engine.impl.request;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.apache.sling.api.request.RequestDispatcherOptions;
 import org.apache.sling.api.request.RequestPathInfo;
 import org.apache.sling.api.resource.Resource;
@@ -33,9 +35,31 @@ import org.apache.sling.api.resource.Resource;
  */
 public class SlingRequestPathInfo implements RequestPathInfo {
 
+    /**
+     * The maximum number of parsed path infos kept in the {@link #CACHE}. If
+     * the cache is full it is cleared and filled again with the path infos
+     * currently in use.
+     */
+    static final int MAX_CACHE_SIZE = 1024;
+
+    /**
+     * Path infos longer than this are not cached because they most probably
+     * carry a request specific suffix.
+     */
+    static final int MAX_CACHED_LENGTH = 256;
+
+    /**
+     * Parsed path infos by the unparsed path info string. Include heavy pages
+     * parse the same few path infos over and over again.
+     */
+    private static final ConcurrentHashMap<String, PathInfoParts> CACHE = new ConcurrentHashMap<String, PathInfoParts>();
+
+    private static final PathInfoParts EMPTY_PARTS = new PathInfoParts(null, null, null);
+
     private final String selectorString;
 
-    private final String[] selectors;
+    /** The selectors, split from the selector string on first access */
+    private volatile String[] selectors;
 
     private final String extension;
 
@@ -59,55 +83,122 @@ public class SlingRequestPathInfo implements RequestPathInfo {
         this.resourcePath = r.getResourceMetadata().getResolutionPath();
 
         // the extra path in the request URI
-        String pathToParse = r.getResourceMetadata().getResolutionPathInfo();
-        if (pathToParse == null) {
-            pathToParse = "";
-        }
-
-        // separate selectors/ext from the suffix
-        int firstSlash = pathToParse.indexOf('/');
-        String pathToSplit;
-        if (firstSlash < 0) {
-            pathToSplit = pathToParse;
-            suffix = null;
-        } else {
-            pathToSplit = pathToParse.substring(0, firstSlash);
-            suffix = pathToParse.substring(firstSlash);
-        }
-
-        int lastDot = pathToSplit.lastIndexOf('.');
-
-        if (lastDot <= 1) {
+        final PathInfoParts parts = getParts(r.getResourceMetadata().getResolutionPathInfo());
+        this.selectorString = parts.selectorString;
+        this.extension = parts.extension;
+        this.suffix = parts.suffix;
+    }
 
-            // no selectors if only extension exists or selectors is empty
-            selectorString = null;
-            selectors = NO_SELECTORS;
+    private SlingRequestPathInfo(Resource resource, String resourcePath, String selectorString, String extension,
+            String suffix) {
+        this.resource = resource;
+        this.resourcePath = resourcePath;
+        this.selectorString = selectorString;
+        this.extension = extension;
+        this.suffix = suffix;
+    }
 
-        } else {
+    /**
+     * Returns the parts of the given path info from the cache or by parsing
+     * it.
+     */
+    static PathInfoParts getParts(final String pathToParse) {
+        if (pathToParse == null || pathToParse.length() == 0) {
+            return EMPTY_PARTS;
+        }
+        if (pathToParse.length() > MAX_CACHED_LENGTH) {
+            return parse(pathToParse);
+        }
 
-            // no selectors if splitting would give an empty array
-            String tmpSel = pathToSplit.substring(1, lastDot);
-            selectors = tmpSel.split("\\.");
-            selectorString = (selectors.length > 0) ? tmpSel : null;
+        PathInfoParts parts = CACHE.get(pathToParse);
+        if (parts == null) {
+            parts = parse(pathToParse);
+            if (CACHE.size() >= MAX_CACHE_SIZE) {
+                CACHE.clear();
+            }
+            CACHE.put(pathToParse, parts);
+        }
+        return parts;
+    }
 
+    /**
+     * Splits the path info into selectors, extension and suffix by scanning
+     * it once.
+     */
+    static PathInfoParts parse(final String pathToParse) {
+        final int length = pathToParse.length();
+
+        // separate selectors/ext from the suffix and find the last dot
+        int end = length;
+        int lastDot = -1;
+        for (int i = 0; i < length; i++) {
+            final char c = pathToParse.charAt(i);
+            if (c == '/') {
+                end = i;
+                break;
+            } else if (c == '.') {
+                lastDot = i;
+            }
+        }
+        final String suffix = (end < length) ? pathToParse.substring(end) : null;
+
+        // no selectors if only extension exists or selectors is empty or
+        // consists of dots only, as splitting would give an empty array
+        String selectorString = null;
+        if (lastDot > 1) {
+            for (int i = 1; i < lastDot; i++) {
+                if (pathToParse.charAt(i) != '.') {
+                    selectorString = pathToParse.substring(1, lastDot);
+                    break;
+                }
+            }
         }
 
         // extension only if lastDot is not trailing
-        extension = (lastDot + 1 < pathToSplit.length())
-                ? pathToSplit.substring(lastDot + 1)
+        final String extension = (lastDot + 1 < end)
+                ? pathToParse.substring(lastDot + 1, end)
                 : null;
+
+        return new PathInfoParts(selectorString, extension, suffix);
     }
 
-    private SlingRequestPathInfo(Resource resource, String resourcePath, String selectorString, String extension,
-            String suffix) {
-        this.resource = resource;
-        this.resourcePath = resourcePath;
-        this.selectorString = selectorString;
-        this.selectors = (selectorString != null)
-                ? selectorString.split("\\.")
-                : NO_SELECTORS;
-        this.extension = extension;
-        this.suffix = suffix;
+    /**
+     * Splits the selector string at the dots. The result is the same as
+     * <code>selectorString.split("\\.")</code> without compiling a regular
+     * expression: trailing empty selectors are removed.
+     */
+    static String[] splitSelectors(final String selectorString) {
+        if (selectorString == null) {
+            return NO_SELECTORS;
+        }
+
+        // ignore trailing dots and count the remaining ones
+        int end = selectorString.length();
+        while (end > 0 && selectorString.charAt(end - 1) == '.') {
+            end--;
+        }
+        if (end == selectorString.length() && selectorString.indexOf('.') < 0) {
+            return new String[] { selectorString };
+        }
+        if (end == 0) {
+            return NO_SELECTORS;
+        }
+        int count = 1;
+        for (int i = 0; i < end; i++) {
+            if (selectorString.charAt(i) == '.') {
+                count++;
+            }
+        }
+
+        final String[] result = new String[count];
+        int start = 0;
+        for (int i = 0; i < count - 1; i++) {
+            final int dot = selectorString.indexOf('.', start);
+            result[i] = selectorString.substring(start, dot);
+            start = dot + 1;
+        }
+        result[count - 1] = selectorString.substring(start, end);
+        return result;
     }
 
     public SlingRequestPathInfo merge(RequestPathInfo baseInfo) {
@@ -177,7 +268,12 @@ public class SlingRequestPathInfo implements RequestPathInfo {
     }
 
     public String[] getSelectors() {
-        return selectors;
+        String[] result = selectors;
+        if (result == null) {
+            result = splitSelectors(selectorString);
+            selectors = result;
+        }
+        return result;
     }
 
     public String getSelectorString() {
@@ -203,4 +299,23 @@ public class SlingRequestPathInfo implements RequestPathInfo {
     public String getResourcePath() {
         return resourcePath;
     }
+
+    /**
+     * The immutable result of parsing a path info, shared by all requests
+     * with the same path info.
+     */
+    static final class PathInfoParts {
+
+        final String selectorString;
+
+        final String extension;
+
+        final String suffix;
+
+        PathInfoParts(final String selectorString, final String extension, final String suffix) {
+            this.selectorString = selectorString;
+            this.extension = extension;
+            this.suffix = suffix;
+        }
+    }
 }
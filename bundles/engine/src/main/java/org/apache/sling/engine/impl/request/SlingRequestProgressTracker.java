@@ -18,13 +18,14 @@
  */
 package org.apache.sling.engine.impl.request;
 
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.lang.reflect.Array;
 import java.text.MessageFormat;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import org.apache.sling.api.request.RequestProgressTracker;
 
@@ -88,9 +89,25 @@ import org.apache.sling.api.request.RequestProgressTracker;
  * <li>The absolute time of the timer in parenthesis.
  * <li>The entry message
  * </ol>
+ * <p>
+ * <b>Recording</b>
+ * <p>
+ * Entries are recorded as compact events consisting of the event type, the
+ * <code>System.nanoTime()</code> time stamp, the message, format or timer name
+ * and the raw message arguments. Messages are only formatted when they are
+ * requested by {@link #getMessages()} or {@link #dump(PrintWriter)}, so
+ * arguments should not be modified after having been logged. At most
+ * {@link #MAX_ENTRIES} entries are kept, after that the oldest entries are
+ * overwritten.
  */
 public class SlingRequestProgressTracker implements RequestProgressTracker {
 
+    /**
+     * The maximum number of entries kept by a tracker. Older entries are
+     * dropped once this number is reached.
+     */
+    public static final int MAX_ENTRIES = 10000;
+
     /**
      * The <em>printf</em> format to dump a tracking line.
      *
@@ -113,19 +130,64 @@ public class SlingRequestProgressTracker implements RequestProgressTracker {
     /** TIMER_END format explanation */
     private static final String TIMER_END_FORMAT = "{<elapsed msec>,<timer name>} <optional message>";
 
+    /** The initial number of entries the event arrays can take */
+    private static final int INITIAL_CAPACITY = 32;
+
+    /** Event type of comment messages */
+    private static final byte COMMENT = 0;
+
+    /** Event type of log messages */
+    private static final byte LOG = 1;
+
+    /** Event type of a timer start */
+    private static final byte TIMER_START = 2;
+
+    /** Event type of a timer end */
+    private static final byte TIMER_END = 3;
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
     /**
      * The system time at creation of this instance or the last {@link #reset()}.
      */
     private long processingStart;
 
     /**
-     * The list of tracking entries.
+     * The <code>System.nanoTime()</code> at creation of this instance or the
+     * last {@link #reset()}.
      */
-    private final List<TrackingEntry> entries = new ArrayList<TrackingEntry>();
+    private long processingStartNanos;
+
+    // the events, stored in parallel arrays used as a ring buffer
+
+    private byte[] types = new byte[INITIAL_CAPACITY];
+
+    private long[] times = new long[INITIAL_CAPACITY];
+
+    /** The start time of the timer of TIMER_END events */
+    private long[] starts = new long[INITIAL_CAPACITY];
+
+    /** The message, format or timer name */
+    private String[] texts = new String[INITIAL_CAPACITY];
+
+    /** The format of TIMER_END events */
+    private String[] formats = new String[INITIAL_CAPACITY];
+
+    /** The arguments or <code>null</code> if the text is not a format */
+    private Object[][] arguments = new Object[INITIAL_CAPACITY][];
+
+    /** The index of the oldest entry */
+    private int first;
+
+    /** The number of entries */
+    private int count;
+
+    /** The number of entries dropped because the maximum was reached */
+    private int dropped;
 
     /**
-     * Map of named timers indexed by timer name storing the system time of
-     * start of the respective timer.
+     * Map of named timers indexed by timer name storing the
+     * <code>System.nanoTime()</code> of the start of the respective timer.
      */
     private final Map<String, Long> namedTimerEntries = new HashMap<String, Long>();
 
@@ -146,12 +208,20 @@ public class SlingRequestProgressTracker implements RequestProgressTracker {
         done = false;
 
         // remove all entries
-        entries.clear();
+        for (int i = 0; i < types.length; i++) {
+            texts[i] = null;
+            formats[i] = null;
+            arguments[i] = null;
+        }
+        first = 0;
+        count = 0;
+        dropped = 0;
         namedTimerEntries.clear();
 
         // enter initial messages
-        processingStart = startTimerInternal(REQUEST_PROCESSING_TIMER);
-        entries.add(new TrackingEntry(COMMENT_PREFIX + "timer_end format is " + TIMER_END_FORMAT));
+        processingStart = System.currentTimeMillis();
+        processingStartNanos = startTimerInternal(REQUEST_PROCESSING_TIMER);
+        add(COMMENT, processingStartNanos, "timer_end format is " + TIMER_END_FORMAT, null, null, 0);
     }
 
     /**
@@ -159,19 +229,22 @@ public class SlingRequestProgressTracker implements RequestProgressTracker {
      */
     public Iterator<String> getMessages() {
         return new Iterator<String>() {
-            private final Iterator<TrackingEntry> entryIter = entries.iterator();
+            private int index = 0;
 
             public boolean hasNext() {
-                return entryIter.hasNext();
+                return index < count;
             }
 
             public String next() {
-                // throws NoSuchElementException if no entries any more
-                TrackingEntry entry = entryIter.next();
-
-                long offset = entry.getTimeStamp() - processingStart;
-                return String.format(DUMP_FORMAT, offset, entry.getTimeStamp(),
-                    entry.getMessage());
+                if (index >= count) {
+                    throw new NoSuchElementException();
+                }
+                final int entry = (first + index++) % types.length;
+
+                final long timeStamp = getTimeStamp(entry);
+                long offset = timeStamp - processingStart;
+                return String.format(DUMP_FORMAT, offset, timeStamp,
+                    getMessage(entry));
             }
 
             public void remove() {
@@ -189,6 +262,10 @@ public class SlingRequestProgressTracker implements RequestProgressTracker {
             "Dumping SlingRequestProgressTracker Entries");
 
         final StringBuilder sb = new StringBuilder();
+        if (dropped > 0) {
+            sb.append(COMMENT_PREFIX).append(dropped).append(" oldest entries dropped");
+            sb.append(String.format("%n"));
+        }
         final Iterator<String> messages = getMessages();
         while (messages.hasNext()) {
             sb.append(messages.next());
@@ -198,13 +275,12 @@ public class SlingRequestProgressTracker implements RequestProgressTracker {
 
     /** Creates an entry with the given message. */
     public void log(String message) {
-        entries.add(new TrackingEntry(LOG_PREFIX + message));
+        add(LOG, System.nanoTime(), message, null, null, 0);
     }
 
     /** Creates an entry with the given entry tag and message */
     public void log(String format, Object... args) {
-        String message = MessageFormat.format(format, args);
-        entries.add(new TrackingEntry(LOG_PREFIX + message));
+        add(LOG, System.nanoTime(), format, null, args == null ? new Object[0] : args, 0);
     }
 
     /**
@@ -216,16 +292,16 @@ public class SlingRequestProgressTracker implements RequestProgressTracker {
     }
 
     /**
-     * Start the named timer and returns the start time in milliseconds.
+     * Start the named timer and returns the start time in nanoseconds.
      * Logs a message with format
      * <pre>
      * TIMER_START{<name>} <optional message>
      * </pre>
      */
     private long startTimerInternal(String name) {
-        long timer = System.currentTimeMillis();
+        long timer = System.nanoTime();
         namedTimerEntries.put(name, timer);
-        entries.add(new TrackingEntry(timer, "TIMER_START{" + name + "}"));
+        add(TIMER_START, timer, name, null, null, 0);
         return timer;
     }
 
@@ -233,8 +309,9 @@ public class SlingRequestProgressTracker implements RequestProgressTracker {
      * Log a timer entry, including start, end and elapsed time.
      */
     public void logTimer(String name) {
-        if (namedTimerEntries.containsKey(name)) {
-            logTimerInternal(name, null, namedTimerEntries.get(name));
+        final Long startTime = namedTimerEntries.get(name);
+        if (startTime != null) {
+            add(TIMER_END, System.nanoTime(), name, null, null, startTime);
         }
     }
 
@@ -242,60 +319,192 @@ public class SlingRequestProgressTracker implements RequestProgressTracker {
      * Log a timer entry, including start, end and elapsed time.
      */
     public void logTimer(String name, String format, Object... args) {
-        if (namedTimerEntries.containsKey(name)) {
-            logTimerInternal(name, MessageFormat.format(format, args), namedTimerEntries.get(name));
+        final Long startTime = namedTimerEntries.get(name);
+        if (startTime != null) {
+            add(TIMER_END, System.nanoTime(), name, format, args == null ? new Object[0] : args, startTime);
         }
     }
 
-    /**
-     * Log a timer entry, including start, end and elapsed time using TIMER_END_FORMAT
-     */
-    private void logTimerInternal(String name, String msg, long startTime) {
-        final StringBuilder sb = new StringBuilder();
-        sb.append("TIMER_END{");
-        sb.append(System.currentTimeMillis() - startTime);
-        sb.append(',');
-        sb.append(name);
-        sb.append('}');
-        if(msg != null) {
-            sb.append(' ');
-            sb.append(msg);
-        }
-        entries.add(new TrackingEntry(sb.toString()));
-    }
-
     public void done() {
         if(done) return;
         logTimer(REQUEST_PROCESSING_TIMER, REQUEST_PROCESSING_TIMER);
         done = true;
     }
 
+    /**
+     * Writes the entries as events of the Trace Event Format understood by
+     * the Chrome <code>about:tracing</code> viewer and similar tools, each
+     * event followed by a comma and a line break.
+     * Timers are written as complete events, all other entries as instant
+     * events of the given thread.
+     *
+     * @param out Where to write the events
+     * @param pid The process id of the events
+     * @param tid The thread id of the events
+     * @param threadName The name of the thread, e.g. the request line
+     */
+    public void writeTraceEvents(final Appendable out, final long pid, final long tid, final String threadName)
+    throws IOException {
+        out.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":").append(String.valueOf(pid));
+        out.append(",\"tid\":").append(String.valueOf(tid)).append(",\"args\":{\"name\":");
+        appendJson(out, threadName);
+        out.append("}},\n");
+
+        for (int index = 0; index < count; index++) {
+            final int entry = (first + index) % types.length;
+            switch (types[entry]) {
+                case TIMER_START:
+                    // covered by the complete event of the timer end
+                    continue;
+                case TIMER_END:
+                    out.append("{\"name\":");
+                    appendJson(out, texts[entry]);
+                    out.append(",\"cat\":\"timer\",\"ph\":\"X\",\"ts\":");
+                    out.append(String.valueOf(toMicros(starts[entry])));
+                    out.append(",\"dur\":").append(String.valueOf((times[entry] - starts[entry]) / 1000));
+                    break;
+                default:
+                    out.append("{\"name\":\"").append(types[entry] == LOG ? "LOG" : "COMMENT");
+                    out.append("\",\"cat\":\"log\",\"ph\":\"i\",\"s\":\"t\",\"ts\":");
+                    out.append(String.valueOf(toMicros(times[entry])));
+            }
+            out.append(",\"pid\":").append(String.valueOf(pid));
+            out.append(",\"tid\":").append(String.valueOf(tid));
+            out.append(",\"args\":{\"message\":");
+            appendJson(out, getMessage(entry));
+            out.append("}},\n");
+        }
+    }
 
-    /** Process tracker entry keeping timestamp, tag and message */
-    private static class TrackingEntry {
+    // ---------- internal
 
-        // creation time stamp
-        private final long timeStamp;
+    /**
+     * Adds an event, growing the arrays up to {@link #MAX_ENTRIES} entries
+     * and overwriting the oldest entry after that.
+     */
+    private void add(final byte type, final long time, final String text,
+            final String format, final Object[] args, final long start) {
+        if (count == types.length) {
+            if (count < MAX_ENTRIES) {
+                grow(Math.min(MAX_ENTRIES, count * 2));
+            } else {
+                first = (first + 1) % types.length;
+                count--;
+                dropped++;
+            }
+        }
+        final int entry = (first + count) % types.length;
+        types[entry] = type;
+        times[entry] = time;
+        starts[entry] = start;
+        texts[entry] = text;
+        formats[entry] = format;
+        arguments[entry] = args;
+        count++;
+    }
 
-        // tracking message
-        private final String message;
+    /**
+     * Copies the entries into arrays of the new capacity, oldest entry first.
+     * Only called if the arrays are full.
+     */
+    private void grow(final int capacity) {
+        types = copy(types, new byte[capacity]);
+        times = copy(times, new long[capacity]);
+        starts = copy(starts, new long[capacity]);
+        texts = copy(texts, new String[capacity]);
+        formats = copy(formats, new String[capacity]);
+        arguments = copy(arguments, new Object[capacity][]);
+        first = 0;
+    }
 
-        TrackingEntry(String message) {
-            this.timeStamp = System.currentTimeMillis();
-            this.message = message;
-        }
+    private <T> T copy(final T src, final T dest) {
+        final int length = Array.getLength(src);
+        System.arraycopy(src, first, dest, 0, length - first);
+        System.arraycopy(src, 0, dest, length - first, first);
+        return dest;
+    }
 
-        TrackingEntry(long timeStamp, String message) {
-            this.timeStamp = timeStamp;
-            this.message = message;
+    /** Returns the time of the entry in milliseconds since the epoch */
+    private long getTimeStamp(final int entry) {
+        return processingStart + (times[entry] - processingStartNanos) / NANOS_PER_MILLI;
+    }
+
+    /** Returns the time in microseconds since the epoch */
+    private long toMicros(final long nanos) {
+        return processingStart * 1000 + (nanos - processingStartNanos) / 1000;
+    }
+
+    /** Formats the message of the entry */
+    private String getMessage(final int entry) {
+        switch (types[entry]) {
+            case COMMENT:
+                return COMMENT_PREFIX + texts[entry];
+
+            case TIMER_START:
+                return "TIMER_START{" + texts[entry] + "}";
+
+            case TIMER_END:
+                final StringBuilder sb = new StringBuilder();
+                sb.append("TIMER_END{");
+                sb.append((times[entry] - starts[entry]) / NANOS_PER_MILLI);
+                sb.append(',');
+                sb.append(texts[entry]);
+                sb.append('}');
+                if (formats[entry] != null) {
+                    sb.append(' ');
+                    sb.append(format(formats[entry], arguments[entry]));
+                }
+                return sb.toString();
+
+            default:
+                if (arguments[entry] == null) {
+                    return LOG_PREFIX + texts[entry];
+                }
+                return LOG_PREFIX + format(texts[entry], arguments[entry]);
         }
+    }
 
-        long getTimeStamp() {
-            return timeStamp;
+    /**
+     * Formats the message, returning the pattern as is if it is not a valid
+     * <code>MessageFormat</code> pattern. As messages are only formatted
+     * when read, an invalid pattern must not fail reading the other entries.
+     */
+    private static String format(final String pattern, final Object[] args) {
+        try {
+            return MessageFormat.format(pattern, args);
+        } catch (IllegalArgumentException iae) {
+            return pattern;
         }
+    }
 
-        String getMessage() {
-            return message;
+    private static void appendJson(final Appendable out, final String value) throws IOException {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
         }
+        out.append('"');
     }
 }
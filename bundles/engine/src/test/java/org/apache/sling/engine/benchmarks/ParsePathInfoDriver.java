@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.sling.engine.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.apache.sling.engine.impl.request.SlingRequestPathInfo;
+
+import com.sun.japex.JapexDriverBase;
+import com.sun.japex.TestCase;
+
+/**
+ * Parses the request path infos of a page with many component includes, as
+ * done by the request dispatcher for each include. If the driver parameter
+ * <code>legacy</code> is <code>true</code> the path infos are parsed with
+ * the former <code>substring</code> and regular expression split based
+ * implementation, otherwise with {@link SlingRequestPathInfo}.
+ */
+public class ParsePathInfoDriver extends JapexDriverBase {
+
+    /** The number of includes rendered per page */
+    private static final int INCLUDES = 200;
+
+    /** The distinct path infos used by the includes */
+    private static final String[] PATH_INFOS = { ".html", ".teaser.html", ".image.thumb.png",
+        ".nav.main.level2.html", ".html/suffix/path", ".json", ".infinity.json", ".print.a4.html" };
+
+    private boolean legacy;
+
+    private Resource[] resources;
+
+    @Override
+    public void prepare(TestCase tc) {
+        this.legacy = Boolean.valueOf(getParam("legacy"));
+        this.resources = new Resource[INCLUDES];
+        for (int i = 0; i < INCLUDES; i++) {
+            final ResourceMetadata metadata = new ResourceMetadata();
+            metadata.setResolutionPath("/content/page/jcr:content/par/component" + i);
+            // copy to not benefit from identical string instances
+            metadata.setResolutionPathInfo(new String(PATH_INFOS[i % PATH_INFOS.length]));
+            this.resources[i] = resource(metadata);
+        }
+    }
+
+    @Override
+    public void run(TestCase tc) {
+        for (final Resource resource : this.resources) {
+            if (this.legacy) {
+                legacyParse(resource.getResourceMetadata().getResolutionPathInfo());
+            } else {
+                new SlingRequestPathInfo(resource).getSelectors();
+            }
+        }
+    }
+
+    /**
+     * The path info parsing of SlingRequestPathInfo before it was changed to
+     * scan the path info once and cache the results.
+     */
+    private static String[] legacyParse(final String pathToParse) {
+        final int firstSlash = pathToParse.indexOf('/');
+        final String pathToSplit;
+        final String suffix;
+        if (firstSlash < 0) {
+            pathToSplit = pathToParse;
+            suffix = null;
+        } else {
+            pathToSplit = pathToParse.substring(0, firstSlash);
+            suffix = pathToParse.substring(firstSlash);
+        }
+
+        final int lastDot = pathToSplit.lastIndexOf('.');
+        final String[] selectors;
+        if (lastDot <= 1) {
+            selectors = new String[0];
+        } else {
+            selectors = pathToSplit.substring(1, lastDot).split("\\.");
+        }
+
+        final String extension = (lastDot + 1 < pathToSplit.length())
+                ? pathToSplit.substring(lastDot + 1)
+                : null;
+        return new String[] { extension, suffix, String.valueOf(selectors.length) };
+    }
+
+    private static Resource resource(final ResourceMetadata metadata) {
+        return (Resource) Proxy.newProxyInstance(ParsePathInfoDriver.class.getClassLoader(),
+            new Class<?>[] { Resource.class }, new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    return "getResourceMetadata".equals(method.getName()) ? metadata : null;
+                }
+            });
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.sling.engine.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Hashtable;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.request.RequestPathInfo;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.engine.EngineConstants;
+import org.apache.sling.engine.impl.filter.FilterPredicate;
+import org.apache.sling.engine.impl.filter.SlingFilterChainHelper;
+import org.osgi.framework.ServiceReference;
+
+import com.sun.japex.JapexDriverBase;
+import com.sun.japex.TestCase;
+
+/**
+ * Selects the include filters for a page with many component includes, as
+ * done by the request processor for each include. If the driver parameter
+ * <code>conditional</code> is <code>true</code> half of the filters are
+ * restricted to resource types which are not included, so they are dropped
+ * from the chain. The request, resource and path info are dynamic proxies,
+ * so the conditional variant includes their reflective dispatch.
+ */
+public class SelectIncludeFiltersDriver extends JapexDriverBase {
+
+    /** The number of includes rendered per page */
+    private static final int INCLUDES = 200;
+
+    private static final int FILTERS = 10;
+
+    private SlingFilterChainHelper chain;
+
+    private SlingHttpServletRequest request;
+
+    @Override
+    public void prepare(TestCase tc) {
+        final boolean conditional = Boolean.valueOf(getParam("conditional"));
+        this.chain = new SlingFilterChainHelper();
+        for (int i = 0; i < FILTERS; i++) {
+            final Hashtable<String, Object> props = new Hashtable<String, Object>();
+            if (conditional && i % 2 == 1) {
+                props.put(EngineConstants.SLING_FILTER_RESOURCE_TYPES, "sample/other" + i);
+            }
+            this.chain.addFilter(new NoopFilter(), (long) i, i, FilterPredicate.create(reference(props)));
+        }
+
+        final Hashtable<String, Object> resource = new Hashtable<String, Object>();
+        resource.put("getPath", "/content/page/jcr:content/par/component");
+        resource.put("getResourceType", "sample/component");
+        final Hashtable<String, Object> pathInfo = new Hashtable<String, Object>();
+        pathInfo.put("getExtension", "html");
+        final Hashtable<String, Object> req = new Hashtable<String, Object>();
+        req.put("getMethod", "GET");
+        req.put("getResource", proxy(Resource.class, resource));
+        req.put("getRequestPathInfo", proxy(RequestPathInfo.class, pathInfo));
+        this.request = (SlingHttpServletRequest) proxy(SlingHttpServletRequest.class, req);
+    }
+
+    @Override
+    public void run(TestCase tc) {
+        for (int i = 0; i < INCLUDES; i++) {
+            this.chain.getFilters(this.request);
+        }
+    }
+
+    private static ServiceReference reference(final Hashtable<String, Object> props) {
+        return (ServiceReference) Proxy.newProxyInstance(SelectIncludeFiltersDriver.class.getClassLoader(),
+            new Class<?>[] { ServiceReference.class }, new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    return "getProperty".equals(method.getName()) ? props.get(args[0]) : null;
+                }
+            });
+    }
+
+    /**
+     * Returns a proxy answering method calls without arguments with the value
+     * stored under the method name.
+     */
+    private static Object proxy(final Class<?> type, final Hashtable<String, Object> values) {
+        return Proxy.newProxyInstance(SelectIncludeFiltersDriver.class.getClassLoader(), new Class<?>[] { type },
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    return values.get(method.getName());
+                }
+            });
+    }
+
+    private static class NoopFilter implements Filter {
+
+        public void init(FilterConfig filterConfig) {
+        }
+
+        public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) {
+        }
+
+        public void destroy() {
+        }
+    }
+}
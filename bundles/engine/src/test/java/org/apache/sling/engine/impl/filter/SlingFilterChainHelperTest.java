@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl.filter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import javax.servlet.Filter;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.request.RequestPathInfo;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.engine.EngineConstants;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.osgi.framework.ServiceReference;
+
+@RunWith(JMock.class)
+public class SlingFilterChainHelperTest {
+
+    private final Mockery context = new JUnit4Mockery();
+
+    private int counter;
+
+    @Test
+    public void testUnconditionalChainIsShared() {
+        final SlingFilterChainHelper chain = new SlingFilterChainHelper();
+        assertNull(chain.getFilters());
+
+        final Filter first = filter();
+        final Filter second = filter();
+        chain.addFilter(second, 2L, 2);
+        chain.addFilter(first, 1L, 1);
+
+        final Filter[] filters = chain.getFilters();
+        assertArrayEquals(new Filter[] { first, second }, filters);
+        assertSame(filters, chain.getFilters());
+        assertSame(filters, chain.getFilters(request("GET", "html", "/content/a", "sample/a")));
+
+        chain.removeFilterById(1L);
+        assertArrayEquals(new Filter[] { second }, chain.getFilters());
+        chain.removeFilterById(2L);
+        assertNull(chain.getFilters());
+    }
+
+    @Test
+    public void testConditionalChain() {
+        final SlingFilterChainHelper chain = new SlingFilterChainHelper();
+        final Filter always = filter();
+        final Filter content = filter();
+        final Filter json = filter();
+        final Filter post = filter();
+        final Filter page = filter();
+
+        chain.addFilter(always, 1L, 1);
+        chain.addFilter(content, 2L, 2, predicate(EngineConstants.SLING_FILTER_PATHS, "/content/"));
+        chain.addFilter(json, 3L, 3, predicate(EngineConstants.SLING_FILTER_EXTENSIONS, "json"));
+        chain.addFilter(post, 4L, 4, predicate(EngineConstants.SLING_FILTER_METHODS, "post"));
+        chain.addFilter(page, 5L, 5, predicate(EngineConstants.SLING_FILTER_RESOURCE_TYPES,
+            new String[] { "sample/page", "sample/other" }));
+
+        assertArrayEquals(new Filter[] { always, content },
+            chain.getFilters(request("GET", "html", "/content", "sample/component")));
+        assertArrayEquals(new Filter[] { always, json, page },
+            chain.getFilters(request("GET", "json", "/contentpath", "sample/page")));
+        assertArrayEquals(new Filter[] { always, content, post },
+            chain.getFilters(request("POST", null, "/content/a/b", "sample/component")));
+
+        // all filters apply
+        assertSame(chain.getFilters(), chain.getFilters(request("POST", "json", "/content/a", "sample/page")));
+    }
+
+    @Test
+    public void testNoMatchingFilter() {
+        final SlingFilterChainHelper chain = new SlingFilterChainHelper();
+        chain.addFilter(filter(), 1L, 1, predicate(EngineConstants.SLING_FILTER_METHODS, "POST"));
+
+        assertNull(chain.getFilters(request("GET", "html", "/content", "sample/page")));
+    }
+
+    @Test
+    public void testNoPredicate() {
+        assertNull(FilterPredicate.create(reference(null, null)));
+    }
+
+    private Filter filter() {
+        return context.mock(Filter.class, "filter" + (counter++));
+    }
+
+    private FilterPredicate predicate(final String name, final Object value) {
+        return FilterPredicate.create(reference(name, value));
+    }
+
+    private ServiceReference reference(final String name, final Object value) {
+        final ServiceReference reference = context.mock(ServiceReference.class, "reference" + (counter++));
+        context.checking(new Expectations() {{
+            if (name != null) {
+                allowing(reference).getProperty(name);
+                will(returnValue(value));
+            }
+            allowing(reference).getProperty(with(any(String.class)));
+            will(returnValue(null));
+        }});
+        return reference;
+    }
+
+    private SlingHttpServletRequest request(final String method, final String extension, final String path,
+            final String resourceType) {
+        final int id = counter++;
+        final SlingHttpServletRequest request = context.mock(SlingHttpServletRequest.class, "request" + id);
+        final RequestPathInfo pathInfo = context.mock(RequestPathInfo.class, "pathInfo" + id);
+        final Resource resource = context.mock(Resource.class, "resource" + id);
+        context.checking(new Expectations() {{
+            allowing(request).getMethod();
+            will(returnValue(method));
+            allowing(request).getRequestPathInfo();
+            will(returnValue(pathInfo));
+            allowing(request).getResource();
+            will(returnValue(resource));
+            allowing(pathInfo).getExtension();
+            will(returnValue(extension));
+            allowing(resource).getPath();
+            will(returnValue(path));
+            allowing(resource).getResourceType();
+            will(returnValue(resourceType));
+        }});
+        return request;
+    }
+}
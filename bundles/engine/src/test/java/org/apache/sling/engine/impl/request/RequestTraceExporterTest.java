@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl.request;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/** Test the RequestTraceExporter class */
+public class RequestTraceExporterTest extends TestCase {
+
+    private File dir;
+
+    private File file;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        dir = File.createTempFile("traces", "");
+        dir.delete();
+        dir.mkdirs();
+        file = new File(dir, "trace.json");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (final File f : dir.listFiles()) {
+            f.delete();
+        }
+        dir.delete();
+        super.tearDown();
+    }
+
+    public void testSampling() {
+        final RequestTraceExporter byCount = new RequestTraceExporter(3, 0, file, 1000, 1);
+        assertTrue(byCount.isEnabled());
+        assertFalse(byCount.isSampled(1, 10000));
+        assertFalse(byCount.isSampled(2, 0));
+        assertTrue(byCount.isSampled(3, 0));
+        assertTrue(byCount.isSampled(6, 0));
+        byCount.dispose();
+
+        final RequestTraceExporter byTime = new RequestTraceExporter(0, 100, file, 1000, 1);
+        assertTrue(byTime.isEnabled());
+        assertFalse(byTime.isSampled(3, 99));
+        assertTrue(byTime.isSampled(1, 100));
+        byTime.dispose();
+
+        final RequestTraceExporter both = new RequestTraceExporter(2, 100, file, 1000, 1);
+        assertTrue(both.isSampled(2, 0));
+        assertTrue(both.isSampled(1, 100));
+        assertFalse(both.isSampled(1, 99));
+        both.dispose();
+
+        final RequestTraceExporter disabled = new RequestTraceExporter(0, 0, file, 1000, 1);
+        assertFalse(disabled.isEnabled());
+        assertFalse(disabled.isSampled(1, 10000));
+        disabled.dispose();
+    }
+
+    public void testExport() throws IOException {
+        final RequestTraceExporter exporter = new RequestTraceExporter(1, 0, file, 100000, 1);
+        exporter.export(new SlingRequestProgressTracker(), 1, "GET /first");
+        exporter.export(new SlingRequestProgressTracker(), 2, "GET /second");
+        exporter.dispose();
+
+        final String content = read(file);
+        assertTrue(content.startsWith("[\n"));
+        assertTrue(content.contains("\"name\":\"GET /first\""));
+        assertTrue(content.contains("\"name\":\"GET /second\""));
+        assertEquals(0, exporter.getDroppedRequestCount());
+    }
+
+    public void testQueueFullDropsRequests() throws Exception {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(1));
+        final RequestTraceExporter exporter = new RequestTraceExporter(1, 0, file, 100000, 1, executor);
+
+        // keep the writer thread busy
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ie) {
+                    // stop waiting
+                }
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        exporter.export(new SlingRequestProgressTracker(), 1, "GET /queued");
+        exporter.export(new SlingRequestProgressTracker(), 2, "GET /dropped");
+        exporter.export(new SlingRequestProgressTracker(), 3, "GET /dropped");
+        assertEquals(2, exporter.getDroppedRequestCount());
+
+        release.countDown();
+        exporter.dispose();
+
+        final String content = read(file);
+        assertTrue(content.contains("\"name\":\"GET /queued\""));
+        assertFalse(content.contains("GET /dropped"));
+    }
+
+    public void testRolling() throws IOException {
+        // every write exceeds the maximum size
+        final RequestTraceExporter exporter = new RequestTraceExporter(1, 0, file, 1, 3);
+        for (int i = 1; i <= 5; i++) {
+            exporter.export(new SlingRequestProgressTracker(), i, "GET /" + i);
+        }
+        exporter.dispose();
+
+        assertFalse(file.exists());
+        final File first = new File(file.getPath() + ".1");
+        final File second = new File(file.getPath() + ".2");
+        assertTrue(read(first).startsWith("[\n"));
+        assertTrue(read(first).contains("\"name\":\"GET /5\""));
+        assertTrue(read(second).contains("\"name\":\"GET /4\""));
+        assertFalse(new File(file.getPath() + ".3").exists());
+    }
+
+    public void testRollingSingleFile() throws IOException {
+        final RequestTraceExporter exporter = new RequestTraceExporter(1, 0, file, 1, 1);
+        exporter.export(new SlingRequestProgressTracker(), 1, "GET /1");
+        exporter.dispose();
+
+        assertFalse(file.exists());
+        assertFalse(new File(file.getPath() + ".1").exists());
+    }
+
+    private static String read(final File f) throws IOException {
+        final Reader reader = new InputStreamReader(new FileInputStream(f), "UTF-8");
+        try {
+            final StringBuilder sb = new StringBuilder();
+            final char[] buf = new char[1024];
+            int n;
+            while ((n = reader.read(buf)) >= 0) {
+                sb.append(buf, 0, n);
+            }
+            return sb.toString();
+        } finally {
+            reader.close();
+        }
+    }
+}
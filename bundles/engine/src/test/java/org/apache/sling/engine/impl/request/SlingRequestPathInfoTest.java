@@ -16,6 +16,8 @@
  */
 package org.apache.sling.engine.impl.request;
 
+import java.util.Arrays;
+
 import junit.framework.TestCase;
 
 import org.apache.sling.api.request.RequestDispatcherOptions;
@@ -292,6 +294,26 @@ public class SlingRequestPathInfoTest extends TestCase {
         assertEquals("html", result.getSuffix());
     }
 
+    public void testSplitSelectors() {
+        final String[] selectorStrings = { "a", "a.b", "a..b", ".a", "a.", "a..", "..a.b..", "" };
+        for (String selectorString : selectorStrings) {
+            assertTrue(selectorString, Arrays.equals(selectorString.split("\\."),
+                SlingRequestPathInfo.splitSelectors(selectorString)));
+        }
+        assertEquals(0, SlingRequestPathInfo.splitSelectors(null).length);
+    }
+
+    public void testSelectorsNotSharedByCachedPathInfos() {
+        RequestPathInfo p1 = new SlingRequestPathInfo(new MockResource(
+            "/some/path", ".s1.s2.html"));
+        RequestPathInfo p2 = new SlingRequestPathInfo(new MockResource(
+            "/other/path", ".s1.s2.html"));
+        assertSame(p1.getSelectorString(), p2.getSelectorString());
+        p1.getSelectors()[0] = "changed";
+        assertEquals("s1", p2.getSelectors()[0]);
+        assertEquals("/other/path", p2.getResourcePath());
+    }
+
     static class MockResource extends AbstractResource {
 
         private final ResourceMetadata metadata;
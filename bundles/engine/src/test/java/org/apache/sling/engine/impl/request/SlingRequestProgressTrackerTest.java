@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.engine.impl.request;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import junit.framework.TestCase;
+
+/** Test the SlingRequestProgressTracker class */
+public class SlingRequestProgressTrackerTest extends TestCase {
+
+    public void testMessagesFormattedOnRead() {
+        final SlingRequestProgressTracker tracker = new SlingRequestProgressTracker();
+        final StringBuilder arg = new StringBuilder("before");
+        tracker.log("value={0}", arg);
+        arg.setLength(0);
+        arg.append("after");
+
+        final Iterator<String> messages = tracker.getMessages();
+        assertTrue(messages.next().contains("TIMER_START{Request Processing}"));
+        assertTrue(messages.next().contains("COMMENT timer_end format is"));
+        assertTrue(messages.next().endsWith("LOG value=after\n"));
+        assertFalse(messages.hasNext());
+    }
+
+    public void testInvalidPatternsNotFormatted() throws IOException {
+        final SlingRequestProgressTracker tracker = new SlingRequestProgressTracker();
+        tracker.log("unmatched {0", "value");
+        tracker.log("not a number {0,number}", "value");
+        tracker.startTimer("Render");
+        tracker.logTimer("Render", "broken {1", "value");
+        tracker.log("valid {0}", "value");
+
+        final Iterator<String> messages = tracker.getMessages();
+        messages.next();
+        messages.next();
+        assertTrue(messages.next().endsWith("LOG unmatched {0\n"));
+        assertTrue(messages.next().endsWith("LOG not a number {0,number}\n"));
+        messages.next();
+        assertTrue(messages.next().endsWith(",Render} broken {1\n"));
+        assertTrue(messages.next().endsWith("LOG valid value\n"));
+        assertFalse(messages.hasNext());
+
+        // the trace events are written as well
+        final StringBuilder out = new StringBuilder();
+        tracker.writeTraceEvents(out, 1, 2, "GET /content");
+        assertTrue(out.toString().contains("unmatched {0"));
+    }
+
+    public void testOldestEntriesDropped() {
+        final SlingRequestProgressTracker tracker = new SlingRequestProgressTracker();
+        for (int i = 0; i < SlingRequestProgressTracker.MAX_ENTRIES + 10; i++) {
+            tracker.log("entry");
+        }
+
+        int count = 0;
+        final Iterator<String> messages = tracker.getMessages();
+        while (messages.hasNext()) {
+            messages.next();
+            count++;
+        }
+        assertEquals(SlingRequestProgressTracker.MAX_ENTRIES, count);
+    }
+
+    public void testTraceEvents() throws IOException {
+        final SlingRequestProgressTracker tracker = new SlingRequestProgressTracker();
+        tracker.startTimer("Render");
+        tracker.log("message with \"quotes\"");
+        tracker.logTimer("Render");
+        tracker.done();
+
+        final StringBuilder out = new StringBuilder();
+        tracker.writeTraceEvents(out, 1, 2, "GET /content");
+
+        final String events = out.toString();
+        assertTrue(events.startsWith("{\"name\":\"thread_name\",\"ph\":\"M\""));
+        assertTrue(events.contains("\"name\":\"Render\",\"cat\":\"timer\",\"ph\":\"X\""));
+        assertTrue(events.contains("message with \\\"quotes\\\""));
+        assertTrue(events.endsWith("},\n"));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.adapter.internal;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The <code>AdapterDispatch</code> is the resolved chain of
+ * {@link AdapterFactoryDescriptor}s for a pair of adaptable class and
+ * adapter (target) class. The chain is held in an array to allow iterating
+ * it without allocating an iterator and counts how often it has been used.
+ */
+public class AdapterDispatch {
+
+    /**
+     * The number of hit counters, a power of two. Threads are spread over the
+     * counters so concurrent adaptations do not contend on a single one.
+     */
+    private static final int STRIPES = 8;
+
+    /** The distance of the counters in the array, keeping them on separate cache lines. */
+    private static final int PADDING = 8;
+
+    private final Class<?> adaptable;
+
+    private final Class<?> adapter;
+
+    private final AdapterFactoryDescriptor[] descriptors;
+
+    private final AtomicLongArray hits = new AtomicLongArray(STRIPES * PADDING);
+
+    public AdapterDispatch(final Class<?> adaptable,
+            final Class<?> adapter,
+            final List<AdapterFactoryDescriptor> descriptors) {
+        this.adaptable = adaptable;
+        this.adapter = adapter;
+        if (descriptors == null) {
+            this.descriptors = new AdapterFactoryDescriptor[0];
+        } else {
+            this.descriptors = descriptors.toArray(new AdapterFactoryDescriptor[descriptors.size()]);
+        }
+    }
+
+    public Class<?> getAdaptable() {
+        return adaptable;
+    }
+
+    public Class<?> getAdapter() {
+        return adapter;
+    }
+
+    public AdapterFactoryDescriptor[] getDescriptors() {
+        return descriptors;
+    }
+
+    /**
+     * Counts a use of this dispatch entry.
+     */
+    public void hit() {
+        final int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        hits.incrementAndGet(stripe * PADDING);
+    }
+
+    public long getHits() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += hits.get(i * PADDING);
+        }
+        return sum;
+    }
+}
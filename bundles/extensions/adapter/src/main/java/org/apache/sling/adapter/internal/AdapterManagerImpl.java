@@ -22,6 +22,7 @@ import static org.apache.sling.api.adapter.AdapterFactory.ADAPTABLE_CLASSES;
 import static org.apache.sling.api.adapter.AdapterFactory.ADAPTER_CLASSES;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.Hashtable;
@@ -30,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Properties;
@@ -43,6 +45,8 @@ import org.apache.sling.api.adapter.AdapterFactory;
 import org.apache.sling.api.adapter.AdapterManager;
 import org.apache.sling.api.resource.SyntheticResource;
 import org.apache.sling.commons.osgi.PropertiesUtil;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.BundleListener;
 import org.osgi.framework.Constants;
 import org.osgi.framework.ServiceReference;
 import org.osgi.service.component.ComponentContext;
@@ -68,6 +72,19 @@ import org.slf4j.LoggerFactory;
 cardinality=ReferenceCardinality.OPTIONAL_MULTIPLE, policy=ReferencePolicy.DYNAMIC)
 public class AdapterManagerImpl implements AdapterManager {
 
+    /**
+     * The maximum number of dispatch entries of their own for pairs of classes
+     * which cannot be adapted. Further misses share the {@link #NO_ADAPTER}
+     * entry, which is neither counted nor listed.
+     */
+    static final int MAX_CACHED_MISSES = 1000;
+
+    /** The shared dispatch entry for misses beyond {@link #MAX_CACHED_MISSES}. */
+    private static final AdapterDispatch NO_ADAPTER = new AdapterDispatch(Object.class, Object.class, null);
+
+    /** The shared factory map of classes without any adapter factory. */
+    private static final Map<String, List<AdapterFactoryDescriptor>> NO_FACTORIES = Collections.emptyMap();
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     /**
@@ -94,8 +111,8 @@ public class AdapterManagerImpl implements AdapterManager {
     private final Map<String, AdapterFactoryDescriptorMap> descriptors = new HashMap<String, AdapterFactoryDescriptorMap>();
 
     /**
-     * Matrix of {@link AdapterFactoryDescriptor} instances primarily indexed by the fully
-     * qualified name of the class to be adapted and secondarily indexed by the
+     * Matrix of {@link AdapterFactoryDescriptor} instances primarily indexed by the
+     * fully qualified name of the class to be adapted and secondarily indexed by the
      * fully qualified name of the class to adapt to (the target class).
      * <p>
      * This cache is built on demand by calling the
@@ -105,6 +122,39 @@ public class AdapterManagerImpl implements AdapterManager {
     private final ConcurrentMap<String, Map<String, List<AdapterFactoryDescriptor>>> factoryCache
     = new ConcurrentHashMap<String, Map<String, List<AdapterFactoryDescriptor>>>();
 
+    /**
+     * Dispatch table of {@link AdapterDispatch} instances primarily indexed by
+     * the class to be adapted and secondarily indexed by the class to adapt to.
+     * Once an entry exists, {@link #getAdapter(Object, Class)} resolves the
+     * factories for a pair of classes with two map lookups and without
+     * creating any objects.
+     * <p>
+     * This table is built on demand from the {@link #factoryCache} and is
+     * cleared together with it. As it refers to the classes, it is also
+     * cleared whenever a bundle is unresolved, so the classes of refreshed
+     * and uninstalled bundles can be unloaded.
+     */
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, AdapterDispatch>> dispatchCache
+    = new ConcurrentHashMap<Class<?>, ConcurrentMap<Class<?>, AdapterDispatch>>();
+
+    /**
+     * The number of dispatch entries of their own created for pairs which
+     * cannot be adapted since the caches have been cleared.
+     */
+    private final AtomicInteger cachedMisses = new AtomicInteger();
+
+    /**
+     * Clears the caches whenever a bundle is unresolved.
+     */
+    private final BundleListener bundleListener = new BundleListener() {
+
+        public void bundleChanged(final BundleEvent event) {
+            if (event.getType() == BundleEvent.UNRESOLVED) {
+                clearCaches();
+            }
+        }
+    };
+
     /**
      * The service tracker for the event admin
      */
@@ -123,32 +173,39 @@ public class AdapterManagerImpl implements AdapterManager {
             final Class<AdapterType> type) {
 
         // get the adapter factories for the type of adaptable object
-        final Map<String, List<AdapterFactoryDescriptor>> factories = getAdapterFactories(adaptable.getClass());
-
-        // get the factory for the target type
-        final List<AdapterFactoryDescriptor> descList = factories.get(type.getName());
+        // and the target type
+        final AdapterDispatch dispatch = getAdapterDispatch(adaptable.getClass(), type);
+        if (dispatch != NO_ADAPTER) {
+            dispatch.hit();
+        }
 
-        if (descList != null && descList.size() > 0) {
-            for (AdapterFactoryDescriptor desc : descList) {
-                final AdapterFactory factory = desc == null ? null : desc.getFactory();
+        final boolean debug = log.isDebugEnabled();
+        final AdapterFactoryDescriptor[] descs = dispatch.getDescriptors();
+        for (int i = 0; i < descs.length; i++) {
+            final AdapterFactory factory = descs[i] == null ? null : descs[i].getFactory();
 
-                // have the factory adapt the adaptable if the factory exists
-                if (factory != null) {
+            // have the factory adapt the adaptable if the factory exists
+            if (factory != null) {
+                if (debug) {
                     log.debug("Trying adapter factory {} to map {} to {}",
                             new Object [] { factory, adaptable, type });
+                }
 
-                    AdapterType adaptedObject = factory.getAdapter(adaptable, type);
-                    if (adaptedObject != null) {
+                AdapterType adaptedObject = factory.getAdapter(adaptable, type);
+                if (adaptedObject != null) {
+                    if (debug) {
                         log.debug("Using adapter factory {} to map {} to {}",
                                 new Object [] { factory, adaptable, type });
-                        return adaptedObject;
                     }
+                    return adaptedObject;
                 }
             }
         }
 
         // no factory has been found, so we cannot adapt
-        log.debug("No adapter factory found to map {} to {}", adaptable, type);
+        if (debug) {
+            log.debug("No adapter factory found to map {} to {}", adaptable, type);
+        }
 
         return null;
     }
@@ -173,6 +230,8 @@ public class AdapterManagerImpl implements AdapterManager {
             registerAdapterFactory(context, reference);
         }
 
+        context.getBundleContext().addBundleListener(this.bundleListener);
+
         // final "enable" this manager by setting the instance
         SyntheticResource.setAdapterManager(this);
     }
@@ -183,7 +242,12 @@ public class AdapterManagerImpl implements AdapterManager {
      */
     protected void deactivate(final ComponentContext context) {
         SyntheticResource.unsetAdapterManager(this);
+        final ComponentContext ctx = this.context;
+        if (ctx != null) {
+            ctx.getBundleContext().removeBundleListener(this.bundleListener);
+        }
         this.context = null;
+        this.clearCaches();
     }
 
     /**
@@ -233,6 +297,22 @@ public class AdapterManagerImpl implements AdapterManager {
         return factoryCache;
     }
 
+    /**
+     * Returns the entries of the current adapter dispatch table together
+     * with their hit counts. This is used by the {@link AdapterWebConsolePlugin}.
+     */
+    List<AdapterDispatch> getAdapterDispatches() {
+        final List<AdapterDispatch> result = new ArrayList<AdapterDispatch>();
+        for (final Map<Class<?>, AdapterDispatch> targets : this.dispatchCache.values()) {
+            for (final AdapterDispatch dispatch : targets.values()) {
+                if (dispatch != NO_ADAPTER) {
+                    result.add(dispatch);
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * Unregisters the {@link AdapterFactory} referred to by the service
      * <code>reference</code> from the registry.
@@ -265,7 +345,7 @@ public class AdapterManagerImpl implements AdapterManager {
         }
 
         // clear the factory cache to force rebuild on next access
-        this.factoryCache.clear();
+        this.clearCaches();
 
         // send event
         final EventAdmin localEA = this.eventAdmin;
@@ -310,7 +390,7 @@ public class AdapterManagerImpl implements AdapterManager {
         // only remove cache if some adapter factories have actually been
         // removed
         if (factoriesModified) {
-            this.factoryCache.clear();
+            this.clearCaches();
         }
 
         // send event
@@ -324,6 +404,54 @@ public class AdapterManagerImpl implements AdapterManager {
         }
     }
 
+    /**
+     * Clears the factory cache and the dispatch table.
+     */
+    private void clearCaches() {
+        this.dispatchCache.clear();
+        this.factoryCache.clear();
+        this.cachedMisses.set(0);
+    }
+
+    /**
+     * Returns whether another dispatch entry of its own for a pair which
+     * cannot be adapted may be created.
+     */
+    private boolean cacheMiss() {
+        return this.cachedMisses.get() < MAX_CACHED_MISSES
+            && this.cachedMisses.incrementAndGet() <= MAX_CACHED_MISSES;
+    }
+
+    /**
+     * Returns the {@link AdapterDispatch} for adapting instances of
+     * <code>clazz</code> to <code>type</code>. The entry is created on
+     * first access; entries without any factory are only created up to
+     * {@link #MAX_CACHED_MISSES}, further pairs share {@link #NO_ADAPTER}.
+     */
+    private AdapterDispatch getAdapterDispatch(final Class<?> clazz, final Class<?> type) {
+        ConcurrentMap<Class<?>, AdapterDispatch> targets = this.dispatchCache.get(clazz);
+        AdapterDispatch dispatch = (targets == null ? null : targets.get(type));
+        if (dispatch != null) {
+            return dispatch;
+        }
+
+        final List<AdapterFactoryDescriptor> descriptors = getAdapterFactories(clazz).get(type.getName());
+        if ((descriptors == null || descriptors.isEmpty()) && !this.cacheMiss()) {
+            dispatch = NO_ADAPTER;
+        } else {
+            dispatch = new AdapterDispatch(clazz, type, descriptors);
+        }
+        if (targets == null) {
+            targets = new ConcurrentHashMap<Class<?>, AdapterDispatch>();
+            final ConcurrentMap<Class<?>, AdapterDispatch> existing = this.dispatchCache.putIfAbsent(clazz, targets);
+            if (existing != null) {
+                targets = existing;
+            }
+        }
+        final AdapterDispatch existing = targets.putIfAbsent(type, dispatch);
+        return (existing != null ? existing : dispatch);
+    }
+
     /**
      * Returns the map of adapter factories index by adapter (target) class name
      * for the given adaptable <code>clazz</code>. If no adapter exists for
@@ -341,6 +469,9 @@ public class AdapterManagerImpl implements AdapterManager {
         if (entry == null) {
             // create entry
             entry = createAdapterFactoryMap(clazz);
+            if (entry.isEmpty()) {
+                entry = NO_FACTORIES;
+            }
             this.factoryCache.put(className, entry);
         }
 
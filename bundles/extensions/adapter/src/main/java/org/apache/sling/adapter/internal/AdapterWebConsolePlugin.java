@@ -26,6 +26,7 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -43,8 +44,12 @@ import org.apache.commons.lang.builder.CompareToBuilder;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Properties;
 import org.apache.felix.scr.annotations.Property;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.ReferenceCardinality;
+import org.apache.felix.scr.annotations.ReferencePolicy;
 import org.apache.felix.scr.annotations.Service;
 import org.apache.sling.api.adapter.AdapterFactory;
+import org.apache.sling.api.adapter.AdapterManager;
 import org.apache.sling.commons.json.JSONArray;
 import org.apache.sling.commons.json.JSONException;
 import org.apache.sling.commons.json.JSONObject;
@@ -88,6 +93,10 @@ public class AdapterWebConsolePlugin extends HttpServlet implements ServiceTrack
 
     private BundleContext bundleContext;
 
+    /** The adapter manager providing the dispatch statistics. */
+    @Reference(cardinality=ReferenceCardinality.OPTIONAL_UNARY, policy=ReferencePolicy.DYNAMIC)
+    private volatile AdapterManager adapterManager;
+
     public Object addingService(final ServiceReference reference) {
         final Object service = this.bundleContext.getService(reference);
         addServiceMetadata(reference, service);
@@ -285,6 +294,46 @@ public class AdapterWebConsolePlugin extends HttpServlet implements ServiceTrack
             }
         }
         writer.println("</table>");
+
+        final List<AdapterDispatch> dispatches = getAdapterDispatches();
+        if (!dispatches.isEmpty()) {
+            writer.println("<p class=\"statline ui-state-highlight\">${Adapter Usage}</p>");
+            writer.println("<table class=\"adapters nicetable\">");
+            writer.println("<thead><tr><th class=\"header\">${Adaptable Class}</th><th class=\"header\">${Adapter Class}</th><th class=\"header\">${Adapter Factories}</th><th class=\"header\">${Hits}</th></tr></thead>");
+            rowClass = "odd";
+            for (final AdapterDispatch dispatch : dispatches) {
+                writer.printf("<tr class=\"%s ui-state-default\"><td>%s</td><td>%s</td><td>%s</td><td>%s</td></tr>%n",
+                    rowClass, dispatch.getAdaptable().getName(), dispatch.getAdapter().getName(),
+                    dispatch.getDescriptors().length, dispatch.getHits());
+
+                if (rowClass.equals("odd")) {
+                    rowClass = "even";
+                } else {
+                    rowClass = "odd";
+                }
+            }
+            writer.println("</table>");
+        }
+    }
+
+    /**
+     * Returns the entries of the adapter dispatch table of the adapter
+     * manager, most used entries first.
+     */
+    private List<AdapterDispatch> getAdapterDispatches() {
+        final AdapterManager manager = this.adapterManager;
+        if (!(manager instanceof AdapterManagerImpl)) {
+            return Collections.emptyList();
+        }
+        final List<AdapterDispatch> dispatches = ((AdapterManagerImpl) manager).getAdapterDispatches();
+        Collections.sort(dispatches, new Comparator<AdapterDispatch>() {
+            public int compare(final AdapterDispatch o1, final AdapterDispatch o2) {
+                final long h1 = o1.getHits();
+                final long h2 = o2.getHits();
+                return h1 < h2 ? 1 : (h1 == h2 ? 0 : -1);
+            }
+        });
+        return dispatches;
     }
 
     public void printConfiguration(final PrintWriter pw) {
@@ -302,6 +351,15 @@ public class AdapterWebConsolePlugin extends HttpServlet implements ServiceTrack
             }
             pw.println();
         }
+
+        final List<AdapterDispatch> dispatches = getAdapterDispatches();
+        if (!dispatches.isEmpty()) {
+            pw.println("Adapter Usage:");
+            for (final AdapterDispatch dispatch : dispatches) {
+                pw.printf(" * %s -> %s: %s hits, %s factories\n", dispatch.getAdaptable().getName(),
+                    dispatch.getAdapter().getName(), dispatch.getHits(), dispatch.getDescriptors().length);
+            }
+        }
     }
 
     /**
@@ -25,20 +25,28 @@ import org.hamcrest.Matcher;
 import org.hamcrest.core.IsAnything;
 import org.jmock.Expectations;
 import org.jmock.Mockery;
+import org.jmock.api.Invocation;
 import org.jmock.integration.junit4.JMock;
 import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.action.CustomAction;
 import org.junit.runner.RunWith;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.BundleListener;
 import org.osgi.framework.Constants;
 import org.osgi.framework.Filter;
 import org.osgi.framework.ServiceListener;
 import org.osgi.framework.ServiceReference;
 import org.osgi.service.component.ComponentContext;
 
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -50,6 +58,9 @@ public class AdapterManagerTest {
 
     protected final Mockery context = new JUnit4Mockery();
 
+    /** The bundle listener registered by the adapter manager */
+    private BundleListener bundleListener;
+
     @org.junit.Before public void setUp() {
         am = new AdapterManagerImpl();
     }
@@ -88,6 +99,14 @@ public class AdapterManagerTest {
             allowing(bundleCtx).getServiceReferences(with(any(String.class)), with(any(String.class)));
             will(returnValue(null));
             allowing(bundleCtx).removeServiceListener(with(any(ServiceListener.class)));
+            allowing(bundleCtx).addBundleListener(with(any(BundleListener.class)));
+            will(new CustomAction("capture bundle listener") {
+                public Object invoke(Invocation invocation) {
+                    bundleListener = (BundleListener) invocation.getParameter(0);
+                    return null;
+                }
+            });
+            allowing(bundleCtx).removeBundleListener(with(any(BundleListener.class)));
         }});
         return ctx;
     }
@@ -112,6 +131,14 @@ public class AdapterManagerTest {
             allowing(bundleCtx).getServiceReferences(with(any(String.class)), with(any(String.class)));
             will(returnValue(null));
             allowing(bundleCtx).removeServiceListener(with(any(ServiceListener.class)));
+            allowing(bundleCtx).addBundleListener(with(any(BundleListener.class)));
+            will(new CustomAction("capture bundle listener") {
+                public Object invoke(Invocation invocation) {
+                    bundleListener = (BundleListener) invocation.getParameter(0);
+                    return null;
+                }
+            });
+            allowing(bundleCtx).removeBundleListener(with(any(BundleListener.class)));
         }});
         return ctx;
     }
@@ -263,6 +290,82 @@ public class AdapterManagerTest {
         assertTrue(adapter instanceof ITestAdapter);
     }
 
+    @org.junit.Test public void testAdapterDispatch() throws Exception {
+        am.activate(this.createComponentContext());
+
+        TestSlingAdaptable data = new TestSlingAdaptable();
+        assertNull("Expect no adapter", am.getAdapter(data, ITestAdapter.class));
+        assertEquals(1, am.getAdapterDispatches().size());
+        assertEquals(0, am.getAdapterDispatches().get(0).getDescriptors().length);
+
+        // binding a factory must invalidate the dispatch table
+        final ServiceReference ref = createServiceReference();
+        am.bindAdapterFactory(ref);
+        assertTrue("Adapter dispatch table must be empty", am.getAdapterDispatches().isEmpty());
+
+        assertNotNull(am.getAdapter(data, ITestAdapter.class));
+        assertNotNull(am.getAdapter(data, ITestAdapter.class));
+
+        final List<AdapterDispatch> dispatches = am.getAdapterDispatches();
+        assertEquals(1, dispatches.size());
+        assertEquals(TestSlingAdaptable.class, dispatches.get(0).getAdaptable());
+        assertEquals(ITestAdapter.class, dispatches.get(0).getAdapter());
+        assertEquals(1, dispatches.get(0).getDescriptors().length);
+        assertEquals(2, dispatches.get(0).getHits());
+    }
+
+    @org.junit.Test public void testCachedMissesAreBounded() throws Exception {
+        am.activate(this.createComponentContext());
+
+        // distinct target classes none of which can be adapted to
+        final List<Class<?>> types = new ArrayList<Class<?>>();
+        for (final Class<?> base : new Class<?>[] { String.class, Integer.class, Long.class, Double.class, Boolean.class }) {
+            Class<?> type = base;
+            for (int i = 0; i < 250; i++) {
+                type = Array.newInstance(type, 0).getClass();
+                types.add(type);
+            }
+        }
+        assertTrue(types.size() > AdapterManagerImpl.MAX_CACHED_MISSES);
+
+        TestSlingAdaptable data = new TestSlingAdaptable();
+        for (final Class<?> type : types) {
+            assertNull(am.getAdapter(data, type));
+        }
+        // further misses share an entry which is not listed
+        assertEquals(AdapterManagerImpl.MAX_CACHED_MISSES, am.getAdapterDispatches().size());
+        final int factoryMaps = am.getFactoryCache().size();
+        assertNull(am.getAdapter(data, types.get(types.size() - 1)));
+        assertEquals(AdapterManagerImpl.MAX_CACHED_MISSES, am.getAdapterDispatches().size());
+        assertEquals(factoryMaps, am.getFactoryCache().size());
+
+        // adapters which can be found are still cached
+        am.bindAdapterFactory(createServiceReference());
+        assertNotNull(am.getAdapter(data, ITestAdapter.class));
+        assertEquals(1, am.getAdapterDispatches().size());
+    }
+
+    @org.junit.Test public void testBundleUnresolvedClearsCaches() throws Exception {
+        am.activate(this.createComponentContext());
+        assertNotNull(bundleListener);
+        am.bindAdapterFactory(createServiceReference());
+
+        TestSlingAdaptable data = new TestSlingAdaptable();
+        assertNotNull(am.getAdapter(data, ITestAdapter.class));
+        assertEquals(1, am.getAdapterDispatches().size());
+        assertFalse(am.getFactoryCache().isEmpty());
+
+        final Bundle bundle = createBundle("unresolved");
+        bundleListener.bundleChanged(new BundleEvent(BundleEvent.STOPPED, bundle));
+        assertEquals(1, am.getAdapterDispatches().size());
+
+        bundleListener.bundleChanged(new BundleEvent(BundleEvent.UNRESOLVED, bundle));
+        assertTrue("Adapter dispatch table must be empty", am.getAdapterDispatches().isEmpty());
+        assertTrue("AdapterFactory cache must be empty", am.getFactoryCache().isEmpty());
+
+        assertNotNull(am.getAdapter(data, ITestAdapter.class));
+    }
+
     @org.junit.Test public void testAdaptExtended() throws Exception {
         am.activate(this.createComponentContext());
 
@@ -20,14 +20,19 @@ package org.apache.sling.bundleresource.impl;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.osgi.framework.Bundle;
 
@@ -43,6 +48,13 @@ import org.osgi.framework.Bundle;
  * <p>
  * Currently the cache limits are fixed at {@value #CACHE_SIZE} for the entries
  * cache and at {@value #LIST_CACHE_SIZE} for the child entries cache.
+ * <p>
+ * In addition, on first access an immutable index of all entries below the
+ * entry roots of the provider is built. Requests for paths covered by this
+ * index are answered without locking: non-existing entries and child entry
+ * lists come directly from the index, the URLs of existing entries are kept
+ * in an unbounded concurrent map as their number is limited by the index.
+ * Paths not covered by the index go through the size limited caches.
  */
 class BundleResourceCache {
 
@@ -85,6 +97,22 @@ class BundleResourceCache {
      */
     private final Bundle bundle;
 
+    /**
+     * The entry root paths (with trailing slash) to build the index for.
+     */
+    private final String[] indexRoots;
+
+    /**
+     * The index of entries below the {@link #indexRoots}, built on first
+     * access. This field is <code>null</code> until the index is built.
+     */
+    private volatile EntryIndex index;
+
+    /**
+     * Entry URLs of paths contained in the {@link #index}.
+     */
+    private final Map<String, URL> indexedEntries = new ConcurrentHashMap<String, URL>();
+
     // static initializer setting the NOT_FOUND_URL. Because the
     // constructor may throw an exception we use a static initializer
     // which fails the class initialization in the unlikely case
@@ -102,10 +130,18 @@ class BundleResourceCache {
      * the given <code>bundle</code>.
      *
      * @param bundle
+     * @param entryRoots The entry paths below which all entries are indexed
      */
-    BundleResourceCache(Bundle bundle) {
+    BundleResourceCache(Bundle bundle, String[] entryRoots) {
         this.bundle = bundle;
 
+        this.indexRoots = new String[entryRoots.length];
+        for (int i = 0; i < entryRoots.length; i++) {
+            this.indexRoots[i] = EntryIndex.normalize(entryRoots[i].endsWith("/")
+                    ? entryRoots[i]
+                    : entryRoots[i].concat("/"));
+        }
+
         // create the limited maps wrapping in synchronized maps
         this.cache = Collections.synchronizedMap(new BundleResourceMap<String, URL>(
             CACHE_SIZE));
@@ -133,6 +169,22 @@ class BundleResourceCache {
      *         bundle does not contain the request entry.
      */
     URL getEntry(String path) {
+        final EntryIndex index = getIndex();
+        final String indexPath = EntryIndex.normalize(path);
+        if (index.covers(indexPath)) {
+            if (!index.contains(indexPath)) {
+                return null;
+            }
+            URL url = indexedEntries.get(path);
+            if (url == null) {
+                url = bundle.getEntry(path);
+                if (url != null) {
+                    indexedEntries.put(path, url);
+                }
+            }
+            return url;
+        }
+
         URL url = cache.get(path);
         if (url == null) {
             url = bundle.getEntry(path);
@@ -163,6 +215,13 @@ class BundleResourceCache {
      *         or <code>null</code> if the parent entry does not exist.
      */
     Iterator<String> getEntryPaths(String path) {
+        final EntryIndex index = getIndex();
+        final String indexPath = EntryIndex.normalize(path);
+        if (index.covers(indexPath)) {
+            final List<String> children = index.getChildren(indexPath);
+            return (children == null) ? null : children.iterator();
+        }
+
         List<String> list = listCache.get(path);
         if (list == null) {
 
@@ -185,8 +244,41 @@ class BundleResourceCache {
         return (list == NOT_FOUND_CHILDREN) ? null : list.iterator();
     }
 
+    /**
+     * Returns the entry index, building it if not done yet.
+     */
+    private EntryIndex getIndex() {
+        EntryIndex result = index;
+        if (result == null) {
+            synchronized (this) {
+                result = index;
+                if (result == null) {
+                    result = new EntryIndex(bundle, indexRoots);
+                    index = result;
+                }
+            }
+        }
+        return result;
+    }
+
     // ---------- Management API
 
+    /**
+     * Returns the number of entries in the entry index or -1 if the index
+     * has not been built yet.
+     */
+    int getIndexSize() {
+        final EntryIndex result = index;
+        return (result == null) ? -1 : result.size();
+    }
+
+    /**
+     * Returns the number of entry URLs cached for indexed entries.
+     */
+    int getIndexedEntryCacheSize() {
+        return indexedEntries.size();
+    }
+
     /**
      * Returns the current number of entries stored in the entry cache. This
      * number includes "negative" entries, which are requested entries not found
@@ -221,7 +313,110 @@ class BundleResourceCache {
         return LIST_CACHE_SIZE;
     }
 
-    // ---------- inner class
+    // ---------- inner classes
+
+    /**
+     * The <code>EntryIndex</code> is an immutable index of the entry paths and
+     * child entry lists of a bundle below a set of root paths. All paths in
+     * the index are absolute, folders have a trailing slash.
+     */
+    private static final class EntryIndex {
+
+        /** The roots which could be indexed, with trailing slash */
+        private final String[] roots;
+
+        /** The indexed entry paths */
+        private final Set<String> entries;
+
+        /**
+         * The child entry paths (as returned from the bundle) per indexed
+         * folder, only contains folders with children.
+         */
+        private final Map<String, List<String>> children;
+
+        EntryIndex(final Bundle bundle, final String[] candidateRoots) {
+            final List<String> indexedRoots = new ArrayList<String>();
+            final Set<String> entries = new HashSet<String>();
+            final Map<String, List<String>> children = new HashMap<String, List<String>>();
+            for (final String root : candidateRoots) {
+                if (covers(indexedRoots, root)) {
+                    continue;
+                }
+                // only folders with content can be indexed, other roots
+                // are handled by the size limited caches
+                if (collect(bundle, root, entries, children)) {
+                    entries.add(root);
+                    indexedRoots.add(root);
+                }
+            }
+            this.roots = indexedRoots.toArray(new String[indexedRoots.size()]);
+            this.entries = entries;
+            this.children = children;
+        }
+
+        /**
+         * Adds the entries below the given folder to the index and returns
+         * <code>true</code> if the folder has children.
+         */
+        private static boolean collect(final Bundle bundle, final String folder,
+                final Set<String> entries, final Map<String, List<String>> children) {
+            @SuppressWarnings("unchecked")
+            final Enumeration<String> paths = bundle.getEntryPaths(folder);
+            if (paths == null || !paths.hasMoreElements()) {
+                return false;
+            }
+
+            final List<String> list = new ArrayList<String>();
+            while (paths.hasMoreElements()) {
+                final String entry = paths.nextElement();
+                list.add(entry);
+
+                final String indexPath = normalize(entry);
+                entries.add(indexPath);
+                if (indexPath.endsWith("/")) {
+                    collect(bundle, indexPath, entries, children);
+                }
+            }
+            children.put(folder, Collections.unmodifiableList(list));
+            return true;
+        }
+
+        private static boolean covers(final List<String> roots, final String path) {
+            for (final String root : roots) {
+                if (path.startsWith(root)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Returns the path with a leading slash */
+        static String normalize(final String path) {
+            return path.startsWith("/") ? path : "/".concat(path);
+        }
+
+        /** Returns <code>true</code> if the path is below an indexed root */
+        boolean covers(final String path) {
+            for (final String root : roots) {
+                if (path.startsWith(root)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean contains(final String path) {
+            return entries.contains(path);
+        }
+
+        List<String> getChildren(final String path) {
+            return children.get(path);
+        }
+
+        int size() {
+            return entries.size();
+        }
+    }
 
     /**
      * The <code>BundleResourceMap</code> class extends the
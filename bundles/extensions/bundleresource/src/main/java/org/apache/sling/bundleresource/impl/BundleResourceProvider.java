@@ -53,7 +53,6 @@ public class BundleResourceProvider implements ResourceProvider {
      * comma (and whitespace) separated list of absolute paths.
      */
     public BundleResourceProvider(Bundle bundle, String rootList) {
-        this.bundle = new BundleResourceCache(bundle);
         List<MappedPath> prefixList = new ArrayList<MappedPath>();
 
         final ManifestHeader header = ManifestHeader.parse(rootList);
@@ -67,6 +66,13 @@ public class BundleResourceProvider implements ResourceProvider {
             }
         }
         this.roots = prefixList.toArray(new MappedPath[prefixList.size()]);
+
+        // index the entries below the entry roots of all mappings
+        final String[] entryRoots = new String[roots.length];
+        for (int i = 0; i < roots.length; i++) {
+            entryRoots[i] = roots[i].getEntryPath(roots[i].getResourceRoot());
+        }
+        this.bundle = new BundleResourceCache(bundle, entryRoots);
     }
 
     //---------- Service Registration
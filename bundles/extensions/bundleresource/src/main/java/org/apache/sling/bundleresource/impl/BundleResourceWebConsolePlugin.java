@@ -127,6 +127,17 @@ class BundleResourceWebConsolePlugin extends HttpServlet {
             pw.println("</td>");
             pw.println("</tr>");
 
+            pw.println("<tr>");
+            pw.println("<td>Entry Index</td>");
+            final int indexSize = cache.getIndexSize();
+            if (indexSize < 0) {
+                pw.println("<td>Not built yet</td>");
+            } else {
+                pw.printf("<td>Entries: %d, Cached URLs: %d</td>%n",
+                    indexSize, cache.getIndexedEntryCacheSize());
+            }
+            pw.println("</tr>");
+
             pw.println("<tr>");
             pw.println("<td>Entry Cache</td>");
             pw.printf("<td>Size: %d, Limit: %d</td>%n",
@@ -74,6 +74,12 @@ public class Config {
     public static final String MIN_EVENT_DELAY_KEY = "minEventDelay";
     private int minEventDelay = DEFAULT_MIN_EVENT_DELAY;
 
+    /** Configure whether the periodic view check should skip re-analyzing votings and the established view when neither membership nor votings changed. */
+    public static final boolean DEFAULT_INCREMENTAL_VIEW_CHECK = false;
+    @Property(boolValue=DEFAULT_INCREMENTAL_VIEW_CHECK)
+    public static final String INCREMENTAL_VIEW_CHECK_KEY = "incrementalViewCheck";
+    private boolean incrementalViewCheck = DEFAULT_INCREMENTAL_VIEW_CHECK;
+
     /** URLs where to join a topology, eg http://localhost:4502/libs/sling/topology/connector */
     @Property(cardinality=1024)
     public static final String TOPOLOGY_CONNECTOR_URLS_KEY = "topologyConnectorUrls";
@@ -167,6 +173,12 @@ public class Config {
                 DEFAULT_MIN_EVENT_DELAY);
         logger.debug("configure: minEventDelay='{}'",
                 this.minEventDelay);
+
+        this.incrementalViewCheck = PropertiesUtil.toBoolean(
+                properties.get(INCREMENTAL_VIEW_CHECK_KEY),
+                DEFAULT_INCREMENTAL_VIEW_CHECK);
+        logger.debug("configure: incrementalViewCheck='{}'",
+                this.incrementalViewCheck);
         
         String[] topologyConnectorUrlsStr = PropertiesUtil.toStringArray(
                 properties.get(TOPOLOGY_CONNECTOR_URLS_KEY), null);
@@ -256,6 +268,16 @@ public class Config {
         return minEventDelay;
     }
 
+    /**
+     * Returns whether the periodic view check only does a full analysis of
+     * votings and the established view when either the set of live instances
+     * or the votings/established view have changed since the last check.
+     * @return true if the incremental view check is enabled
+     */
+    public boolean isIncrementalViewCheck() {
+        return incrementalViewCheck;
+    }
+
     /**
      * Returns the URLs to which to open a topology connector - or null/empty if no topology connector
      * is configured (default is null)
@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Properties;
@@ -79,6 +80,9 @@ public class VotingHandler implements EventHandler {
     /** the sling id of the local instance **/
     private String slingId;
 
+    /** counts the observed changes of ongoing votings and the established view **/
+    private final AtomicLong votingChangeCount = new AtomicLong();
+
     protected void activate(final ComponentContext context) {
         slingId = slingSettingsService.getSlingId();
         logger = LoggerFactory.getLogger(this.getClass().getCanonicalName()
@@ -96,6 +100,10 @@ public class VotingHandler implements EventHandler {
             // not of my business
             return;
         }
+        if (resourcePath.startsWith(ongoingVotingsPath)
+                || resourcePath.startsWith(config.getEstablishedViewPath())) {
+            votingChangeCount.incrementAndGet();
+        }
         if (!resourcePath.startsWith(ongoingVotingsPath)) {
             // not of my business
             return;
@@ -123,6 +131,17 @@ public class VotingHandler implements EventHandler {
         }
     }
 
+    /**
+     * Returns the number of changes to ongoing votings or the established view
+     * which were observed so far.
+     * <p>
+     * Used by the HeartbeatHandler to detect whether a full view check is
+     * necessary or whether nothing has changed since the last check.
+     */
+    public long getVotingChangeCount() {
+        return votingChangeCount.get();
+    }
+
     /**
      * Analyze any ongoing voting in the repository.
      * <p>
@@ -123,6 +123,12 @@ public class HeartbeatHandler implements Runnable, StartupListener {
     
     /** SLING-2968 : start issuing remote heartbeats only after startup finished **/
     private boolean startupFinished = false;
+
+    /** the live instances found by the last view check which matched the established view - or null **/
+    private Set<String> lastMatchingLiveInstances = null;
+
+    /** the voting change count at the time of the last matching view check **/
+    private long lastVotingChangeCount = -1;
     
     public void inform(StartupMode mode, boolean finished) {
     	if (finished) {
@@ -203,11 +209,31 @@ public class HeartbeatHandler implements Runnable, StartupListener {
         		return;
         	}
         	
-            // issue a heartbeat
-            issueHeartbeat();
-    
-            // check the view
-            checkView();
+            // issue the heartbeat and check the view using one and the
+            // same resource resolver, instead of logging in twice per interval
+            ResourceResolver resourceResolver = null;
+            try {
+                resourceResolver = getResourceResolver();
+
+                // issue a heartbeat
+                issueHeartbeat(resourceResolver);
+
+                if (!activated) {
+                    // the heartbeat detected a duplicate sling id and
+                    // disabled discovery - no view check anymore
+                    return;
+                }
+
+                // check the view - on an up-to-date state of the repository
+                resourceResolver.refresh();
+                checkView(resourceResolver);
+            } catch (LoginException e) {
+                logger.error("run: could not log in administratively: " + e, e);
+            } finally {
+                if (resourceResolver != null) {
+                    resourceResolver.close();
+                }
+            }
         }
     }
 
@@ -244,12 +270,28 @@ public class HeartbeatHandler implements Runnable, StartupListener {
      * which announce this part of the topology to others)
      */
     private void issueHeartbeat() {
+        ResourceResolver resourceResolver = null;
+        try {
+            resourceResolver = getResourceResolver();
+            issueHeartbeat(resourceResolver);
+        } catch (LoginException e) {
+            logger.error("issueHeartbeat: could not log in administratively: "
+                    + e, e);
+        } finally {
+            if (resourceResolver != null) {
+                resourceResolver.close();
+            }
+        }
+    }
+
+    /** Issue a heartbeat using the given resourceResolver for the cluster-local part **/
+    private void issueHeartbeat(final ResourceResolver resourceResolver) {
         if (discoveryService == null) {
             logger.error("issueHeartbeat: discoveryService is null");
         } else {
             discoveryService.updateProperties();
         }
-        issueClusterLocalHeartbeat();
+        issueClusterLocalHeartbeat(resourceResolver);
         issueRemoteHeartbeats();
     }
 
@@ -267,16 +309,14 @@ public class HeartbeatHandler implements Runnable, StartupListener {
     }
 
     /** Issue a cluster local heartbeat (into the repository) **/
-    private void issueClusterLocalHeartbeat() {
-        ResourceResolver resourceResolver = null;
+    private void issueClusterLocalHeartbeat(final ResourceResolver resourceResolver) {
+        if (resourceResolver == null) {
+            logger.error("issueClusterLocalHeartbeat: no resourceresolver available!");
+            return;
+        }
         final String myClusterNodePath = getLocalClusterNodePath();
         final Calendar currentTime = Calendar.getInstance();
         try {
-            resourceResolver = getResourceResolver();
-            if (resourceResolver == null) {
-                logger.error("issueClusterLocalHeartbeat: no resourceresolver available!");
-                return;
-            }
 
             final Resource resource = ResourceHelper.getOrCreateResource(
                     resourceResolver, myClusterNodePath);
@@ -375,23 +415,18 @@ public class HeartbeatHandler implements Runnable, StartupListener {
             	firstHeartbeatWritten = System.currentTimeMillis();
             }
 
-        } catch (LoginException e) {
-            logger.error("issueHeartbeat: could not log in administratively: "
-                    + e, e);
         } catch (PersistenceException e) {
             logger.error("issueHeartbeat: Got a PersistenceException: "
                     + myClusterNodePath + " " + e, e);
-        } finally {
-            if (resourceResolver != null) {
-                resourceResolver.close();
-            }
+            // the resolver is reused for the view check: drop the failed changes
+            resourceResolver.revert();
         }
     }
 
     /** Check whether the established view matches the reality, ie matches the
      * heartbeats
      */
-    private void checkView() {
+    private void checkView(final ResourceResolver resourceResolver) {
         // check the remotes first
         if (announcementRegistry == null) {
             logger.error("announcementRegistry is null");
@@ -399,21 +434,16 @@ public class HeartbeatHandler implements Runnable, StartupListener {
         }
         announcementRegistry.checkExpiredAnnouncements();
 
-        ResourceResolver resourceResolver = null;
+        if (resourceResolver == null) {
+            logger.error("checkView: no resourceresolver available!");
+            return;
+        }
         try {
-            resourceResolver = getResourceResolver();
             doCheckView(resourceResolver);
-        } catch (LoginException e) {
-            logger.error("checkView: could not log in administratively: " + e,
-                    e);
         } catch (PersistenceException e) {
             logger.error(
                     "checkView: encountered a persistence exception during view check: "
                             + e, e);
-        } finally {
-            if (resourceResolver != null) {
-                resourceResolver.close();
-            }
         }
     }
 
@@ -421,6 +451,27 @@ public class HeartbeatHandler implements Runnable, StartupListener {
      */
     private void doCheckView(final ResourceResolver resourceResolver) throws PersistenceException {
 
+        // remember the voting change count before analyzing - any change caused
+        // by this check (or concurrently by others) will then trigger a full
+        // check next time
+        final long votingChangeCount = votingHandler == null ? -1
+                : votingHandler.getVotingChangeCount();
+        if (config.isIncrementalViewCheck() && lastMatchingLiveInstances != null
+                && votingChangeCount == lastVotingChangeCount) {
+            // no votings nor established view changes observed since the last
+            // check which found the view to be fine: only the live instances
+            // could have changed (as heartbeats time out)
+            final Resource clusterNodesRes = ResourceHelper.getOrCreateResource(
+                    resourceResolver, config.getClusterInstancesPath());
+            final Set<String> liveInstances = ViewHelper.determineLiveInstances(
+                    clusterNodesRes, config);
+            if (liveInstances.equals(lastMatchingLiveInstances)) {
+                logger.debug("doCheckView: no membership nor voting changes since last check. view is fine.");
+                return;
+            }
+        }
+        lastMatchingLiveInstances = null;
+
         if (votingHandler==null) {
             logger.info("doCheckView: votingHandler is null!");
         } else {
@@ -457,6 +508,8 @@ public class HeartbeatHandler implements Runnable, StartupListener {
             // seeing.
             // all happy and fine
             logger.debug("doCheckView: no pending nor winning votes. view is fine. we're all happy.");
+            lastMatchingLiveInstances = liveInstances;
+            lastVotingChangeCount = votingChangeCount;
             return;
         }
     	if (logger.isDebugEnabled()) {
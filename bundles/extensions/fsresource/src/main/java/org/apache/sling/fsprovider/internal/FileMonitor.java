@@ -102,11 +102,10 @@ public class FileMonitor extends TimerTask {
         }
         synchronized ( this ) {
             try {
-                // if we don't have an event admin, we just skip the check
+                // even without an event admin we check to keep
+                // the directory listing cache of the provider up to date
                 final EventAdmin localEA = this.provider.getEventAdmin();
-                if ( localEA != null ) {
-                    this.check(this.root, localEA);
-                }
+                this.check(this.root, localEA);
             } catch (Exception e) {
                 // ignore this
             }
@@ -120,13 +119,17 @@ public class FileMonitor extends TimerTask {
     /**
      * Check the monitorable
      * @param monitorable The monitorable to check
-     * @param localEA The event admin
+     * @param localEA The event admin or <code>null</code>
      */
     private void check(final Monitorable monitorable, final EventAdmin localEA) {
         logger.debug("Checking {}", monitorable.file);
+        // a single file system call per file and check: lastModified is
+        // 0 for non existing files, only then we have to call exists()
+        final long lastModified = monitorable.file.lastModified();
+        final boolean exists = lastModified != 0L || monitorable.file.exists();
         // if the file is non existing, check if it has been readded
         if ( monitorable.status instanceof NonExistingStatus ) {
-            if ( monitorable.file.exists() ) {
+            if ( exists ) {
                 // new file and reset status
                 createStatus(monitorable);
                 sendEvents(monitorable,
@@ -135,7 +138,7 @@ public class FileMonitor extends TimerTask {
             }
         } else {
             // check if the file has been removed
-            if ( !monitorable.file.exists() ) {
+            if ( !exists ) {
                 // removed file and update status
                 sendEvents(monitorable,
                            SlingConstants.TOPIC_RESOURCE_REMOVED,
@@ -145,8 +148,8 @@ public class FileMonitor extends TimerTask {
                 // check for changes
                 final FileStatus fs = (FileStatus)monitorable.status;
                 boolean changed = false;
-                if ( fs.lastModified < monitorable.file.lastModified() ) {
-                    fs.lastModified = monitorable.file.lastModified();
+                if ( fs.lastModified < lastModified ) {
+                    fs.lastModified = lastModified;
                     // changed
                     sendEvents(monitorable,
                                SlingConstants.TOPIC_RESOURCE_CHANGED,
@@ -192,13 +195,19 @@ public class FileMonitor extends TimerTask {
     }
 
     /**
-     * Send the event async via the event admin.
+     * Invalidate the listing cache and send the event async via the
+     * event admin (if available).
      */
     private void sendEvents(final Monitorable monitorable, final String topic, final EventAdmin localEA) {
         if ( logger.isDebugEnabled() ) {
             logger.debug("Detected change for resource {} : {}", monitorable.path, topic);
         }
 
+        this.provider.invalidateListing(monitorable.file);
+        if ( localEA == null ) {
+            return;
+        }
+
         final Dictionary<String, String> properties = new Hashtable<String, String>();
         properties.put(SlingConstants.PROPERTY_PATH, monitorable.path);
         final String type = monitorable.status instanceof FileStatus ?
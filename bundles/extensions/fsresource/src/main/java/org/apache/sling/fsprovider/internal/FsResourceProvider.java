@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -96,6 +97,18 @@ public class FsResourceProvider implements ResourceProvider {
     /** The monitor to detect file changes. */
     private FileMonitor monitor;
 
+    /**
+     * Cache of directory listings. The cache is only used while the monitor
+     * is running as the monitor invalidates the cached listings on changes.
+     */
+    private final Map<File, File[]> listingCache = new ConcurrentHashMap<File, File[]>();
+
+    /**
+     * Incremented on each invalidation to not cache listings read concurrently.
+     * Only changed and compared while holding the lock of the listing cache.
+     */
+    private long listingGeneration;
+
     @Reference(cardinality=ReferenceCardinality.OPTIONAL_UNARY, policy=ReferencePolicy.DYNAMIC)
     private EventAdmin eventAdmin;
 
@@ -159,7 +172,7 @@ public class FsResourceProvider implements ResourceProvider {
             }
         }
 
-        final File[] children = parentFile.listFiles();
+        final File[] children = listFiles(parentFile);
 
         if (children != null && children.length > 0) {
             final ResourceResolver resolver = parent.getResourceResolver();
@@ -240,6 +253,7 @@ public class FsResourceProvider implements ResourceProvider {
             this.monitor.stop();
             this.monitor = null;
         }
+        this.listingCache.clear();
         this.providerRoot = null;
         this.providerRootPrefix = null;
         this.providerFile = null;
@@ -257,6 +271,21 @@ public class FsResourceProvider implements ResourceProvider {
         return this.providerRoot;
     }
 
+    /**
+     * Called by the monitor if the given file or folder has been added, changed
+     * or removed: drops the cached listings of the file and its parent folder.
+     */
+    void invalidateListing(final File file) {
+        synchronized ( this.listingCache ) {
+            this.listingGeneration++;
+            this.listingCache.remove(file);
+            final File parent = file.getParentFile();
+            if ( parent != null ) {
+                this.listingCache.remove(parent);
+            }
+        }
+    }
+
     // ---------- internal
 
     private File getProviderFile(String providerFileName,
@@ -307,6 +336,33 @@ public class FsResourceProvider implements ResourceProvider {
         return null;
     }
 
+    /**
+     * Returns the children of the given folder - from the listing cache if
+     * the monitor is running.
+     */
+    private File[] listFiles(final File folder) {
+        if ( this.monitor == null ) {
+            return folder.listFiles();
+        }
+        File[] children = this.listingCache.get(folder);
+        if ( children == null ) {
+            final long generation;
+            synchronized ( this.listingCache ) {
+                generation = this.listingGeneration;
+            }
+            children = folder.listFiles();
+            if ( children != null ) {
+                synchronized ( this.listingCache ) {
+                    // only cache if there was no invalidation in the meantime
+                    if ( generation == this.listingGeneration ) {
+                        this.listingCache.put(folder, children);
+                    }
+                }
+            }
+        }
+        return children;
+    }
+
     private Resource getResource(ResourceResolver resourceResolver,
             String resourcePath, File file) {
 
@@ -18,11 +18,16 @@
  */
 package org.apache.sling.jcr.base;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 
+import org.apache.jackrabbit.api.JackrabbitSession;
 import org.apache.sling.jcr.api.NamespaceMapper;
 import org.apache.sling.jcr.api.SlingRepository;
+import org.apache.sling.jcr.base.internal.ServiceSessionPool;
 import org.apache.sling.jcr.base.internal.loader.Loader;
 import org.osgi.framework.BundleContext;
 import org.osgi.util.tracker.ServiceTracker;
@@ -42,6 +47,15 @@ public abstract class AbstractNamespaceMappingRepository implements SlingReposit
 
     private ServiceTracker namespaceMapperTracker;
 
+    /** The namespace mappers, cached until the tracker changes. */
+    private volatile NamespaceMapper[] namespaceMappers = new NamespaceMapper[0];
+
+    /** The tracking count of the tracker when caching the namespace mappers. */
+    private volatile int namespaceMappersTrackingCount = -1;
+
+    /** Whether sessions of a class can be wrapped without a proxy. */
+    private final ConcurrentMap<Class<?>, Boolean> wrappableSessionClasses = new ConcurrentHashMap<Class<?>, Boolean>();
+
     protected void setup(final BundleContext bundleContext) {
         this.namespaceMapperTracker = new ServiceTracker(bundleContext, NamespaceMapper.class.getName(), null);
         this.namespaceMapperTracker.open();
@@ -59,6 +73,7 @@ public abstract class AbstractNamespaceMappingRepository implements SlingReposit
             this.namespaceHandler = null;
         }
         this.sessionProxyHandler = null;
+        this.wrappableSessionClasses.clear();
     }
 
     void defineNamespacePrefixes(final Session session) throws RepositoryException {
@@ -68,15 +83,83 @@ public abstract class AbstractNamespaceMappingRepository implements SlingReposit
             localHandler.defineNamespacePrefixes(session);
         }
 
-        if (namespaceMapperTracker != null) {
+        final ServiceTracker localTracker = this.namespaceMapperTracker;
+        if (localTracker != null) {
             // call namespace mappers
-            final Object[] nsMappers = namespaceMapperTracker.getServices();
-            if (nsMappers != null) {
-                for (int i = 0; i < nsMappers.length; i++) {
-                    ((NamespaceMapper) nsMappers[i]).defineNamespacePrefixes(session);
-                }
+            final NamespaceMapper[] nsMappers = getNamespaceMappers(localTracker);
+            for (int i = 0; i < nsMappers.length; i++) {
+                nsMappers[i].defineNamespacePrefixes(session);
+            }
+        }
+    }
+
+    /**
+     * Returns the tracked namespace mappers, only asking the tracker for the
+     * services if they changed since the last call.
+     */
+    private NamespaceMapper[] getNamespaceMappers(final ServiceTracker tracker) {
+        final int trackingCount = tracker.getTrackingCount();
+        if (trackingCount != this.namespaceMappersTrackingCount) {
+            final Object[] services = tracker.getServices();
+            final NamespaceMapper[] nsMappers;
+            if (services == null) {
+                nsMappers = new NamespaceMapper[0];
+            } else {
+                nsMappers = new NamespaceMapper[services.length];
+                System.arraycopy(services, 0, nsMappers, 0, services.length);
             }
+            this.namespaceMappers = nsMappers;
+            this.namespaceMappersTrackingCount = trackingCount;
+            return nsMappers;
+        }
+        return this.namespaceMappers;
+    }
+
+    /**
+     * Wraps the session to define the namespace prefixes in sessions created
+     * by {@link Session#impersonate(javax.jcr.Credentials)}.
+     * <p>
+     * Sessions implementing further interfaces, like <code>XASession</code>,
+     * or a newer Jackrabbit API are wrapped with a proxy to not hide these
+     * interfaces.
+     */
+    Session wrapSession(final Session session) {
+        if (!isWrappable(session)) {
+            final SessionProxyHandler localHandler = this.sessionProxyHandler;
+            if (localHandler != null) {
+                return localHandler.createProxy(session);
+            }
+        }
+        if (session instanceof JackrabbitSession) {
+            return new JackrabbitSessionWrapper((JackrabbitSession) session, this);
+        }
+        return new SessionWrapper(session, this);
+    }
+
+    /**
+     * Wraps a session taken from the service session pool into the handle
+     * returning it to the pool on logout. Returns <code>null</code> if the
+     * session cannot be wrapped and must be handed out as a proxy.
+     */
+    Session wrapPooledSession(final ServiceSessionPool.Lease lease) {
+        final Session session = lease.getSession();
+        if (!isWrappable(session)) {
+            return null;
+        }
+        if (session instanceof JackrabbitSession) {
+            return new PooledJackrabbitSessionWrapper(lease, this);
+        }
+        return new PooledSessionWrapper(lease, this);
+    }
+
+    private boolean isWrappable(final Session session) {
+        final Class<?> sessionClass = session.getClass();
+        Boolean wrappable = this.wrappableSessionClasses.get(sessionClass);
+        if (wrappable == null) {
+            wrappable = SessionWrapper.isWrappable(sessionClass);
+            this.wrappableSessionClasses.put(sessionClass, wrappable);
         }
+        return wrappable;
     }
 
     /**
@@ -89,10 +172,9 @@ public abstract class AbstractNamespaceMappingRepository implements SlingReposit
         defineNamespacePrefixes(session);
 
         // to support namespace prefixes if session.impersonate is called
-        // we have to use a proxy
-        final SessionProxyHandler localHandler = this.sessionProxyHandler;
-        if ( localHandler != null ) {
-            return localHandler.createProxy(session);
+        // we have to wrap the session
+        if ( this.namespaceHandler != null ) {
+            return wrapSession(session);
         }
         return session;
     }
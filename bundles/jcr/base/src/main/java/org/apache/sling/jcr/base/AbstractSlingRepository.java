@@ -23,6 +23,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Dictionary;
+import java.util.Hashtable;
 
 import javax.jcr.Credentials;
 import javax.jcr.LoginException;
@@ -38,6 +39,8 @@ import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.sling.jcr.api.SlingRepository;
+import org.apache.sling.jcr.base.internal.ServiceSessionPool;
+import org.apache.sling.jcr.base.internal.ServiceSessionPoolMBean;
 import org.apache.sling.jcr.base.util.RepositoryAccessor;
 import org.apache.sling.serviceusermapping.ServiceUserMapper;
 import org.osgi.framework.Bundle;
@@ -136,6 +139,34 @@ public abstract class AbstractSlingRepository
     /** The minimum number of seconds allowed for any of the two poll times */
     public static final int MIN_POLL = 2;
 
+    /**
+     * The default value for the maximum number of idle service sessions kept
+     * per service user and workspace (value is 0, service sessions are not
+     * pooled).
+     */
+    public static final int DEFAULT_SERVICE_SESSION_POOL_SIZE = 0;
+
+    /**
+     * The default value for the number of seconds after which idle service
+     * sessions are logged out (value is 60).
+     */
+    public static final int DEFAULT_SERVICE_SESSION_IDLE_TIMEOUT = 60;
+
+    @Property(intValue=DEFAULT_SERVICE_SESSION_POOL_SIZE)
+    public static final String PROPERTY_SERVICE_SESSION_POOL_SIZE = "service.session.pool.size";
+
+    @Property(intValue=DEFAULT_SERVICE_SESSION_IDLE_TIMEOUT)
+    public static final String PROPERTY_SERVICE_SESSION_IDLE_TIMEOUT = "service.session.idle.timeout";
+
+    /**
+     * The default value for the number of seconds after their creation pooled
+     * service sessions are logged out instead of being reused (value is 600).
+     */
+    public static final int DEFAULT_SERVICE_SESSION_MAX_AGE = 600;
+
+    @Property(intValue=DEFAULT_SERVICE_SESSION_MAX_AGE)
+    public static final String PROPERTY_SERVICE_SESSION_MAX_AGE = "service.session.max.age";
+
     @Reference
     private LogService log;
 
@@ -160,6 +191,11 @@ public abstract class AbstractSlingRepository
 
     private boolean disableLoginAdministrative;
 
+    // the pool of service sessions handed out by loginService
+    private ServiceSessionPool serviceSessionPool;
+
+    private ServiceRegistration serviceSessionPoolRegistration;
+
     // the poll interval used while the repository is not active
     private long pollTimeInActiveSeconds;
 
@@ -326,6 +362,18 @@ public abstract class AbstractSlingRepository
             throw new LoginException("Cannot derive user name for bundle "
                 + usingBundle + " and sub service " + subServiceName);
         }
+        final ServiceSessionPool pool = this.serviceSessionPool;
+        if (pool != null) {
+            return pool.login(userName, workspace);
+        }
+        return this.loginServiceInternal(userName, workspace);
+    }
+
+    /**
+     * Logs in as the given service user by impersonating from an
+     * administrative session.
+     */
+    private Session loginServiceInternal(final String userName, final String workspace) throws RepositoryException {
         final SimpleCredentials creds = new SimpleCredentials(userName, new char[0]);
 
         Session admin = null;
@@ -741,6 +789,8 @@ public abstract class AbstractSlingRepository
         setPollTimeActive(getIntProperty(properties, PROPERTY_POLL_ACTIVE));
         setPollTimeInActive(getIntProperty(properties, PROPERTY_POLL_INACTIVE));
 
+        setupServiceSessionPool(properties);
+
         // immediately try to start the repository while activating
         // this component instance
         try {
@@ -781,6 +831,15 @@ public abstract class AbstractSlingRepository
             }
         }
 
+        if (this.serviceSessionPoolRegistration != null) {
+            this.serviceSessionPoolRegistration.unregister();
+            this.serviceSessionPoolRegistration = null;
+        }
+        if (this.serviceSessionPool != null) {
+            this.serviceSessionPool.close();
+            this.serviceSessionPool = null;
+        }
+
         this.componentContext = null;
     }
 
@@ -854,6 +913,42 @@ public abstract class AbstractSlingRepository
         return false;
     }
 
+    private void setupServiceSessionPool(final Dictionary<String, Object> properties) {
+        int poolSize = getIntProperty(properties, PROPERTY_SERVICE_SESSION_POOL_SIZE);
+        if (poolSize < 0) {
+            poolSize = DEFAULT_SERVICE_SESSION_POOL_SIZE;
+        }
+        int idleTimeout = getIntProperty(properties, PROPERTY_SERVICE_SESSION_IDLE_TIMEOUT);
+        if (idleTimeout < 0) {
+            idleTimeout = DEFAULT_SERVICE_SESSION_IDLE_TIMEOUT;
+        }
+        int maxAge = getIntProperty(properties, PROPERTY_SERVICE_SESSION_MAX_AGE);
+        if (maxAge < 0) {
+            maxAge = DEFAULT_SERVICE_SESSION_MAX_AGE;
+        }
+
+        this.serviceSessionPool = new ServiceSessionPool(new ServiceSessionPool.SessionFactory() {
+            public Session createSession(String userName, String workspace) throws RepositoryException {
+                return loginServiceInternal(userName, workspace);
+            }
+
+            public Session createHandle(ServiceSessionPool.Lease lease) {
+                return wrapPooledSession(lease);
+            }
+        }, poolSize, idleTimeout * 1000L, maxAge * 1000L);
+
+        try {
+            final Dictionary<String, Object> props = new Hashtable<String, Object>();
+            props.put("jmx.objectname", ServiceSessionPoolMBean.OBJECT_NAME);
+            props.put("service.description", "Apache Sling Service Session Pool");
+            this.serviceSessionPoolRegistration = componentContext.getBundleContext().registerService(
+                ServiceSessionPoolMBean.class.getName(), this.serviceSessionPool, props);
+        } catch (Throwable t) {
+            log(LogService.LOG_WARNING,
+                "activate: Cannot register service session pool MBean", t);
+        }
+    }
+
     // ---------- Background operation checking repository availability --------
 
     private void setPollTimeActive(int seconds) {
@@ -981,6 +1076,12 @@ public abstract class AbstractSlingRepository
     }
 
     private void stopRepository() {
+        // pooled sessions must not outlive the repository
+        final ServiceSessionPool pool = this.serviceSessionPool;
+        if (pool != null) {
+            pool.clear();
+        }
+
         if (repositoryService != null) {
             try {
                 log(LogService.LOG_DEBUG,
@@ -1063,6 +1164,11 @@ public abstract class AbstractSlingRepository
                         ok = true;
                         newPollTime = pollTimeActiveSeconds * MSEC;
 
+                        final ServiceSessionPool pool = serviceSessionPool;
+                        if (pool != null) {
+                            pool.evictIdle();
+                        }
+
                     } else {
                         // Repository disappeared
                         log(LogService.LOG_INFO,
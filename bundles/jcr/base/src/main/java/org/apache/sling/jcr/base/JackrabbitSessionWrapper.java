@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.jcr.base;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import javax.jcr.AccessDeniedException;
+import javax.jcr.RepositoryException;
+import javax.jcr.UnsupportedRepositoryOperationException;
+
+import org.apache.jackrabbit.api.JackrabbitSession;
+import org.apache.jackrabbit.api.security.principal.PrincipalManager;
+import org.apache.jackrabbit.api.security.user.UserManager;
+
+/**
+ * The <code>JackrabbitSessionWrapper</code> is the {@link SessionWrapper} for
+ * sessions implementing the Jackrabbit API.
+ */
+class JackrabbitSessionWrapper extends SessionWrapper implements JackrabbitSession {
+
+    /**
+     * Whether this class implements all methods of the
+     * <code>JackrabbitSession</code> interface available at runtime. Newer
+     * versions of the Jackrabbit API may add methods, in which case sessions
+     * must be wrapped with a proxy.
+     */
+    static final boolean SUPPORTED = isComplete();
+
+    JackrabbitSessionWrapper(final JackrabbitSession delegatee, final AbstractNamespaceMappingRepository repository) {
+        super(delegatee, repository);
+    }
+
+    public PrincipalManager getPrincipalManager() throws AccessDeniedException,
+            UnsupportedRepositoryOperationException, RepositoryException {
+        return ((JackrabbitSession) this.delegatee).getPrincipalManager();
+    }
+
+    public UserManager getUserManager() throws AccessDeniedException, UnsupportedRepositoryOperationException,
+            RepositoryException {
+        return ((JackrabbitSession) this.delegatee).getUserManager();
+    }
+
+    private static boolean isComplete() {
+        for (final Method m : JackrabbitSession.class.getMethods()) {
+            try {
+                final Method impl = JackrabbitSessionWrapper.class.getMethod(m.getName(), m.getParameterTypes());
+                if (Modifier.isAbstract(impl.getModifiers())) {
+                    return false;
+                }
+            } catch (NoSuchMethodException nsme) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
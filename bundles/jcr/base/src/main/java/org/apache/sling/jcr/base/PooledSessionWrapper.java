@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.jcr.base;
+
+import org.apache.sling.jcr.base.internal.ServiceSessionPool;
+
+/**
+ * The <code>PooledSessionWrapper</code> is the handle of a session taken from
+ * the {@link ServiceSessionPool}. Logging out returns the session to the pool,
+ * the handle must not be used any more after that.
+ */
+class PooledSessionWrapper extends SessionWrapper {
+
+    private final ServiceSessionPool.Lease lease;
+
+    PooledSessionWrapper(final ServiceSessionPool.Lease lease, final AbstractNamespaceMappingRepository repository) {
+        super(lease.getSession(), repository);
+        this.lease = lease;
+    }
+
+    @Override
+    public void logout() {
+        this.lease.release();
+    }
+
+    @Override
+    public boolean isLive() {
+        return !this.lease.isReleased() && super.isLive();
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.jcr.base;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.AccessControlException;
+
+import javax.jcr.AccessDeniedException;
+import javax.jcr.Credentials;
+import javax.jcr.InvalidItemStateException;
+import javax.jcr.InvalidSerializedDataException;
+import javax.jcr.Item;
+import javax.jcr.ItemExistsException;
+import javax.jcr.ItemNotFoundException;
+import javax.jcr.LoginException;
+import javax.jcr.NamespaceException;
+import javax.jcr.Node;
+import javax.jcr.PathNotFoundException;
+import javax.jcr.Property;
+import javax.jcr.ReferentialIntegrityException;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.UnsupportedRepositoryOperationException;
+import javax.jcr.ValueFactory;
+import javax.jcr.Workspace;
+import javax.jcr.lock.LockException;
+import javax.jcr.nodetype.ConstraintViolationException;
+import javax.jcr.nodetype.NoSuchNodeTypeException;
+import javax.jcr.retention.RetentionManager;
+import javax.jcr.security.AccessControlManager;
+import javax.jcr.version.VersionException;
+
+import org.apache.jackrabbit.api.JackrabbitSession;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * The <code>SessionWrapper</code> delegates all calls to the wrapped session
+ * except for {@link #impersonate(Credentials)}, which defines the namespace
+ * prefixes in the impersonated session and wraps it again.
+ * <p>
+ * Unlike the proxies created by {@link SessionProxyHandler} the wrapper does not
+ * use reflection for each call.
+ */
+class SessionWrapper implements Session {
+
+    /** The wrapped session */
+    protected final Session delegatee;
+
+    /** The repository defining the namespace prefixes */
+    private final AbstractNamespaceMappingRepository repository;
+
+    SessionWrapper(final Session delegatee, final AbstractNamespaceMappingRepository repository) {
+        this.delegatee = delegatee;
+        this.repository = repository;
+    }
+
+    /**
+     * Returns whether sessions of the given class can be wrapped without
+     * hiding any of their interfaces: besides marker interfaces they may only
+     * implement the <code>Session</code> interface and the
+     * <code>JackrabbitSession</code> interface if supported by the
+     * {@link JackrabbitSessionWrapper}.
+     */
+    static boolean isWrappable(final Class<?> sessionClass) {
+        for (Class<?> clazz = sessionClass; clazz != null; clazz = clazz.getSuperclass()) {
+            for (final Class<?> i : clazz.getInterfaces()) {
+                if (!isWrappableInterface(i)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWrappableInterface(final Class<?> i) {
+        if (i == Session.class) {
+            return true;
+        } else if (i == JackrabbitSession.class) {
+            return JackrabbitSessionWrapper.SUPPORTED;
+        } else if (i.getMethods().length == 0) {
+            return true;
+        }
+        // other interfaces extending Session would be hidden as well
+        return false;
+    }
+
+    public Session impersonate(Credentials credentials) throws LoginException, RepositoryException {
+        final Session session = this.delegatee.impersonate(credentials);
+        this.repository.defineNamespacePrefixes(session);
+        return this.repository.wrapSession(session);
+    }
+
+    public Repository getRepository() {
+        return this.delegatee.getRepository();
+    }
+
+    public String getUserID() {
+        return this.delegatee.getUserID();
+    }
+
+    public String[] getAttributeNames() {
+        return this.delegatee.getAttributeNames();
+    }
+
+    public Object getAttribute(String name) {
+        return this.delegatee.getAttribute(name);
+    }
+
+    public Workspace getWorkspace() {
+        return this.delegatee.getWorkspace();
+    }
+
+    public Node getRootNode() throws RepositoryException {
+        return this.delegatee.getRootNode();
+    }
+
+    @SuppressWarnings("deprecation")
+    public Node getNodeByUUID(String uuid) throws ItemNotFoundException, RepositoryException {
+        return this.delegatee.getNodeByUUID(uuid);
+    }
+
+    public Node getNodeByIdentifier(String id) throws ItemNotFoundException, RepositoryException {
+        return this.delegatee.getNodeByIdentifier(id);
+    }
+
+    public Item getItem(String absPath) throws PathNotFoundException, RepositoryException {
+        return this.delegatee.getItem(absPath);
+    }
+
+    public Node getNode(String absPath) throws PathNotFoundException, RepositoryException {
+        return this.delegatee.getNode(absPath);
+    }
+
+    public Property getProperty(String absPath) throws PathNotFoundException, RepositoryException {
+        return this.delegatee.getProperty(absPath);
+    }
+
+    public boolean itemExists(String absPath) throws RepositoryException {
+        return this.delegatee.itemExists(absPath);
+    }
+
+    public boolean nodeExists(String absPath) throws RepositoryException {
+        return this.delegatee.nodeExists(absPath);
+    }
+
+    public boolean propertyExists(String absPath) throws RepositoryException {
+        return this.delegatee.propertyExists(absPath);
+    }
+
+    public void move(String srcAbsPath, String destAbsPath) throws ItemExistsException, PathNotFoundException,
+            VersionException, ConstraintViolationException, LockException, RepositoryException {
+        this.delegatee.move(srcAbsPath, destAbsPath);
+    }
+
+    public void removeItem(String absPath) throws VersionException, LockException, ConstraintViolationException,
+            AccessDeniedException, RepositoryException {
+        this.delegatee.removeItem(absPath);
+    }
+
+    public void save() throws AccessDeniedException, ItemExistsException, ReferentialIntegrityException,
+            ConstraintViolationException, InvalidItemStateException, VersionException, LockException,
+            NoSuchNodeTypeException, RepositoryException {
+        this.delegatee.save();
+    }
+
+    public void refresh(boolean keepChanges) throws RepositoryException {
+        this.delegatee.refresh(keepChanges);
+    }
+
+    public boolean hasPendingChanges() throws RepositoryException {
+        return this.delegatee.hasPendingChanges();
+    }
+
+    public ValueFactory getValueFactory() throws UnsupportedRepositoryOperationException, RepositoryException {
+        return this.delegatee.getValueFactory();
+    }
+
+    public boolean hasPermission(String absPath, String actions) throws RepositoryException {
+        return this.delegatee.hasPermission(absPath, actions);
+    }
+
+    public void checkPermission(String absPath, String actions) throws AccessControlException, RepositoryException {
+        this.delegatee.checkPermission(absPath, actions);
+    }
+
+    public boolean hasCapability(String methodName, Object target, Object[] arguments) throws RepositoryException {
+        return this.delegatee.hasCapability(methodName, target, arguments);
+    }
+
+    public ContentHandler getImportContentHandler(String parentAbsPath, int uuidBehavior)
+            throws PathNotFoundException, ConstraintViolationException, VersionException, LockException,
+            RepositoryException {
+        return this.delegatee.getImportContentHandler(parentAbsPath, uuidBehavior);
+    }
+
+    public void importXML(String parentAbsPath, InputStream in, int uuidBehavior) throws IOException,
+            PathNotFoundException, ItemExistsException, ConstraintViolationException, VersionException,
+            InvalidSerializedDataException, LockException, RepositoryException {
+        this.delegatee.importXML(parentAbsPath, in, uuidBehavior);
+    }
+
+    public void exportSystemView(String absPath, ContentHandler contentHandler, boolean skipBinary, boolean noRecurse)
+            throws PathNotFoundException, SAXException, RepositoryException {
+        this.delegatee.exportSystemView(absPath, contentHandler, skipBinary, noRecurse);
+    }
+
+    public void exportSystemView(String absPath, OutputStream out, boolean skipBinary, boolean noRecurse)
+            throws IOException, PathNotFoundException, RepositoryException {
+        this.delegatee.exportSystemView(absPath, out, skipBinary, noRecurse);
+    }
+
+    public void exportDocumentView(String absPath, ContentHandler contentHandler, boolean skipBinary,
+            boolean noRecurse) throws PathNotFoundException, SAXException, RepositoryException {
+        this.delegatee.exportDocumentView(absPath, contentHandler, skipBinary, noRecurse);
+    }
+
+    public void exportDocumentView(String absPath, OutputStream out, boolean skipBinary, boolean noRecurse)
+            throws IOException, PathNotFoundException, RepositoryException {
+        this.delegatee.exportDocumentView(absPath, out, skipBinary, noRecurse);
+    }
+
+    public void setNamespacePrefix(String prefix, String uri) throws NamespaceException, RepositoryException {
+        this.delegatee.setNamespacePrefix(prefix, uri);
+    }
+
+    public String[] getNamespacePrefixes() throws RepositoryException {
+        return this.delegatee.getNamespacePrefixes();
+    }
+
+    public String getNamespaceURI(String prefix) throws NamespaceException, RepositoryException {
+        return this.delegatee.getNamespaceURI(prefix);
+    }
+
+    public String getNamespacePrefix(String uri) throws NamespaceException, RepositoryException {
+        return this.delegatee.getNamespacePrefix(uri);
+    }
+
+    public void logout() {
+        this.delegatee.logout();
+    }
+
+    public boolean isLive() {
+        return this.delegatee.isLive();
+    }
+
+    @SuppressWarnings("deprecation")
+    public void addLockToken(String lt) {
+        this.delegatee.addLockToken(lt);
+    }
+
+    @SuppressWarnings("deprecation")
+    public String[] getLockTokens() {
+        return this.delegatee.getLockTokens();
+    }
+
+    @SuppressWarnings("deprecation")
+    public void removeLockToken(String lt) {
+        this.delegatee.removeLockToken(lt);
+    }
+
+    public AccessControlManager getAccessControlManager() throws UnsupportedRepositoryOperationException,
+            RepositoryException {
+        return this.delegatee.getAccessControlManager();
+    }
+
+    public RetentionManager getRetentionManager() throws UnsupportedRepositoryOperationException,
+            RepositoryException {
+        return this.delegatee.getRetentionManager();
+    }
+
+    @Override
+    public String toString() {
+        return this.delegatee.toString();
+    }
+}
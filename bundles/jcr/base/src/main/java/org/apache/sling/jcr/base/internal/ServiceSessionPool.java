@@ -0,0 +1,503 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.jcr.base.internal;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.UnsupportedRepositoryOperationException;
+import javax.jcr.Workspace;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The <code>ServiceSessionPool</code> keeps idle service sessions per service
+ * user and workspace, to save the administrative login and impersonation of
+ * <code>SlingRepository.loginService</code>.
+ * <p>
+ * Pooled sessions are handed out as handles: calling <code>logout</code> on a
+ * handle returns the session to the pool and invalidates the handle. The
+ * handles are created by the {@link SessionFactory}, delegating without
+ * reflection; only sessions it cannot wrap are handed out as proxies. A
+ * session taken from the pool is refreshed, discarding any changes left behind.
+ * Sessions holding lock tokens or registered event listeners are logged out
+ * instead of being returned to the pool, as are sessions exceeding the
+ * configured number of idle sessions and sessions older than the maximum age.
+ * Idle sessions not used within the idle timeout or exceeding the maximum age
+ * are logged out by {@link #evictIdle()}.
+ * <p>
+ * With a maximum of <code>0</code> idle sessions nothing is pooled and only the
+ * statistics are collected.
+ */
+public class ServiceSessionPool implements ServiceSessionPoolMBean {
+
+    /**
+     * Creates new sessions for the pool.
+     */
+    public interface SessionFactory {
+
+        Session createSession(String userName, String workspace) throws RepositoryException;
+
+        /**
+         * Creates the handle of a pooled session or returns <code>null</code>
+         * to hand out a proxy. Logging out the handle must call
+         * {@link Lease#release()}.
+         */
+        Session createHandle(Lease lease);
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServiceSessionPool.class);
+
+    /** The interfaces to expose for a session class */
+    private static final ConcurrentMap<Class<?>, Class<?>[]> INTERFACES = new ConcurrentHashMap<Class<?>, Class<?>[]>();
+
+    private final SessionFactory factory;
+
+    private final int maxIdle;
+
+    private final long idleTimeout;
+
+    private final long maxAge;
+
+    /** Idle sessions per key, most recently used first, guarded by this */
+    private final Map<String, LinkedList<IdleSession>> idle = new HashMap<String, LinkedList<IdleSession>>();
+
+    private boolean closed;
+
+    private final AtomicLong serviceLogins = new AtomicLong();
+
+    private final AtomicLong serviceLoginTime = new AtomicLong();
+
+    private final AtomicLong repositoryLogins = new AtomicLong();
+
+    private final AtomicLong repositoryLoginTime = new AtomicLong();
+
+    private final AtomicLong pooledLogins = new AtomicLong();
+
+    private final AtomicLong evicted = new AtomicLong();
+
+    private final AtomicLong discarded = new AtomicLong();
+
+    /**
+     * @param factory Creates new sessions
+     * @param maxIdle The maximum number of idle sessions per service user and
+     *            workspace, <code>0</code> to disable pooling
+     * @param idleTimeout The time in milliseconds after which idle sessions
+     *            are logged out
+     * @param maxAge The time in milliseconds after its creation a session is
+     *            logged out instead of being pooled again, <code>0</code> to
+     *            reuse sessions regardless of their age
+     */
+    public ServiceSessionPool(final SessionFactory factory, final int maxIdle, final long idleTimeout,
+            final long maxAge) {
+        this.factory = factory;
+        this.maxIdle = Math.max(0, maxIdle);
+        this.idleTimeout = idleTimeout;
+        this.maxAge = Math.max(0, maxAge);
+    }
+
+    /**
+     * Returns a session for the service user, taken from the pool if possible.
+     */
+    public Session login(final String userName, final String workspace) throws RepositoryException {
+        final long start = System.nanoTime();
+        try {
+            this.serviceLogins.incrementAndGet();
+            if (this.maxIdle == 0) {
+                return this.createSession(userName, workspace);
+            }
+
+            final String key = userName + '\n' + (workspace == null ? "" : workspace);
+            IdleSession idleSession;
+            while ((idleSession = this.take(key)) != null) {
+                final Session session = idleSession.session;
+                if (this.isExpired(idleSession.created, System.currentTimeMillis())) {
+                    this.evicted.incrementAndGet();
+                    logout(session);
+                    continue;
+                }
+                try {
+                    if (session.isLive()) {
+                        session.refresh(false);
+                        this.pooledLogins.incrementAndGet();
+                        return this.createHandle(new Lease(key, session, idleSession.created));
+                    }
+                } catch (RepositoryException re) {
+                    LOGGER.debug("login: Dropping pooled session which cannot be refreshed", re);
+                }
+                logout(session);
+            }
+            final long created = System.currentTimeMillis();
+            return this.createHandle(new Lease(key, this.createSession(userName, workspace), created));
+        } finally {
+            this.serviceLoginTime.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    private Session createSession(final String userName, final String workspace) throws RepositoryException {
+        final long start = System.nanoTime();
+        final Session session = this.factory.createSession(userName, workspace);
+        this.repositoryLoginTime.addAndGet(System.nanoTime() - start);
+        this.repositoryLogins.incrementAndGet();
+        return session;
+    }
+
+    private synchronized IdleSession take(final String key) {
+        final LinkedList<IdleSession> sessions = this.idle.get(key);
+        if (sessions == null || sessions.isEmpty()) {
+            return null;
+        }
+        return sessions.removeFirst();
+    }
+
+    /**
+     * Returns whether a session created at the given time exceeds the
+     * maximum age.
+     */
+    private boolean isExpired(final long created, final long now) {
+        return this.maxAge > 0 && now - created >= this.maxAge;
+    }
+
+    /**
+     * Returns the session to the pool or logs it out.
+     *
+     * @param created The time in milliseconds the session has been created
+     */
+    private void release(final String key, final Session session, final long created) {
+        if (this.isExpired(created, System.currentTimeMillis())) {
+            this.evicted.incrementAndGet();
+            logout(session);
+            return;
+        }
+        if (isReusable(session)) {
+            synchronized (this) {
+                if (!this.closed) {
+                    LinkedList<IdleSession> sessions = this.idle.get(key);
+                    if (sessions == null) {
+                        sessions = new LinkedList<IdleSession>();
+                        this.idle.put(key, sessions);
+                    }
+                    if (sessions.size() < this.maxIdle) {
+                        sessions.addFirst(new IdleSession(session, created));
+                        return;
+                    }
+                }
+            }
+        }
+        this.discarded.incrementAndGet();
+        logout(session);
+    }
+
+    /**
+     * Checks whether the session can be handed out again: it must be live and
+     * must not hold lock tokens or event listeners.
+     */
+    private static boolean isReusable(final Session session) {
+        try {
+            if (!session.isLive()) {
+                return false;
+            }
+            final Workspace workspace = session.getWorkspace();
+            try {
+                if (workspace.getLockManager().getLockTokens().length > 0) {
+                    return false;
+                }
+            } catch (UnsupportedRepositoryOperationException uroe) {
+                // no locking, no lock tokens
+            }
+            try {
+                if (workspace.getObservationManager().getRegisteredEventListeners().hasNext()) {
+                    return false;
+                }
+            } catch (UnsupportedRepositoryOperationException uroe) {
+                // no observation, no listeners
+            }
+            return true;
+        } catch (RepositoryException re) {
+            LOGGER.debug("isReusable: Cannot check session state", re);
+        } catch (RuntimeException re) {
+            LOGGER.debug("isReusable: Cannot check session state", re);
+        }
+        return false;
+    }
+
+    /**
+     * Logs out the sessions which have been idle for longer than the idle
+     * timeout or which exceed the maximum age.
+     */
+    public void evictIdle() {
+        final long now = System.currentTimeMillis();
+        final long limit = now - this.idleTimeout;
+        final List<Session> expired = new ArrayList<Session>();
+        synchronized (this) {
+            for (final Iterator<LinkedList<IdleSession>> i = this.idle.values().iterator(); i.hasNext();) {
+                final LinkedList<IdleSession> sessions = i.next();
+                // the least recently used sessions are at the end
+                while (!sessions.isEmpty() && sessions.getLast().since < limit) {
+                    expired.add(sessions.removeLast().session);
+                }
+                if (this.maxAge > 0) {
+                    for (final Iterator<IdleSession> si = sessions.iterator(); si.hasNext();) {
+                        final IdleSession idleSession = si.next();
+                        if (this.isExpired(idleSession.created, now)) {
+                            si.remove();
+                            expired.add(idleSession.session);
+                        }
+                    }
+                }
+                if (sessions.isEmpty()) {
+                    i.remove();
+                }
+            }
+        }
+        this.evicted.addAndGet(expired.size());
+        for (final Session session : expired) {
+            logout(session);
+        }
+    }
+
+    /**
+     * Logs out all idle sessions and logs out sessions returned from now on.
+     */
+    public void close() {
+        synchronized (this) {
+            this.closed = true;
+        }
+        this.clear();
+    }
+
+    public void clear() {
+        final List<Session> sessions = new ArrayList<Session>();
+        synchronized (this) {
+            for (final LinkedList<IdleSession> list : this.idle.values()) {
+                for (final IdleSession s : list) {
+                    sessions.add(s.session);
+                }
+            }
+            this.idle.clear();
+        }
+        for (final Session session : sessions) {
+            logout(session);
+        }
+    }
+
+    private static void logout(final Session session) {
+        try {
+            session.logout();
+        } catch (RuntimeException re) {
+            LOGGER.debug("logout: Ignoring problem logging out session", re);
+        }
+    }
+
+    /**
+     * Creates the handle for the session: the handle created by the factory
+     * or a proxy exposing all interfaces of the session.
+     */
+    private Session createHandle(final Lease lease) {
+        final Session handle = this.factory.createHandle(lease);
+        if (handle != null) {
+            return handle;
+        }
+        final Class<?> sessionClass = lease.session.getClass();
+        Class<?>[] interfaces = INTERFACES.get(sessionClass);
+        if (interfaces == null) {
+            final Set<Class<?>> collected = new LinkedHashSet<Class<?>>();
+            collectInterfaces(sessionClass, collected);
+            interfaces = collected.toArray(new Class<?>[collected.size()]);
+            INTERFACES.put(sessionClass, interfaces);
+        }
+        return (Session) Proxy.newProxyInstance(sessionClass.getClassLoader(), interfaces,
+            new SessionHandle(lease));
+    }
+
+    private static void collectInterfaces(final Class<?> clazz, final Set<Class<?>> interfaces) {
+        if (clazz != null) {
+            for (final Class<?> i : clazz.getInterfaces()) {
+                if (interfaces.add(i)) {
+                    collectInterfaces(i, interfaces);
+                }
+            }
+            collectInterfaces(clazz.getSuperclass(), interfaces);
+        }
+    }
+
+    // ---------- ServiceSessionPoolMBean --------------------------------------
+
+    public long getServiceLoginCount() {
+        return this.serviceLogins.get();
+    }
+
+    public long getRepositoryLoginCount() {
+        return this.repositoryLogins.get();
+    }
+
+    public long getPooledLoginCount() {
+        return this.pooledLogins.get();
+    }
+
+    public double getAverageServiceLoginTime() {
+        return average(this.serviceLoginTime.get(), this.serviceLogins.get());
+    }
+
+    public double getAverageRepositoryLoginTime() {
+        return average(this.repositoryLoginTime.get(), this.repositoryLogins.get());
+    }
+
+    private static double average(final long nanos, final long count) {
+        return count == 0 ? 0 : nanos / 1000000.0 / count;
+    }
+
+    public synchronized int getIdleSessionCount() {
+        int count = 0;
+        for (final LinkedList<IdleSession> sessions : this.idle.values()) {
+            count += sessions.size();
+        }
+        return count;
+    }
+
+    public int getMaxIdleSessions() {
+        return this.maxIdle;
+    }
+
+    public long getEvictedSessionCount() {
+        return this.evicted.get();
+    }
+
+    public long getDiscardedSessionCount() {
+        return this.discarded.get();
+    }
+
+    private static final class IdleSession {
+
+        final Session session;
+
+        final long created;
+
+        final long since = System.currentTimeMillis();
+
+        IdleSession(final Session session, final long created) {
+            this.session = session;
+            this.created = created;
+        }
+    }
+
+    /**
+     * A session handed out by the pool until the handle is logged out.
+     */
+    public final class Lease {
+
+        private final String key;
+
+        private final Session session;
+
+        /** The time in milliseconds the pooled session has been created */
+        private final long created;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Lease(final String key, final Session session, final long created) {
+            this.key = key;
+            this.session = session;
+            this.created = created;
+        }
+
+        /**
+         * Returns the pooled session.
+         */
+        public Session getSession() {
+            return this.session;
+        }
+
+        /**
+         * Returns whether the session has been returned to the pool.
+         */
+        public boolean isReleased() {
+            return this.released.get();
+        }
+
+        /**
+         * Returns the session to the pool or logs it out, only the first call
+         * has an effect.
+         */
+        public void release() {
+            if (this.released.compareAndSet(false, true)) {
+                ServiceSessionPool.this.release(this.key, this.session, this.created);
+            }
+        }
+    }
+
+    /**
+     * The proxy handle of a pooled session the {@link SessionFactory} cannot
+     * wrap. Logging out returns the session to the pool, after that the handle
+     * cannot be used any more.
+     */
+    private static final class SessionHandle implements InvocationHandler {
+
+        private final Lease lease;
+
+        SessionHandle(final Lease lease) {
+            this.lease = lease;
+        }
+
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final String name = method.getName();
+            if ("equals".equals(name) && args != null && args.length == 1) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(name) && args == null) {
+                return System.identityHashCode(proxy);
+            }
+
+            final Session s = this.lease.getSession();
+            if ("logout".equals(name) && args == null) {
+                this.lease.release();
+                return null;
+            } else if ("isLive".equals(name) && args == null) {
+                return !this.lease.isReleased() && s.isLive();
+            } else if (this.lease.isReleased()) {
+                if ("toString".equals(name)) {
+                    return "Logged out service session";
+                }
+                throw new IllegalStateException("Session has been logged out");
+            }
+
+            try {
+                return method.invoke(s, args);
+            } catch (InvocationTargetException ite) {
+                throw ite.getTargetException();
+            }
+        }
+    }
+}
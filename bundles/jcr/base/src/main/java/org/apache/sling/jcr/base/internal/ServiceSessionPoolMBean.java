@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.jcr.base.internal;
+
+/**
+ * Statistics and management of the service sessions created by the
+ * <code>SlingRepository.loginService</code> method.
+ */
+public interface ServiceSessionPoolMBean {
+
+    /** The name under which the MBean is registered */
+    String OBJECT_NAME = "org.apache.sling:type=jcr,service=ServiceSessionPool";
+
+    /**
+     * @return The number of <code>loginService</code> calls.
+     */
+    long getServiceLoginCount();
+
+    /**
+     * @return The number of <code>loginService</code> calls which had to
+     *         login to the repository.
+     */
+    long getRepositoryLoginCount();
+
+    /**
+     * @return The number of <code>loginService</code> calls served with an
+     *         idle pooled session.
+     */
+    long getPooledLoginCount();
+
+    /**
+     * @return The average time in milliseconds of a <code>loginService</code>
+     *         call.
+     */
+    double getAverageServiceLoginTime();
+
+    /**
+     * @return The average time in milliseconds of a repository login for a
+     *         service, including the administrative login and impersonation.
+     */
+    double getAverageRepositoryLoginTime();
+
+    /**
+     * @return The number of idle sessions in the pool.
+     */
+    int getIdleSessionCount();
+
+    /**
+     * @return The maximum number of idle sessions kept per service user and
+     *         workspace, <code>0</code> if pooling is disabled.
+     */
+    int getMaxIdleSessions();
+
+    /**
+     * @return The number of idle sessions logged out because they were not
+     *         used within the idle timeout.
+     */
+    long getEvictedSessionCount();
+
+    /**
+     * @return The number of returned sessions logged out because the pool
+     *         was full or they could not be reused.
+     */
+    long getDiscardedSessionCount();
+
+    /**
+     * Log out all idle sessions.
+     */
+    void clear();
+}
@@ -63,9 +63,17 @@ public class Loader implements NamespaceMapper, BundleListener {
     // bundles whose registration failed and should be retried
     private final List<Bundle> delayedBundles;
 
-    /** Namespace prefix table. */
+    /** Namespace prefix table, guarded by itself. */
     private final Map<Long, NamespaceEntry[]> namespaceTable = new HashMap<Long, NamespaceEntry[]>();
 
+    /**
+     * The <code>setNamespacePrefix</code> calls to apply to each new session,
+     * as pairs of prefix and namespace. This is computed with the first session
+     * after the namespace table has changed and is <code>null</code> until then.
+     * It is only changed while holding the lock of the namespace table.
+     */
+    private volatile String[] sessionMappings;
+
     public Loader(final SlingRepository repository, final BundleContext bundleContext) {
         this.bundleContext = bundleContext;
         this.slingRepository = repository;
@@ -92,6 +100,39 @@ public class Loader implements NamespaceMapper, BundleListener {
     //---------- NamespaceMapper interface
 
     public void defineNamespacePrefixes(Session session)
+    throws RepositoryException {
+        final String[] mappings = this.sessionMappings;
+        if ( mappings != null ) {
+            try {
+                for(int i=0; i<mappings.length; i+=2) {
+                    session.setNamespacePrefix(mappings[i], mappings[i+1]);
+                }
+                return;
+            } catch (NamespaceException ne) {
+                // the namespace registry has been changed behind our back
+                log.debug("defineNamespacePrefixes: Recomputing namespace mappings", ne);
+                synchronized ( this.namespaceTable ) {
+                    this.sessionMappings = null;
+                }
+            }
+        }
+
+        // compute the mappings from the namespace registry, registering
+        // missing namespaces on the way, and remember them for the
+        // next sessions
+        synchronized ( this.namespaceTable ) {
+            final List<String> computed = new ArrayList<String>();
+            this.defineNamespacePrefixes(session, computed);
+            this.sessionMappings = computed.toArray(new String[computed.size()]);
+        }
+    }
+
+    /**
+     * Defines the namespace prefixes in the session and records the
+     * <code>setNamespacePrefix</code> calls in the <code>mappings</code> list.
+     * Called with the namespace table locked.
+     */
+    private void defineNamespacePrefixes(final Session session, final List<String> mappings)
     throws RepositoryException {
         final Iterator<NamespaceEntry[]> iter = this.namespaceTable.values().iterator();
         while ( iter.hasNext() ) {
@@ -122,11 +163,15 @@ public class Loader implements NamespaceMapper, BundleListener {
                     try {
                         oldUri = session.getNamespaceURI(entries[i].prefix);
                         session.setNamespacePrefix(entries[i].prefix + "_old", oldUri);
+                        mappings.add(entries[i].prefix + "_old");
+                        mappings.add(oldUri);
                     } catch (NamespaceException ne) {
                         // ignore: prefix is not used
                     }
                     // finally set prefix
                     session.setNamespacePrefix(entries[i].prefix, entries[i].namespace);
+                    mappings.add(entries[i].prefix);
+                    mappings.add(entries[i].namespace);
                 }
             }
         }
@@ -163,7 +208,12 @@ public class Loader implements NamespaceMapper, BundleListener {
 
     private void registerBundle(Bundle bundle) {
         this.registerNamespaces(bundle);
-        if (this.registerBundleInternal(bundle, false)) {
+        final boolean registered = this.registerBundleInternal(bundle, false);
+        // node type definitions may have registered namespaces, too
+        synchronized ( this.namespaceTable ) {
+            this.sessionMappings = null;
+        }
+        if (registered) {
             // handle delayed bundles, might help now
             int currentSize = -1;
             for (int i=this.delayedBundles.size(); i > 0 && currentSize != this.delayedBundles.size() && !this.delayedBundles.isEmpty(); i--) {
@@ -219,7 +269,10 @@ public class Loader implements NamespaceMapper, BundleListener {
                 }
             }
             if ( entries.size() > 0 ) {
-                this.namespaceTable.put(bundle.getBundleId(), entries.toArray(new NamespaceEntry[entries.size()]));
+                synchronized ( this.namespaceTable ) {
+                    this.namespaceTable.put(bundle.getBundleId(), entries.toArray(new NamespaceEntry[entries.size()]));
+                    this.sessionMappings = null;
+                }
             }
         }
     }
@@ -229,7 +282,11 @@ public class Loader implements NamespaceMapper, BundleListener {
      * @param bundle The bundle.
      */
     protected void unregisterNamespaces(Bundle bundle) {
-        this.namespaceTable.remove(bundle.getBundleId());
+        synchronized ( this.namespaceTable ) {
+            if ( this.namespaceTable.remove(bundle.getBundleId()) != null ) {
+                this.sessionMappings = null;
+            }
+        }
     }
 
     private boolean registerBundleInternal (Bundle bundle, boolean isRetry) {
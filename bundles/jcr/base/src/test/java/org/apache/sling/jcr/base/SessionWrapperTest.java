@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.jcr.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.transaction.xa.XAResource;
+
+import org.apache.jackrabbit.api.JackrabbitSession;
+import org.apache.sling.jcr.base.internal.ServiceSessionPool;
+import org.junit.Test;
+
+public class SessionWrapperTest {
+
+    @Test
+    public void testPlainSession() {
+        // proxy classes extend Proxy, which is Serializable
+        assertTrue(SessionWrapper.isWrappable(proxyClass(Session.class)));
+        assertTrue(SessionWrapper.isWrappable(proxyClass(Session.class, Serializable.class)));
+    }
+
+    @Test
+    public void testJackrabbitSession() {
+        assertEquals(JackrabbitSessionWrapper.SUPPORTED,
+            SessionWrapper.isWrappable(proxyClass(JackrabbitSession.class)));
+    }
+
+    @Test
+    public void testFurtherInterfaces() {
+        assertFalse(SessionWrapper.isWrappable(proxyClass(Session.class, XAResource.class)));
+        assertFalse(SessionWrapper.isWrappable(proxyClass(ExtendedSession.class)));
+    }
+
+    @Test
+    public void testPooledHandles() throws RepositoryException {
+        final ServiceSessionPool pool = new ServiceSessionPool(new ServiceSessionPool.SessionFactory() {
+
+            public Session createSession(String userName, String workspace) {
+                final Class<?> type = "jackrabbit".equals(userName) ? JackrabbitSession.class : Session.class;
+                return (Session) mock(type);
+            }
+
+            public Session createHandle(ServiceSessionPool.Lease lease) {
+                if (lease.getSession() instanceof JackrabbitSession) {
+                    return new PooledJackrabbitSessionWrapper(lease, null);
+                }
+                return new PooledSessionWrapper(lease, null);
+            }
+        }, 2, 60000, 0);
+
+        final Session plain = pool.login("plain", null);
+        assertSame(PooledSessionWrapper.class, plain.getClass());
+        final Session jackrabbit = pool.login("jackrabbit", null);
+        assertSame(PooledJackrabbitSessionWrapper.class, jackrabbit.getClass());
+
+        for (final Session session : new Session[] { plain, jackrabbit }) {
+            assertTrue(session.isLive());
+            session.logout();
+            assertFalse(session.isLive());
+            // a second logout is ignored
+            session.logout();
+        }
+        assertEquals(2, pool.getIdleSessionCount());
+
+        final Session again = pool.login("plain", null);
+        assertTrue(again.isLive());
+        assertEquals(1, pool.getPooledLoginCount());
+        assertEquals(2, pool.getRepositoryLoginCount());
+    }
+
+    /**
+     * Returns a live session, without lock tokens and event listeners.
+     */
+    private static Object mock(final Class<?> type) {
+        return Proxy.newProxyInstance(SessionWrapperTest.class.getClassLoader(), new Class<?>[] { type },
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    final Class<?> returnType = method.getReturnType();
+                    if (returnType == boolean.class) {
+                        return "isLive".equals(method.getName());
+                    } else if (returnType == String[].class) {
+                        return new String[0];
+                    } else if (returnType.isInterface()) {
+                        return mock(returnType);
+                    }
+                    return null;
+                }
+            });
+    }
+
+    private static Class<?> proxyClass(final Class<?>... interfaces) {
+        return Proxy.getProxyClass(SessionWrapperTest.class.getClassLoader(), interfaces);
+    }
+
+    private static interface ExtendedSession extends Session {
+
+        void extend();
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.jcr.base.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Workspace;
+import javax.jcr.lock.LockManager;
+import javax.jcr.observation.EventListener;
+import javax.jcr.observation.EventListenerIterator;
+import javax.jcr.observation.ObservationManager;
+import javax.transaction.xa.XAResource;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ServiceSessionPoolTest {
+
+    private List<MockSession> created;
+
+    private ServiceSessionPool.SessionFactory factory;
+
+    /** The interfaces implemented by the sessions created by the factory */
+    private Class<?>[] sessionInterfaces = { Session.class };
+
+    /** The leases handed to the factory, if it creates the handles */
+    private List<ServiceSessionPool.Lease> leases;
+
+    @Before
+    public void setup() {
+        created = new ArrayList<MockSession>();
+        factory = new ServiceSessionPool.SessionFactory() {
+            public Session createSession(String userName, String workspace) {
+                final MockSession s = new MockSession(userName, workspace, sessionInterfaces);
+                created.add(s);
+                return s.session;
+            }
+
+            public Session createHandle(final ServiceSessionPool.Lease lease) {
+                if (leases == null) {
+                    return null;
+                }
+                leases.add(lease);
+                return (Session) MockSession.proxy(Session.class, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if ("logout".equals(method.getName())) {
+                            lease.release();
+                        }
+                        return null;
+                    }
+                });
+            }
+        };
+    }
+
+    @Test
+    public void testReuseSession() throws RepositoryException {
+        final ServiceSessionPool pool = new ServiceSessionPool(factory, 2, 60000, 0);
+
+        final Session first = pool.login("service", null);
+        first.getUserID();
+        first.logout();
+        assertFalse(first.isLive());
+
+        final Session second = pool.login("service", null);
+        assertNotSame(first, second);
+        assertEquals("service", second.getUserID());
+        assertEquals(1, created.size());
+        assertEquals(1, created.get(0).refreshCount);
+        assertFalse(created.get(0).loggedOut);
+
+        assertEquals(2, pool.getServiceLoginCount());
+        assertEquals(1, pool.getRepositoryLoginCount());
+        assertEquals(1, pool.getPooledLoginCount());
+    }
+
+    @Test
+    public void testLoggedOutHandle() throws RepositoryException {
+        final ServiceSessionPool pool = new ServiceSessionPool(factory, 2, 60000, 0);
+
+        final Session session = pool.login("service", null);
+        session.logout();
+        // second logout is ignored
+        session.logout();
+        assertEquals(1, pool.getIdleSessionCount());
+
+        try {
+            session.getUserID();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ise) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSeparateUsersAndWorkspaces() throws RepositoryException {
+        final ServiceSessionPool pool = new ServiceSessionPool(factory, 2, 60000, 0);
+
+        pool.login("a", null).logout();
+        pool.login("b", null).logout();
+        pool.login("a", "other").logout();
+        assertEquals(3, created.size());
+
+        pool.login("a", "other");
+        pool.login("b", null);
+        pool.login("a", null);
+        assertEquals(3, created.size());
+    }
+
+    @Test
+    public void testPoolFull() throws RepositoryException {
+        final ServiceSessionPool pool = new ServiceSessionPool(factory, 1, 60000, 0);
+
+        final Session first = pool.login("service", null);
+        final Session second = pool.login("service", null);
+        first.logout();
+        second.logout();
+
+        assertEquals(1, pool.getIdleSessionCount());
+        assertEquals(1, pool.getDiscardedSessionCount());
+        assertTrue(created.get(1).loggedOut);
+    }
+
+    @Test
+    public void testPoolingDisabled() throws RepositoryException {
+        final ServiceSessionPool pool = new ServiceSessionPool(factory, 0, 60000, 0);
+
+        final Session session = pool.login("service", null);
+        assertSame(created.get(0).session, session);
+        session.logout();
+
+        pool.login("service", null);
+        assertEquals(2, created.size());
+        assertEquals(0, pool.getIdleSessionCount());
+    }
+
+    @Test
+    public void testLockTokensNotPooled() throws RepositoryException {
+        final ServiceSessionPool pool = new ServiceSessionPool(factory, 2, 60000, 0);
+
+        final Session session = pool.login("service", null);
+        created.get(0).lockTokens = new String[] { "token" };
+        session.logout();
+
+        assertTrue(created.get(0).loggedOut);
+        assertEquals(0, pool.getIdleSessionCount());
+    }
+
+    @Test
+    public void testListenersNotPooled() throws RepositoryException {
+        final ServiceSessionPool pool = new ServiceSessionPool(factory, 2, 60000, 0);
+
+        final Session session = pool.login("service", null);
+        created.get(0).listeners.add(null);
+        session.logout();
+
+        assertTrue(created.get(0).loggedOut);
+        assertEquals(0, pool.getIdleSessionCount());
+    }
+
+    @Test
+    public void testEvictIdle() throws RepositoryException {
+        final ServiceSessionPool pool = new ServiceSessionPool(factory, 2, -1, 0);
+
+        pool.login("service", null).logout();
+        assertEquals(1, pool.getIdleSessionCount());
+
+        pool.evictIdle();
+        assertEquals(0, pool.getIdleSessionCount());
+        assertEquals(1, pool.getEvictedSessionCount());
+        assertTrue(created.get(0).loggedOut);
+    }
+
+    @Test
+    public void testMaxAgeOnLogout() throws Exception {
+        final ServiceSessionPool pool = new ServiceSessionPool(factory, 2, 60000, 1);
+
+        final Session session = pool.login("service", null);
+        Thread.sleep(10);
+        session.logout();
+
+        assertTrue(created.get(0).loggedOut);
+        assertEquals(0, pool.getIdleSessionCount());
+        assertEquals(1, pool.getEvictedSessionCount());
+    }
+
+    @Test
+    public void testMaxAgeEvictIdle() throws Exception {
+        final ServiceSessionPool pool = new ServiceSessionPool(factory, 2, 60000, 300);
+
+        pool.login("service", null).logout();
+        pool.evictIdle();
+        assertEquals(1, pool.getIdleSessionCount());
+
+        Thread.sleep(350);
+        pool.evictIdle();
+        assertEquals(0, pool.getIdleSessionCount());
+        assertEquals(1, pool.getEvictedSessionCount());
+        assertTrue(created.get(0).loggedOut);
+
+        // a new session is created on the next login
+        pool.login("service", null);
+        assertEquals(2, created.size());
+    }
+
+    @Test
+    public void testMaxAgeKeepsPooledCreationTime() throws Exception {
+        final ServiceSessionPool pool = new ServiceSessionPool(factory, 2, 60000, 300);
+
+        pool.login("service", null).logout();
+        Thread.sleep(180);
+        // reusing the session does not renew its age
+        pool.login("service", null).logout();
+        assertEquals(1, created.size());
+        Thread.sleep(180);
+
+        pool.login("service", null);
+        assertEquals(2, created.size());
+        assertTrue(created.get(0).loggedOut);
+        assertEquals(1, pool.getEvictedSessionCount());
+    }
+
+    @Test
+    public void testProxyHandles() throws RepositoryException {
+        final ServiceSessionPool pool = new ServiceSessionPool(factory, 2, 60000, 0);
+
+        final Session plain = pool.login("plain", null);
+        assertTrue(Proxy.isProxyClass(plain.getClass()));
+
+        sessionInterfaces = new Class<?>[] { Session.class, XAResource.class };
+        final Session xa = pool.login("xa", null);
+        assertTrue(Proxy.isProxyClass(xa.getClass()));
+        assertTrue(xa instanceof XAResource);
+
+        for (final Session session : new Session[] { plain, xa }) {
+            session.logout();
+            assertFalse(session.isLive());
+            try {
+                session.getUserID();
+                fail("Expected IllegalStateException");
+            } catch (IllegalStateException ise) {
+                // expected
+            }
+        }
+        assertEquals(2, pool.getIdleSessionCount());
+    }
+
+    @Test
+    public void testFactoryHandles() throws RepositoryException {
+        final ServiceSessionPool pool = new ServiceSessionPool(factory, 2, 60000, 0);
+        leases = new ArrayList<ServiceSessionPool.Lease>();
+
+        final Session handle = pool.login("service", null);
+        assertEquals(1, leases.size());
+        final ServiceSessionPool.Lease lease = leases.get(0);
+        assertSame(created.get(0).session, lease.getSession());
+        assertFalse(lease.isReleased());
+
+        handle.logout();
+        assertTrue(lease.isReleased());
+        assertEquals(1, pool.getIdleSessionCount());
+        // releasing again is ignored
+        lease.release();
+        assertEquals(1, pool.getIdleSessionCount());
+
+        pool.login("service", null);
+        assertEquals(2, leases.size());
+        assertSame(lease.getSession(), leases.get(1).getSession());
+        assertFalse(leases.get(1).isReleased());
+        assertEquals(1, created.size());
+    }
+
+    @Test
+    public void testClose() throws RepositoryException {
+        final ServiceSessionPool pool = new ServiceSessionPool(factory, 2, 60000, 0);
+
+        final Session idle = pool.login("service", null);
+        final Session used = pool.login("service", null);
+        idle.logout();
+
+        pool.close();
+        assertTrue(created.get(0).loggedOut);
+
+        used.logout();
+        assertTrue(created.get(1).loggedOut);
+        assertEquals(0, pool.getIdleSessionCount());
+    }
+
+    /**
+     * A minimal session tracking the calls the pool makes.
+     */
+    private static class MockSession implements InvocationHandler {
+
+        final Session session;
+
+        final String userName;
+
+        boolean loggedOut;
+
+        int refreshCount;
+
+        String[] lockTokens = new String[0];
+
+        final List<EventListener> listeners = new ArrayList<EventListener>();
+
+        MockSession(final String userName, final String workspace, final Class<?>... interfaces) {
+            this.userName = userName;
+            this.session = (Session) proxy(this, interfaces);
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            final String name = method.getName();
+            if ("logout".equals(name)) {
+                loggedOut = true;
+            } else if ("isLive".equals(name)) {
+                return !loggedOut;
+            } else if ("refresh".equals(name)) {
+                refreshCount++;
+            } else if ("getUserID".equals(name)) {
+                return userName;
+            } else if ("getWorkspace".equals(name)) {
+                return proxy(Workspace.class, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if ("getLockManager".equals(method.getName())) {
+                            return proxy(LockManager.class, new InvocationHandler() {
+                                public Object invoke(Object proxy, Method method, Object[] args) {
+                                    return lockTokens;
+                                }
+                            });
+                        }
+                        return proxy(ObservationManager.class, new InvocationHandler() {
+                            public Object invoke(Object proxy, Method method, Object[] args) {
+                                return new ListenerIterator(listeners);
+                            }
+                        });
+                    }
+                });
+            }
+            return null;
+        }
+
+        static Object proxy(final Class<?> type, final InvocationHandler handler) {
+            return proxy(handler, type);
+        }
+
+        static Object proxy(final InvocationHandler handler, final Class<?>... types) {
+            return Proxy.newProxyInstance(ServiceSessionPoolTest.class.getClassLoader(), types, handler);
+        }
+    }
+
+    private static class ListenerIterator implements EventListenerIterator {
+
+        private final Iterator<EventListener> delegatee;
+
+        ListenerIterator(final List<EventListener> listeners) {
+            this.delegatee = Collections.unmodifiableList(listeners).iterator();
+        }
+
+        public boolean hasNext() {
+            return delegatee.hasNext();
+        }
+
+        public EventListener nextEventListener() {
+            return delegatee.next();
+        }
+
+        public Object next() {
+            return delegatee.next();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        public void skip(long skipNum) {
+            for (long i = 0; i < skipNum; i++) {
+                delegatee.next();
+            }
+        }
+
+        public long getSize() {
+            return -1;
+        }
+
+        public long getPosition() {
+            return 0;
+        }
+    }
+}
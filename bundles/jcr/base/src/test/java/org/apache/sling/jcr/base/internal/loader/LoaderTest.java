@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.jcr.base.internal.loader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+
+import javax.jcr.NamespaceException;
+import javax.jcr.NamespaceRegistry;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Workspace;
+
+import org.apache.sling.jcr.api.SlingRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+
+public class LoaderTest {
+
+    private Map<String, String> registry;
+
+    private int registrations;
+
+    private Loader loader;
+
+    @Before
+    public void setup() {
+        registry = new HashMap<String, String>();
+        registry.put("foo", "http://other");
+        registrations = 0;
+
+        final Hashtable<String, String> headers = new Hashtable<String, String>();
+        headers.put(Loader.NAMESPACES_BUNDLE_HEADER, "foo=http://foo,bar=http://bar");
+        final Bundle bundle = (Bundle) proxy(Bundle.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                final String name = method.getName();
+                if ("getHeaders".equals(name)) {
+                    return headers;
+                } else if ("getBundleId".equals(name)) {
+                    return 1L;
+                } else if ("getState".equals(name)) {
+                    return Bundle.ACTIVE;
+                }
+                return null;
+            }
+        });
+        final BundleContext bundleContext = (BundleContext) proxy(BundleContext.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("getBundles".equals(method.getName())) {
+                    return new Bundle[] { bundle };
+                }
+                return null;
+            }
+        });
+        final SlingRepository repository = (SlingRepository) proxy(SlingRepository.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                return null;
+            }
+        });
+        loader = new Loader(repository, bundleContext);
+    }
+
+    @Test
+    public void testMappingsComputedOnce() throws RepositoryException {
+        final MockSession first = new MockSession();
+        loader.defineNamespacePrefixes(first.session);
+        assertEquals(2, registrations);
+        assertEquals("http://foo", registry.get("foo_new"));
+        assertEquals("http://bar", registry.get("bar"));
+        assertEquals("[foo_old, http://other, foo, http://foo]", first.mappings.toString());
+
+        final MockSession second = new MockSession();
+        loader.defineNamespacePrefixes(second.session);
+        assertEquals(2, registrations);
+        assertEquals(0, second.lookups);
+        assertEquals(first.mappings, second.mappings);
+    }
+
+    @Test
+    public void testMappingsRecomputedOnFailure() throws RepositoryException {
+        loader.defineNamespacePrefixes(new MockSession().session);
+
+        final MockSession failing = new MockSession();
+        failing.failMappings = true;
+        loader.defineNamespacePrefixes(failing.session);
+        assertTrue(failing.lookups > 0);
+        assertEquals(2, registrations);
+        assertEquals("[foo_old, http://other, foo, http://foo]", failing.mappings.toString());
+    }
+
+    private static Object proxy(final Class<?> type, final InvocationHandler handler) {
+        return Proxy.newProxyInstance(LoaderTest.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    /**
+     * A session mapping namespaces through the registry of the test.
+     */
+    private class MockSession implements InvocationHandler {
+
+        final Session session = (Session) proxy(Session.class, this);
+
+        final List<String> mappings = new ArrayList<String>();
+
+        int lookups;
+
+        boolean failMappings;
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Exception {
+            final String name = method.getName();
+            if ("setNamespacePrefix".equals(name)) {
+                if (failMappings) {
+                    failMappings = false;
+                    throw new NamespaceException("Fail");
+                }
+                mappings.add((String) args[0]);
+                mappings.add((String) args[1]);
+            } else if ("getNamespaceURI".equals(name)) {
+                lookups++;
+                final String uri = registry.get(args[0]);
+                if (uri == null) {
+                    throw new NamespaceException((String) args[0]);
+                }
+                return uri;
+            } else if ("getNamespacePrefix".equals(name)) {
+                lookups++;
+                for (final Map.Entry<String, String> entry : registry.entrySet()) {
+                    if (entry.getValue().equals(args[0])) {
+                        return entry.getKey();
+                    }
+                }
+                throw new NamespaceException((String) args[0]);
+            } else if ("getWorkspace".equals(name)) {
+                return proxy(Workspace.class, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        return proxy(NamespaceRegistry.class, new InvocationHandler() {
+                            public Object invoke(Object proxy, Method method, Object[] args) {
+                                if ("registerNamespace".equals(method.getName())) {
+                                    registrations++;
+                                    registry.put((String) args[0], (String) args[1]);
+                                }
+                                return null;
+                            }
+                        });
+                    }
+                });
+            }
+            return null;
+        }
+    }
+}
@@ -37,6 +37,7 @@ import org.apache.felix.scr.annotations.Properties;
 import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.sling.commons.mime.MimeTypeService;
+import org.apache.sling.commons.osgi.OsgiUtil;
 import org.apache.sling.engine.SlingSettingsService;
 import org.apache.sling.jcr.api.SlingRepository;
 import org.osgi.framework.Bundle;
@@ -71,6 +72,13 @@ public class ContentLoaderService implements SynchronousBundleListener, JcrConte
 
     public static final String BUNDLE_CONTENT_NODE = "/var/sling/bundle-content";
 
+    /**
+     * The name of the framework property defining after how many created
+     * nodes the initial content of a bundle is saved. If not set or not
+     * a positive number, the content of a bundle is saved at once.
+     */
+    public static final String PROP_SAVE_BATCH_SIZE = "sling.contentloader.save.batchsize";
+
     /** default log */
     final Logger log = LoggerFactory.getLogger(getClass());
 
@@ -98,6 +106,12 @@ public class ContentLoaderService implements SynchronousBundleListener, JcrConte
      */
     private String slingId;
 
+    /**
+     * Number of nodes after which initial content is saved, 0 to
+     * save the content of a bundle at once.
+     */
+    private int saveBatchSize;
+
     /**
      * List of currently updated bundles.
      */
@@ -205,11 +219,21 @@ public class ContentLoaderService implements SynchronousBundleListener, JcrConte
         }
     }
 
+    /**
+     * Return the number of nodes after which initial content is saved.
+     * @return The batch size or 0 if the content of a bundle is saved at once.
+     */
+    public int getSaveBatchSize() {
+        return this.saveBatchSize;
+    }
+
     // ---------- SCR Integration ---------------------------------------------
 
     /** Activates this component, called by SCR before registering as a service */
     protected void activate(ComponentContext componentContext) {
         this.slingId = this.settingsService.getSlingId();
+        this.saveBatchSize = Math.max(0, OsgiUtil.toInteger(
+                componentContext.getBundleContext().getProperty(PROP_SAVE_BATCH_SIZE), 0));
         this.initialContentLoader = new Loader(this);
 
         componentContext.getBundleContext().addBundleListener(this);
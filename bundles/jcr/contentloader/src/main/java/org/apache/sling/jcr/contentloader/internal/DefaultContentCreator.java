@@ -101,6 +101,12 @@ public class DefaultContentCreator implements ContentCreator {
     /** Optional list of created nodes (for uninstall) */
     private List<String> createdNodes;
 
+    /** Number of nodes created since the last call to {@link #clear()} */
+    private int createdNodeCount;
+
+    /** Number of nodes created at the last call to {@link #markSaved()} */
+    private int savedNodeCount;
+
     /** Optional listener to get notified about changes */
     private ContentImportListener importListener;
     
@@ -173,6 +179,29 @@ public class DefaultContentCreator implements ContentCreator {
      */
     public void clear() {
         this.versionables.clear();
+        this.createdNodeCount = 0;
+        this.savedNodeCount = 0;
+    }
+
+    /**
+     * Get the number of nodes created since the last call to {@link #clear()}.
+     */
+    public int getCreatedNodeCount() {
+        return this.createdNodeCount;
+    }
+
+    /**
+     * Get the number of nodes created since the last call to {@link #markSaved()}.
+     */
+    public int getUnsavedNodeCount() {
+        return this.createdNodeCount - this.savedNodeCount;
+    }
+
+    /**
+     * Mark all nodes created so far as saved.
+     */
+    public void markSaved() {
+        this.savedNodeCount = this.createdNodeCount;
     }
 
     /**
@@ -483,6 +512,7 @@ public class DefaultContentCreator implements ContentCreator {
     }
 
     private void addNodeToCreatedList(Node node) throws RepositoryException {
+        this.createdNodeCount++;
         if ( this.createdNodes != null ) {
             this.createdNodes.add(node.getSession().getWorkspace().getName() + ":" + node.getPath());
         }
@@ -146,7 +146,10 @@ public class Loader extends BaseImportLoader {
                 if (!isUpdate && !isBundleUpdated && contentAlreadyLoaded) {
                     log.info("Content of bundle already loaded {}.", bundle.getSymbolicName());
                 } else {
+                    final long start = System.currentTimeMillis();
                     createdNodes = installContent(metadataSession, bundle, pathIter, contentAlreadyLoaded);
+                    log.info("Loaded initial content of bundle {} in {}ms",
+                            bundle.getSymbolicName(), System.currentTimeMillis() - start);
                     if (isRetry) {
                         // log success of retry
                         log.info("Retrying to load initial content for bundle {} succeeded.", bundle.getSymbolicName());
@@ -208,8 +211,9 @@ public class Loader extends BaseImportLoader {
      * Install the content from the bundle.
      *
      * @return If the content should be removed on uninstall, a list of top nodes
+     * (package private for testing)
      */
-    private List<String> installContent(final Session defaultSession, final Bundle bundle, final Iterator<PathEntry> pathIter, final boolean contentAlreadyLoaded) throws RepositoryException {
+    List<String> installContent(final Session defaultSession, final Bundle bundle, final Iterator<PathEntry> pathIter, final boolean contentAlreadyLoaded) throws RepositoryException {
 
         final List<String> createdNodes = new ArrayList<String>();
         final Map<String, Session> createdSessions = new HashMap<String, Session>();
@@ -374,6 +378,21 @@ public class Loader extends BaseImportLoader {
                 // file => create file
                 handleFile(entry, bundle, processedEntries, configuration, parent, createdNodes, contentCreator);
             }
+            saveBatch(parent.getSession(), contentCreator);
+        }
+    }
+
+    /**
+     * Save the session if the configured number of nodes has been created
+     * since the last save. Content saved this way is not rolled back if
+     * loading the content of the bundle fails later on.
+     */
+    private void saveBatch(final Session session, final DefaultContentCreator contentCreator) throws RepositoryException {
+        final int batchSize = this.contentLoaderService.getSaveBatchSize();
+        if (batchSize > 0 && contentCreator.getUnsavedNodeCount() >= batchSize) {
+            log.debug("Saving {} new nodes", contentCreator.getUnsavedNodeCount());
+            session.save();
+            contentCreator.markSaved();
         }
     }
 
@@ -19,9 +19,11 @@
 package org.apache.sling.jcr.contentloader.internal.readers;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -34,6 +36,7 @@ import javax.jcr.RepositoryException;
 import org.apache.sling.commons.json.JSONArray;
 import org.apache.sling.commons.json.JSONException;
 import org.apache.sling.commons.json.JSONObject;
+import org.apache.sling.commons.json.JSONTokener;
 import org.apache.sling.jcr.contentloader.internal.ContentCreator;
 import org.apache.sling.jcr.contentloader.internal.ContentReader;
 import org.apache.sling.jcr.contentloader.internal.ImportProvider;
@@ -150,12 +153,23 @@ public class JsonReader implements ContentReader {
 
     public void parse(InputStream ins, ContentCreator contentCreator) throws IOException, RepositoryException {
         try {
-            String jsonString = toString(ins).trim();
-            if (!jsonString.startsWith("{")) {
-                jsonString = "{" + jsonString + "}";
+            // read the content through the tokener instead of reading
+            // the whole file into a string first
+            final BufferedReader reader = new BufferedReader(createReader(ins));
+            int c;
+            do {
+                reader.mark(1);
+                c = reader.read();
+            } while (c != -1 && Character.isWhitespace((char) c));
+            reader.reset();
+
+            final JSONTokener tokener;
+            if (c != '{') {
+                tokener = new JSONTokener(new EnclosingReader(reader));
+            } else {
+                tokener = new JSONTokener(reader);
             }
-
-            JSONObject json = new JSONObject(jsonString);
+            JSONObject json = new JSONObject(tokener);
             this.createNode(null, json, contentCreator);
         } catch (JSONException je) {
             throw (IOException) new IOException(je.getMessage()).initCause(je);
@@ -254,7 +268,7 @@ public class JsonReader implements ContentReader {
         return name;
     }
 
-    private String toString(InputStream ins) throws IOException {
+    private Reader createReader(InputStream ins) throws IOException {
         if (!ins.markSupported()) {
             ins = new BufferedInputStream(ins);
         }
@@ -274,15 +288,54 @@ public class JsonReader implements ContentReader {
             encoding = "UTF-8";
         }
 
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        byte[] buf = new byte[1024];
-        int rd;
-        while ( (rd = ins.read(buf)) >= 0) {
-            bos.write(buf, 0, rd);
+        return new InputStreamReader(ins, encoding);
+    }
+
+    /**
+     * Reader enclosing the characters of the underlying reader
+     * in curly braces, for content not being a JSON object.
+     */
+    private static final class EnclosingReader extends Reader {
+
+        private final Reader reader;
+
+        /** 0 before the opening brace, 1 while reading, 2 at the closing brace, 3 at the end */
+        private int state;
+
+        EnclosingReader(final Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public int read(final char[] cbuf, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            switch (this.state) {
+                case 0:
+                    this.state = 1;
+                    cbuf[off] = '{';
+                    return 1;
+                case 1:
+                    final int count = this.reader.read(cbuf, off, len);
+                    if (count != -1) {
+                        return count;
+                    }
+                    this.state = 2;
+                    // fall through
+                case 2:
+                    this.state = 3;
+                    cbuf[off] = '}';
+                    return 1;
+                default:
+                    return -1;
+            }
         }
-        bos.close(); // just to comply with the contract
 
-        return new String(bos.toByteArray(), encoding);
+        @Override
+        public void close() throws IOException {
+            this.reader.close();
+        }
     }
 
 
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.jcr.contentloader.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import javax.jcr.PropertyType;
+
+import org.jmock.Expectations;
+import org.jmock.integration.junit4.JMock;
+import org.junit.runner.RunWith;
+
+/**
+ * Runs the {@link JsonReaderTest} cases with content arriving one byte
+ * at a time from a stream not supporting mark, and adds cases for content
+ * larger than the buffers of the streaming reader.
+ */
+@RunWith(JMock.class)
+public class JsonReaderStreamTest extends JsonReaderTest {
+
+    @Override
+    protected InputStream createInputStream(byte[] content) {
+        return new ByteArrayInputStream(content) {
+
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1));
+            }
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+    }
+
+    @org.junit.Test public void testLargeValue() throws Exception {
+        final String value = createValue(20000);
+        String json = "{ \"p1\": \"" + value + "\" }";
+
+        this.mockery.checking(new Expectations() {{
+            oneOf(creator).createNode(null, null, null); inSequence(mySequence);
+            oneOf(creator).createProperty("p1", PropertyType.UNDEFINED, value); inSequence(mySequence);
+            oneOf(creator).finishNode(); inSequence(mySequence);
+        }});
+        this.parse(json);
+    }
+
+    @org.junit.Test public void testLargeValueWithoutEnclosingBraces() throws Exception {
+        final String value = createValue(20000);
+        String json = "   \n \"p1\": \"" + value + "\", \"child\": { \"p2\": \"v2\" }  ";
+
+        this.mockery.checking(new Expectations() {{
+            oneOf(creator).createNode(null, null, null); inSequence(mySequence);
+            oneOf(creator).createProperty("p1", PropertyType.UNDEFINED, value); inSequence(mySequence);
+            oneOf(creator).createNode("child", null, null); inSequence(mySequence);
+            oneOf(creator).createProperty("p2", PropertyType.UNDEFINED, "v2"); inSequence(mySequence);
+            oneOf(creator).finishNode(); inSequence(mySequence);
+            oneOf(creator).finishNode(); inSequence(mySequence);
+        }});
+        this.parse(json);
+    }
+
+    private String createValue(int length) {
+        final StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        return sb.toString();
+    }
+}
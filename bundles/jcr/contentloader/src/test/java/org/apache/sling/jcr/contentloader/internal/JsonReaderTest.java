@@ -294,13 +294,17 @@ public class JsonReaderTest {
 
     //---------- internal helper ----------------------------------------------
 
-    private void parse(String json) throws IOException, RepositoryException {
+    protected void parse(String json) throws IOException, RepositoryException {
         String charSet = "ISO-8859-1";
         json = "#" + charSet + "\r\n" + json;
-        InputStream ins = new ByteArrayInputStream(json.getBytes(charSet));
+        InputStream ins = this.createInputStream(json.getBytes(charSet));
         this.jsonReader.parse(ins, this.creator);
     }
 
+    protected InputStream createInputStream(byte[] content) {
+        return new ByteArrayInputStream(content);
+    }
+
     private JSONArray toJsonArray(String[] array) throws JSONException {
         return new JSONArray(Arrays.asList(array));
     }
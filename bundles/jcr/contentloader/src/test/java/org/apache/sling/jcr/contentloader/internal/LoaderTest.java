@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.jcr.contentloader.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventIterator;
+import javax.jcr.observation.EventListener;
+
+import org.apache.sling.commons.osgi.ManifestHeader;
+import org.apache.sling.commons.testing.jcr.RepositoryUtil;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.api.Invocation;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.action.CustomAction;
+import org.junit.runner.RunWith;
+import org.osgi.framework.Bundle;
+
+/**
+ * Test loading the initial content of a bundle into a repository,
+ * saving it at once or in batches.
+ */
+@RunWith(JMock.class)
+public class LoaderTest {
+
+    private static final String PREFIX = "loadertest-";
+
+    Mockery mockery = new JUnit4Mockery();
+
+    Session session;
+
+    Session observingSession;
+
+    File contentDir;
+
+    /** The bundle entries (name to url) */
+    final Map<String, URL> entries = new HashMap<String, URL>();
+
+    /** The entry paths of the content folder, in order */
+    final Vector<String> entryPaths = new Vector<String>();
+
+    /** The names of the nodes added per save */
+    final List<Set<String>> savedNodes = Collections.synchronizedList(new ArrayList<Set<String>>());
+
+    final EventListener listener = new EventListener() {
+
+        public void onEvent(EventIterator events) {
+            final Set<String> names = new HashSet<String>();
+            while (events.hasNext()) {
+                try {
+                    final String path = events.nextEvent().getPath();
+                    names.add(path.substring(path.lastIndexOf('/') + 1));
+                } catch (RepositoryException re) {
+                    // ignore
+                }
+            }
+            savedNodes.add(names);
+        }
+    };
+
+    @org.junit.BeforeClass public static void startRepository() throws Exception {
+        RepositoryUtil.startRepository();
+    }
+
+    @org.junit.AfterClass public static void stopRepository() throws Exception {
+        RepositoryUtil.stopRepository();
+    }
+
+    @org.junit.Before public void setUp() throws Exception {
+        this.session = RepositoryUtil.getRepository().loginAdministrative(null);
+        this.observingSession = RepositoryUtil.getRepository().loginAdministrative(null);
+        this.observingSession.getWorkspace().getObservationManager().addEventListener(
+                listener, Event.NODE_ADDED, "/", true, null, null, false);
+        this.contentDir = File.createTempFile(PREFIX, null);
+        this.contentDir.delete();
+        this.contentDir.mkdirs();
+    }
+
+    @org.junit.After public void tearDown() throws Exception {
+        this.observingSession.getWorkspace().getObservationManager().removeEventListener(listener);
+        this.observingSession.logout();
+        this.session.refresh(false);
+        for (final NodeIterator i = this.session.getRootNode().getNodes(PREFIX + "*"); i.hasNext();) {
+            i.nextNode().remove();
+        }
+        this.session.save();
+        this.session.logout();
+        for (final File f : this.contentDir.listFiles()) {
+            f.delete();
+        }
+        this.contentDir.delete();
+    }
+
+    @org.junit.Test public void testSaveAtOnce() throws Exception {
+        addEntry("a", "{}");
+        addEntry("b", "{ \"child\" : {} }");
+        addEntry("c", "{}");
+
+        installContent(0);
+
+        assertSaved("a", "b", "child", "c");
+        assertFalse(this.session.hasPendingChanges());
+    }
+
+    @org.junit.Test public void testBatchBoundaries() throws Exception {
+        addEntry("a", "{}");
+        addEntry("b", "{ \"child\" : {} }");
+        addEntry("c", "{}");
+        addEntry("d", "{}");
+        addEntry("e", "{}");
+
+        // entries are saved once they reach the batch size, the rest at the end
+        installContent(3);
+
+        assertSaved(new String[] {"a", "b", "child"}, new String[] {"c", "d", "e"});
+    }
+
+    @org.junit.Test public void testBatchSizeReachedExactly() throws Exception {
+        addEntry("a", "{}");
+        addEntry("b", "{}");
+        addEntry("c", "{}");
+        addEntry("d", "{}");
+
+        // nothing left to save at the end
+        installContent(2);
+
+        assertSaved(new String[] {"a", "b"}, new String[] {"c", "d"});
+    }
+
+    @org.junit.Test public void testFailureInFirstBatch() throws Exception {
+        addEntry("a", "{}");
+        addEntry("b", "{}");
+        addEntry("c", "{ broken");
+
+        try {
+            installContent(3);
+            fail("Expected RepositoryException");
+        } catch (RepositoryException re) {
+            // expected
+        }
+
+        // nothing saved, the unsaved nodes are discarded
+        assertFalse(this.session.hasPendingChanges());
+        assertNodes();
+    }
+
+    @org.junit.Test public void testFailureAfterSavedBatch() throws Exception {
+        addEntry("a", "{}");
+        addEntry("b", "{}");
+        addEntry("c", "{}");
+        addEntry("d", "{ broken");
+
+        try {
+            installContent(2);
+            fail("Expected RepositoryException");
+        } catch (RepositoryException re) {
+            // expected
+        }
+
+        // the saved batch is kept, the nodes created after it are discarded
+        assertFalse(this.session.hasPendingChanges());
+        assertNodes("a", "b");
+    }
+
+    @org.junit.Test public void testFailureWithoutBatches() throws Exception {
+        addEntry("a", "{}");
+        addEntry("b", "{}");
+        addEntry("c", "{ broken");
+
+        try {
+            installContent(0);
+            fail("Expected RepositoryException");
+        } catch (RepositoryException re) {
+            // expected
+        }
+
+        assertFalse(this.session.hasPendingChanges());
+        assertNodes();
+    }
+
+    //---------- internal helper ----------------------------------------------
+
+    private void addEntry(final String name, final String json) throws IOException {
+        final File file = new File(this.contentDir, PREFIX + name + ".json");
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(json.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        final String path = "content/" + file.getName();
+        this.entryPaths.add(path);
+        this.entries.put(path, file.toURI().toURL());
+    }
+
+    private void installContent(final int batchSize) throws Exception {
+        final ContentLoaderService service = new ContentLoaderService();
+        final Field field = ContentLoaderService.class.getDeclaredField("saveBatchSize");
+        field.setAccessible(true);
+        field.set(service, batchSize);
+
+        final Bundle bundle = this.mockery.mock(Bundle.class);
+        this.mockery.checking(new Expectations() {{
+            allowing(bundle).getSymbolicName(); will(returnValue("test.bundle"));
+            allowing(bundle).getEntryPaths("content"); will(returnValue(entryPaths.elements()));
+            allowing(bundle).getEntry(with(any(String.class))); will(new CustomAction("get entry") {
+
+                public Object invoke(Invocation invocation) {
+                    return entries.get(invocation.getParameter(0));
+                }
+            });
+        }});
+
+        final PathEntry pathEntry = new PathEntry(ManifestHeader.parse("content").getEntries()[0], 0);
+        final Loader loader = new Loader(service);
+        try {
+            loader.installContent(this.session, bundle, Collections.singletonList(pathEntry).iterator(), false);
+        } finally {
+            loader.dispose();
+        }
+    }
+
+    /**
+     * Assert the nodes added per save, ignoring the prefix of the names.
+     */
+    private void assertSaved(final String[]... batches) throws Exception {
+        final long end = System.currentTimeMillis() + 5000;
+        while (this.savedNodes.size() < batches.length && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        // give additional saves a chance to show up
+        Thread.sleep(100);
+        assertEquals(batches.length, this.savedNodes.size());
+        for (int i = 0; i < batches.length; i++) {
+            final Set<String> expected = new HashSet<String>();
+            for (final String name : batches[i]) {
+                expected.add(name.equals("child") ? name : PREFIX + name);
+            }
+            assertEquals("Save " + i, expected, this.savedNodes.get(i));
+        }
+    }
+
+    private void assertSaved(final String... names) throws Exception {
+        assertSaved(new String[][] {names});
+    }
+
+    /**
+     * Assert the persisted test nodes, as seen by another session.
+     */
+    private void assertNodes(final String... names) throws Exception {
+        final Set<String> expected = new HashSet<String>();
+        for (final String name : names) {
+            expected.add(PREFIX + name);
+        }
+        final Set<String> actual = new HashSet<String>();
+        for (final NodeIterator i = this.observingSession.getRootNode().getNodes(PREFIX + "*"); i.hasNext();) {
+            actual.add(i.nextNode().getName());
+        }
+        assertEquals(expected, actual);
+        assertTrue(this.savedNodes.size() <= 1);
+    }
+}
@@ -44,6 +44,7 @@ import javax.jcr.ValueFormatException;
 
 import org.apache.jackrabbit.util.ISO9075;
 import org.apache.jackrabbit.util.Text;
+import org.apache.sling.api.resource.PrimitiveValueMap;
 import org.apache.sling.api.resource.ValueMap;
 import org.apache.sling.jcr.resource.internal.helper.JcrPropertyMapCacheEntry;
 import org.slf4j.Logger;
@@ -54,7 +55,7 @@ import org.slf4j.LoggerFactory;
  * @see JcrModifiablePropertyMap
  */
 public class JcrPropertyMap
-    implements ValueMap {
+    implements PrimitiveValueMap {
 
     /** default logger */
     private static Logger LOGGER = LoggerFactory.getLogger(JcrPropertyMap.class);
@@ -153,6 +154,75 @@ public class JcrPropertyMap
         return value;
     }
 
+    // ---------- PrimitiveValueMap
+
+    /**
+     * @see org.apache.sling.api.resource.PrimitiveValueMap#getLong(java.lang.String, long)
+     */
+    public long getLong(final String aKey, final long defaultValue) {
+        final JcrPropertyMapCacheEntry entry = this.read(checkKey(aKey));
+        if ( entry == null || entry.values.length == 0 ) {
+            return defaultValue;
+        }
+        try {
+            if ( entry.values[0].getType() == PropertyType.BINARY && entry.property != null ) {
+                return entry.isMulti ? entry.property.getLengths()[0] : entry.property.getLength();
+            }
+            return entry.values[0].getLong();
+        } catch (final RepositoryException re) {
+            LOGGER.info("getLong: Cannot get long value of " + aKey, re);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @see org.apache.sling.api.resource.PrimitiveValueMap#getInt(java.lang.String, int)
+     */
+    public int getInt(final String aKey, final int defaultValue) {
+        final JcrPropertyMapCacheEntry entry = this.read(checkKey(aKey));
+        if ( entry == null || entry.values.length == 0 ) {
+            return defaultValue;
+        }
+        try {
+            return (int) entry.values[0].getLong();
+        } catch (final RepositoryException re) {
+            LOGGER.info("getInt: Cannot get int value of " + aKey, re);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @see org.apache.sling.api.resource.PrimitiveValueMap#getDouble(java.lang.String, double)
+     */
+    public double getDouble(final String aKey, final double defaultValue) {
+        final JcrPropertyMapCacheEntry entry = this.read(checkKey(aKey));
+        if ( entry == null || entry.values.length == 0 ) {
+            return defaultValue;
+        }
+        try {
+            return entry.values[0].getDouble();
+        } catch (final RepositoryException re) {
+            LOGGER.info("getDouble: Cannot get double value of " + aKey, re);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @see org.apache.sling.api.resource.PrimitiveValueMap#getBoolean(java.lang.String, boolean)
+     */
+    public boolean getBoolean(final String aKey, final boolean defaultValue) {
+        final JcrPropertyMapCacheEntry entry = this.read(checkKey(aKey));
+        if ( entry == null || entry.values.length == 0 ) {
+            return defaultValue;
+        }
+        try {
+            return entry.values[0].getBoolean();
+        } catch (final RepositoryException re) {
+            LOGGER.info("getBoolean: Cannot get boolean value of " + aKey, re);
+            return defaultValue;
+        }
+    }
+
     // ---------- Map
 
     /**
@@ -116,4 +116,12 @@ public abstract class JcrItemResource extends AbstractResource implements Resour
      */
     abstract Iterator<Resource> listJcrChildren();
 
+    /**
+     * Returns an iterator over at most <code>limit</code> child resources
+     * starting at the child with index <code>offset</code> or
+     * <code>null</code> if there are none. A negative <code>limit</code>
+     * returns all remaining child resources.
+     */
+    abstract Iterator<Resource> listJcrChildren(long offset, long limit);
+
 }
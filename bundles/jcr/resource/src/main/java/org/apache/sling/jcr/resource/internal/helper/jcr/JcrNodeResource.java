@@ -30,10 +30,12 @@ import java.security.AccessControlException;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import javax.jcr.Item;
 import javax.jcr.ItemNotFoundException;
 import javax.jcr.Node;
+import javax.jcr.NodeIterator;
 import javax.jcr.Property;
 import javax.jcr.RepositoryException;
 import javax.jcr.ValueFormatException;
@@ -254,11 +256,22 @@ public class JcrNodeResource extends JcrItemResource {
 
     @Override
     Iterator<Resource> listJcrChildren() {
+        return listJcrChildren(0, -1);
+    }
+
+    @Override
+    Iterator<Resource> listJcrChildren(final long offset, final long limit) {
         try {
-            if (getNode().hasNodes()) {
+            if (limit != 0 && getNode().hasNodes()) {
+                final NodeIterator nodes = getNode().getNodes();
+                if (offset > 0) {
+                    nodes.skip(offset);
+                }
                 return new JcrNodeResourceIterator(getResourceResolver(),
-                    getNode().getNodes(), this.dynamicClassLoader);
+                    nodes, this.dynamicClassLoader, limit);
             }
+        } catch (final NoSuchElementException nsee) {
+            // offset is beyond the last child
         } catch (RepositoryException re) {
             LOGGER.error("listChildren: Cannot get children of " + this, re);
         }
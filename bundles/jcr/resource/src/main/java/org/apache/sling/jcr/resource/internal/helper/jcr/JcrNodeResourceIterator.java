@@ -51,6 +51,9 @@ public class JcrNodeResourceIterator implements Iterator<Resource> {
 
     private final ClassLoader dynamicClassLoader;
 
+    /** The number of resources still to be returned, -1 for no limit */
+    private long remaining;
+
     /**
      * Creates an instance using the given resource manager and the nodes
      * provided as a node iterator.
@@ -58,9 +61,23 @@ public class JcrNodeResourceIterator implements Iterator<Resource> {
     public JcrNodeResourceIterator(final ResourceResolver resourceResolver,
                                    final NodeIterator nodes,
                                    final ClassLoader dynamicClassLoader) {
+        this(resourceResolver, nodes, dynamicClassLoader, -1);
+    }
+
+    /**
+     * Creates an instance using the given resource manager and the nodes
+     * provided as a node iterator returning at most <code>limit</code>
+     * resources. A negative <code>limit</code> returns resources for all
+     * nodes.
+     */
+    public JcrNodeResourceIterator(final ResourceResolver resourceResolver,
+                                   final NodeIterator nodes,
+                                   final ClassLoader dynamicClassLoader,
+                                   final long limit) {
         this.resourceResolver = resourceResolver;
         this.nodes = nodes;
         this.dynamicClassLoader = dynamicClassLoader;
+        this.remaining = limit;
         this.nextResult = seek();
     }
 
@@ -87,11 +104,14 @@ public class JcrNodeResourceIterator implements Iterator<Resource> {
     }
 
     private Resource seek() {
-        while (nodes.hasNext()) {
+        while (remaining != 0 && nodes.hasNext()) {
             try {
                 Resource resource = new JcrNodeResource(resourceResolver,
                     nodes.nextNode(), dynamicClassLoader);
                 LOGGER.debug("seek: Returning Resource {}", resource);
+                if (remaining > 0) {
+                    remaining--;
+                }
                 return resource;
             } catch (final ItemNotFoundException infe) {
                 LOGGER.debug(
@@ -236,6 +236,11 @@ public class JcrPropertyResource extends JcrItemResource {
         return null;
     }
 
+    @Override
+    Iterator<Resource> listJcrChildren(final long offset, final long limit) {
+        return null;
+    }
+
     @Override
 	public boolean hasChildren() {
 		return false;
@@ -42,6 +42,7 @@ import org.apache.sling.api.adapter.SlingAdaptable;
 import org.apache.sling.api.resource.AttributableResourceProvider;
 import org.apache.sling.api.resource.DynamicResourceProvider;
 import org.apache.sling.api.resource.ModifyingResourceProvider;
+import org.apache.sling.api.resource.PagedResourceProvider;
 import org.apache.sling.api.resource.PersistenceException;
 import org.apache.sling.api.resource.QueriableResourceProvider;
 import org.apache.sling.api.resource.QuerySyntaxException;
@@ -71,6 +72,7 @@ public class JcrResourceProvider
                DynamicResourceProvider,
                AttributableResourceProvider,
                QueriableResourceProvider,
+               PagedResourceProvider,
                RefreshableResourceProvider,
                ModifyingResourceProvider {
 
@@ -141,6 +143,35 @@ public class JcrResourceProvider
     public Iterator<Resource> listChildren(final Resource parent) {
         this.checkClosed();
 
+        final JcrItemResource parentItemResource = getParentItemResource(parent);
+
+        // return children if there is a parent item resource, else null
+        return (parentItemResource != null)
+                ? parentItemResource.listJcrChildren()
+                : null;
+    }
+
+    /**
+     * @see org.apache.sling.api.resource.PagedResourceProvider#listChildren(org.apache.sling.api.resource.Resource, long, long)
+     */
+    public Iterator<Resource> listChildren(final Resource parent, final long offset, final long limit) {
+        this.checkClosed();
+
+        final JcrItemResource parentItemResource = getParentItemResource(parent);
+
+        // return children if there is a parent item resource, else null
+        return (parentItemResource != null)
+                ? parentItemResource.listJcrChildren(offset, limit)
+                : null;
+    }
+
+    // ---------- implementation helper ----------------------------------------
+
+    /**
+     * Returns the <code>JcrItemResource</code> for the parent resource whose
+     * children are to be listed or <code>null</code> if there is none.
+     */
+    private JcrItemResource getParentItemResource(final Resource parent) {
         JcrItemResource parentItemResource;
 
         // short cut for known JCR resources
@@ -161,14 +192,9 @@ public class JcrResourceProvider
 
         }
 
-        // return children if there is a parent item resource, else null
-        return (parentItemResource != null)
-                ? parentItemResource.listJcrChildren()
-                : null;
+        return parentItemResource;
     }
 
-    // ---------- implementation helper ----------------------------------------
-
     /**
      * Creates a <code>Resource</code> instance for the item found at the
      * given path. If no item exists at that path or the item does not have
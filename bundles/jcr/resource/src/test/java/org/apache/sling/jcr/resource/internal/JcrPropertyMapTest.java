@@ -173,6 +173,29 @@ public class JcrPropertyMapTest extends RepositoryTestBase {
         assertSame(defaultValue, result);
     }
 
+    public void testPrimitiveValues() throws Exception {
+        this.rootNode.getSession().refresh(false);
+        rootNode.setProperty("long", 42L);
+        rootNode.setProperty("double", 1.5d);
+        rootNode.setProperty("bool", true);
+        rootNode.setProperty("string", "13");
+        rootNode.setProperty("multi", new String[] {"3", "4"});
+        rootNode.getSession().save();
+
+        final JcrPropertyMap map = createPropertyMap(rootNode);
+        assertEquals(42L, map.getLong("long", 0));
+        assertEquals(13L, map.getLong("string", 0));
+        assertEquals(3L, map.getLong("multi", 0));
+        assertEquals(-1L, map.getLong(PROP_NAME_NIL, -1));
+        assertEquals(-1L, map.getLong("bool", -1));
+        assertEquals(42, map.getInt("long", 0));
+        assertEquals(1.5d, map.getDouble("double", 0), 0);
+        assertEquals(13d, map.getDouble("string", 0), 0);
+        assertTrue(map.getBoolean("bool", false));
+        assertTrue(map.getBoolean(PROP_NAME_NIL, true));
+        assertEquals(map.get("long", Long.class).longValue(), map.getLong("long", 0));
+    }
+
     public void testInputStream() throws Exception {
         this.rootNode.getSession().refresh(false);
         InputStream instream = new ByteArrayInputStream("this too shall pass".getBytes());
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.jcr.resource.internal;
+
+import javax.jcr.Node;
+
+import org.apache.sling.api.resource.PrimitiveValueMap;
+import org.apache.sling.api.wrappers.CompactValueMap;
+import org.apache.sling.commons.testing.jcr.RepositoryTestBase;
+import org.apache.sling.jcr.resource.JcrPropertyMap;
+
+/**
+ * Compares reading all properties of nodes with 20 and 50 properties
+ * through <code>get(name, default)</code> with the primitive accessors,
+ * both on the <code>JcrPropertyMap</code> and on a
+ * <code>CompactValueMap</code> copy of it. Each read either creates a new
+ * map, as <code>adaptTo(ValueMap.class)</code> does, or reuses one map.
+ * This complements the <code>ReadValueMapWith20/50PropertiesTest</code>
+ * performance tests, which only use the released <code>ValueMap</code> API.
+ * Not run by default, run it with
+ * <code>mvn test -Dtest=ReadValueMapBenchmark</code>.
+ */
+public class ReadValueMapBenchmark extends RepositoryTestBase {
+
+    private static final int[] PROPERTY_COUNTS = { 20, 50 };
+
+    private static final int WARMUP = 20000;
+
+    private static final int ITERATIONS = 100000;
+
+    private Node rootNode;
+
+    /** Prevents the reads from being optimized away */
+    private long blackhole;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        String rootPath = "/test" + System.currentTimeMillis();
+        rootNode = getSession().getRootNode().addNode(rootPath.substring(1), "nt:unstructured");
+        session.save();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (rootNode != null) {
+            rootNode.remove();
+            session.save();
+        }
+        super.tearDown();
+    }
+
+    public void testReadValueMap() throws Exception {
+        for (final int count : PROPERTY_COUNTS) {
+            final Node node = createNode(count);
+            final JcrPropertyMap shared = new JcrPropertyMap(node);
+            final CompactValueMap compact = new CompactValueMap(shared);
+
+            run(count, "JcrPropertyMap new, get(name, default)", new Reader() {
+                public long read() {
+                    return readBoxed(new JcrPropertyMap(node), count);
+                }
+            });
+            run(count, "JcrPropertyMap new, primitives", new Reader() {
+                public long read() {
+                    return readPrimitives(new JcrPropertyMap(node), count);
+                }
+            });
+            run(count, "CompactValueMap new, get(name, default)", new Reader() {
+                public long read() {
+                    return readBoxed(new CompactValueMap(new JcrPropertyMap(node)), count);
+                }
+            });
+            run(count, "CompactValueMap new, primitives", new Reader() {
+                public long read() {
+                    return readPrimitives(new CompactValueMap(new JcrPropertyMap(node)), count);
+                }
+            });
+            run(count, "JcrPropertyMap reused, get(name, default)", new Reader() {
+                public long read() {
+                    return readBoxed(shared, count);
+                }
+            });
+            run(count, "JcrPropertyMap reused, primitives", new Reader() {
+                public long read() {
+                    return readPrimitives(shared, count);
+                }
+            });
+            run(count, "CompactValueMap reused, get(name, default)", new Reader() {
+                public long read() {
+                    return readBoxed(compact, count);
+                }
+            });
+            run(count, "CompactValueMap reused, primitives", new Reader() {
+                public long read() {
+                    return readPrimitives(compact, count);
+                }
+            });
+        }
+        assertTrue(blackhole != 0);
+    }
+
+    /**
+     * Creates a node with long, double, boolean and string properties, the
+     * same properties as the performance tests use.
+     */
+    private Node createNode(final int count) throws Exception {
+        final Node node = rootNode.addNode("content" + count, "nt:unstructured");
+        for (int i = 0; i < count; i++) {
+            switch (i % 4) {
+                case 0:
+                    node.setProperty("p" + i, (long) i);
+                    break;
+                case 1:
+                    node.setProperty("p" + i, i + 0.5d);
+                    break;
+                case 2:
+                    node.setProperty("p" + i, i % 3 == 0);
+                    break;
+                default:
+                    node.setProperty("p" + i, "value" + i);
+            }
+        }
+        session.save();
+        return node;
+    }
+
+    private static long readBoxed(final PrimitiveValueMap props, final int count) {
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            switch (i % 4) {
+                case 0:
+                    sum += props.get("p" + i, 0L);
+                    break;
+                case 1:
+                    sum += props.get("p" + i, 0d).longValue();
+                    break;
+                case 2:
+                    sum += props.get("p" + i, false) ? 1 : 0;
+                    break;
+                default:
+                    sum += props.get("p" + i, "").length();
+            }
+        }
+        return sum;
+    }
+
+    private static long readPrimitives(final PrimitiveValueMap props, final int count) {
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            switch (i % 4) {
+                case 0:
+                    sum += props.getLong("p" + i, 0L);
+                    break;
+                case 1:
+                    sum += (long) props.getDouble("p" + i, 0d);
+                    break;
+                case 2:
+                    sum += props.getBoolean("p" + i, false) ? 1 : 0;
+                    break;
+                default:
+                    sum += props.get("p" + i, "").length();
+            }
+        }
+        return sum;
+    }
+
+    private void run(final int count, final String name, final Reader reader) {
+        for (int i = 0; i < WARMUP; i++) {
+            blackhole += reader.read();
+        }
+        final long begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            blackhole += reader.read();
+        }
+        final long elapsed = System.nanoTime() - begin;
+        System.out.println(String.format("%2d properties, %-42s %,10.0f reads/s",
+            count, name, ITERATIONS * 1e9 / elapsed));
+    }
+
+    private interface Reader {
+
+        long read();
+    }
+}
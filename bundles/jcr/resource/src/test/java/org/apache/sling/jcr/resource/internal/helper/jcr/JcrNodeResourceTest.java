@@ -21,6 +21,7 @@ package org.apache.sling.jcr.resource.internal.helper.jcr;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
@@ -241,6 +242,31 @@ public class JcrNodeResourceTest extends JcrItemResourceTestBase {
     }
 
 
+    public void testListJcrChildrenRange() throws Exception {
+        String name = "folder";
+        Node folder = rootNode.addNode(name, JcrConstants.NT_UNSTRUCTURED);
+        for (int i = 0; i < 5; i++) {
+            folder.addNode("child" + i, JcrConstants.NT_UNSTRUCTURED);
+        }
+        getSession().save();
+
+        folder = rootNode.getNode(name);
+        JcrNodeResource jnr = new JcrNodeResource(null, folder, null);
+
+        Iterator<Resource> children = jnr.listJcrChildren(1, 2);
+        assertEquals("child1", children.next().getName());
+        assertEquals("child2", children.next().getName());
+        assertFalse(children.hasNext());
+
+        children = jnr.listJcrChildren(3, -1);
+        assertEquals("child3", children.next().getName());
+        assertEquals("child4", children.next().getName());
+        assertFalse(children.hasNext());
+
+        assertFalse(jnr.listJcrChildren(5, 2).hasNext());
+        assertFalse(jnr.listJcrChildren(0, 0).hasNext());
+    }
+
     private void setupResource(Node res) throws RepositoryException {
         res.setProperty(JcrConstants.JCR_LASTMODIFIED, TEST_MODIFIED);
         res.setProperty(JcrConstants.JCR_MIMETYPE, TEST_TYPE);
@@ -18,10 +18,13 @@
  */
 package org.apache.sling.resourceresolver.impl;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
 import java.util.regex.Matcher;
@@ -591,6 +594,19 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
         return result;
     }
 
+    /**
+     * @see org.apache.sling.api.resource.ResourceResolver#getResources(java.util.Collection)
+     */
+    public List<Resource> getResources(final Collection<String> paths) {
+        checkClosed();
+
+        final List<Resource> result = new ArrayList<Resource>(paths.size());
+        for (final String path : paths) {
+            result.add(getResource(path));
+        }
+        return result;
+    }
+
     /**
      * @see org.apache.sling.api.resource.ResourceResolver#getResource(org.apache.sling.api.resource.Resource,
      *      java.lang.String)
@@ -618,6 +634,22 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
                 new ResourceIterator(this.context, parent, this.factory.getRootProviderEntry()));
     }
 
+    /**
+     * @see org.apache.sling.api.resource.ResourceResolver#listChildren(org.apache.sling.api.resource.Resource, long, long)
+     */
+    public Iterator<Resource> listChildren(final Resource parent, final long offset, final long limit) {
+        checkClosed();
+
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative: " + offset);
+        }
+        if (parent instanceof ResourceWrapper) {
+            return listChildren(((ResourceWrapper) parent).getResource(), offset, limit);
+        }
+        return new ResourceIteratorDecorator(this.factory.getResourceDecoratorTracker(),
+                new ResourceIterator(this.context, parent, this.factory.getRootProviderEntry(), offset, limit));
+    }
+
     /**
      * @see org.apache.sling.api.resource.Resource#getChildren()
      */
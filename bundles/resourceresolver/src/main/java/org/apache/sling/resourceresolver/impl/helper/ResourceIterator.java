@@ -19,6 +19,7 @@
 package org.apache.sling.resourceresolver.impl.helper;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -27,6 +28,7 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
+import org.apache.sling.api.resource.PagedResourceProvider;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceProvider;
 import org.apache.sling.api.resource.ResourceResolver;
@@ -119,9 +121,30 @@ public class ResourceIterator implements Iterator<Resource> {
 
     private final ResourceResolverContext resourceResolverContext;
 
+    /**
+     * The number of resources still to be returned or -1 if there is
+     * no limit.
+     */
+    private long remaining;
+
     public ResourceIterator(final ResourceResolverContext ctx,
             final Resource parentResource,
             final RootResourceProviderEntry rootProviderEntry) {
+        this(ctx, parentResource, rootProviderEntry, 0, -1);
+    }
+
+    /**
+     * Creates an iterator skipping the first <code>offset</code> children
+     * and returning at most <code>limit</code> children. If a single
+     * {@link PagedResourceProvider} provides all children, the range is
+     * selected by the provider. Otherwise the children of all providers are
+     * merged and the range is selected here.
+     */
+    public ResourceIterator(final ResourceResolverContext ctx,
+            final Resource parentResource,
+            final RootResourceProviderEntry rootProviderEntry,
+            final long offset,
+            final long limit) {
         this.resourceResolverContext = ctx;
         this.parentResource = parentResource;
         this.rootProviderEntry = rootProviderEntry;
@@ -144,11 +167,33 @@ public class ResourceIterator implements Iterator<Resource> {
                     .toString(providersSet.toArray(new ProviderHandler[providersSet.size()])));
         }
         this.iteratorPath = path;
-        providers = providersSet.iterator();
-        baseEntryValues = (atPath != null) ? atPath.values().iterator() : null;
         delayed = new HashMap<String, Resource>();
         visited = new HashSet<String>();
-        nextResource = seek();
+
+        final PagedResourceProvider pagedProvider;
+        if ((offset > 0 || limit >= 0) && providersSet.size() == 1
+                && (atPath == null || atPath.values().isEmpty())) {
+            pagedProvider = providersSet.iterator().next().getPagedResourceProvider(ctx);
+        } else {
+            pagedProvider = null;
+        }
+
+        if (pagedProvider != null) {
+            log.debug(" Listing children of {} from paged provider {}", path, pagedProvider);
+            providers = Collections.<ProviderHandler> emptyList().iterator();
+            baseEntryValues = null;
+            resources = pagedProvider.listChildren(parentResource, offset, limit);
+            remaining = -1;
+            nextResource = seek();
+        } else {
+            providers = providersSet.iterator();
+            baseEntryValues = (atPath != null) ? atPath.values().iterator() : null;
+            remaining = limit;
+            nextResource = (remaining == 0) ? null : seek();
+            for (long i = 0; i < offset && nextResource != null; i++) {
+                nextResource = seek();
+            }
+        }
     }
 
     public boolean hasNext() {
@@ -161,7 +206,10 @@ public class ResourceIterator implements Iterator<Resource> {
         }
 
         final Resource result = nextResource;
-        nextResource = seek();
+        if (remaining > 0) {
+            remaining--;
+        }
+        nextResource = (remaining == 0) ? null : seek();
         log.debug("  Child resource [{}] [{}] ", iteratorPath, result.getPath());
         return result;
     }
@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.sling.api.resource.PagedResourceProvider;
 import org.apache.sling.api.resource.QueriableResourceProvider;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceProvider;
@@ -242,6 +243,23 @@ public abstract class ProviderHandler implements Comparable<ProviderHandler> {
      */
     public abstract ResourceProvider getResourceProvider(final ResourceResolverContext ctx);
 
+    /**
+     * Return the resource provider if it supports listing a range of
+     * children. As resource access security filters the children after
+     * they have been listed, <code>null</code> is returned if resource
+     * access security is applied to this provider.
+     * @see PagedResourceProvider#listChildren(Resource, long, long)
+     */
+    public PagedResourceProvider getPagedResourceProvider(final ResourceResolverContext ctx) {
+        if ( !useResourceAccessSecurity ) {
+            final ResourceProvider rp = this.getResourceProvider(ctx);
+            if ( rp instanceof PagedResourceProvider ) {
+                return (PagedResourceProvider) rp;
+            }
+        }
+        return null;
+    }
+
     /**
      * Return a name of the resource provider/factory.
      */
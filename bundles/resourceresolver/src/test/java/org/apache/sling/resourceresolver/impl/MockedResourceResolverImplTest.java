@@ -18,6 +18,7 @@
 package org.apache.sling.resourceresolver.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.Hashtable;
@@ -536,6 +537,38 @@ public class MockedResourceResolverImplTest {
         Assert.assertEquals(5,i);
     }
 
+    /**
+     * Test listing a range of children via the resource resolver listChildren call.
+     * @throws LoginException
+     */
+    @Test
+    public void testResourceResolverListChildrenRange() throws LoginException {
+        ResourceResolver resourceResolver = resourceResolverFactory.getResourceResolver(null);
+        buildResource("/single/test/withchildren", buildChildResources("/single/test/withchildren"), resourceResolver, resourceProvider);
+
+        Resource resource = resourceResolver.getResource("/single/test/withchildren");
+        Assert.assertNotNull(resource);
+
+        Iterator<Resource> resourceIterator = resourceResolver.listChildren(resource, 1, 2);
+        Assert.assertEquals("m1", resourceIterator.next().getName());
+        Assert.assertEquals("m2", resourceIterator.next().getName());
+        Assert.assertFalse(resourceIterator.hasNext());
+    }
+
+    /**
+     * Test getting several resources at once.
+     * @throws LoginException
+     */
+    @Test
+    public void testGetResources() throws LoginException {
+        ResourceResolver resourceResolver = resourceResolverFactory.getResourceResolver(null);
+        Resource singleResource = buildResource("/single/test", EMPTY_RESOURCE_LIST, resourceResolver, resourceProvider);
+        List<Resource> resources = resourceResolver.getResources(Arrays.asList("/single/test", "/single/missing"));
+        Assert.assertEquals(2, resources.size());
+        Assert.assertEquals(singleResource, resources.get(0));
+        Assert.assertNull(resources.get(1));
+    }
+
     /**
      * Tests listing children via the resource resolver getChildren call.
      * @throws LoginException
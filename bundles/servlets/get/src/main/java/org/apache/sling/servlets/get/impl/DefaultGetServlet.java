@@ -19,6 +19,7 @@ package org.apache.sling.servlets.get.impl;
 import java.io.IOException;
 import java.util.Dictionary;
 import java.util.HashMap;
+import java.util.Hashtable;
 import java.util.Map;
 import java.util.StringTokenizer;
 
@@ -29,6 +30,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Properties;
 import org.apache.felix.scr.annotations.Property;
+import org.apache.felix.scr.annotations.PropertyUnbounded;
 import org.apache.felix.scr.annotations.Service;
 import org.apache.sling.api.SlingConstants;
 import org.apache.sling.api.SlingHttpServletRequest;
@@ -37,12 +39,16 @@ import org.apache.sling.api.resource.ResourceNotFoundException;
 import org.apache.sling.api.resource.ResourceUtil;
 import org.apache.sling.api.servlets.SlingSafeMethodsServlet;
 import org.apache.sling.commons.osgi.OsgiUtil;
+import org.apache.sling.servlets.get.impl.helpers.ConditionalGetSupport;
 import org.apache.sling.servlets.get.impl.helpers.HtmlRendererServlet;
 import org.apache.sling.servlets.get.impl.helpers.JsonRendererServlet;
 import org.apache.sling.servlets.get.impl.helpers.PlainTextRendererServlet;
 import org.apache.sling.servlets.get.impl.helpers.StreamRendererServlet;
 import org.apache.sling.servlets.get.impl.helpers.XMLRendererServlet;
+import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.component.ComponentContext;
+import org.osgi.service.event.EventConstants;
+import org.osgi.service.event.EventHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -108,6 +114,14 @@ public class DefaultGetServlet extends SlingSafeMethodsServlet {
     public static final String JSON_RENDERER_MAXIMUM_RESULTS_PROPERTY = "json.maximumresults";
     
     private int jsonMaximumResults;
+
+    private static final boolean DEFAULT_VALIDATORS_PROPERTY = true;
+
+    @Property(boolValue=DEFAULT_VALIDATORS_PROPERTY)
+    private static final String VALIDATORS_PROPERTY = "enable.validators";
+
+    @Property(unbounded=PropertyUnbounded.ARRAY)
+    private static final String CACHE_CONTROL_PROPERTY = "cache.control";
     
     /** Additional aliases. */
     private String[] aliases;
@@ -126,6 +140,11 @@ public class DefaultGetServlet extends SlingSafeMethodsServlet {
 
     private boolean enableXml;
 
+    /** The validator support, <code>null</code> if disabled */
+    private ConditionalGetSupport validators;
+
+    private ServiceRegistration validatorsRegistration;
+
     protected void activate(ComponentContext ctx) {
         Dictionary<?, ?> props = ctx.getProperties();
         this.aliases = OsgiUtil.toStringArray(props.get(ALIAS_PROPERTY));
@@ -144,9 +163,35 @@ public class DefaultGetServlet extends SlingSafeMethodsServlet {
             DEFAULT_RENDERER_PROPERTY);
         this.jsonMaximumResults = OsgiUtil.toInteger(props.get(JSON_RENDERER_MAXIMUM_RESULTS_PROPERTY), 
             DEFAULT_JSON_RENDERER_MAXIMUM_RESULTS);
+
+        if (OsgiUtil.toBoolean(props.get(VALIDATORS_PROPERTY), DEFAULT_VALIDATORS_PROPERTY)) {
+            final Map<String, String> cacheControl = new HashMap<String, String>();
+            for (final String entry : OsgiUtil.toStringArray(props.get(CACHE_CONTROL_PROPERTY), new String[0])) {
+                final int pos = entry.indexOf('=');
+                if (pos > 0) {
+                    cacheControl.put(entry.substring(0, pos).trim(), entry.substring(pos + 1).trim());
+                } else if (entry.length() > 0) {
+                    logger.warn("Ignoring cache control policy {}, expected <resource type>=<policy>", entry);
+                }
+            }
+            this.validators = new ConditionalGetSupport(cacheControl);
+
+            // count resource changes for the validators of rendered responses
+            final Dictionary<String, Object> handlerProps = new Hashtable<String, Object>();
+            handlerProps.put(EventConstants.EVENT_TOPIC, ConditionalGetSupport.TOPICS);
+            handlerProps.put("service.description", "Default GET Servlet Resource Change Counter");
+            handlerProps.put("service.vendor", "The Apache Software Foundation");
+            this.validatorsRegistration = ctx.getBundleContext().registerService(
+                EventHandler.class.getName(), this.validators, handlerProps);
+        }
     }
 
     protected void deactivate(ComponentContext ctx) {
+        if (this.validatorsRegistration != null) {
+            this.validatorsRegistration.unregister();
+            this.validatorsRegistration = null;
+        }
+        this.validators = null;
         this.aliases = null;
         this.index = false;
         this.indexFiles = null;
@@ -158,26 +203,26 @@ public class DefaultGetServlet extends SlingSafeMethodsServlet {
 
         // Register renderer servlets
         setupServlet(rendererMap, StreamRendererServlet.EXT_RES,
-            new StreamRendererServlet(index, indexFiles));
+            new StreamRendererServlet(index, indexFiles, validators));
 
         if (enableHtml) {
             setupServlet(rendererMap, HtmlRendererServlet.EXT_HTML,
-                new HtmlRendererServlet());
+                new HtmlRendererServlet(validators));
         }
 
         if (enableTxt) {
             setupServlet(rendererMap, PlainTextRendererServlet.EXT_TXT,
-                new PlainTextRendererServlet());
+                new PlainTextRendererServlet(validators));
         }
 
         if (enableJson) {
             setupServlet(rendererMap, JsonRendererServlet.EXT_JSON,
-                new JsonRendererServlet(jsonMaximumResults));
+                new JsonRendererServlet(jsonMaximumResults, validators));
         }
 
         if (enableXml) {
             setupServlet(rendererMap, XMLRendererServlet.EXT_XML,
-                new XMLRendererServlet());
+                new XMLRendererServlet(validators));
         }
 
         // use the servlet for rendering StreamRendererServlet.EXT_RES as the
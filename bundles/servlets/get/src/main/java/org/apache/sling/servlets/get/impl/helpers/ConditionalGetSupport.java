@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.servlets.get.impl.helpers;
+
+import static javax.servlet.http.HttpServletResponse.SC_NOT_MODIFIED;
+import static org.apache.sling.api.servlets.HttpConstants.HEADER_IF_MODIFIED_SINCE;
+import static org.apache.sling.api.servlets.HttpConstants.HEADER_LAST_MODIFIED;
+
+import java.util.Map;
+import java.util.StringTokenizer;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.sling.api.SlingConstants;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.request.RequestPathInfo;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.osgi.service.event.Event;
+import org.osgi.service.event.EventHandler;
+
+/**
+ * The <code>ConditionalGetSupport</code> provides the validators for the
+ * responses of the renderer servlets and answers conditional requests with a
+ * status 304/NOT MODIFIED before anything is rendered.
+ * <p>
+ * The strong <code>ETag</code> is calculated from the path, selectors and
+ * extension of the request and from the modification time and content length
+ * of the resource. Only the binary data streamed for a resource is covered by
+ * these, rendered responses contain properties and descendants whose changes
+ * need not update the modification time of the resource. The
+ * <code>ETag</code> of rendered responses and of resources without a
+ * modification time instead includes a counter of all resource changes
+ * reported by resource events, prefixed with an identifier unique to this
+ * instance. So a counter value issued before a restart or reconfiguration
+ * never validates a response again. Streamed responses validated by the
+ * metadata only are also validated with the <code>If-Modified-Since</code>
+ * header.
+ * <p>
+ * The <code>Cache-Control</code> header is set from the policy configured for
+ * the resource type, its super type or the default type <code>*</code>.
+ * <p>
+ * Included requests are never validated.
+ */
+public class ConditionalGetSupport implements EventHandler {
+
+    /** The events counted as resource changes */
+    public static final String[] TOPICS = { SlingConstants.TOPIC_RESOURCE_ADDED,
+        SlingConstants.TOPIC_RESOURCE_CHANGED, SlingConstants.TOPIC_RESOURCE_REMOVED,
+        SlingConstants.TOPIC_RESOURCE_PROVIDER_ADDED, SlingConstants.TOPIC_RESOURCE_PROVIDER_REMOVED };
+
+    /** The resource type of the default <code>Cache-Control</code> policy */
+    public static final String DEFAULT_RESOURCE_TYPE = "*";
+
+    public static final String HEADER_ETAG = "ETag";
+
+    public static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+    public static final String HEADER_CACHE_CONTROL = "Cache-Control";
+
+    private final AtomicLong changeCounter = new AtomicLong();
+
+    /** Distinguishes the change counter values of different instances */
+    private final String epoch = UUID.randomUUID().toString();
+
+    private final Map<String, String> cacheControl;
+
+    /**
+     * @param cacheControl The <code>Cache-Control</code> header values by
+     *            resource type
+     */
+    public ConditionalGetSupport(final Map<String, String> cacheControl) {
+        this.cacheControl = cacheControl;
+    }
+
+    /**
+     * Counts the resource change.
+     */
+    public void handleEvent(final Event event) {
+        changeCounter.incrementAndGet();
+    }
+
+    /**
+     * Sets the validators and the <code>Cache-Control</code> header of the
+     * response and checks the conditional request headers.
+     *
+     * @param request The request
+     * @param response The response
+     * @param binary <code>true</code> if the response is the binary data of
+     *            the resource, which is covered by its modification time and
+     *            content length.
+     * @return <code>true</code> if the response has been finished with a
+     *         status 304/NOT MODIFIED, the caller must not render anything.
+     */
+    public boolean isNotModified(final SlingHttpServletRequest request,
+            final HttpServletResponse response, final boolean binary) {
+        if (request.getAttribute(SlingConstants.ATTR_REQUEST_SERVLET) != null
+            || response.isCommitted()) {
+            return false;
+        }
+
+        final Resource resource = request.getResource();
+        final String policy = getCacheControl(resource);
+        if (policy != null) {
+            response.setHeader(HEADER_CACHE_CONTROL, policy);
+        }
+
+        final String etag = getETag(request, binary);
+        response.setHeader(HEADER_ETAG, etag);
+
+        // If-None-Match takes precedence over If-Modified-Since
+        final String ifNoneMatch = request.getHeader(HEADER_IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            if (matches(ifNoneMatch, etag, true)) {
+                response.setStatus(SC_NOT_MODIFIED);
+                return true;
+            }
+            return false;
+        }
+
+        // the modification time only covers responses validated by metadata
+        final long modifTime = resource.getResourceMetadata().getModificationTime();
+        if (binary && modifTime > 0) {
+            long ims;
+            try {
+                ims = request.getDateHeader(HEADER_IF_MODIFIED_SINCE);
+            } catch (final IllegalArgumentException iae) {
+                // malformed date, the request is not conditional
+                return false;
+            }
+            if (ims != -1 && modifTime / 1000 <= ims / 1000) {
+                response.setDateHeader(HEADER_LAST_MODIFIED, modifTime);
+                response.setStatus(SC_NOT_MODIFIED);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the strong <code>ETag</code>, including the quotes, of the
+     * response to the request.
+     *
+     * @param request The request
+     * @param binary Whether the response is the binary data of the resource,
+     *            see {@link #isNotModified(SlingHttpServletRequest, HttpServletResponse, boolean)}
+     */
+    public String getETag(final SlingHttpServletRequest request, final boolean binary) {
+        final ResourceMetadata meta = request.getResource().getResourceMetadata();
+        final RequestPathInfo pathInfo = request.getRequestPathInfo();
+        final long modifTime = meta.getModificationTime();
+
+        final StringBuilder etag = new StringBuilder("\"");
+        etag.append(Long.toHexString(Math.max(0, modifTime)));
+        etag.append('-').append(Long.toHexString(Math.max(0, meta.getContentLength())));
+        if (!binary || modifTime <= 0) {
+            etag.append('-').append(epoch).append('.').append(Long.toHexString(changeCounter.get()));
+        }
+        final int hash = (pathInfo.getResourcePath() + '.' + pathInfo.getSelectorString() + '.'
+            + pathInfo.getExtension()).hashCode();
+        etag.append('-').append(Integer.toHexString(hash));
+        return etag.append('"').toString();
+    }
+
+    /**
+     * Returns <code>true</code> if the <code>If-None-Match</code> or
+     * <code>If-Range</code> header value lists the given entity tag.
+     *
+     * @param headerValue The comma separated list of entity tags
+     * @param etag The strong entity tag of the response
+     * @param weak <code>true</code> to also accept weak entity tags and
+     *            <code>*</code> as required for <code>If-None-Match</code>
+     */
+    public static boolean matches(final String headerValue, final String etag, final boolean weak) {
+        final StringTokenizer tokens = new StringTokenizer(headerValue, ",");
+        while (tokens.hasMoreTokens()) {
+            String token = tokens.nextToken().trim();
+            if (weak) {
+                if ("*".equals(token)) {
+                    return true;
+                }
+                if (token.startsWith("W/")) {
+                    token = token.substring(2);
+                }
+            }
+            if (token.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String getCacheControl(final Resource resource) {
+        if (cacheControl.isEmpty()) {
+            return null;
+        }
+        String policy = cacheControl.get(resource.getResourceType());
+        if (policy == null && resource.getResourceSuperType() != null) {
+            policy = cacheControl.get(resource.getResourceSuperType());
+        }
+        if (policy == null) {
+            policy = cacheControl.get(DEFAULT_RESOURCE_TYPE);
+        }
+        return policy;
+    }
+}
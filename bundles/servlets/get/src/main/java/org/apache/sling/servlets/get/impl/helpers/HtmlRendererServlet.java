@@ -43,6 +43,20 @@ public class HtmlRendererServlet extends SlingSafeMethodsServlet {
 
     public static final String EXT_HTML = "html";
 
+    private final ConditionalGetSupport validators;
+
+    public HtmlRendererServlet() {
+        this(null);
+    }
+
+    /**
+     * @param validators The validator support or <code>null</code> to not
+     *            set validators and not answer conditional requests.
+     */
+    public HtmlRendererServlet(final ConditionalGetSupport validators) {
+        this.validators = validators;
+    }
+
     @Override
     protected void doGet(SlingHttpServletRequest req,
             SlingHttpServletResponse resp) throws ServletException, IOException {
@@ -52,6 +66,11 @@ public class HtmlRendererServlet extends SlingSafeMethodsServlet {
             throw new ResourceNotFoundException("No data to render.");
         }
 
+        // answer conditional requests before rendering
+        if (validators != null && validators.isNotModified(req, resp, false)) {
+            return;
+        }
+
         resp.setContentType(req.getResponseContentType());
         resp.setCharacterEncoding("UTF-8");
 
@@ -52,8 +52,20 @@ public class JsonRendererServlet extends SlingSafeMethodsServlet {
 
     private long maximumResults;
 
+    private final ConditionalGetSupport validators;
+
     public JsonRendererServlet(long maximumResults) {
+        this(maximumResults, null);
+    }
+
+    /**
+     * @param maximumResults The maximum number of resources to render
+     * @param validators The validator support or <code>null</code> to not
+     *            set validators and not answer conditional requests.
+     */
+    public JsonRendererServlet(long maximumResults, final ConditionalGetSupport validators) {
         this.maximumResults = maximumResults;
+        this.validators = validators;
     }
 
     @Override
@@ -91,6 +103,11 @@ public class JsonRendererServlet extends SlingSafeMethodsServlet {
             }
         }
 
+        // answer conditional requests before rendering
+        if (validators != null && validators.isNotModified(req, resp, false)) {
+            return;
+        }
+
         resp.setContentType(req.getResponseContentType());
         resp.setCharacterEncoding("UTF-8");
 
@@ -42,6 +42,20 @@ public class PlainTextRendererServlet extends SlingSafeMethodsServlet {
 
     public static final String EXT_TXT = "txt";
 
+    private final ConditionalGetSupport validators;
+
+    public PlainTextRendererServlet() {
+        this(null);
+    }
+
+    /**
+     * @param validators The validator support or <code>null</code> to not
+     *            set validators and not answer conditional requests.
+     */
+    public PlainTextRendererServlet(final ConditionalGetSupport validators) {
+        this.validators = validators;
+    }
+
     @Override
     protected void doGet(SlingHttpServletRequest req,
             SlingHttpServletResponse resp) throws ServletException, IOException {
@@ -50,6 +64,11 @@ public class PlainTextRendererServlet extends SlingSafeMethodsServlet {
             throw new ResourceNotFoundException("No data to render.");
         }
 
+        // answer conditional requests before rendering
+        if (validators != null && validators.isNotModified(req, resp, false)) {
+            return;
+        }
+
         /*
          * TODO if(srd != null) { renderSyntheticResource(req, resp, srd);
          * return; }
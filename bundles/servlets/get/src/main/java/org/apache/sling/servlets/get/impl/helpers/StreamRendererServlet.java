@@ -82,9 +82,23 @@ public class StreamRendererServlet extends SlingSafeMethodsServlet {
 
     private String[] indexFiles;
 
+    private final ConditionalGetSupport validators;
+
     public StreamRendererServlet(boolean index, String[] indexFiles) {
+        this(index, indexFiles, null);
+    }
+
+    /**
+     * @param index Whether to render an index of directory requests
+     * @param indexFiles The index resources to include for directory requests
+     * @param validators The validator support or <code>null</code> to only
+     *            validate the modification time of the resource.
+     */
+    public StreamRendererServlet(boolean index, String[] indexFiles,
+            final ConditionalGetSupport validators) {
         this.index = index;
         this.indexFiles = indexFiles;
+        this.validators = validators;
     }
 
     @Override
@@ -121,18 +135,26 @@ public class StreamRendererServlet extends SlingSafeMethodsServlet {
             return;
         }
 
-        // check the last modification time and If-Modified-Since header
-        if (!included) {
+        // fall back to plain text rendering if the resource has no stream
+        InputStream stream = resource.adaptTo(InputStream.class);
+
+        // check the validators, the last modification time and the
+        // If-Modified-Since header
+        if (validators != null) {
+            if (validators.isNotModified(request, response, stream != null)) {
+                closeSilently(stream);
+                return;
+            }
+        } else if (!included) {
             ResourceMetadata meta = resource.getResourceMetadata();
             long modifTime = meta.getModificationTime();
             if (unmodified(request, modifTime)) {
+                closeSilently(stream);
                 response.setStatus(SC_NOT_MODIFIED);
                 return;
             }
         }
 
-        // fall back to plain text rendering if the resource has no stream
-        InputStream stream = resource.adaptTo(InputStream.class);
         if (stream != null) {
 
             streamResource(resource, stream, included, request, response);
@@ -182,8 +204,13 @@ public class StreamRendererServlet extends SlingSafeMethodsServlet {
     private boolean unmodified(HttpServletRequest request, long modifTime) {
         if (modifTime > 0) {
             long modTime = modifTime / 1000; // seconds
-            long ims = request.getDateHeader(HEADER_IF_MODIFIED_SINCE) / 1000;
-            return modTime <= ims;
+            try {
+                long ims = request.getDateHeader(HEADER_IF_MODIFIED_SINCE) / 1000;
+                return modTime <= ims;
+            } catch (IllegalArgumentException iae) {
+                // malformed date, the request is not conditional
+                return false;
+            }
         }
 
         // we have no modification time value, assume modified
@@ -207,7 +234,8 @@ public class StreamRendererServlet extends SlingSafeMethodsServlet {
 
                 // parse optional ranges
                 ranges = parseRange(request, response,
-                    resource.getResourceMetadata());
+                    resource.getResourceMetadata(),
+                    (validators != null) ? validators.getETag(request, true) : null);
                 if (ranges == null) {
                     // there was something wrong, the parseRange has sent a
                     // response and we are done
@@ -557,14 +585,17 @@ public class StreamRendererServlet extends SlingSafeMethodsServlet {
      *
      * @param request The servlet request we are processing
      * @param response The servlet response we are creating
+     * @param etag The entity tag of the resource or <code>null</code> if not
+     *            known, in which case an entity tag in the If-Range header
+     *            never matches
      * @return ArrayList of ranges parsed from the Range header or {@link #FULL}
      *         if the full resource should be returned or <code>null</code> if
      *         an error occurred parsing the header and the request has been
      *         finished sending an error status.
      */
     private ArrayList<Range> parseRange(HttpServletRequest request,
-            HttpServletResponse response, ResourceMetadata metadata)
-            throws IOException {
+            HttpServletResponse response, ResourceMetadata metadata,
+            String etag) throws IOException {
 
         // Checking If-Range
         String headerValue = request.getHeader("If-Range");
@@ -581,8 +612,10 @@ public class StreamRendererServlet extends SlingSafeMethodsServlet {
 
                 // If the ETag the client gave does not match the entity
                 // etag, then the entire entity is returned.
-                // Sling: no etag support yet, return full range
-                return FULL;
+                if (etag == null
+                    || !ConditionalGetSupport.matches(headerValue, etag, false)) {
+                    return FULL;
+                }
 
             } else if (metadata.getModificationTime() > (headerValueTime + 1000)) {
 
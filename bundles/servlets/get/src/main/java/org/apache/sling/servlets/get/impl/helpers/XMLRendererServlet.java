@@ -46,6 +46,20 @@ public class XMLRendererServlet extends SlingSafeMethodsServlet {
     private static final String SYSVIEW = "sysview";
     private static final String DOCVIEW = "docview";
 
+    private final ConditionalGetSupport validators;
+
+    public XMLRendererServlet() {
+        this(null);
+    }
+
+    /**
+     * @param validators The validator support or <code>null</code> to not
+     *            set validators and not answer conditional requests.
+     */
+    public XMLRendererServlet(final ConditionalGetSupport validators) {
+        this.validators = validators;
+    }
+
     @Override
     protected void doGet(SlingHttpServletRequest req,
                          SlingHttpServletResponse resp)
@@ -56,6 +70,12 @@ public class XMLRendererServlet extends SlingSafeMethodsServlet {
             throw new ResourceNotFoundException("No data to render.");
         }
 
+        // answer conditional requests before rendering, the views contain
+        // the whole subtree
+        if (validators != null && validators.isNotModified(req, resp, false)) {
+            return;
+        }
+
         resp.setContentType(req.getResponseContentType());
         resp.setCharacterEncoding("UTF-8");
 
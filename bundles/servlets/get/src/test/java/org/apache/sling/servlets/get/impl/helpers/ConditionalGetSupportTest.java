@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.servlets.get.impl.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.sling.api.SlingConstants;
+import org.apache.sling.commons.testing.sling.MockResource;
+import org.apache.sling.commons.testing.sling.MockSlingHttpServletRequest;
+import org.apache.sling.commons.testing.sling.MockSlingHttpServletResponse;
+import org.junit.Test;
+import org.osgi.service.event.Event;
+
+public class ConditionalGetSupportTest {
+
+    @Test
+    public void testNotModifiedIfETagMatches() {
+        final ConditionalGetSupport validators = new ConditionalGetSupport(new HashMap<String, String>());
+
+        final HeaderResponse first = new HeaderResponse();
+        assertFalse(validators.isNotModified(new HeaderRequest(null), first, false));
+        final String etag = first.headers.get(ConditionalGetSupport.HEADER_ETAG);
+        assertNotNull(etag);
+
+        final HeaderResponse second = new HeaderResponse();
+        assertTrue(validators.isNotModified(new HeaderRequest("W/\"other\", " + etag), second, false));
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, second.status);
+        assertEquals(etag, second.headers.get(ConditionalGetSupport.HEADER_ETAG));
+    }
+
+    @Test
+    public void testModifiedAfterResourceChange() {
+        final ConditionalGetSupport validators = new ConditionalGetSupport(new HashMap<String, String>());
+        final String etag = validators.getETag(new HeaderRequest(null), false);
+
+        validators.handleEvent(new Event(SlingConstants.TOPIC_RESOURCE_CHANGED, new Hashtable<String, Object>()));
+
+        final HeaderResponse response = new HeaderResponse();
+        assertFalse(validators.isNotModified(new HeaderRequest(etag), response, false));
+        assertFalse(etag.equals(response.headers.get(ConditionalGetSupport.HEADER_ETAG)));
+    }
+
+    @Test
+    public void testBinaryResponseValidatedByModificationTime() {
+        final ConditionalGetSupport validators = new ConditionalGetSupport(new HashMap<String, String>());
+        final HeaderRequest request = new HeaderRequest(null);
+        final MockResource resource = new MockResource(null, "/content/page", "sample/page");
+        resource.getResourceMetadata().setModificationTime(1000000L);
+        request.setResource(resource);
+        final String etag = validators.getETag(request, true);
+
+        validators.handleEvent(new Event(SlingConstants.TOPIC_RESOURCE_CHANGED, new Hashtable<String, Object>()));
+        assertEquals(etag, validators.getETag(request, true));
+        assertFalse(etag.equals(validators.getETag(request, false)));
+
+        // stable across instances, e.g. after a restart or on other cluster nodes
+        assertEquals(etag, new ConditionalGetSupport(new HashMap<String, String>()).getETag(request, true));
+    }
+
+    @Test
+    public void testRenderedETagNotReusedByNewInstance() {
+        final ConditionalGetSupport validators = new ConditionalGetSupport(new HashMap<String, String>());
+        final String etag = validators.getETag(new HeaderRequest(null), false);
+
+        final ConditionalGetSupport restarted = new ConditionalGetSupport(new HashMap<String, String>());
+        final HeaderResponse response = new HeaderResponse();
+        assertFalse(restarted.isNotModified(new HeaderRequest(etag), response, false));
+        assertFalse(etag.equals(response.headers.get(ConditionalGetSupport.HEADER_ETAG)));
+    }
+
+    @Test
+    public void testRenderedResponseNotValidatedByModificationTime() {
+        final ConditionalGetSupport validators = new ConditionalGetSupport(new HashMap<String, String>());
+        final HeaderRequest request = new HeaderRequest(null, System.currentTimeMillis());
+        final MockResource resource = new MockResource(null, "/content/page", "sample/page");
+        resource.getResourceMetadata().setModificationTime(1000000L);
+        request.setResource(resource);
+
+        assertFalse(validators.isNotModified(request, new HeaderResponse(), false));
+        assertTrue(validators.isNotModified(request, new HeaderResponse(), true));
+    }
+
+    @Test
+    public void testMalformedIfModifiedSince() {
+        final ConditionalGetSupport validators = new ConditionalGetSupport(new HashMap<String, String>());
+        final HeaderRequest request = new HeaderRequest(null, -2);
+        final MockResource resource = new MockResource(null, "/content/page", "sample/page");
+        resource.getResourceMetadata().setModificationTime(1000000L);
+        request.setResource(resource);
+
+        final HeaderResponse response = new HeaderResponse();
+        assertFalse(validators.isNotModified(request, response, true));
+        assertEquals(HttpServletResponse.SC_OK, response.status);
+    }
+
+    @Test
+    public void testIncludedRequestNotValidated() {
+        final ConditionalGetSupport validators = new ConditionalGetSupport(new HashMap<String, String>());
+        final String etag = validators.getETag(new HeaderRequest(null), false);
+
+        final HeaderRequest request = new HeaderRequest(etag);
+        request.setAttribute(SlingConstants.ATTR_REQUEST_SERVLET, "servlet");
+        final HeaderResponse response = new HeaderResponse();
+        assertFalse(validators.isNotModified(request, response, false));
+        assertTrue(response.headers.isEmpty());
+    }
+
+    @Test
+    public void testCacheControlByResourceType() {
+        final Map<String, String> cacheControl = new HashMap<String, String>();
+        cacheControl.put("sample/super", "max-age=60");
+        cacheControl.put(ConditionalGetSupport.DEFAULT_RESOURCE_TYPE, "no-cache");
+        final ConditionalGetSupport validators = new ConditionalGetSupport(cacheControl);
+
+        final HeaderRequest request = new HeaderRequest(null);
+        request.setResource(new MockResource(null, "/content/page", "sample/page", "sample/super"));
+        HeaderResponse response = new HeaderResponse();
+        validators.isNotModified(request, response, false);
+        assertEquals("max-age=60", response.headers.get(ConditionalGetSupport.HEADER_CACHE_CONTROL));
+
+        request.setResource(new MockResource(null, "/content/other", "sample/other"));
+        response = new HeaderResponse();
+        validators.isNotModified(request, response, false);
+        assertEquals("no-cache", response.headers.get(ConditionalGetSupport.HEADER_CACHE_CONTROL));
+    }
+
+    @Test
+    public void testIfRangeMatchesStrongETagsOnly() {
+        assertTrue(ConditionalGetSupport.matches("\"a\"", "\"a\"", false));
+        assertFalse(ConditionalGetSupport.matches("W/\"a\"", "\"a\"", false));
+        assertFalse(ConditionalGetSupport.matches("*", "\"a\"", false));
+        assertTrue(ConditionalGetSupport.matches("*", "\"a\"", true));
+    }
+
+    private static class HeaderRequest extends MockSlingHttpServletRequest {
+
+        private final String ifNoneMatch;
+
+        /** The If-Modified-Since date, -2 for a malformed date */
+        private final long ifModifiedSince;
+
+        private final Map<String, Object> attributes = new HashMap<String, Object>();
+
+        HeaderRequest(final String ifNoneMatch) {
+            this(ifNoneMatch, -1);
+        }
+
+        HeaderRequest(final String ifNoneMatch, final long ifModifiedSince) {
+            super("/content/page", "sel", "json", null, null);
+            this.ifNoneMatch = ifNoneMatch;
+            this.ifModifiedSince = ifModifiedSince;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return ConditionalGetSupport.HEADER_IF_NONE_MATCH.equals(name) ? ifNoneMatch : null;
+        }
+
+        @Override
+        public long getDateHeader(String name) {
+            if (!"If-Modified-Since".equals(name)) {
+                return -1;
+            } else if (ifModifiedSince == -2) {
+                throw new IllegalArgumentException("Not a date");
+            }
+            return ifModifiedSince;
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return attributes.get(name);
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            attributes.put(name, value);
+        }
+    }
+
+    private static class HeaderResponse extends MockSlingHttpServletResponse {
+
+        private final Map<String, String> headers = new HashMap<String, String>();
+
+        private int status = SC_OK;
+
+        @Override
+        public boolean isCommitted() {
+            return false;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            headers.put(name, value);
+        }
+
+        @Override
+        public void setDateHeader(String name, long value) {
+            headers.put(name, String.valueOf(value));
+        }
+
+        @Override
+        public void setStatus(int status) {
+            this.status = status;
+        }
+    }
+}
@@ -19,15 +19,38 @@
 package org.apache.sling.servlets.get.impl.helpers;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import junitx.util.PrivateAccessor;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.apache.sling.commons.testing.sling.MockResource;
+import org.apache.sling.commons.testing.sling.MockSlingHttpServletRequest;
+import org.apache.sling.commons.testing.sling.MockSlingHttpServletResponse;
+import org.apache.sling.servlets.get.impl.DefaultGetServlet;
 import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.ComponentContext;
 
 public class StreamRendererServletTest {
 
@@ -47,6 +70,99 @@ public class StreamRendererServletTest {
         assertEquals("34", result);
     }
     
+    @Test
+    public void testNoBodyIfNotModified() throws Throwable {
+        final ConditionalGetSupport validators = new ConditionalGetSupport(new HashMap<String, String>());
+        final HeaderRequest request = new HeaderRequest();
+        request.headers.put(ConditionalGetSupport.HEADER_IF_NONE_MATCH, validators.getETag(request, false));
+
+        for (final Object servlet : new Object[] { new PlainTextRendererServlet(validators),
+                new HtmlRendererServlet(validators) }) {
+            final HeaderResponse response = new HeaderResponse();
+            PrivateAccessor.invoke(servlet, "doGet",
+                new Class[] { SlingHttpServletRequest.class, SlingHttpServletResponse.class },
+                new Object[] { request, response });
+            assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.status);
+            assertEquals(0, response.getOutput().length());
+        }
+    }
+
+    @Test
+    public void testIfRangeWithETag() throws Throwable {
+        final ConditionalGetSupport validators = new ConditionalGetSupport(new HashMap<String, String>());
+        final StreamRendererServlet servlet = new StreamRendererServlet(false, new String[0], validators);
+        final HeaderRequest request = new HeaderRequest();
+        final ResourceMetadata metadata = request.getResource().getResourceMetadata();
+        metadata.setModificationTime(1000000L);
+        metadata.setContentLength(100);
+        final String etag = validators.getETag(request, true);
+        request.headers.put("Range", "bytes=10-19");
+
+        request.headers.put("If-Range", etag);
+        List<?> ranges = parseRange(servlet, request, metadata, etag);
+        assertEquals(1, ranges.size());
+        assertEquals(10L, PrivateAccessor.getField(ranges.get(0), "start"));
+        assertEquals(19L, PrivateAccessor.getField(ranges.get(0), "end"));
+
+        // a different or weak entity tag returns the full resource
+        for (final String other : new String[] { "\"other\"", "W/" + etag }) {
+            request.headers.put("If-Range", other);
+            assertTrue(parseRange(servlet, request, metadata, etag).isEmpty());
+        }
+    }
+
+    private List<?> parseRange(final StreamRendererServlet servlet, final HeaderRequest request,
+            final ResourceMetadata metadata, final String etag) throws Throwable {
+        return (List<?>) PrivateAccessor.invoke(servlet, "parseRange",
+            new Class[] { HttpServletRequest.class, HttpServletResponse.class, ResourceMetadata.class, String.class },
+            new Object[] { request, new HeaderResponse(), metadata, etag });
+    }
+
+    @Test
+    public void testCacheControlConfiguration() throws Throwable {
+        final Hashtable<String, Object> props = new Hashtable<String, Object>();
+        props.put("cache.control", new String[] { "sample/page = max-age=60", "invalid",
+            ConditionalGetSupport.DEFAULT_RESOURCE_TYPE + "=no-cache" });
+        final Object[] registered = new Object[1];
+        final BundleContext bundleContext = (BundleContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class[] { BundleContext.class }, new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if ("registerService".equals(method.getName())) {
+                        registered[0] = args[1];
+                    }
+                    return null;
+                }
+            });
+        final ComponentContext ctx = (ComponentContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class[] { ComponentContext.class }, new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if ("getProperties".equals(method.getName())) {
+                        return props;
+                    } else if ("getBundleContext".equals(method.getName())) {
+                        return bundleContext;
+                    }
+                    return null;
+                }
+            });
+
+        final DefaultGetServlet servlet = new DefaultGetServlet();
+        PrivateAccessor.invoke(servlet, "activate", new Class[] { ComponentContext.class }, new Object[] { ctx });
+        final ConditionalGetSupport validators = (ConditionalGetSupport) PrivateAccessor.getField(servlet,
+            "validators");
+        assertSame(validators, registered[0]);
+
+        final HeaderRequest request = new HeaderRequest();
+        request.setResource(new MockResource(null, "/content/page", "sample/page"));
+        HeaderResponse response = new HeaderResponse();
+        validators.isNotModified(request, response, false);
+        assertEquals("max-age=60", response.headers.get(ConditionalGetSupport.HEADER_CACHE_CONTROL));
+
+        request.setResource(new MockResource(null, "/content/other", "sample/other"));
+        response = new HeaderResponse();
+        validators.isNotModified(request, response, false);
+        assertEquals("no-cache", response.headers.get(ConditionalGetSupport.HEADER_CACHE_CONTROL));
+    }
+
     private void runTests(int randomSeed) throws IOException {
         final Random random = new Random(randomSeed);
         assertCopyRange(random, StreamRendererServlet.IO_BUFFER_SIZE * 2 + 42);
@@ -121,4 +237,51 @@ public class StreamRendererServletTest {
             assertEquals(expected[i], actual[i - a]);
         }
     }
+
+    private static class HeaderRequest extends MockSlingHttpServletRequest {
+
+        private final Map<String, String> headers = new HashMap<String, String>();
+
+        HeaderRequest() {
+            super("/content/page", "sel", "txt", null, null);
+            setResource(new MockResource(null, "/content/page", "sample/page"));
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return headers.get(name);
+        }
+
+        @Override
+        public long getDateHeader(String name) {
+            return -1;
+        }
+    }
+
+    private static class HeaderResponse extends MockSlingHttpServletResponse {
+
+        private final Map<String, String> headers = new HashMap<String, String>();
+
+        private int status = SC_OK;
+
+        @Override
+        public boolean isCommitted() {
+            return false;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            headers.put(name, value);
+        }
+
+        @Override
+        public void setDateHeader(String name, long value) {
+            headers.put(name, String.valueOf(value));
+        }
+
+        @Override
+        public void setStatus(int status) {
+            this.status = status;
+        }
+    }
 }
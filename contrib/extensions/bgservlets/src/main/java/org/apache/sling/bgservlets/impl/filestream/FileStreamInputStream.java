@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.bgservlets.impl.filestream;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Reads data stored by a {@link FileStreamOutputStream},
+ *  following the file while it is being written: at the
+ *  end of the file we wait for more data until the
+ *  completion marker appears, the file is moved away,
+ *  or no data has been written for the idle timeout.
+ */
+public class FileStreamInputStream extends InputStream {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /** Default time to wait for more data from an incomplete stream */
+    public static final long DEFAULT_IDLE_TIMEOUT_MSEC = 60000L;
+
+    /** Interval to check for more data */
+    public static final long POLL_INTERVAL_MSEC = 100L;
+
+    /** The file that we read */
+    private final File file;
+
+    private final File marker;
+
+    private final FileInputStream input;
+
+    private final FileChannel channel;
+
+    private final long idleTimeoutMsec;
+
+    /** Position of the next byte to read */
+    private long position;
+
+    public FileStreamInputStream(File f) throws IOException {
+        this(f, DEFAULT_IDLE_TIMEOUT_MSEC);
+    }
+
+    public FileStreamInputStream(File f, long idleTimeoutMsec) throws IOException {
+        file = f;
+        marker = FileStreamOutputStream.getCompletionMarker(f);
+        input = new FileInputStream(f);
+        channel = input.getChannel();
+        this.idleTimeoutMsec = idleTimeoutMsec;
+    }
+
+    /** Wait until data is available at the current position.
+     *  @return false at the end of the stream
+     */
+    private boolean awaitData() throws IOException {
+        final long start = System.currentTimeMillis();
+        while(true) {
+            if(channel.size() > position) {
+                return true;
+            }
+            if(marker.exists() || !file.exists()) {
+                // complete, check again for data written before the marker
+                return channel.size() > position;
+            }
+            if(System.currentTimeMillis() - start > idleTimeoutMsec) {
+                log.warn("No data written to {} for {} msec, assuming end of stream",
+                        file.getAbsolutePath(), idleTimeoutMsec);
+                return false;
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MSEC);
+            } catch(InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for data in " + file.getAbsolutePath());
+            }
+        }
+    }
+
+    /** Transfer the remaining data to target, using
+     *  FileChannel.transferTo to avoid copying it
+     *  when the target allows.
+     *  @return the number of bytes transferred
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        long total = 0;
+        while(awaitData()) {
+            final long count = channel.transferTo(position, channel.size() - position, target);
+            position += count;
+            total += count;
+        }
+        return total;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int)Math.min(Integer.MAX_VALUE, Math.max(0, channel.size() - position));
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+        super.close();
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte [] b = new byte[1];
+        final int count = read(b, 0, 1);
+        return count == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if(len == 0) {
+            return 0;
+        }
+        if(!awaitData()) {
+            return -1;
+        }
+        final int count = channel.read(ByteBuffer.wrap(b, off, len), position);
+        if(count > 0) {
+            position += count;
+        }
+        return count;
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+}
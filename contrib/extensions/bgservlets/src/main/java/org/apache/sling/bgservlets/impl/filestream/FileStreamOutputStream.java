@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.bgservlets.impl.filestream;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** An append-only OutputStream stored in a local file.
+ *  flush() only hands the buffered data to the file
+ *  system, so that {@link FileStreamInputStream} can
+ *  read it while the stream is still being written.
+ *  close() creates a completion marker file next to
+ *  the data file, which tells readers that no more
+ *  data will follow.
+ *
+ *  Meant to be used when running background servlets
+ *  which produce a lot of output: unlike the
+ *  NodeOutputStream it does not create repository
+ *  nodes and save the session on every flush.
+ */
+public class FileStreamOutputStream extends OutputStream {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /** Suffix of the completion marker file */
+    public static final String COMPLETE_SUFFIX = ".complete";
+
+    public static final int BUFFER_SIZE = 32768;
+
+    /** The file that we append our data to */
+    private final File file;
+
+    private final OutputStream out;
+
+    private boolean closed;
+
+    public FileStreamOutputStream(File f) throws IOException {
+        file = f;
+        final File parent = f.getParentFile();
+        if(parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Unable to create directory " + parent.getAbsolutePath());
+        }
+        out = new BufferedOutputStream(new FileOutputStream(f, true), BUFFER_SIZE);
+        log.debug("Writing stream to {}", f.getAbsolutePath());
+    }
+
+    /** Return the completion marker of the given data file */
+    public static File getCompletionMarker(File f) {
+        return new File(f.getPath() + COMPLETE_SUFFIX);
+    }
+
+    /** Return the file that we write to */
+    public File getFile() {
+        return file;
+    }
+
+    /** Flushes and closes the file, and marks the stream complete */
+    @Override
+    public void close() throws IOException {
+        if(closed) {
+            return;
+        }
+        closed = true;
+        out.close();
+        final File marker = getCompletionMarker(file);
+        if(!marker.createNewFile() && !marker.exists()) {
+            throw new IOException("Unable to create completion marker " + marker.getAbsolutePath());
+        }
+        log.debug("Stream {} complete, {} bytes", file.getAbsolutePath(), file.length());
+    }
+
+    /** Make the data written so far available to readers */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+        out.write(b, 0, b.length);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+    }
+}
@@ -21,6 +21,7 @@ package org.apache.sling.bgservlets.impl.nodestream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 
 import javax.jcr.Node;
@@ -104,6 +105,19 @@ public class NodeOutputStream extends OutputStream {
         }
     }
 
+    /** Store a complete stream under node n, as a single
+     *  Property that {@link NodeInputStream} can read, and
+     *  save the session.
+     */
+    public static void store(Node n, InputStream data) throws RepositoryException {
+        final NodeStreamPath path = new NodeStreamPath();
+        path.selectNextPath();
+        final Node streamNode = new DeepNodeCreator().deepCreateNode(n.getPath() + "/" + path.getNodePath(),
+                n.getSession(), STREAM_NODE_TYPE);
+        streamNode.setProperty(NodeStreamPath.PROPERTY_NAME, data);
+        n.save();
+    }
+
     private void flushIfNeeded() throws IOException {
         if(buffer.size() >= BUFFER_SWITCH_SIZE) {
             log.debug("Buffer size {} reached switch level {}, flushing", buffer.size(), BUFFER_SWITCH_SIZE);
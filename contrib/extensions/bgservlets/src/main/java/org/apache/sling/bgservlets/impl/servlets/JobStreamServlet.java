@@ -21,6 +21,7 @@ package org.apache.sling.bgservlets.impl.servlets;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
 
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
@@ -37,9 +38,11 @@ import org.apache.sling.api.servlets.SlingSafeMethodsServlet;
 import org.apache.sling.bgservlets.BackgroundServletConstants;
 import org.apache.sling.bgservlets.JobData;
 import org.apache.sling.bgservlets.JobStorage;
+import org.apache.sling.bgservlets.impl.filestream.FileStreamInputStream;
 
 /** Default rendering of the job's stream node: replays the
- *  stored stream.    
+ *  stored stream. Streams stored in files are followed until
+ *  the job completes them.
  */
 @Component
 @Service
@@ -66,6 +69,11 @@ public class JobStreamServlet extends SlingSafeMethodsServlet {
             try {
                 response.setContentType(request.getResponseContentType());
                 final OutputStream os = response.getOutputStream();
+                if(is instanceof FileStreamInputStream) {
+                    ((FileStreamInputStream)is).transferTo(Channels.newChannel(os));
+                    os.flush();
+                    return;
+                }
                 final byte [] buffer = new byte[32768];
                 int count = 0;
                 while((count = is.read(buffer, 0, buffer.length)) > 0) {
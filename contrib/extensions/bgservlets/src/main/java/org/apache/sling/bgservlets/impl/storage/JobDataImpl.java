@@ -18,6 +18,10 @@
  */
 package org.apache.sling.bgservlets.impl.storage;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Calendar;
@@ -30,22 +34,45 @@ import org.apache.sling.api.SlingConstants;
 import org.apache.sling.bgservlets.BackgroundServletConstants;
 import org.apache.sling.bgservlets.JobData;
 import org.apache.sling.bgservlets.JobStatus;
+import org.apache.sling.bgservlets.impl.filestream.FileStreamInputStream;
+import org.apache.sling.bgservlets.impl.filestream.FileStreamOutputStream;
 import org.apache.sling.bgservlets.impl.nodestream.NodeInputStream;
 import org.apache.sling.bgservlets.impl.nodestream.NodeOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 class JobDataImpl implements JobData {
 
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
 	private final Node node;
 	private final String path;
 	private final Calendar creationTime;
+	private final File streamDirectory;
+	private final boolean copyStreamToRepository;
 	
 	public static final String STREAM_PATH = JobStatus.STREAM_PATH_SUFFIX.substring(1);
 	
     public static final String RT_PROP = SlingConstants.NAMESPACE_PREFIX + ":" + SlingConstants.PROPERTY_RESOURCE_TYPE;
     
+    /** Stream node property holding the path of the stream file, if the stream is stored in a file */
+    public static final String STREAM_FILE_PROP = SlingConstants.NAMESPACE_PREFIX + ":streamFile";
+    
 	/** Build a JobDataImpl on supplied node, which must exists */
 	JobDataImpl(Node n) throws RepositoryException {
+	    this(n, null, false);
+	}
+	
+	/** Build a JobDataImpl on supplied node, which must exists.
+	 *  @param streamDirectory if not null, new output streams are
+	 *     written to files in this directory instead of the repository
+	 *  @param copyStreamToRepository if true, completed stream files
+	 *     are moved to the repository
+	 */
+	JobDataImpl(Node n, File streamDirectory, boolean copyStreamToRepository) throws RepositoryException {
 		node = n;
+		this.streamDirectory = streamDirectory;
+		this.copyStreamToRepository = copyStreamToRepository;
 		path = node.getPath();
 		if(node.hasProperty(BackgroundServletConstants.CREATION_TIME_PROPERTY)) {
 		    creationTime = node.getProperty(BackgroundServletConstants.CREATION_TIME_PROPERTY).getDate();
@@ -59,7 +86,18 @@ class JobDataImpl implements JobData {
 	public InputStream getInputStream() {
         try {
     		if(node.hasNode(STREAM_PATH)) {
-    		    return new NodeInputStream(node.getNode(STREAM_PATH));
+    		    final Node stream = node.getNode(STREAM_PATH);
+    		    if(stream.hasProperty(STREAM_FILE_PROP)) {
+    		        final File f = new File(stream.getProperty(STREAM_FILE_PROP).getString());
+    		        try {
+    		            return new FileStreamInputStream(f);
+    		        } catch(FileNotFoundException fnf) {
+    		            // moved to the repository in the meantime
+    		            log.debug("Stream file {} not found, reading from repository", f.getAbsolutePath());
+    		            stream.refresh(false);
+    		        }
+    		    }
+    		    return new NodeInputStream(stream);
     		}
 	    } catch(Exception e) {
 	        throw new JobStorageException("Exception in getInputStream()", e);
@@ -76,13 +114,47 @@ class JobDataImpl implements JobData {
             node.setProperty(RT_PROP, BackgroundServletConstants.JOB_RESOURCE_TYPE);
             final Node stream = node.addNode(STREAM_PATH);
             stream.setProperty(RT_PROP, BackgroundServletConstants.STREAM_RESOURCE_TYPE);
+            if(streamDirectory == null) {
+                node.save();
+                return new NodeOutputStream(stream);
+            }
+            
+            // Append to a local file, readers can follow it while we write
+            final File f = new File(streamDirectory, path.substring(1).replace('/', '_'));
+            stream.setProperty(STREAM_FILE_PROP, f.getAbsolutePath());
             node.save();
-            return new NodeOutputStream(stream);
+            return new FileStreamOutputStream(f) {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    if(copyStreamToRepository) {
+                        moveToRepository(stream, getFile());
+                    }
+                }
+            };
         } catch(Exception e) {
             throw new JobStorageException("Exception in getOutputStream()", e);
         }
 	}
 
+	/** Store the complete stream file under the stream node, and delete it */
+	private void moveToRepository(Node stream, File f) throws IOException {
+	    final InputStream is = new FileInputStream(f);
+	    try {
+	        stream.getProperty(STREAM_FILE_PROP).remove();
+	        NodeOutputStream.store(stream, is);
+	        log.debug("Stream file {} moved to {}", f.getAbsolutePath(), stream.getPath());
+	    } catch(RepositoryException re) {
+	        throw (IOException)new IOException("RepositoryException in moveToRepository()").initCause(re);
+	    } finally {
+	        is.close();
+	    }
+	    if(!f.delete()) {
+	        log.warn("Unable to delete stream file {}", f.getAbsolutePath());
+	    }
+	    FileStreamOutputStream.getCompletionMarker(f).delete();
+	}
+
 	public String getPath() {
 		return path;
 	}
@@ -18,6 +18,7 @@
  */
 package org.apache.sling.bgservlets.impl.storage;
 
+import java.io.File;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
@@ -52,10 +53,20 @@ public class JobStorageImpl implements JobStorage {
     @Property(value="/var/bg/jobs")
     public static final String PROP_JOB_STORAGE_PATH = "job.storage.path";
     
+    /** Directory for job output streams, streams are stored in the repository if empty */
+    @Property(value="")
+    public static final String PROP_STREAM_DIRECTORY = "job.stream.directory";
+    
+    /** If true, completed stream files are moved to the repository */
+    @Property(boolValue=false)
+    public static final String PROP_STREAM_COPY = "job.stream.copy.to.repository";
+    
     public static final String PATH_FORMAT = "/yyyy/MM/dd/HH/mm";
     public static final String JOB_NODETYPE = "nt:unstructured";
     
     private String jobStoragePath;
+    private File streamDirectory;
+    private boolean copyStreamToRepository;
 	private int counter;
 	private static final DateFormat pathFormat = new SimpleDateFormat(PATH_FORMAT);
 	
@@ -71,6 +82,20 @@ public class JobStorageImpl implements JobStorage {
             jobStoragePath = jobStoragePath.substring(0, jobStoragePath.length() - 1);
         }
         log.info("Jobs will be stored under {}", jobStoragePath);
+        
+        final Object dir = ctx.getProperties().get(PROP_STREAM_DIRECTORY);
+        streamDirectory = null;
+        if(dir != null && dir.toString().trim().length() > 0) {
+            streamDirectory = new File(dir.toString().trim());
+            if(!streamDirectory.isAbsolute()) {
+                final String slingHome = ctx.getBundleContext().getProperty("sling.home");
+                if(slingHome != null) {
+                    streamDirectory = new File(slingHome, streamDirectory.getPath());
+                }
+            }
+            log.info("Job output will be written to files under {}", streamDirectory.getAbsolutePath());
+        }
+        copyStreamToRepository = Boolean.valueOf(String.valueOf(ctx.getProperties().get(PROP_STREAM_COPY)));
     }
     
 	public JobData createJobData(Session s) {
@@ -83,7 +108,7 @@ public class JobStorageImpl implements JobStorage {
 
 	public JobData getJobData(Node n) {
         try {
-            return new JobDataImpl(n);
+            return new JobDataImpl(n, streamDirectory, copyStreamToRepository);
         } catch(Exception e) {
             throw new JobStorageException("Unable to create JobDataImpl", e);
         }
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.bgservlets.impl.filestream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class FileStreamTest extends TestCase {
+
+    private File file;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        file = File.createTempFile(getClass().getSimpleName(), ".stream");
+        file.delete();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        file.delete();
+        FileStreamOutputStream.getCompletionMarker(file).delete();
+        super.tearDown();
+    }
+
+    private static byte [] getData(int size) {
+        final byte [] result = new byte[size];
+        for(int i=0; i < size; i++) {
+            result[i] = (byte)i;
+        }
+        return result;
+    }
+
+    private static byte [] readAll(FileStreamInputStream is) throws IOException {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        final byte [] buffer = new byte[7432];
+        int count = 0;
+        while((count = is.read(buffer)) >= 0) {
+            result.write(buffer, 0, count);
+        }
+        is.close();
+        return result.toByteArray();
+    }
+
+    public void testWriteAndRead() throws Exception {
+        final byte [] data = getData(100000);
+        final FileStreamOutputStream os = new FileStreamOutputStream(file);
+        os.write(data, 0, 1000);
+        os.write(data[1000]);
+        os.write(data, 1001, data.length - 1001);
+        os.close();
+        assertTrue("Expecting completion marker", FileStreamOutputStream.getCompletionMarker(file).exists());
+        assertTrue(Arrays.equals(data, readAll(new FileStreamInputStream(file))));
+    }
+
+    public void testSingleByteRead() throws Exception {
+        final FileStreamOutputStream os = new FileStreamOutputStream(file);
+        os.write(new byte[] { 1, (byte)255 });
+        os.close();
+        final FileStreamInputStream is = new FileStreamInputStream(file);
+        assertEquals(1, is.read());
+        assertEquals(255, is.read());
+        assertEquals(-1, is.read());
+        is.close();
+    }
+
+    public void testTransferTo() throws Exception {
+        final byte [] data = getData(300000);
+        final FileStreamOutputStream os = new FileStreamOutputStream(file);
+        os.write(data);
+        os.close();
+        final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        final FileStreamInputStream is = new FileStreamInputStream(file);
+        assertEquals(data.length, is.transferTo(Channels.newChannel(actual)));
+        is.close();
+        assertTrue(Arrays.equals(data, actual.toByteArray()));
+    }
+
+    public void testReadWhileWriting() throws Exception {
+        final byte [] data = getData(50000);
+        final FileStreamOutputStream os = new FileStreamOutputStream(file);
+        final FileStreamInputStream is = new FileStreamInputStream(file);
+        final Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    for(int i=0; i < 10; i++) {
+                        os.write(data);
+                        os.flush();
+                        Thread.sleep(20);
+                    }
+                    os.close();
+                } catch(Exception e) {
+                    fail("Exception in writer: " + e);
+                }
+            }
+        };
+        writer.start();
+        final byte [] actual = readAll(is);
+        writer.join();
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for(int i=0; i < 10; i++) {
+            expected.write(data);
+        }
+        assertTrue(Arrays.equals(expected.toByteArray(), actual));
+    }
+
+    public void testIncompleteStreamTimeout() throws Exception {
+        final FileStreamOutputStream os = new FileStreamOutputStream(file);
+        os.write(getData(10));
+        os.flush();
+        final FileStreamInputStream is = new FileStreamInputStream(file, 200);
+        final long start = System.currentTimeMillis();
+        assertEquals(10, readAll(is).length);
+        assertTrue("Expecting to wait for more data", System.currentTimeMillis() - start >= 200);
+        os.close();
+    }
+
+    public void testMovedFileEndsStream() throws Exception {
+        final FileStreamOutputStream os = new FileStreamOutputStream(file);
+        os.write(getData(10));
+        os.flush();
+        final FileStreamInputStream is = new FileStreamInputStream(file);
+        final byte [] buffer = new byte[100];
+        assertEquals(10, is.read(buffer));
+        os.close();
+        file.delete();
+        assertEquals(-1, is.read(buffer));
+        is.close();
+    }
+}
@@ -20,10 +20,17 @@
 package org.apache.sling.commons.cache.api;
 
 import java.util.Collection;
+import java.util.Map;
+
+import aQute.bnd.annotation.ProviderType;
 
 /**
  * A Cache managed by the cache manager.
+ * <p>
+ * This interface is only implemented by the cache providers, consumers only
+ * use it. Methods may be added in minor versions of this package.
  */
+@ProviderType
 public interface Cache<V> {
 
 	/**
@@ -58,6 +65,40 @@ public interface Cache<V> {
 	 */
 	V get(String key);
 
+	/**
+	 * Get the non expired entry, loading it with the loader if it is not in
+	 * the cache. A loaded non null value is put into the cache. Concurrent
+	 * calls for the same key may share a single load, depending on the
+	 * implementation.
+	 * 
+	 * @param key
+	 *            The cache key.
+	 * @param loader
+	 *            The loader to create the value.
+	 * @return The cached or loaded value, null if the loader returned null.
+	 * @throws CacheLoaderException
+	 *             if the loader failed.
+	 */
+	V get(String key, CacheLoader<V> loader);
+
+	/**
+	 * Get the non expired entries for several keys.
+	 * 
+	 * @param keys
+	 *            The cache keys.
+	 * @return A map of the keys found in the cache to their payloads.
+	 *         Missing keys are not contained in the map.
+	 */
+	Map<String, V> getAll(Collection<String> keys);
+
+	/**
+	 * Cache several objects.
+	 * 
+	 * @param entries
+	 *            The keys and the objects to cache.
+	 */
+	void putAll(Map<? extends String, ? extends V> entries);
+
 	/**
 	 * Clear all entries.
 	 */
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sling.commons.cache.api;
+
+/**
+ * Creates the value for a key which is not in a cache.
+ * 
+ * @see Cache#get(String, CacheLoader)
+ */
+public interface CacheLoader<V> {
+
+	/**
+	 * Load a value.
+	 * 
+	 * @param key
+	 *            The cache key.
+	 * @return The value for the key, or null if there is none.
+	 * @throws Exception
+	 *             if the value could not be loaded, the exception is passed
+	 *             to the caller wrapped in a {@link CacheLoaderException}.
+	 */
+	V load(String key) throws Exception;
+
+}
@@ -17,7 +17,7 @@
  * under the License.
  */
 
-@Version("1.0")
+@Version("1.1")
 package org.apache.sling.commons.cache.api;
 
 import aQute.bnd.annotation.Version;
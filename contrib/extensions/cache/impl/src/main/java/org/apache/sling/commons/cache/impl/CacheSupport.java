@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sling.commons.cache.impl;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.sling.commons.cache.api.Cache;
+import org.apache.sling.commons.cache.api.CacheLoader;
+import org.apache.sling.commons.cache.api.CacheLoaderException;
+
+/**
+ * Implementations of the loading and bulk methods of {@link Cache} on top of
+ * its single entry methods, for caches without native support.
+ */
+public final class CacheSupport {
+
+	private CacheSupport() {
+	}
+
+	/**
+	 * Get the entry, or load and put it. Concurrent calls for the same key
+	 * each run the loader.
+	 */
+	public static <V> V get(Cache<V> cache, String key, CacheLoader<V> loader) {
+		V value = cache.get(key);
+		if (value == null) {
+			value = load(key, loader);
+			if (value != null) {
+				cache.put(key, value);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Run the loader, wrapping a failure in a {@link CacheLoaderException}.
+	 */
+	public static <V> V load(String key, CacheLoader<V> loader) {
+		try {
+			return loader.load(key);
+		} catch (CacheLoaderException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new CacheLoaderException("Unable to load " + key, e);
+		}
+	}
+
+	/**
+	 * Get the entries for several keys one by one.
+	 */
+	public static <V> Map<String, V> getAll(Cache<V> cache,
+			Collection<String> keys) {
+		Map<String, V> result = new HashMap<String, V>();
+		for (String key : keys) {
+			V value = cache.get(key);
+			if (value != null) {
+				result.put(key, value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Put several entries one by one.
+	 */
+	public static <V> void putAll(Cache<V> cache, Map<? extends String, ? extends V> entries) {
+		for (Map.Entry<? extends String, ? extends V> e : entries.entrySet()) {
+			cache.put(e.getKey(), e.getValue());
+		}
+	}
+
+}
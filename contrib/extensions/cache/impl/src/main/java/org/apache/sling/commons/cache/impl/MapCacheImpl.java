@@ -23,9 +23,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.sling.commons.cache.api.Cache;
+import org.apache.sling.commons.cache.api.CacheLoader;
 import org.apache.sling.commons.cache.api.ThreadBound;
 
 /**
@@ -56,6 +58,25 @@ public class MapCacheImpl<V> extends HashMap<String, V> implements Cache<V> {
 		return super.get(key);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.apache.sling.commons.cache.api.Cache#get(java.lang.String,
+	 *      org.apache.sling.commons.cache.api.CacheLoader)
+	 */
+	public V get(String key, CacheLoader<V> loader) {
+		return CacheSupport.get(this, key, loader);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.apache.sling.commons.cache.api.Cache#getAll(java.util.Collection)
+	 */
+	public Map<String, V> getAll(Collection<String> keys) {
+		return CacheSupport.getAll(this, keys);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * 
@@ -20,8 +20,11 @@
 package org.apache.sling.commons.cache.infinispan;
 
 import java.util.Collection;
+import java.util.Map;
 
 import org.apache.sling.commons.cache.api.Cache;
+import org.apache.sling.commons.cache.api.CacheLoader;
+import org.apache.sling.commons.cache.impl.CacheSupport;
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -109,6 +112,34 @@ public class CacheImpl<V> implements Cache<V> {
 		return (V) objectValue;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.apache.sling.commons.cache.api.Cache#get(java.lang.String,
+	 *      org.apache.sling.commons.cache.api.CacheLoader)
+	 */
+	public V get(String key, CacheLoader<V> loader) {
+		return CacheSupport.get(this, key, loader);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.apache.sling.commons.cache.api.Cache#getAll(java.util.Collection)
+	 */
+	public Map<String, V> getAll(Collection<String> keys) {
+		return CacheSupport.getAll(this, keys);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.apache.sling.commons.cache.api.Cache#putAll(java.util.Map)
+	 */
+	public void putAll(Map<? extends String, ? extends V> entries) {
+		CacheSupport.putAll(this, entries);
+	}
+
 	/**
 	 * {@inherit-doc}
 	 * 
@@ -0,0 +1,673 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sling.commons.cache.local;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.sling.commons.cache.api.Cache;
+import org.apache.sling.commons.cache.api.CacheLoader;
+import org.apache.sling.commons.cache.api.CacheLoaderException;
+import org.apache.sling.commons.cache.impl.CacheSupport;
+
+/**
+ * A bounded, concurrent in-memory cache with W-TinyLFU eviction.
+ * <p>
+ * Entries live in a {@link ConcurrentHashMap}, reads do not block. The
+ * eviction policy keeps every entry in one of three LRU queues: a window
+ * taking 1% of the maximum weight, and a probation and a protected queue
+ * splitting the rest 20:80. New entries enter the window. An entry leaving
+ * the window goes to probation, and when the cache is full it competes with
+ * the least recently used probation entry: the one accessed less often
+ * according to a {@link FrequencySketch} is evicted. A probation entry which
+ * is accessed again moves to the protected queue.
+ * <p>
+ * The queues and the sketch are guarded by a lock. Writes always take it,
+ * reads only record the access if the lock is free, so under contention some
+ * accesses are not seen by the policy.
+ * <p>
+ * Expired entries are removed when they are read.
+ */
+public class CacheImpl<V> implements Cache<V>, CacheStatisticsMBean {
+
+	private static final int NONE = 0;
+	private static final int WINDOW = 1;
+	private static final int PROBATION = 2;
+	private static final int PROTECTED = 3;
+	private static final int RETIRED = -1;
+
+	private final String name;
+
+	private final long maximumWeight;
+
+	private final long windowMaximum;
+
+	private final long protectedMaximum;
+
+	private final long expireAfterWriteNanos;
+
+	private final Weigher<? super V> weigher;
+
+	private final ConcurrentMap<String, Node<V>> data = new ConcurrentHashMap<String, Node<V>>();
+
+	private final ConcurrentMap<String, FutureTask<V>> loading = new ConcurrentHashMap<String, FutureTask<V>>();
+
+	private final ReentrantLock evictionLock = new ReentrantLock();
+
+	private final FrequencySketch sketch;
+
+	private final Queue<V> window = new Queue<V>();
+
+	private final Queue<V> probation = new Queue<V>();
+
+	private final Queue<V> protectedQueue = new Queue<V>();
+
+	private long weightedSize;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicLong expirations = new AtomicLong();
+	private final AtomicLong loadSuccesses = new AtomicLong();
+	private final AtomicLong loadFailures = new AtomicLong();
+	private final AtomicLong loadTime = new AtomicLong();
+
+	/**
+	 * Create a cache bounded by the number of entries.
+	 * 
+	 * @param name
+	 *            The name of the cache.
+	 * @param maximumSize
+	 *            The maximum number of entries.
+	 * @param expireAfterWrite
+	 *            Milliseconds after which an entry expires, 0 for never.
+	 */
+	public CacheImpl(String name, long maximumSize, long expireAfterWrite) {
+		this(name, maximumSize, expireAfterWrite, null);
+	}
+
+	/**
+	 * Create a cache bounded by the weight of the entries.
+	 * 
+	 * @param name
+	 *            The name of the cache.
+	 * @param maximumWeight
+	 *            The maximum total weight of the entries.
+	 * @param expireAfterWrite
+	 *            Milliseconds after which an entry expires, 0 for never.
+	 * @param weigher
+	 *            The weigher of the entries, null to weigh each entry 1.
+	 */
+	public CacheImpl(String name, long maximumWeight, long expireAfterWrite,
+			Weigher<? super V> weigher) {
+		if (maximumWeight < 1) {
+			throw new IllegalArgumentException("Maximum weight must be positive: "
+					+ maximumWeight);
+		}
+		this.name = name;
+		this.maximumWeight = maximumWeight;
+		this.windowMaximum = Math.max(1, maximumWeight / 100);
+		this.protectedMaximum = (maximumWeight - windowMaximum) * 4 / 5;
+		this.expireAfterWriteNanos = expireAfterWrite * 1000000L;
+		this.weigher = weigher;
+		this.sketch = new FrequencySketch(weigher == null ? maximumWeight
+				: Math.min(maximumWeight, 1 << 20));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.apache.sling.commons.cache.api.Cache#get(java.lang.String)
+	 */
+	public V get(String key) {
+		Node<V> node = getNode(key);
+		if (node == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return node.value;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.apache.sling.commons.cache.api.Cache#containsKey(java.lang.String)
+	 */
+	public boolean containsKey(String key) {
+		return getNode(key) != null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Concurrent calls for a key which is not cached share one load.
+	 * 
+	 * @see org.apache.sling.commons.cache.api.Cache#get(java.lang.String,
+	 *      org.apache.sling.commons.cache.api.CacheLoader)
+	 */
+	public V get(final String key, final CacheLoader<V> loader) {
+		V value = get(key);
+		if (value != null) {
+			return value;
+		}
+		FutureTask<V> task = new FutureTask<V>(new Callable<V>() {
+			public V call() {
+				return loadAndPut(key, loader);
+			}
+		});
+		FutureTask<V> running = loading.putIfAbsent(key, task);
+		if (running == null) {
+			running = task;
+			try {
+				task.run();
+			} finally {
+				loading.remove(key, task);
+			}
+		}
+		try {
+			return running.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new CacheLoaderException("Unable to load " + key, cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CacheLoaderException("Interrupted while loading " + key, e);
+		}
+	}
+
+	private V loadAndPut(String key, CacheLoader<V> loader) {
+		long start = System.nanoTime();
+		V value;
+		try {
+			value = CacheSupport.load(key, loader);
+		} catch (RuntimeException e) {
+			loadFailures.incrementAndGet();
+			throw e;
+		} finally {
+			loadTime.addAndGet(System.nanoTime() - start);
+		}
+		loadSuccesses.incrementAndGet();
+		if (value != null) {
+			put(key, value);
+		}
+		return value;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.apache.sling.commons.cache.api.Cache#getAll(java.util.Collection)
+	 */
+	public Map<String, V> getAll(Collection<String> keys) {
+		Map<String, V> result = new HashMap<String, V>();
+		for (String key : keys) {
+			V value = get(key);
+			if (value != null) {
+				result.put(key, value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.apache.sling.commons.cache.api.Cache#put(java.lang.String,
+	 *      java.lang.Object)
+	 */
+	public V put(String key, V payload) {
+		Node<V> node = newNode(key, payload);
+		Node<V> previous = data.put(key, node);
+		evictionLock.lock();
+		try {
+			onWrite(node, previous);
+			evict();
+		} finally {
+			evictionLock.unlock();
+		}
+		return previous == null || isExpired(previous, System.nanoTime()) ? null
+				: previous.value;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * The entries are added with a single acquisition of the eviction lock.
+	 * 
+	 * @see org.apache.sling.commons.cache.api.Cache#putAll(java.util.Map)
+	 */
+	public void putAll(Map<? extends String, ? extends V> entries) {
+		List<Node<V>> nodes = new ArrayList<Node<V>>(entries.size());
+		List<Node<V>> previous = new ArrayList<Node<V>>(entries.size());
+		for (Map.Entry<? extends String, ? extends V> e : entries.entrySet()) {
+			Node<V> node = newNode(e.getKey(), e.getValue());
+			nodes.add(node);
+			previous.add(data.put(node.key, node));
+		}
+		evictionLock.lock();
+		try {
+			for (int i = 0; i < nodes.size(); i++) {
+				onWrite(nodes.get(i), previous.get(i));
+			}
+			evict();
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.apache.sling.commons.cache.api.Cache#remove(java.lang.String)
+	 */
+	public boolean remove(String key) {
+		Node<V> node = data.remove(key);
+		if (node == null) {
+			return false;
+		}
+		evictionLock.lock();
+		try {
+			retire(node);
+		} finally {
+			evictionLock.unlock();
+		}
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.apache.sling.commons.cache.api.Cache#removeChildren(java.lang.String)
+	 */
+	public void removeChildren(String key) {
+		remove(key);
+		if (!key.endsWith("/")) {
+			key = key + "/";
+		}
+		for (String k : data.keySet()) {
+			if (k.startsWith(key)) {
+				remove(k);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.apache.sling.commons.cache.api.Cache#clear()
+	 */
+	public void clear() {
+		evictionLock.lock();
+		try {
+			for (Node<V> node : data.values()) {
+				retire(node);
+			}
+			data.clear();
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.apache.sling.commons.cache.api.Cache#values()
+	 */
+	public Collection<V> values() {
+		long now = System.nanoTime();
+		List<V> values = new ArrayList<V>(data.size());
+		for (Node<V> node : data.values()) {
+			if (!isExpired(node, now)) {
+				values.add(node.value);
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.apache.sling.commons.cache.api.Cache#keys()
+	 */
+	public Collection<String> keys() {
+		long now = System.nanoTime();
+		List<String> keys = new ArrayList<String>(data.size());
+		for (Node<V> node : data.values()) {
+			if (!isExpired(node, now)) {
+				keys.add(node.key);
+			}
+		}
+		return keys;
+	}
+
+	// ---------- policy
+
+	private Node<V> newNode(String key, V value) {
+		if (key == null || value == null) {
+			throw new NullPointerException("Key and value must not be null");
+		}
+		int weight = weigher == null ? 1 : Math.max(1, weigher.weigh(key, value));
+		return new Node<V>(key, value, weight, System.nanoTime());
+	}
+
+	/**
+	 * Look up a live node, removing it if it has expired, and record the
+	 * access if the eviction lock is free.
+	 */
+	private Node<V> getNode(String key) {
+		Node<V> node = data.get(key);
+		if (node == null) {
+			return null;
+		}
+		if (isExpired(node, System.nanoTime())) {
+			if (data.remove(key, node)) {
+				expirations.incrementAndGet();
+				evictionLock.lock();
+				try {
+					retire(node);
+				} finally {
+					evictionLock.unlock();
+				}
+			}
+			return null;
+		}
+		if (evictionLock.tryLock()) {
+			try {
+				onAccess(node);
+			} finally {
+				evictionLock.unlock();
+			}
+		}
+		return node;
+	}
+
+	private boolean isExpired(Node<V> node, long now) {
+		return expireAfterWriteNanos > 0
+				&& now - node.writeTime >= expireAfterWriteNanos;
+	}
+
+	/**
+	 * Link a written node into the window and retire the node it replaced.
+	 * The node is not linked if a concurrent write or removal already
+	 * replaced it in the map.
+	 */
+	private void onWrite(Node<V> node, Node<V> previous) {
+		if (previous != null) {
+			retire(previous);
+		}
+		sketch.increment(spread(node.key.hashCode()));
+		if (node.queue == RETIRED || data.get(node.key) != node) {
+			node.queue = RETIRED;
+			return;
+		}
+		window.addLast(node);
+		node.queue = WINDOW;
+		weightedSize += node.weight;
+	}
+
+	private void onAccess(Node<V> node) {
+		sketch.increment(spread(node.key.hashCode()));
+		switch (node.queue) {
+		case WINDOW:
+			window.moveToLast(node);
+			break;
+		case PROBATION:
+			probation.remove(node);
+			protectedQueue.addLast(node);
+			node.queue = PROTECTED;
+			demoteProtected();
+			break;
+		case PROTECTED:
+			protectedQueue.moveToLast(node);
+			break;
+		default:
+			// not linked yet or already retired
+			break;
+		}
+	}
+
+	private void demoteProtected() {
+		long protectedWeight = protectedQueue.weight;
+		while (protectedWeight > protectedMaximum) {
+			Node<V> demoted = protectedQueue.first;
+			protectedQueue.remove(demoted);
+			probation.addLast(demoted);
+			demoted.queue = PROBATION;
+			protectedWeight = protectedQueue.weight;
+		}
+	}
+
+	/**
+	 * Move the entries exceeding the window to probation and evict entries
+	 * until the cache is within its maximum weight.
+	 */
+	private void evict() {
+		while (window.weight > windowMaximum) {
+			Node<V> node = window.first;
+			window.remove(node);
+			probation.addLast(node);
+			node.queue = PROBATION;
+		}
+		while (weightedSize > maximumWeight) {
+			Node<V> victim = probation.first;
+			Node<V> candidate = probation.last;
+			if (victim == null) {
+				victim = protectedQueue.first != null ? protectedQueue.first
+						: window.first;
+				if (victim == null) {
+					break;
+				}
+			} else if (victim != candidate
+					&& sketch.frequency(spread(candidate.key.hashCode())) <= sketch
+							.frequency(spread(victim.key.hashCode()))) {
+				victim = candidate;
+			}
+			if (data.remove(victim.key, victim)) {
+				evictions.incrementAndGet();
+			}
+			retire(victim);
+		}
+	}
+
+	/**
+	 * Unlink a node from its queue and mark it as no longer usable.
+	 */
+	private void retire(Node<V> node) {
+		switch (node.queue) {
+		case WINDOW:
+			window.remove(node);
+			weightedSize -= node.weight;
+			break;
+		case PROBATION:
+			probation.remove(node);
+			weightedSize -= node.weight;
+			break;
+		case PROTECTED:
+			protectedQueue.remove(node);
+			weightedSize -= node.weight;
+			break;
+		default:
+			break;
+		}
+		node.queue = RETIRED;
+	}
+
+	private static int spread(int h) {
+		h ^= (h >>> 20) ^ (h >>> 12);
+		return h ^ (h >>> 7) ^ (h >>> 4);
+	}
+
+	// ---------- CacheStatisticsMBean
+
+	public String getName() {
+		return name;
+	}
+
+	public long getSize() {
+		return data.size();
+	}
+
+	public long getWeightedSize() {
+		evictionLock.lock();
+		try {
+			return weightedSize;
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	public long getMaximumWeight() {
+		return maximumWeight;
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	public double getHitRatio() {
+		long h = hits.get();
+		long total = h + misses.get();
+		return total == 0 ? 1.0 : (double) h / total;
+	}
+
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	public long getExpirationCount() {
+		return expirations.get();
+	}
+
+	public long getLoadSuccessCount() {
+		return loadSuccesses.get();
+	}
+
+	public long getLoadFailureCount() {
+		return loadFailures.get();
+	}
+
+	public double getAverageLoadTime() {
+		long loads = loadSuccesses.get() + loadFailures.get();
+		return loads == 0 ? 0 : loadTime.get() / 1000000.0 / loads;
+	}
+
+	public void resetStatistics() {
+		hits.set(0);
+		misses.set(0);
+		evictions.set(0);
+		expirations.set(0);
+		loadSuccesses.set(0);
+		loadFailures.set(0);
+		loadTime.set(0);
+	}
+
+	// ---------- queues
+
+	private static final class Node<V> {
+
+		final String key;
+
+		final V value;
+
+		final int weight;
+
+		final long writeTime;
+
+		/** The queue of the node, guarded by the eviction lock. */
+		int queue = NONE;
+
+		Node<V> previous;
+
+		Node<V> next;
+
+		Node(String key, V value, int weight, long writeTime) {
+			this.key = key;
+			this.value = value;
+			this.weight = weight;
+			this.writeTime = writeTime;
+		}
+	}
+
+	/**
+	 * A doubly linked LRU queue, first is the least recently used node.
+	 */
+	private static final class Queue<V> {
+
+		Node<V> first;
+
+		Node<V> last;
+
+		long weight;
+
+		void addLast(Node<V> node) {
+			node.previous = last;
+			node.next = null;
+			if (last == null) {
+				first = node;
+			} else {
+				last.next = node;
+			}
+			last = node;
+			weight += node.weight;
+		}
+
+		void remove(Node<V> node) {
+			if (node.previous == null) {
+				first = node.next;
+			} else {
+				node.previous.next = node.next;
+			}
+			if (node.next == null) {
+				last = node.previous;
+			} else {
+				node.next.previous = node.previous;
+			}
+			node.previous = null;
+			node.next = null;
+			weight -= node.weight;
+		}
+
+		void moveToLast(Node<V> node) {
+			if (node != last) {
+				remove(node);
+				addLast(node);
+			}
+		}
+	}
+
+}
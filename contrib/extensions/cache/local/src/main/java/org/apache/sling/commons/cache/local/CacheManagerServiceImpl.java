@@ -0,0 +1,352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sling.commons.cache.local;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.apache.felix.scr.annotations.Activate;
+import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Property;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.ReferenceCardinality;
+import org.apache.felix.scr.annotations.ReferencePolicy;
+import org.apache.felix.scr.annotations.Service;
+import org.apache.sling.commons.cache.api.Cache;
+import org.apache.sling.commons.cache.api.CacheManagerService;
+import org.apache.sling.commons.cache.api.CacheScope;
+import org.apache.sling.commons.cache.impl.AbstractCacheManagerService;
+import org.apache.sling.discovery.TopologyEvent;
+import org.apache.sling.discovery.TopologyEventListener;
+import org.apache.sling.discovery.TopologyView;
+import org.osgi.service.event.Event;
+import org.osgi.service.event.EventAdmin;
+import org.osgi.service.event.EventConstants;
+import org.osgi.service.event.EventHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The <code>CacheManagerServiceImpl</code> keeps the instance caches in
+ * memory, each bounded by the configured maximum size.
+ * <p>
+ * Modifications of {@link CacheScope#CLUSTERINVALIDATED} caches are sent to
+ * the other instances of the cluster through the distributed event admin,
+ * which remove the modified entries from their copy of the cache.
+ */
+@Component(immediate = true, metatype = true)
+@Service(value = { CacheManagerService.class, EventHandler.class,
+		TopologyEventListener.class })
+@Reference(name = "eventAdmin", referenceInterface = EventAdmin.class,
+		cardinality = ReferenceCardinality.OPTIONAL_UNARY,
+		policy = ReferencePolicy.DYNAMIC)
+public class CacheManagerServiceImpl extends AbstractCacheManagerService
+		implements EventHandler, TopologyEventListener,
+		InvalidationChannel.Receiver {
+
+	public static final long DEFAULT_MAXIMUM_SIZE = 10000;
+
+	@Property(longValue = DEFAULT_MAXIMUM_SIZE)
+	public static final String MAXIMUM_SIZE = "maximum-size";
+
+	@Property(longValue = 0)
+	public static final String EXPIRE_AFTER_WRITE = "expire-after-write";
+
+	public static final long DEFAULT_INVALIDATION_WINDOW = 100;
+
+	@Property(longValue = DEFAULT_INVALIDATION_WINDOW)
+	public static final String INVALIDATION_WINDOW = "invalidation-window";
+
+	public static final long DEFAULT_INVALIDATION_BATCH_SIZE = 1000;
+
+	@Property(longValue = DEFAULT_INVALIDATION_BATCH_SIZE)
+	public static final String INVALIDATION_BATCH_SIZE = "invalidation-batch-size";
+
+	@Property(value = InvalidationChannel.TOPIC, propertyPrivate = true)
+	static final String EVENT_TOPIC = EventConstants.EVENT_TOPIC;
+
+	@Property(value = "The Apache Software Foundation")
+	static final String SERVICE_VENDOR = "service.vendor";
+
+	@Property(value = "Local Cache Manager Service Implementation")
+	static final String SERVICE_DESCRIPTION = "service.description";
+
+	static final String JMX_DOMAIN = "org.apache.sling.commons.cache";
+
+	static final String JMX_TYPE_INSTANCE = "LocalCache";
+
+	static final String JMX_TYPE_CLUSTERINVALIDATED = "ClusterInvalidatedCache";
+
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(CacheManagerServiceImpl.class);
+
+	private final ConcurrentMap<String, CacheImpl<?>> caches = new ConcurrentHashMap<String, CacheImpl<?>>();
+
+	/**
+	 * The entries of the cluster invalidated caches, kept apart from the
+	 * instance caches of the same name, which must not be invalidated by the
+	 * other instances.
+	 */
+	private final ConcurrentMap<String, CacheImpl<?>> clusterCaches = new ConcurrentHashMap<String, CacheImpl<?>>();
+
+	private final ConcurrentMap<String, Cache<?>> clusterViews = new ConcurrentHashMap<String, Cache<?>>();
+
+	private long maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+	private long expireAfterWrite;
+
+	private MBeanServer mBeanServer;
+
+	private InvalidationChannel channel;
+
+	private EventAdmin eventAdmin;
+
+	public CacheManagerServiceImpl() throws IOException {
+	}
+
+	@Activate
+	public void activate(Map<String, Object> properties) {
+		maximumSize = toLong(properties.get(MAXIMUM_SIZE), DEFAULT_MAXIMUM_SIZE);
+		expireAfterWrite = toLong(properties.get(EXPIRE_AFTER_WRITE), 0) * 1000;
+		mBeanServer = ManagementFactory.getPlatformMBeanServer();
+		synchronized (this) {
+			channel = new InvalidationChannel(this, toLong(
+					properties.get(INVALIDATION_WINDOW),
+					DEFAULT_INVALIDATION_WINDOW), (int) toLong(
+					properties.get(INVALIDATION_BATCH_SIZE),
+					DEFAULT_INVALIDATION_BATCH_SIZE));
+			channel.setEventAdmin(eventAdmin);
+		}
+		LOGGER.info("Local caches hold up to {} entries, expiring after {} ms",
+				maximumSize, expireAfterWrite);
+	}
+
+	/**
+	 * Clear the caches and unregister their statistics.
+	 */
+	@Deactivate
+	public void deactivate() {
+		synchronized (this) {
+			if (channel != null) {
+				channel.close();
+				channel = null;
+			}
+		}
+		clusterViews.clear();
+		clear(clusterCaches, JMX_TYPE_CLUSTERINVALIDATED);
+		clear(caches, JMX_TYPE_INSTANCE);
+	}
+
+	private void clear(ConcurrentMap<String, CacheImpl<?>> map, String type) {
+		for (CacheImpl<?> cache : map.values()) {
+			cache.clear();
+			unregister(cache, type);
+		}
+		map.clear();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.apache.sling.commons.cache.impl.AbstractCacheManagerService#getCache(java.lang.String,
+	 *      org.apache.sling.commons.cache.api.CacheScope)
+	 */
+	@Override
+	public <V> Cache<V> getCache(String name, CacheScope scope) {
+		if (scope == CacheScope.CLUSTERINVALIDATED) {
+			return getClusterInvalidatedCache(name);
+		}
+		return super.getCache(name, scope);
+	}
+
+	/**
+	 * @param name
+	 * @return the cluster invalidated cache of the given name, sending its
+	 *         modifications to the other instances.
+	 */
+	@SuppressWarnings("unchecked")
+	protected <V> Cache<V> getClusterInvalidatedCache(String name) {
+		if (name == null) {
+			name = "default";
+		}
+		Cache<V> c = (Cache<V>) clusterViews.get(name);
+		if (c == null) {
+			Cache<V> cache = getCache(clusterCaches, name,
+					JMX_TYPE_CLUSTERINVALIDATED);
+			InvalidationChannel ch = channel;
+			if (ch == null) {
+				return cache;
+			}
+			c = new ClusterInvalidatedCache<V>(name, cache, ch);
+			Cache<V> existing = (Cache<V>) clusterViews.putIfAbsent(name, c);
+			if (existing != null) {
+				return existing;
+			}
+		}
+		return c;
+	}
+
+	/**
+	 * @param name
+	 * @return
+	 */
+	@Override
+	protected <V> Cache<V> getInstanceCache(String name) {
+		if (name == null) {
+			name = "default";
+		}
+		return getCache(caches, name, JMX_TYPE_INSTANCE);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <V> CacheImpl<V> getCache(
+			ConcurrentMap<String, CacheImpl<?>> map, String name, String type) {
+		CacheImpl<V> c = (CacheImpl<V>) map.get(name);
+		if (c == null) {
+			c = new CacheImpl<V>(name, maximumSize, expireAfterWrite);
+			CacheImpl<V> existing = (CacheImpl<V>) map.putIfAbsent(name, c);
+			if (existing != null) {
+				return existing;
+			}
+			register(c, type);
+		}
+		return c;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.osgi.service.event.EventHandler#handleEvent(org.osgi.service.event.Event)
+	 */
+	public void handleEvent(Event event) {
+		InvalidationChannel ch = channel;
+		if (ch != null) {
+			ch.receive(event);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.apache.sling.discovery.TopologyEventListener#handleTopologyEvent(org.apache.sling.discovery.TopologyEvent)
+	 */
+	public void handleTopologyEvent(TopologyEvent event) {
+		InvalidationChannel ch = channel;
+		TopologyView view = event.getNewView();
+		if (ch == null || view == null) {
+			return;
+		}
+		// nothing needs to be sent while this instance is alone in its cluster
+		ch.setPeers(view.getLocalInstance().getClusterView().getInstances()
+				.size() > 1);
+	}
+
+	public void invalidate(String cache, String key) {
+		CacheImpl<?> c = clusterCaches.get(cache);
+		if (c != null) {
+			c.remove(key);
+		}
+	}
+
+	public void invalidateChildren(String cache, String key) {
+		CacheImpl<?> c = clusterCaches.get(cache);
+		if (c != null) {
+			c.removeChildren(key);
+		}
+	}
+
+	public void invalidateAll(String cache) {
+		CacheImpl<?> c = clusterCaches.get(cache);
+		if (c != null) {
+			c.clear();
+		}
+	}
+
+	protected synchronized void bindEventAdmin(EventAdmin eventAdmin) {
+		this.eventAdmin = eventAdmin;
+		if (channel != null) {
+			channel.setEventAdmin(eventAdmin);
+		}
+	}
+
+	protected synchronized void unbindEventAdmin(EventAdmin eventAdmin) {
+		if (this.eventAdmin == eventAdmin) {
+			this.eventAdmin = null;
+			if (channel != null) {
+				channel.setEventAdmin(null);
+			}
+		}
+	}
+
+	private void register(CacheImpl<?> cache, String type) {
+		if (mBeanServer == null) {
+			return;
+		}
+		try {
+			mBeanServer.registerMBean(new StandardMBean(cache,
+					CacheStatisticsMBean.class), getObjectName(cache, type));
+		} catch (JMException e) {
+			LOGGER.warn("Unable to register statistics of cache "
+					+ cache.getName(), e);
+		}
+	}
+
+	private void unregister(CacheImpl<?> cache, String type) {
+		if (mBeanServer == null) {
+			return;
+		}
+		try {
+			ObjectName objectName = getObjectName(cache, type);
+			if (mBeanServer.isRegistered(objectName)) {
+				mBeanServer.unregisterMBean(objectName);
+			}
+		} catch (JMException e) {
+			LOGGER.debug("Unable to unregister statistics of cache "
+					+ cache.getName(), e);
+		}
+	}
+
+	private ObjectName getObjectName(CacheImpl<?> cache, String type)
+			throws JMException {
+		return new ObjectName(JMX_DOMAIN + ":type=" + type + ",name="
+				+ ObjectName.quote(cache.getName()));
+	}
+
+	private long toLong(Object object, long defaultValue) {
+		if (object instanceof Number) {
+			return ((Number) object).longValue();
+		}
+		try {
+			return Long.parseLong(toString(object, String.valueOf(defaultValue)));
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+}
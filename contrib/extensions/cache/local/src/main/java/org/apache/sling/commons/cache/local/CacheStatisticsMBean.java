@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sling.commons.cache.local;
+
+/**
+ * Statistics of a local cache, registered with JMX by the
+ * {@link CacheManagerServiceImpl}.
+ */
+public interface CacheStatisticsMBean {
+
+	String getName();
+
+	/**
+	 * @return The number of entries in the cache.
+	 */
+	long getSize();
+
+	/**
+	 * @return The total weight of the entries in the cache.
+	 */
+	long getWeightedSize();
+
+	long getMaximumWeight();
+
+	long getHitCount();
+
+	long getMissCount();
+
+	/**
+	 * @return hits / (hits + misses), or 1 if there was no lookup.
+	 */
+	double getHitRatio();
+
+	/**
+	 * @return The number of entries removed to stay within the maximum
+	 *         weight.
+	 */
+	long getEvictionCount();
+
+	/**
+	 * @return The number of entries removed because they expired.
+	 */
+	long getExpirationCount();
+
+	long getLoadSuccessCount();
+
+	long getLoadFailureCount();
+
+	/**
+	 * @return The average time in milliseconds a load took.
+	 */
+	double getAverageLoadTime();
+
+	void resetStatistics();
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sling.commons.cache.local;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.sling.commons.cache.api.Cache;
+import org.apache.sling.commons.cache.api.CacheLoader;
+
+/**
+ * A view of a local cache which sends every local modification to the
+ * {@link InvalidationChannel}, so the other instances of the cluster drop
+ * their copies of the modified entries. Values loaded through a
+ * {@link CacheLoader} are not sent, they are read from the shared source.
+ * Every put is sent, even after a local miss: the entry may have been
+ * evicted or expired here while other instances still hold a copy.
+ */
+class ClusterInvalidatedCache<V> implements Cache<V> {
+
+	private final String name;
+
+	private final Cache<V> cache;
+
+	private final InvalidationChannel channel;
+
+	ClusterInvalidatedCache(String name, Cache<V> cache,
+			InvalidationChannel channel) {
+		this.name = name;
+		this.cache = cache;
+		this.channel = channel;
+	}
+
+	public V put(String key, V payload) {
+		V previous = cache.put(key, payload);
+		channel.invalidate(name, key);
+		return previous;
+	}
+
+	public void putAll(Map<? extends String, ? extends V> entries) {
+		cache.putAll(entries);
+		channel.invalidate(name, entries.keySet());
+	}
+
+	public boolean containsKey(String key) {
+		return cache.containsKey(key);
+	}
+
+	public V get(String key) {
+		return cache.get(key);
+	}
+
+	public V get(String key, CacheLoader<V> loader) {
+		return cache.get(key, loader);
+	}
+
+	public Map<String, V> getAll(Collection<String> keys) {
+		return cache.getAll(keys);
+	}
+
+	public void clear() {
+		cache.clear();
+		channel.invalidateAll(name);
+	}
+
+	public boolean remove(String key) {
+		boolean removed = cache.remove(key);
+		channel.invalidate(name, key);
+		return removed;
+	}
+
+	public void removeChildren(String key) {
+		cache.removeChildren(key);
+		channel.invalidateChildren(name, key);
+	}
+
+	public Collection<V> values() {
+		return cache.values();
+	}
+
+	public Collection<String> keys() {
+		return cache.keys();
+	}
+
+}
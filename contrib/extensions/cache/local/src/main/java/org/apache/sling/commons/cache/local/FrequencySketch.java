@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sling.commons.cache.local;
+
+/**
+ * A count-min sketch estimating how often a key has been accessed recently.
+ * Each key maps to four 4-bit counters, one in each of four rows spread over
+ * a single long array. When the number of recorded accesses reaches ten
+ * times the capacity all counters are halved, so the estimate ages out old
+ * accesses. Not thread safe, the cache guards it with its eviction lock.
+ */
+class FrequencySketch {
+
+	private static final long[] SEEDS = { 0xc3a5c85c97cb3127L,
+			0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+	private static final long RESET_MASK = 0x7777777777777777L;
+
+	private final long[] table;
+
+	private final int tableMask;
+
+	private final int sampleSize;
+
+	private int additions;
+
+	/**
+	 * @param capacity
+	 *            The expected number of entries in the cache.
+	 */
+	FrequencySketch(long capacity) {
+		int maximum = (int) Math.min(Math.max(capacity, 16), 1 << 24);
+		int size = Integer.highestOneBit(maximum - 1) << 1;
+		table = new long[size];
+		tableMask = size - 1;
+		sampleSize = 10 * maximum;
+	}
+
+	/**
+	 * @return the estimated access frequency of the hash, from 0 to 15.
+	 */
+	int frequency(int hash) {
+		int start = (hash & 3) << 2;
+		int frequency = Integer.MAX_VALUE;
+		for (int i = 0; i < 4; i++) {
+			int index = indexOf(hash, i);
+			int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+			frequency = Math.min(frequency, count);
+		}
+		return frequency;
+	}
+
+	/**
+	 * Record an access of the hash.
+	 */
+	void increment(int hash) {
+		int start = (hash & 3) << 2;
+		boolean added = false;
+		for (int i = 0; i < 4; i++) {
+			int index = indexOf(hash, i);
+			long mask = 0xfL << ((start + i) << 2);
+			if ((table[index] & mask) != mask) {
+				table[index] += 1L << ((start + i) << 2);
+				added = true;
+			}
+		}
+		if (added && ++additions == sampleSize) {
+			reset();
+		}
+	}
+
+	private int indexOf(int hash, int row) {
+		long h = (hash + SEEDS[row]) * SEEDS[row];
+		h += h >>> 32;
+		return ((int) h) & tableMask;
+	}
+
+	private void reset() {
+		for (int i = 0; i < table.length; i++) {
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+		additions >>>= 1;
+	}
+
+}
@@ -0,0 +1,331 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sling.commons.cache.local;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.osgi.service.event.Event;
+import org.osgi.service.event.EventAdmin;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Broadcasts invalidations of cluster invalidated caches to the other
+ * instances of the cluster and applies the invalidations received from them.
+ * <p>
+ * Invalidations are collected for a short window and then posted as one
+ * distributable event, which the distributed event admin delivers to the
+ * other instances. Within a window invalidations of the same key are sent
+ * once, and a cache with more invalidations than the maximum batch size is
+ * cleared instead.
+ */
+class InvalidationChannel {
+
+	/** The topic of the invalidation events. */
+	static final String TOPIC = "org/apache/sling/commons/cache/INVALIDATE";
+
+	/** Marks an event for distribution by the distributed event admin. */
+	static final String PROPERTY_DISTRIBUTE = "event.distribute";
+
+	static final String PROPERTY_SENDER = "cache.invalidation.sender";
+
+	/** The names of the caches, one per invalidation. */
+	static final String PROPERTY_CACHES = "cache.invalidation.caches";
+
+	/** The kinds of the invalidations, see the TYPE constants. */
+	static final String PROPERTY_TYPES = "cache.invalidation.types";
+
+	/** The invalidated keys, one per invalidation. */
+	static final String PROPERTY_KEYS = "cache.invalidation.keys";
+
+	static final String TYPE_KEY = "k";
+
+	static final String TYPE_CHILDREN = "c";
+
+	static final String TYPE_ALL = "a";
+
+	/**
+	 * Applies received invalidations to the local caches.
+	 */
+	interface Receiver {
+
+		void invalidate(String cache, String key);
+
+		void invalidateChildren(String cache, String key);
+
+		void invalidateAll(String cache);
+
+	}
+
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(InvalidationChannel.class);
+
+	private final String senderId = UUID.randomUUID().toString();
+
+	private final Receiver receiver;
+
+	private final long window;
+
+	private final int maxBatchSize;
+
+	private final ScheduledExecutorService executor;
+
+	private volatile EventAdmin eventAdmin;
+
+	private volatile boolean peers = true;
+
+	/** Invalidations waiting to be sent, guarded by this. */
+	private Map<String, Pending> pending = new LinkedHashMap<String, Pending>();
+
+	private boolean flushScheduled;
+
+	/** Set once the channel is closed, guarded by this. */
+	private boolean closed;
+
+	/**
+	 * @param receiver
+	 *            Applies received invalidations.
+	 * @param window
+	 *            Milliseconds to collect invalidations before sending them.
+	 * @param maxBatchSize
+	 *            The maximum number of invalidations sent for one cache in
+	 *            one window.
+	 */
+	InvalidationChannel(Receiver receiver, long window, int maxBatchSize) {
+		this.receiver = receiver;
+		this.window = window;
+		this.maxBatchSize = maxBatchSize;
+		this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Sling Cache Invalidation");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	void setEventAdmin(EventAdmin eventAdmin) {
+		this.eventAdmin = eventAdmin;
+	}
+
+	/**
+	 * @param peers
+	 *            false if this instance is known to be alone in its cluster,
+	 *            in which case nothing is sent.
+	 */
+	void setPeers(boolean peers) {
+		this.peers = peers;
+	}
+
+	void invalidate(String cache, String key) {
+		add(cache, TYPE_KEY, key);
+	}
+
+	/**
+	 * Adds the invalidations of several keys of a cache at once.
+	 */
+	synchronized void invalidate(String cache, Collection<? extends String> keys) {
+		if (closed || !peers || eventAdmin == null) {
+			return;
+		}
+		Pending p = getPending(cache);
+		for (String key : keys) {
+			p.add(TYPE_KEY, key, maxBatchSize);
+		}
+		scheduleFlush();
+	}
+
+	void invalidateChildren(String cache, String key) {
+		add(cache, TYPE_CHILDREN, key);
+	}
+
+	void invalidateAll(String cache) {
+		add(cache, TYPE_ALL, null);
+	}
+
+	private synchronized void add(String cache, String type, String key) {
+		if (closed || !peers || eventAdmin == null) {
+			return;
+		}
+		getPending(cache).add(type, key, maxBatchSize);
+		scheduleFlush();
+	}
+
+	/**
+	 * The pending invalidations of the cache, must be called holding the
+	 * lock of this.
+	 */
+	private Pending getPending(String cache) {
+		Pending p = pending.get(cache);
+		if (p == null) {
+			p = new Pending();
+			pending.put(cache, p);
+		}
+		return p;
+	}
+
+	/**
+	 * Schedules sending the pending invalidations at the end of the window,
+	 * must be called holding the lock of this.
+	 */
+	private void scheduleFlush() {
+		if (!flushScheduled) {
+			flushScheduled = true;
+			executor.schedule(new Runnable() {
+				public void run() {
+					flush();
+				}
+			}, window, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Send the collected invalidations as one event.
+	 */
+	void flush() {
+		Map<String, Pending> toSend;
+		synchronized (this) {
+			toSend = pending;
+			pending = new LinkedHashMap<String, Pending>();
+			flushScheduled = false;
+		}
+		EventAdmin admin = eventAdmin;
+		if (toSend.isEmpty() || admin == null) {
+			return;
+		}
+		List<String> caches = new ArrayList<String>();
+		List<String> types = new ArrayList<String>();
+		List<String> keys = new ArrayList<String>();
+		for (Map.Entry<String, Pending> e : toSend.entrySet()) {
+			e.getValue().write(e.getKey(), caches, types, keys);
+		}
+		Dictionary<String, Object> properties = new Hashtable<String, Object>();
+		properties.put(PROPERTY_DISTRIBUTE, "");
+		properties.put(PROPERTY_SENDER, senderId);
+		properties.put(PROPERTY_CACHES, caches.toArray(new String[caches.size()]));
+		properties.put(PROPERTY_TYPES, types.toArray(new String[types.size()]));
+		properties.put(PROPERTY_KEYS, keys.toArray(new String[keys.size()]));
+		admin.postEvent(new Event(TOPIC, properties));
+		LOGGER.debug("Sent {} cache invalidations", caches.size());
+	}
+
+	/**
+	 * Apply the invalidations of an event sent by another instance.
+	 */
+	void receive(Event event) {
+		if (senderId.equals(event.getProperty(PROPERTY_SENDER))) {
+			return;
+		}
+		Object caches = event.getProperty(PROPERTY_CACHES);
+		Object types = event.getProperty(PROPERTY_TYPES);
+		Object keys = event.getProperty(PROPERTY_KEYS);
+		if (!(caches instanceof String[]) || !(types instanceof String[])
+				|| !(keys instanceof String[])) {
+			LOGGER.warn("Ignoring malformed cache invalidation event {}", event);
+			return;
+		}
+		String[] c = (String[]) caches;
+		String[] t = (String[]) types;
+		String[] k = (String[]) keys;
+		for (int i = 0; i < c.length && i < t.length && i < k.length; i++) {
+			if (TYPE_KEY.equals(t[i])) {
+				receiver.invalidate(c[i], k[i]);
+			} else if (TYPE_CHILDREN.equals(t[i])) {
+				receiver.invalidateChildren(c[i], k[i]);
+			} else if (TYPE_ALL.equals(t[i])) {
+				receiver.invalidateAll(c[i]);
+			}
+		}
+	}
+
+	/**
+	 * Send the pending invalidations and stop the channel. Invalidations
+	 * added afterwards are dropped.
+	 */
+	void close() {
+		synchronized (this) {
+			closed = true;
+		}
+		executor.shutdownNow();
+		flush();
+	}
+
+	/**
+	 * The invalidations of one cache within a window.
+	 */
+	private static final class Pending {
+
+		private boolean all;
+
+		private final Set<String> keys = new LinkedHashSet<String>();
+
+		private final Set<String> children = new LinkedHashSet<String>();
+
+		void add(String type, String key, int maxBatchSize) {
+			if (all) {
+				return;
+			}
+			if (TYPE_ALL.equals(type)
+					|| keys.size() + children.size() >= maxBatchSize) {
+				all = true;
+				keys.clear();
+				children.clear();
+			} else if (TYPE_CHILDREN.equals(type)) {
+				children.add(key);
+			} else {
+				keys.add(key);
+			}
+		}
+
+		void write(String cache, List<String> caches, List<String> types,
+				List<String> keyList) {
+			if (all) {
+				caches.add(cache);
+				types.add(TYPE_ALL);
+				keyList.add("");
+				return;
+			}
+			for (String key : children) {
+				caches.add(cache);
+				types.add(TYPE_CHILDREN);
+				keyList.add(key);
+			}
+			for (String key : keys) {
+				caches.add(cache);
+				types.add(TYPE_KEY);
+				keyList.add(key);
+			}
+		}
+	}
+
+}
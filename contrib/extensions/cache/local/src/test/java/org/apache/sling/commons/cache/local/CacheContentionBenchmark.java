@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sling.commons.cache.local;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.sling.commons.cache.api.Cache;
+import org.apache.sling.commons.cache.api.CacheManagerService;
+import org.apache.sling.commons.cache.api.CacheScope;
+import org.junit.Test;
+
+/**
+ * Compares the throughput of the local, EhCache and Infinispan instance
+ * caches with several threads reading and writing a skewed key distribution.
+ * Not run by default, run it with
+ * <code>mvn test -Dtest=CacheContentionBenchmark</code>.
+ */
+public class CacheContentionBenchmark {
+
+	private static final int KEYS = 100000;
+
+	private static final int OPERATIONS = 1000000;
+
+	private static final int WRITE_PERCENT = 10;
+
+	private static final int[] THREADS = { 1, 4, 16 };
+
+	@Test
+	public void benchmark() throws Exception {
+		String[] keys = createKeys();
+
+		CacheManagerServiceImpl local = new CacheManagerServiceImpl();
+		Map<String, Object> localProperties = new HashMap<String, Object>();
+		localProperties.put(CacheManagerServiceImpl.MAXIMUM_SIZE, "10000");
+		local.activate(localProperties);
+		run("local", local, keys);
+		local.deactivate();
+
+		org.apache.sling.commons.cache.ehcache.CacheManagerServiceImpl ehcache = new org.apache.sling.commons.cache.ehcache.CacheManagerServiceImpl();
+		ehcache.activate(getStoreProperties("target/ehcache/store"));
+		run("ehcache", ehcache, keys);
+		ehcache.deactivate();
+
+		org.apache.sling.commons.cache.infinispan.CacheManagerServiceImpl infinispan = new org.apache.sling.commons.cache.infinispan.CacheManagerServiceImpl();
+		infinispan.activate(getStoreProperties("target/infinispan/store"));
+		run("infinispan", infinispan, keys);
+		infinispan.deactivate();
+	}
+
+	private Map<String, Object> getStoreProperties(String store) {
+		Map<String, Object> properties = new HashMap<String, Object>();
+		properties.put("cache-store", store);
+		properties.put("bind-address", "127.0.0.1");
+		return properties;
+	}
+
+	/**
+	 * Keys drawn from a Zipf like distribution, so a small set of keys is
+	 * accessed most of the time.
+	 */
+	private String[] createKeys() {
+		Random random = new Random(42);
+		String[] keys = new String[OPERATIONS];
+		for (int i = 0; i < keys.length; i++) {
+			double u = random.nextDouble();
+			int rank = (int) Math.floor(Math.pow(KEYS, u)) - 1;
+			keys[i] = "/content/page" + rank;
+		}
+		return keys;
+	}
+
+	private void run(String name, CacheManagerService manager,
+			final String[] keys) throws InterruptedException {
+		for (int threads : THREADS) {
+			final Cache<String> cache = manager.getCache("benchmark-" + threads,
+					CacheScope.INSTANCE);
+			final AtomicLong hits = new AtomicLong();
+			final CountDownLatch start = new CountDownLatch(1);
+			Thread[] workers = new Thread[threads];
+			final int perThread = keys.length / threads;
+			for (int t = 0; t < threads; t++) {
+				final int offset = t * perThread;
+				workers[t] = new Thread() {
+					@Override
+					public void run() {
+						try {
+							start.await();
+						} catch (InterruptedException e) {
+							return;
+						}
+						long h = 0;
+						for (int i = 0; i < perThread; i++) {
+							String key = keys[offset + i];
+							if (i % 100 < WRITE_PERCENT) {
+								cache.put(key, key);
+							} else if (cache.get(key) != null) {
+								h++;
+							} else {
+								cache.put(key, key);
+							}
+						}
+						hits.addAndGet(h);
+					}
+				};
+				workers[t].start();
+			}
+			long begin = System.nanoTime();
+			start.countDown();
+			for (Thread worker : workers) {
+				worker.join();
+			}
+			long elapsed = System.nanoTime() - begin;
+			int operations = perThread * threads;
+			System.out.println(String.format(
+					"%-10s %2d threads: %,12.0f ops/s, hit ratio %.2f", name,
+					threads, operations * 1e9 / elapsed, (double) hits.get()
+							/ (operations * (100 - WRITE_PERCENT) / 100)));
+		}
+	}
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sling.commons.cache.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sling.commons.cache.api.CacheLoader;
+import org.apache.sling.commons.cache.api.CacheLoaderException;
+import org.junit.Test;
+
+public class CacheImplTest {
+
+	@Test
+	public void testBoundedSize() {
+		CacheImpl<String> cache = new CacheImpl<String>("test", 100, 0);
+		for (int i = 0; i < 1000; i++) {
+			cache.put("key" + i, "value" + i);
+		}
+		assertEquals(100, cache.getSize());
+		assertEquals(100, cache.getWeightedSize());
+		assertEquals(900, cache.getEvictionCount());
+	}
+
+	@Test
+	public void testFrequentlyUsedEntriesSurvive() {
+		CacheImpl<String> cache = new CacheImpl<String>("test", 100, 0);
+		for (int i = 0; i < 50; i++) {
+			cache.put("hot" + i, "value");
+		}
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < 50; i++) {
+				cache.get("hot" + i);
+			}
+		}
+		// a scan of entries which are used once must not flush the hot ones
+		for (int i = 0; i < 10000; i++) {
+			cache.put("cold" + i, "value");
+		}
+		int hot = 0;
+		for (int i = 0; i < 50; i++) {
+			if (cache.containsKey("hot" + i)) {
+				hot++;
+			}
+		}
+		assertTrue("Expected most hot entries to be retained, got " + hot,
+				hot >= 45);
+	}
+
+	@Test
+	public void testWeigher() {
+		CacheImpl<String> cache = new CacheImpl<String>("test", 100, 0,
+				new Weigher<String>() {
+					public int weigh(String key, String value) {
+						return value.length();
+					}
+				});
+		for (int i = 0; i < 100; i++) {
+			cache.put("key" + i, "0123456789");
+		}
+		assertEquals(10, cache.getSize());
+		assertTrue(cache.getWeightedSize() <= 100);
+	}
+
+	@Test
+	public void testExpiry() throws InterruptedException {
+		CacheImpl<String> cache = new CacheImpl<String>("test", 100, 50);
+		cache.put("fish", "cat");
+		assertEquals("cat", cache.get("fish"));
+		Thread.sleep(100);
+		assertNull(cache.get("fish"));
+		assertFalse(cache.containsKey("fish"));
+		assertEquals(0, cache.getSize());
+		assertEquals(1, cache.getExpirationCount());
+	}
+
+	@Test
+	public void testBulkOperations() {
+		CacheImpl<String> cache = new CacheImpl<String>("test", 100, 0);
+		Map<String, String> entries = new HashMap<String, String>();
+		entries.put("a", "1");
+		entries.put("b", "2");
+		cache.putAll(entries);
+		Map<String, String> result = cache.getAll(Arrays.asList("a", "b", "c"));
+		assertEquals(entries, result);
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void testRemoveChildren() {
+		CacheImpl<String> cache = new CacheImpl<String>("test", 100, 0);
+		cache.put("fish", "cat");
+		cache.put("fish/child", "childcat");
+		cache.put("fisherman", "other");
+		cache.removeChildren("fish");
+		assertNull(cache.get("fish"));
+		assertNull(cache.get("fish/child"));
+		assertEquals("other", cache.get("fisherman"));
+		assertEquals(1, cache.getWeightedSize());
+	}
+
+	@Test
+	public void testSingleFlightLoading() throws InterruptedException {
+		final CacheImpl<String> cache = new CacheImpl<String>("test", 100, 0);
+		final AtomicInteger loads = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CacheLoader<String> loader = new CacheLoader<String>() {
+			public String load(String key) throws Exception {
+				loads.incrementAndGet();
+				started.countDown();
+				release.await();
+				return "loaded " + key;
+			}
+		};
+		Thread[] threads = new Thread[8];
+		final String[] results = new String[threads.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					results[index] = cache.get("key", loader);
+				}
+			};
+			threads[i].start();
+		}
+		started.await();
+		Thread.sleep(50);
+		release.countDown();
+		for (Thread t : threads) {
+			t.join();
+		}
+		assertEquals(1, loads.get());
+		for (String result : results) {
+			assertEquals("loaded key", result);
+		}
+		assertEquals("loaded key", cache.get("key"));
+	}
+
+	@Test
+	public void testLoaderFailure() {
+		CacheImpl<String> cache = new CacheImpl<String>("test", 100, 0);
+		try {
+			cache.get("key", new CacheLoader<String>() {
+				public String load(String key) throws Exception {
+					throw new Exception("failed");
+				}
+			});
+			fail("Expected CacheLoaderException");
+		} catch (CacheLoaderException e) {
+			assertEquals("failed", e.getCause().getMessage());
+		}
+		assertEquals(1, cache.getLoadFailureCount());
+		assertFalse(cache.containsKey("key"));
+	}
+
+}
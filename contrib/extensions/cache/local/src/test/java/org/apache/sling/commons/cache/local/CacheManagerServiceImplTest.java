@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sling.commons.cache.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+import org.apache.sling.commons.cache.api.Cache;
+import org.apache.sling.commons.cache.api.CacheScope;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CacheManagerServiceImplTest {
+
+	private CacheManagerServiceImpl cacheManagerService;
+
+	@Before
+	public void setUp() throws IOException {
+		cacheManagerService = new CacheManagerServiceImpl();
+		Map<String, Object> properties = new HashMap<String, Object>();
+		properties.put(CacheManagerServiceImpl.MAXIMUM_SIZE, "10");
+		cacheManagerService.activate(properties);
+	}
+
+	@After
+	public void tearDown() {
+		cacheManagerService.deactivate();
+	}
+
+	private void exerciseCache(String cacheName, CacheScope scope) {
+		Cache<String> cache = cacheManagerService.getCache(cacheName, scope);
+		cache.put("fish", "cat");
+		assertTrue("Expected element to be in cache", cache.containsKey("fish"));
+		Cache<String> sameCache = cacheManagerService.getCache(cacheName, scope);
+		assertEquals("Expected cache to work", "cat", sameCache.get("fish"));
+		sameCache.put("fish", "differentcat");
+		assertEquals("Expected cache value to propogate", "differentcat",
+				cache.get("fish"));
+		sameCache.remove("fish");
+		sameCache.remove("another");
+		assertNull("Expected item to be removed from cache", cache.get("fish"));
+		cache.put("foo", "bar");
+		cache.clear();
+		assertNull("Expected cache to be empty", cache.get("foo"));
+		cacheManagerService.unbind(scope);
+	}
+
+	@Test
+	public void testCacheStorage() {
+		for (CacheScope scope : CacheScope.values()) {
+			exerciseCache("TestCache", scope);
+		}
+	}
+
+	@Test
+	public void testNullCacheNames() {
+		for (CacheScope scope : CacheScope.values()) {
+			exerciseCache(null, scope);
+		}
+	}
+
+	@Test
+	public void testInstanceCacheIsBounded() {
+		Cache<String> cache = cacheManagerService.getCache("bounded",
+				CacheScope.INSTANCE);
+		assertSame(cache, cacheManagerService.getCache("bounded",
+				CacheScope.INSTANCE));
+		for (int i = 0; i < 100; i++) {
+			cache.put("key" + i, "value");
+		}
+		assertEquals(10, cache.keys().size());
+	}
+
+	@Test
+	public void testStatisticsRegistered() throws Exception {
+		Cache<String> cache = cacheManagerService.getCache("jmx",
+				CacheScope.INSTANCE);
+		cache.put("fish", "cat");
+		cache.get("fish");
+		cache.get("dog");
+		ObjectName name = new ObjectName(CacheManagerServiceImpl.JMX_DOMAIN
+				+ ":type=LocalCache,name=" + ObjectName.quote("jmx"));
+		assertEquals(1L, ManagementFactory.getPlatformMBeanServer()
+				.getAttribute(name, "HitCount"));
+		assertEquals(1L, ManagementFactory.getPlatformMBeanServer()
+				.getAttribute(name, "MissCount"));
+	}
+
+}
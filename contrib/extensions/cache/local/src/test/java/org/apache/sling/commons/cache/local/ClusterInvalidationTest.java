@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sling.commons.cache.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.commons.cache.api.Cache;
+import org.apache.sling.commons.cache.api.CacheScope;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.service.event.Event;
+import org.osgi.service.event.EventAdmin;
+
+public class ClusterInvalidationTest {
+
+	private final List<CacheManagerServiceImpl> instances = new ArrayList<CacheManagerServiceImpl>();
+
+	private final List<Event> events = new ArrayList<Event>();
+
+	private CacheManagerServiceImpl first;
+
+	private CacheManagerServiceImpl second;
+
+	/**
+	 * Delivers every event to all instances, like the distributed event
+	 * admin does.
+	 */
+	private final EventAdmin eventAdmin = new EventAdmin() {
+
+		public void postEvent(Event event) {
+			for (CacheManagerServiceImpl instance : instances) {
+				instance.handleEvent(event);
+			}
+			synchronized (events) {
+				events.add(event);
+			}
+		}
+
+		public void sendEvent(Event event) {
+			postEvent(event);
+		}
+	};
+
+	@Before
+	public void setUp() throws IOException {
+		first = createInstance();
+		second = createInstance();
+	}
+
+	private CacheManagerServiceImpl createInstance() throws IOException {
+		CacheManagerServiceImpl instance = new CacheManagerServiceImpl();
+		Map<String, Object> properties = new HashMap<String, Object>();
+		properties.put(CacheManagerServiceImpl.INVALIDATION_WINDOW, "10");
+		properties.put(CacheManagerServiceImpl.INVALIDATION_BATCH_SIZE, "5");
+		instance.activate(properties);
+		instance.bindEventAdmin(eventAdmin);
+		instances.add(instance);
+		return instance;
+	}
+
+	@After
+	public void tearDown() {
+		for (CacheManagerServiceImpl instance : instances) {
+			instance.deactivate();
+		}
+	}
+
+	private void awaitEvents(int count) throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			synchronized (events) {
+				if (events.size() >= count) {
+					return;
+				}
+			}
+			Thread.sleep(10);
+		}
+		synchronized (events) {
+			assertEquals("Expected invalidation events", count, events.size());
+		}
+	}
+
+	@Test
+	public void testPutInvalidatesPeer() throws InterruptedException {
+		Cache<String> local = first.getCache("test",
+				CacheScope.CLUSTERINVALIDATED);
+		Cache<String> remote = second.getCache("test",
+				CacheScope.CLUSTERINVALIDATED);
+		remote.put("a", "stale");
+		awaitEvents(1);
+		local.put("a", "fresh");
+		awaitEvents(2);
+		assertEquals("fresh", local.get("a"));
+		assertNull("Expected the peer to drop the key", remote.get("a"));
+	}
+
+	@Test
+	public void testPutAfterLocalEvictionInvalidatesPeer()
+			throws InterruptedException {
+		Cache<String> local = first.getCache("test",
+				CacheScope.CLUSTERINVALIDATED);
+		Cache<String> remote = second.getCache("test",
+				CacheScope.CLUSTERINVALIDATED);
+		local.put("a", "old");
+		awaitEvents(1);
+		// drop the entry locally only, as an eviction or expiry does
+		first.invalidate("test", "a");
+		assertNull(local.get("a"));
+		remote.put("a", "stale");
+		awaitEvents(2);
+
+		local.put("a", "fresh");
+		awaitEvents(3);
+		synchronized (events) {
+			String[] keys = (String[]) events.get(2).getProperty(
+					InvalidationChannel.PROPERTY_KEYS);
+			assertEquals(1, keys.length);
+			assertEquals("a", keys[0]);
+		}
+		assertNull("Expected the peer to drop the key", remote.get("a"));
+	}
+
+	@Test
+	public void testPutAllSentAsOneBatch() throws InterruptedException {
+		Cache<String> local = first.getCache("test",
+				CacheScope.CLUSTERINVALIDATED);
+		Cache<String> remote = second.getCache("test",
+				CacheScope.CLUSTERINVALIDATED);
+		remote.put("b", "stale");
+		awaitEvents(1);
+		Map<String, String> entries = new HashMap<String, String>();
+		entries.put("a", "1");
+		entries.put("b", "2");
+		entries.put("c", "3");
+		local.putAll(entries);
+		awaitEvents(2);
+		Thread.sleep(50);
+		synchronized (events) {
+			assertEquals(2, events.size());
+			String[] keys = (String[]) events.get(1).getProperty(
+					InvalidationChannel.PROPERTY_KEYS);
+			assertEquals(3, keys.length);
+		}
+		assertEquals("2", local.get("b"));
+		assertNull(remote.get("b"));
+	}
+
+	@Test
+	public void testInvalidationsAreCoalesced() throws InterruptedException {
+		Cache<String> local = first.getCache("test",
+				CacheScope.CLUSTERINVALIDATED);
+		Cache<String> remote = second.getCache("test",
+				CacheScope.CLUSTERINVALIDATED);
+		for (int i = 0; i < 3; i++) {
+			local.put("a", "v" + i);
+			local.put("b", "v" + i);
+		}
+		awaitEvents(1);
+		Thread.sleep(50);
+		synchronized (events) {
+			assertEquals(1, events.size());
+			String[] keys = (String[]) events.get(0).getProperty(
+					InvalidationChannel.PROPERTY_KEYS);
+			assertEquals(2, keys.length);
+		}
+		assertEquals("v2", local.get("a"));
+		assertNull(remote.get("a"));
+	}
+
+	@Test
+	public void testLargeBatchClearsPeer() throws InterruptedException {
+		Cache<String> local = first.getCache("test",
+				CacheScope.CLUSTERINVALIDATED);
+		Cache<String> remote = second.getCache("test",
+				CacheScope.CLUSTERINVALIDATED);
+		remote.put("kept", "value");
+		awaitEvents(1);
+		synchronized (events) {
+			events.clear();
+		}
+		for (int i = 0; i < 10; i++) {
+			local.put("key" + i, "value");
+			local.put("key" + i, "value");
+		}
+		awaitEvents(1);
+		String[] types = (String[]) events.get(0).getProperty(
+				InvalidationChannel.PROPERTY_TYPES);
+		assertEquals(1, types.length);
+		assertEquals(InvalidationChannel.TYPE_ALL, types[0]);
+		assertNull("Expected the peer cache to be cleared", remote.get("kept"));
+		assertEquals("value", local.get("key0"));
+	}
+
+	@Test
+	public void testRemoveChildren() throws InterruptedException {
+		Cache<String> local = first.getCache("test",
+				CacheScope.CLUSTERINVALIDATED);
+		Cache<String> remote = second.getCache("test",
+				CacheScope.CLUSTERINVALIDATED);
+		remote.put("/content/a", "1");
+		remote.put("/content/a/b", "2");
+		remote.put("/other", "3");
+		awaitEvents(1);
+		local.removeChildren("/content/a");
+		awaitEvents(2);
+		assertNull(remote.get("/content/a/b"));
+		assertTrue(remote.containsKey("/other"));
+	}
+
+	@Test
+	public void testInstanceCacheNotInvalidated() throws InterruptedException {
+		Cache<String> local = first.getCache("test",
+				CacheScope.CLUSTERINVALIDATED);
+		Cache<String> instance = second.getCache("test", CacheScope.INSTANCE);
+		instance.put("a", "kept");
+		local.put("a", "1");
+		local.put("a", "2");
+		local.clear();
+		awaitEvents(1);
+		Thread.sleep(50);
+		assertEquals("kept", instance.get("a"));
+	}
+
+	@Test
+	public void testNothingSentWithoutPeers() throws InterruptedException {
+		InvalidationChannel channel = new InvalidationChannel(first, 10, 5);
+		channel.setEventAdmin(eventAdmin);
+		channel.setPeers(false);
+		channel.invalidate("test", "a");
+		channel.invalidateAll("test");
+		Thread.sleep(50);
+		channel.close();
+		synchronized (events) {
+			assertEquals(0, events.size());
+		}
+	}
+
+	@Test
+	public void testNothingSentAfterClose() throws InterruptedException {
+		InvalidationChannel channel = new InvalidationChannel(first, 10, 5);
+		channel.setEventAdmin(eventAdmin);
+		channel.close();
+		channel.invalidate("test", "a");
+		channel.invalidateChildren("test", "/a");
+		Thread.sleep(50);
+		synchronized (events) {
+			assertEquals(0, events.size());
+		}
+	}
+}
@@ -52,23 +52,45 @@ public class JcrResourceBundle extends ResourceBundle {
 
     static final String PROP_LANGUAGE = "jcr:language";
 
-    private final Map<String, Object> resources;
+    /**
+     * The messages of this bundle, replaced as a whole by {@link #reload(ResourceResolver)}.
+     */
+    private volatile Map<String, Object> resources;
 
     private final Locale locale;
 
+    private final String baseName;
+
     JcrResourceBundle(Locale locale, String baseName,
             ResourceResolver resourceResolver) {
         this.locale = locale;
-        
+        this.baseName = baseName;
+        this.resources = load(resourceResolver);
+    }
+
+    /**
+     * Reloads the messages of this bundle from the repository. The current
+     * messages are used until the new messages have been loaded completely.
+     */
+    void reload(final ResourceResolver resourceResolver) {
+        this.resources = load(resourceResolver);
+    }
+
+    String getBaseName() {
+        return baseName;
+    }
+
+    private Map<String, Object> load(final ResourceResolver resourceResolver) {
         long start = System.currentTimeMillis();
         refreshSession(resourceResolver, true);
         final String loadQuery = getFullLoadQuery(locale, baseName);
-        this.resources = loadFully(resourceResolver, loadQuery);
+        final Map<String, Object> messages = new MessageDictionary(loadFully(resourceResolver, loadQuery));
         long end = System.currentTimeMillis();
         log.debug(
             "JcrResourceBundle: Fully loaded {} entries for {} (base: {}) in {}ms",
-            new Object[] { resources.size(), locale, baseName,
+            new Object[] { messages.size(), locale, baseName,
                 (end - start) });
+        return messages;
     }
 
     static void refreshSession(ResourceResolver resolver, boolean keepChanges) {
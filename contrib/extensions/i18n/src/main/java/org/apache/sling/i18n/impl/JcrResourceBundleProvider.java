@@ -35,8 +35,11 @@ import java.util.ResourceBundle;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+import javax.jcr.Node;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.observation.Event;
 import javax.jcr.observation.EventIterator;
 import javax.jcr.observation.EventListener;
 import javax.jcr.observation.ObservationManager;
@@ -51,6 +54,7 @@ import org.apache.felix.scr.annotations.Service;
 import org.apache.sling.api.resource.LoginException;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.ResourceUtil;
 import org.apache.sling.commons.osgi.PropertiesUtil;
 import org.apache.sling.i18n.ResourceBundleProvider;
 import org.osgi.framework.BundleContext;
@@ -169,19 +173,98 @@ public class JcrResourceBundleProvider implements ResourceBundleProvider,
 
     /**
      * Called whenever something is changed inside of <code>jcr:language</code>
-     * or <code>sling:Message</code> nodes. We just removed all cached
-     * resource bundles in this case to force reloading them.
+     * or <code>sling:Message</code> nodes. The language nodes containing the
+     * changed items are looked up and only the cached resource bundles for
+     * their language and base names are reloaded. The reloaded bundles keep
+     * serving their old messages until the new messages are loaded, so
+     * their service registrations and the parent links between bundles
+     * are not affected.
      * <p>
-     * This is much simpler than analyzing the events and trying to be clever
-     * about which exact resource bundles to remove from the cache and at the
-     * same time care for any resource bundle dependencies.
+     * If the affected language node cannot be determined, for example
+     * because it has been removed or its language or base name has been
+     * changed, all cached resource bundles are removed to force reloading
+     * them.
      *
-     * @param events The actual JCR events are ignored by this implementation.
+     * @param events The JCR events describing the changes.
      */
     public void onEvent(EventIterator events) {
-        log.debug("onEvent: Resource changes, removing cached ResourceBundles");
-        clearCache();
-        preloadBundles();
+        final List<LanguageChange> changes = new ArrayList<LanguageChange>();
+        boolean languageAdded = false;
+        boolean clear = false;
+
+        final ResourceResolver resolver = this.resourceResolver;
+        final Session session = (resolver == null ? null : resolver.adaptTo(Session.class));
+        if (session == null) {
+            clear = true;
+        } else {
+            try {
+                JcrResourceBundle.refreshSession(resolver, true);
+                while (!clear && events.hasNext()) {
+                    final Event event = events.nextEvent();
+                    final String path = event.getPath();
+                    if (path.endsWith("/" + PROP_LANGUAGE) || path.endsWith("/" + PROP_BASENAME)) {
+                        // the previous language or base name is unknown
+                        clear = true;
+                    } else {
+                        final Node languageNode = getLanguageNode(session, path);
+                        if (languageNode == null) {
+                            clear = true;
+                        } else {
+                            changes.add(new LanguageChange(languageNode));
+                            if (event.getType() == Event.NODE_ADDED && languageNode.getPath().equals(path)) {
+                                languageAdded = true;
+                            }
+                        }
+                    }
+                }
+            } catch (RepositoryException re) {
+                log.debug("onEvent: Cannot determine changed language, removing all cached ResourceBundles", re);
+                clear = true;
+            } catch (RuntimeException re) {
+                log.debug("onEvent: Cannot determine changed language, removing all cached ResourceBundles", re);
+                clear = true;
+            }
+        }
+
+        if (clear) {
+            log.debug("onEvent: Resource changes, removing cached ResourceBundles");
+            clearCache();
+            preloadBundles();
+        } else {
+            for (final Map.Entry<Key, ResourceBundle> entry : resourceBundleCache.entrySet()) {
+                if (entry.getValue() instanceof JcrResourceBundle) {
+                    for (final LanguageChange change : changes) {
+                        if (change.affects(entry.getKey())) {
+                            log.debug("onEvent: Resource changes, reloading ResourceBundle {}", entry.getKey());
+                            ((JcrResourceBundle) entry.getValue()).reload(resolver);
+                            break;
+                        }
+                    }
+                }
+            }
+            if (languageAdded) {
+                preloadBundles();
+            }
+        }
+    }
+
+    /**
+     * Returns the <code>mix:language</code> node containing the item at the
+     * given path or <code>null</code> if there is none.
+     */
+    private Node getLanguageNode(final Session session, final String path)
+    throws RepositoryException {
+        String current = path;
+        while (current != null && current.length() > 1) {
+            if (session.nodeExists(current)) {
+                final Node node = session.getNode(current);
+                if (node.isNodeType("mix:language")) {
+                    return node;
+                }
+            }
+            current = ResourceUtil.getParent(current);
+        }
+        return null;
     }
 
     // ---------- SCR Integration ----------------------------------------------
@@ -567,6 +650,69 @@ public class JcrResourceBundleProvider implements ResourceBundleProvider,
 
     //---------- internal class
 
+    /**
+     * The <code>LanguageChange</code> class holds the language and base
+     * names of a changed <code>mix:language</code> node.
+     */
+    private static class LanguageChange {
+
+        final String language;
+
+        /** The base names, <code>null</code> if the node has none */
+        final String[] baseNames;
+
+        LanguageChange(final Node languageNode) throws RepositoryException {
+            this.language = languageNode.hasProperty(PROP_LANGUAGE)
+                    ? normalize(languageNode.getProperty(PROP_LANGUAGE).getString())
+                    : null;
+            if (languageNode.hasProperty(PROP_BASENAME)) {
+                final javax.jcr.Property prop = languageNode.getProperty(PROP_BASENAME);
+                if (prop.isMultiple()) {
+                    final Value[] values = prop.getValues();
+                    this.baseNames = new String[values.length];
+                    for (int i = 0; i < values.length; i++) {
+                        this.baseNames[i] = values[i].getString();
+                    }
+                } else {
+                    this.baseNames = new String[] { prop.getString() };
+                }
+            } else {
+                this.baseNames = null;
+            }
+        }
+
+        /**
+         * Returns whether the resource bundle for the key contains the
+         * messages of the language node, see
+         * <code>JcrResourceBundle.getFullLoadQuery</code>.
+         */
+        boolean affects(final Key key) {
+            if (language == null || key.locale == null
+                    || !language.equals(normalize(key.locale.toString()))) {
+                return false;
+            }
+            if (key.baseName == null) {
+                return true;
+            }
+            if (baseNames == null) {
+                return false;
+            }
+            if (key.baseName.length() == 0) {
+                return true;
+            }
+            for (final String baseName : baseNames) {
+                if (key.baseName.equals(baseName)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static String normalize(final String language) {
+            return language.toLowerCase().replace('-', '_');
+        }
+    }
+
     /**
      * The <code>Key</code> class encapsulates the base name and Locale for the
      * key of the {@link #resourceBundleCache} map.
@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.i18n.impl;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The <code>MessageDictionary</code> is an immutable map of the messages
+ * of a resource bundle. Keys and values are stored in two arrays using
+ * open addressing, which takes considerably less memory than a
+ * <code>HashMap</code> with an entry object per message.
+ */
+class MessageDictionary extends AbstractMap<String, Object> {
+
+    private final String[] keys;
+
+    private final Object[] values;
+
+    private final int size;
+
+    MessageDictionary(final Map<String, Object> messages) {
+        int capacity = 4;
+        while (capacity < messages.size() * 2) {
+            capacity <<= 1;
+        }
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        int count = 0;
+        for (final Map.Entry<String, Object> entry : messages.entrySet()) {
+            if (entry.getKey() != null) {
+                final int index = this.indexOf(entry.getKey());
+                if (this.keys[index] == null) {
+                    this.keys[index] = entry.getKey();
+                    count++;
+                }
+                this.values[index] = entry.getValue();
+            }
+        }
+        this.size = count;
+    }
+
+    /**
+     * Returns the index of the slot holding the key or the empty slot
+     * where the key would be stored.
+     */
+    private int indexOf(final Object key) {
+        final int mask = this.keys.length - 1;
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        int index = h & mask;
+        while (this.keys[index] != null && !this.keys[index].equals(key)) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    @Override
+    public Object get(final Object key) {
+        if (key == null) {
+            return null;
+        }
+        return this.values[this.indexOf(key)];
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return key != null && this.keys[this.indexOf(key)] != null;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<String>() {
+
+            @Override
+            public Iterator<String> iterator() {
+                return new SlotIterator<String>() {
+                    @Override
+                    protected String get(final int index) {
+                        return keys[index];
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(final Object key) {
+                return containsKey(key);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Object>>() {
+
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new SlotIterator<Map.Entry<String, Object>>() {
+                    @Override
+                    protected Map.Entry<String, Object> get(final int index) {
+                        return new Entry(index);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Read only entry for a slot of the arrays.
+     */
+    private final class Entry implements Map.Entry<String, Object> {
+
+        private final int index;
+
+        Entry(final int index) {
+            this.index = index;
+        }
+
+        public String getKey() {
+            return keys[this.index];
+        }
+
+        public Object getValue() {
+            return values[this.index];
+        }
+
+        public Object setValue(final Object value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Map.Entry<?, ?>)) {
+                return false;
+            }
+            final Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+            return this.getKey().equals(other.getKey())
+                && (this.getValue() == null ? other.getValue() == null : this.getValue().equals(other.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            return this.getKey().hashCode() ^ (this.getValue() == null ? 0 : this.getValue().hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return this.getKey() + "=" + this.getValue();
+        }
+    }
+
+    /**
+     * Iterator over the used slots of the arrays.
+     */
+    private abstract class SlotIterator<T> implements Iterator<T> {
+
+        private int next = this.seek(0);
+
+        private int seek(int index) {
+            while (index < keys.length && keys[index] == null) {
+                index++;
+            }
+            return index;
+        }
+
+        public boolean hasNext() {
+            return this.next < keys.length;
+        }
+
+        public T next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final T result = this.get(this.next);
+            this.next = this.seek(this.next + 1);
+            return result;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        protected abstract T get(int index);
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.i18n.impl;
+
+import java.lang.reflect.Field;
+import java.util.Dictionary;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.ResourceBundle;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventIterator;
+
+import org.apache.sling.commons.testing.jcr.RepositoryTestBase;
+import org.apache.sling.commons.testing.jcr.RepositoryUtil;
+import org.apache.sling.commons.testing.osgi.MockBundle;
+import org.apache.sling.commons.testing.osgi.MockBundleContext;
+import org.apache.sling.commons.testing.osgi.MockComponentContext;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.ServiceRegistration;
+
+/**
+ * Tests which cached resource bundles the {@link JcrResourceBundleProvider}
+ * reloads or drops for the observed changes.
+ */
+public class JcrResourceBundleProviderTest extends RepositoryTestBase {
+
+    private static final Locale DE = new Locale("de");
+
+    private static final Locale EN = new Locale("en");
+
+    private JcrResourceBundleProvider provider;
+
+    private Node i18n;
+
+    private int unregistered;
+
+    public void setUp() throws Exception {
+        super.setUp();
+
+        for (final String root : new String[] {"apps", "libs"}) {
+            if (getSession().getRootNode().hasNode(root)) {
+                getSession().getRootNode().getNode(root).remove();
+            }
+        }
+        RepositoryUtil.registerNodeType(getSession(), getClass()
+                .getResourceAsStream("/SLING-INF/nodetypes/jcrlanguage.cnd"));
+        RepositoryUtil.registerNodeType(getSession(), getClass()
+                .getResourceAsStream("/SLING-INF/nodetypes/message.cnd"));
+
+        i18n = getSession().getRootNode().addNode("libs", "nt:unstructured").addNode("i18n", "nt:unstructured");
+        addLanguage("de", "de", null, "kitchen", "Kueche");
+        addLanguage("en", "en", null, "kitchen", "kitchen");
+        addLanguage("de_foo", "de", "FOO", "table", "Tisch");
+        getSession().save();
+
+        final MockComponentContext context = new MockComponentContext(new MockBundleContext(new MockBundle(0)) {
+            @Override
+            public ServiceRegistration registerService(String clazz, Object service, Dictionary properties) {
+                return new ServiceRegistration() {
+
+                    public void unregister() {
+                        unregistered++;
+                    }
+
+                    public void setProperties(Dictionary properties) {
+                    }
+
+                    public ServiceReference getReference() {
+                        return null;
+                    }
+                };
+            }
+        });
+        context.setProperty("locale.default", "en");
+        provider = new JcrResourceBundleProvider();
+        provider.activate(context);
+
+        final Field resolverField = JcrResourceBundleProvider.class.getDeclaredField("resourceResolver");
+        resolverField.setAccessible(true);
+        resolverField.set(provider, new TestResourceResolver(getSession()));
+    }
+
+    private void addLanguage(final String name, final String language, final String baseName,
+            final String key, final String message) throws RepositoryException {
+        final Node node = i18n.addNode(name, "nt:unstructured");
+        node.addMixin("mix:language");
+        node.setProperty("jcr:language", language);
+        if (baseName != null) {
+            node.setProperty("sling:basename", baseName);
+        }
+        new Message("", key, message, true).add(node);
+    }
+
+    private void setMessage(final String language, final String key, final String message)
+    throws RepositoryException {
+        i18n.getNode(language + "/" + key).setProperty("sling:message", message);
+        i18n.getSession().save();
+    }
+
+    public void test_message_change_reloads_language() throws Exception {
+        final ResourceBundle de = provider.getResourceBundle(DE);
+        final ResourceBundle en = provider.getResourceBundle(EN);
+        final ResourceBundle deFoo = provider.getResourceBundle("FOO", DE);
+
+        setMessage("de", "kitchen", "Kuechen");
+        setMessage("en", "kitchen", "kitchens");
+        setMessage("de_foo", "table", "Tische");
+        provider.onEvent(new Events(Event.PROPERTY_CHANGED, "/libs/i18n/de/kitchen/sling:message"));
+
+        assertSame(de, provider.getResourceBundle(DE));
+        assertEquals("Kuechen", de.getString("kitchen"));
+        assertEquals(0, unregistered);
+
+        // other languages and base names are not reloaded
+        assertSame(en, provider.getResourceBundle(EN));
+        assertEquals("kitchen", en.getString("kitchen"));
+        assertSame(deFoo, provider.getResourceBundle("FOO", DE));
+        assertEquals("Tisch", deFoo.getString("table"));
+    }
+
+    public void test_base_name_change_reloads_base_name_and_all() throws Exception {
+        final ResourceBundle de = provider.getResourceBundle(DE);
+        final ResourceBundle en = provider.getResourceBundle(EN);
+        final ResourceBundle deFoo = provider.getResourceBundle("FOO", DE);
+
+        setMessage("de_foo", "table", "Tische");
+        setMessage("en", "kitchen", "kitchens");
+        provider.onEvent(new Events(Event.NODE_ADDED, "/libs/i18n/de_foo/table"));
+
+        assertSame(deFoo, provider.getResourceBundle("FOO", DE));
+        assertEquals("Tische", deFoo.getString("table"));
+
+        // the bundle without base name contains the messages of all base names
+        assertSame(de, provider.getResourceBundle(DE));
+        assertEquals("Tische", de.getString("table"));
+        assertSame(en, provider.getResourceBundle(EN));
+        assertEquals("kitchen", en.getString("kitchen"));
+    }
+
+    public void test_language_property_change_drops_all() throws Exception {
+        final ResourceBundle de = provider.getResourceBundle(DE);
+        final ResourceBundle en = provider.getResourceBundle(EN);
+
+        provider.onEvent(new Events(Event.PROPERTY_CHANGED, "/libs/i18n/de/jcr:language"));
+
+        assertEquals(2, unregistered);
+        assertNotSame(de, provider.getResourceBundle(DE));
+        assertNotSame(en, provider.getResourceBundle(EN));
+    }
+
+    public void test_base_name_property_change_drops_all() throws Exception {
+        final ResourceBundle en = provider.getResourceBundle(EN);
+
+        provider.onEvent(new Events(Event.PROPERTY_ADDED, "/libs/i18n/de_foo/sling:basename"));
+
+        assertNotSame(en, provider.getResourceBundle(EN));
+    }
+
+    public void test_removed_language_drops_all() throws Exception {
+        final ResourceBundle de = provider.getResourceBundle(DE);
+        final ResourceBundle en = provider.getResourceBundle(EN);
+
+        i18n.getNode("en").remove();
+        getSession().save();
+        provider.onEvent(new Events(Event.NODE_REMOVED, "/libs/i18n/en"));
+
+        assertNotSame(de, provider.getResourceBundle(DE));
+        final ResourceBundle newEn = provider.getResourceBundle(EN);
+        assertNotSame(en, newEn);
+        assertEquals("kitchen", newEn.getString("kitchen"));
+    }
+
+    /**
+     * Iterator over events of the same type.
+     */
+    private static class Events implements EventIterator {
+
+        private final String[] paths;
+
+        private final int type;
+
+        private int position;
+
+        Events(final int type, final String... paths) {
+            this.type = type;
+            this.paths = paths;
+        }
+
+        public Event nextEvent() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final String path = paths[position++];
+            return new Event() {
+
+                public int getType() {
+                    return type;
+                }
+
+                public String getPath() {
+                    return path;
+                }
+
+                public String getUserID() {
+                    return null;
+                }
+
+                public String getIdentifier() {
+                    return null;
+                }
+
+                public java.util.Map<?, ?> getInfo() {
+                    return null;
+                }
+
+                public String getUserData() {
+                    return null;
+                }
+
+                public long getDate() {
+                    return 0;
+                }
+            };
+        }
+
+        public boolean hasNext() {
+            return position < paths.length;
+        }
+
+        public Object next() {
+            return nextEvent();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        public void skip(final long skipNum) {
+            position += skipNum;
+        }
+
+        public long getSize() {
+            return paths.length;
+        }
+
+        public long getPosition() {
+            return position;
+        }
+    }
+}
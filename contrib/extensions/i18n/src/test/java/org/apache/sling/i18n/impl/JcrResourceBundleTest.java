@@ -19,8 +19,6 @@
 package org.apache.sling.i18n.impl;
 
 import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -28,18 +26,10 @@ import java.util.Map;
 import javax.jcr.Node;
 import javax.jcr.NodeIterator;
 import javax.jcr.RepositoryException;
-import javax.jcr.Value;
-import javax.jcr.query.Query;
-import javax.jcr.query.QueryResult;
-import javax.jcr.query.RowIterator;
-import javax.naming.NamingException;
-import javax.servlet.http.HttpServletRequest;
-
-import org.apache.sling.api.resource.Resource;
+
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.commons.testing.jcr.RepositoryTestBase;
 import org.apache.sling.commons.testing.jcr.RepositoryUtil;
-import org.apache.sling.jcr.resource.JcrResourceUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,127 +52,7 @@ public class JcrResourceBundleTest extends RepositoryTestBase {
         RepositoryUtil.registerNodeType(getSession(), getClass()
                 .getResourceAsStream("/SLING-INF/nodetypes/message.cnd"));
 
-        resolver = new ResourceResolver() {
-
-            public Iterator<Resource> findResources(String query,
-                    String language) {
-                // TODO Auto-generated method stub
-                return null;
-            }
-
-            public Resource getResource(Resource base, String path) {
-                // TODO Auto-generated method stub
-                return null;
-            }
-
-            public Resource getResource(String path) {
-                // TODO Auto-generated method stub
-                return null;
-            }
-
-            public String[] getSearchPath() {
-                return new String[] {"/apps/", "/libs/"};
-            }
-
-            public Iterator<Resource> listChildren(Resource parent) {
-                // TODO Auto-generated method stub
-                return null;
-            }
-
-            public String map(HttpServletRequest request, String resourcePath) {
-                // TODO Auto-generated method stub
-                return null;
-            }
-
-            public String map(String resourcePath) {
-                // TODO Auto-generated method stub
-                return null;
-            }
-
-            public Iterator<Map<String, Object>> queryResources(String query,
-                    String language) {
-                try {
-                    final Query q = getSession().getWorkspace().getQueryManager().createQuery(query, language);
-                    final QueryResult result = q.execute();
-                    final String[] colNames = result.getColumnNames();
-                    final RowIterator rows = result.getRows();
-                    return new Iterator<Map<String, Object>>() {
-                        public boolean hasNext() {
-                            return rows.hasNext();
-                        };
-
-                        public Map<String, Object> next() {
-                            Map<String, Object> row = new HashMap<String, Object>();
-                            try {
-                                Value[] values = rows.nextRow().getValues();
-                                for (int i = 0; i < values.length; i++) {
-                                    Value v = values[i];
-                                    if (v != null) {
-                                        row.put(colNames[i],
-                                            JcrResourceUtil.toJavaObject(values[i]));
-                                    }
-                                }
-                            } catch (RepositoryException re) {
-                                // ignore
-                            }
-                            return row;
-                        }
-
-                        public void remove() {
-                            throw new UnsupportedOperationException("remove");
-                        }
-                    };
-                } catch (NamingException ne) {
-                    return null;
-                } catch (RepositoryException re) {
-                    return null;
-                }
-            }
-
-            public Resource resolve(HttpServletRequest request, String absPath) {
-                // TODO Auto-generated method stub
-                return null;
-            }
-
-            public Resource resolve(HttpServletRequest request) {
-                // TODO Auto-generated method stub
-                return null;
-            }
-
-            public Resource resolve(String absPath) {
-                // TODO Auto-generated method stub
-                return null;
-            }
-
-            public <AdapterType> AdapterType adaptTo(Class<AdapterType> type) {
-                // TODO Auto-generated method stub
-                return null;
-            }
-
-            public void close() {
-                // nothing to do
-            }
-
-            public String getUserID() {
-                return null;
-            }
-
-            public boolean isLive() {
-                return true;
-            }
-
-            public ResourceResolver clone(Map<String, Object> authenticationInfo) {
-                return null;
-            }
-
-            public Iterator<String> getAttributeNames() {
-                return null;
-            }
-
-            public Object getAttribute(String name) {
-                return null;
-            }
-        };
+        resolver = new TestResourceResolver(getSession());
 
         createTestContent();
     }
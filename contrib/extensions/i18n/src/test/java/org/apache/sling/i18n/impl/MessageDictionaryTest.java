@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.i18n.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class MessageDictionaryTest extends TestCase {
+
+    public void test_empty() {
+        final MessageDictionary dict = new MessageDictionary(Collections.<String, Object> emptyMap());
+        assertEquals(0, dict.size());
+        assertTrue(dict.isEmpty());
+        assertNull(dict.get("missing"));
+        assertFalse(dict.containsKey("missing"));
+        assertFalse(dict.keySet().iterator().hasNext());
+        try {
+            dict.entrySet().iterator().next();
+            fail("Expected NoSuchElementException");
+        } catch (NoSuchElementException nsee) {
+            // expected
+        }
+    }
+
+    public void test_lookup() {
+        final Map<String, Object> messages = new HashMap<String, Object>();
+        messages.put("kitchen", "Kueche");
+        messages.put("plate", "Teller");
+        messages.put("", "empty");
+        final MessageDictionary dict = new MessageDictionary(messages);
+
+        assertEquals(3, dict.size());
+        assertEquals("Kueche", dict.get("kitchen"));
+        assertEquals("Teller", dict.get("plate"));
+        assertEquals("empty", dict.get(""));
+        assertTrue(dict.containsKey("kitchen"));
+
+        assertNull(dict.get("fork"));
+        assertFalse(dict.containsKey("fork"));
+        assertNull(dict.get(null));
+        assertFalse(dict.containsKey(null));
+        assertNull(dict.get(Integer.valueOf(1)));
+
+        assertEquals(messages, dict);
+        assertEquals(dict, messages);
+        assertEquals(messages.hashCode(), dict.hashCode());
+    }
+
+    public void test_null_key_and_value() {
+        final Map<String, Object> messages = new HashMap<String, Object>();
+        messages.put(null, "ignored");
+        messages.put("nothing", null);
+        final MessageDictionary dict = new MessageDictionary(messages);
+
+        assertEquals(1, dict.size());
+        assertTrue(dict.containsKey("nothing"));
+        assertNull(dict.get("nothing"));
+        assertFalse(dict.containsKey(null));
+    }
+
+    public void test_colliding_hash_codes() {
+        // "Aa" and "BB" have the same hash code, so do all their concatenations
+        final String[] keys = { "Aa", "BB", "AaAa", "AaBB", "BBAa" };
+        assertEquals(keys[0].hashCode(), keys[1].hashCode());
+        assertEquals(keys[2].hashCode(), keys[4].hashCode());
+
+        final Map<String, Object> messages = new LinkedHashMap<String, Object>();
+        for (final String key : keys) {
+            messages.put(key, "value of " + key);
+        }
+        final MessageDictionary dict = new MessageDictionary(messages);
+
+        assertEquals(keys.length, dict.size());
+        for (final String key : keys) {
+            assertTrue(key, dict.containsKey(key));
+            assertEquals("value of " + key, dict.get(key));
+        }
+        // same hash code as three contained keys, but not contained
+        assertEquals(keys[2].hashCode(), "BBBB".hashCode());
+        assertNull(dict.get("BBBB"));
+        assertFalse(dict.containsKey("BBBB"));
+    }
+
+    public void test_keys_differing_in_high_bits() {
+        final Map<String, Object> messages = new HashMap<String, Object>();
+        for (int i = 0; i < 64; i++) {
+            messages.put(String.valueOf((char) (i << 10)), Integer.valueOf(i));
+        }
+        final MessageDictionary dict = new MessageDictionary(messages);
+
+        assertEquals(64, dict.size());
+        for (int i = 0; i < 64; i++) {
+            assertEquals(Integer.valueOf(i), dict.get(String.valueOf((char) (i << 10))));
+        }
+    }
+
+    public void test_capacity() {
+        // sizes around the powers of two the arrays are sized to
+        for (final int size : new int[] { 1, 2, 3, 4, 7, 8, 9, 255, 256, 257, 10000 }) {
+            final Map<String, Object> messages = new HashMap<String, Object>();
+            for (int i = 0; i < size; i++) {
+                messages.put("key" + i, "message" + i);
+            }
+            final MessageDictionary dict = new MessageDictionary(messages);
+
+            assertEquals(size, dict.size());
+            for (int i = 0; i < size; i++) {
+                assertEquals("message" + i, dict.get("key" + i));
+            }
+            assertFalse(dict.containsKey("key" + size));
+            assertEquals(messages, dict);
+        }
+    }
+
+    public void test_iteration() {
+        final Map<String, Object> messages = new HashMap<String, Object>();
+        for (int i = 0; i < 100; i++) {
+            messages.put("key" + i, "message" + i);
+        }
+        final MessageDictionary dict = new MessageDictionary(messages);
+
+        final Set<String> keys = new HashSet<String>();
+        for (final String key : dict.keySet()) {
+            assertTrue(key, keys.add(key));
+        }
+        assertEquals(messages.keySet(), keys);
+        assertEquals(100, dict.keySet().size());
+        assertTrue(dict.keySet().contains("key42"));
+
+        int count = 0;
+        for (final Map.Entry<String, Object> entry : dict.entrySet()) {
+            assertEquals(messages.get(entry.getKey()), entry.getValue());
+            count++;
+        }
+        assertEquals(100, count);
+    }
+
+    public void test_immutable() {
+        final MessageDictionary dict = new MessageDictionary(Collections.<String, Object> singletonMap("key", "value"));
+        try {
+            dict.put("other", "value");
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException uoe) {
+            // expected
+        }
+        final Iterator<Map.Entry<String, Object>> entries = dict.entrySet().iterator();
+        final Map.Entry<String, Object> entry = entries.next();
+        try {
+            entry.setValue("changed");
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException uoe) {
+            // expected
+        }
+        try {
+            entries.remove();
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException uoe) {
+            // expected
+        }
+        assertEquals("value", dict.get("key"));
+    }
+}
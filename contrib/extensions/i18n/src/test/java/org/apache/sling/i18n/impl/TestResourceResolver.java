@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.i18n.impl;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.query.Query;
+import javax.jcr.query.QueryResult;
+import javax.jcr.query.RowIterator;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.jcr.resource.JcrResourceUtil;
+
+/**
+ * Resource resolver running the queries of the resource bundles against
+ * the session of the test repository.
+ */
+class TestResourceResolver implements ResourceResolver {
+
+    private final Session session;
+
+    TestResourceResolver(final Session session) {
+        this.session = session;
+    }
+
+    public Iterator<Resource> findResources(String query,
+            String language) {
+        return null;
+    }
+
+    public Resource getResource(Resource base, String path) {
+        return null;
+    }
+
+    public Resource getResource(String path) {
+        return null;
+    }
+
+    public String[] getSearchPath() {
+        return new String[] {"/apps/", "/libs/"};
+    }
+
+    public Iterator<Resource> listChildren(Resource parent) {
+        return null;
+    }
+
+    public String map(HttpServletRequest request, String resourcePath) {
+        return null;
+    }
+
+    public String map(String resourcePath) {
+        return null;
+    }
+
+    public Iterator<Map<String, Object>> queryResources(String query,
+            String language) {
+        try {
+            final Query q = session.getWorkspace().getQueryManager().createQuery(query, language);
+            final QueryResult result = q.execute();
+            final String[] colNames = result.getColumnNames();
+            final RowIterator rows = result.getRows();
+            return new Iterator<Map<String, Object>>() {
+                public boolean hasNext() {
+                    return rows.hasNext();
+                };
+
+                public Map<String, Object> next() {
+                    Map<String, Object> row = new HashMap<String, Object>();
+                    try {
+                        Value[] values = rows.nextRow().getValues();
+                        for (int i = 0; i < values.length; i++) {
+                            Value v = values[i];
+                            if (v != null) {
+                                row.put(colNames[i],
+                                    JcrResourceUtil.toJavaObject(values[i]));
+                            }
+                        }
+                    } catch (RepositoryException re) {
+                        // ignore
+                    }
+                    return row;
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException("remove");
+                }
+            };
+        } catch (RepositoryException re) {
+            return null;
+        }
+    }
+
+    public Resource resolve(HttpServletRequest request, String absPath) {
+        return null;
+    }
+
+    public Resource resolve(HttpServletRequest request) {
+        return null;
+    }
+
+    public Resource resolve(String absPath) {
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <AdapterType> AdapterType adaptTo(Class<AdapterType> type) {
+        if (type == Session.class) {
+            return (AdapterType) session;
+        }
+        return null;
+    }
+
+    public void close() {
+        // nothing to do
+    }
+
+    public String getUserID() {
+        return null;
+    }
+
+    public boolean isLive() {
+        return true;
+    }
+
+    public ResourceResolver clone(Map<String, Object> authenticationInfo) {
+        return null;
+    }
+
+    public Iterator<String> getAttributeNames() {
+        return null;
+    }
+
+    public Object getAttribute(String name) {
+        return null;
+    }
+}
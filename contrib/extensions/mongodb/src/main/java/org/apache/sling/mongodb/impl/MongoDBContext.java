@@ -20,6 +20,9 @@ import java.util.Dictionary;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 
 import org.apache.sling.api.SlingConstants;
 import org.osgi.service.event.Event;
@@ -43,11 +46,22 @@ public class MongoDBContext {
 
     private final EventAdmin eventAdmin;
 
+    /** Runs the preparation of collections in the background. */
+    private final Executor preparationExecutor;
+
+    /**
+     * Collections whose preparation has been started, mapped to
+     * <code>TRUE</code> once their indexes have been checked.
+     */
+    private final ConcurrentMap<String, Boolean> preparedCollections = new ConcurrentHashMap<String, Boolean>();
+
     public MongoDBContext(final DB database,
             final String configuredRoot,
             final String[] configuredFilterCollectionNames,
-            final EventAdmin eventAdmin) {
+            final EventAdmin eventAdmin,
+            final Executor preparationExecutor) {
         this.database = database;
+        this.preparationExecutor = preparationExecutor;
         if ( configuredRoot != null ) {
             final String value = configuredRoot.trim();
             if ( value.length() > 0 ) {
@@ -94,6 +108,45 @@ public class MongoDBContext {
         return this.database;
     }
 
+    /**
+     * Check if a collection has been prepared.
+     */
+    public boolean isPrepared(final String name) {
+        return Boolean.TRUE.equals(this.preparedCollections.get(name));
+    }
+
+    /**
+     * Run the preparation of a collection in the background, unless it has
+     * been started before. Returns immediately.
+     */
+    public void prepare(final String name, final Runnable preparation) {
+        if ( this.preparedCollections.putIfAbsent(name, Boolean.FALSE) == null ) {
+            try {
+                this.preparationExecutor.execute(preparation);
+            } catch ( final RuntimeException re ) {
+                // rejected, the next access tries again
+                this.preparedCollections.remove(name, Boolean.FALSE);
+                throw re;
+            }
+        }
+    }
+
+    /**
+     * Mark a collection as prepared, after its indexes have been created
+     * and its entries have been updated.
+     */
+    public void setPrepared(final String name) {
+        this.preparedCollections.put(name, Boolean.TRUE);
+    }
+
+    /**
+     * Mark the preparation of a collection as failed, the next access
+     * starts it again.
+     */
+    public void setPreparationFailed(final String name) {
+        this.preparedCollections.remove(name, Boolean.FALSE);
+    }
+
     public void notifyRemoved(final String[] info) {
         final Dictionary<String, Object> props = new Hashtable<String, Object>();
         props.put(SlingConstants.PROPERTY_PATH, this.rootWithSlash + info[0] + '/' + info[1]);
@@ -16,9 +16,12 @@
  */
 package org.apache.sling.mongodb.impl;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -37,23 +40,36 @@ import org.slf4j.LoggerFactory;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.BulkWriteOperation;
 import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
+import com.mongodb.MongoException;
 import com.mongodb.QueryBuilder;
 
 /**
  * The MongoDB resource provider creates resources based on MongoDB entries.
  * The resources contain all properties stored in the MongoDB except those starting with a "_".
+ * Each entry stores the path of its parent and its depth, so children are found with an
+ * indexed equality query. Changes are written on commit with one bulk operation per collection.
  */
 public class MongoDBResourceProvider implements ResourceProvider, ModifyingResourceProvider, QueriableResourceProvider {
 
     /** The special path property containing the (relative) path of the resource in the tree. */
     private static final String PROP_PATH = "_path";
 
+    /** The parent path property, an empty string for the top level resources of a collection. */
+    private static final String PROP_PARENT = "_parent";
+
+    /** The depth property, the number of segments of the path property. */
+    private static final String PROP_DEPTH = "_depth";
+
     /** The id property. */
     private static final String PROP_ID = "_id";
 
+    /** The number of entries updated by one bulk operation when adding the parent paths. */
+    private static final int PREPARE_BATCH_SIZE = 1000;
+
     /** Logger. */
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
@@ -91,13 +107,14 @@ public class MongoDBResourceProvider implements ResourceProvider, ModifyingResou
             throws PersistenceException {
         final String[] info = this.extractResourceInfo(path);
         if ( info != null && info.length == 2) {
-            final boolean deleted = this.deletedResources.remove(path);
+            // a deleted resource stays in the deleted set, so its old subtree is removed on commit
+            final boolean deleted = this.isDeleted(path);
             final MongoDBResource oldResource = (MongoDBResource)this.getResource(resolver, path, info);
             if ( !deleted && oldResource != null ) {
                 throw new PersistenceException("Resource already exists at " + path, null, path, null);
             }
             final DBObject dbObj = new BasicDBObject();
-            dbObj.put(getPROP_PATH(), info[1]);
+            this.setPathProperties(dbObj, info[1]);
             if ( properties != null ) {
                 for(Map.Entry<String, Object> entry : properties.entrySet()) {
                     final String key = propNameToKey(entry.getKey());
@@ -116,11 +133,8 @@ public class MongoDBResourceProvider implements ResourceProvider, ModifyingResou
     }
 
     /**
-     * TODO - we should handle delete different and not put all child resources into the
-     * deleted set.
-     * Instead when getting resources, the parents of the resource should be checked
-     * first.
-     * This minimizes concurrency issues.
+     * Only the deleted resource is remembered, its descendants are hidden by
+     * {@link #isDeleted(String)} and removed together with it on commit.
      * @see org.apache.sling.api.resource.ModifyingResourceProvider#delete(org.apache.sling.api.resource.ResourceResolver, java.lang.String)
      */
     public void delete(final ResourceResolver resolver, final String path)
@@ -128,27 +142,20 @@ public class MongoDBResourceProvider implements ResourceProvider, ModifyingResou
         final String[] info = this.extractResourceInfo(path);
         if ( info != null ) {
             boolean deletedResource = false;
-            if ( !deletedResources.contains(path) ) {
+            if ( this.isDeleted(path) ) {
+                // already deleted or created again after the deletion
+                this.changedResources.remove(path);
+                deletedResource = true;
+            } else {
                 final Resource rsrc = this.getResource(resolver, path, info);
                 if ( rsrc instanceof MongoDBResource ) {
                     this.deletedResources.add(path);
                     this.changedResources.remove(path);
-
-                    final DBCollection col = this.getCollection(info[0]);
-                    final String pattern = "^" + Pattern.quote(info[1]) + "/";
-
-                    final DBObject query = QueryBuilder.start(getPROP_PATH()).regex(Pattern.compile(pattern)).get();
-                    final DBCursor cur = col.find(query);
-                    while ( cur.hasNext() ) {
-                        final DBObject dbObj = cur.next();
-                        final String childPath = info[0] + '/' + dbObj.get(getPROP_PATH());
-                        this.deletedResources.add(childPath);
-                        this.changedResources.remove(childPath);
-                    }
+                    deletedResource = true;
+                } else if ( this.changedResources.remove(path) != null ) {
+                    // created but not committed yet
                     deletedResource = true;
                 }
-            } else {
-                deletedResource = true;
             }
             if ( deletedResource ) {
                 final String prefix = path + "/";
@@ -159,6 +166,12 @@ public class MongoDBResourceProvider implements ResourceProvider, ModifyingResou
                         i.remove();
                     }
                 }
+                final Iterator<String> d = this.deletedResources.iterator();
+                while ( d.hasNext() ) {
+                    if ( d.next().startsWith(prefix) ) {
+                        d.remove();
+                    }
+                }
                 return;
             }
 
@@ -179,42 +192,64 @@ public class MongoDBResourceProvider implements ResourceProvider, ModifyingResou
      */
     public void commit(final ResourceResolver resolver) throws PersistenceException {
         try {
+            // one ordered bulk operation per collection, removing before writing
+            final Map<String, BulkWriteOperation> operations = new LinkedHashMap<String, BulkWriteOperation>();
+            final List<String[]> removed = new ArrayList<String[]>();
+            final List<String[]> updated = new ArrayList<String[]>();
             for(final String deleted : this.deletedResources) {
                 final String[] info = this.extractResourceInfo(deleted);
 
                 // check if the collection still exists
                 final DBCollection col = this.getCollection(info[0]);
                 if ( col != null ) {
-                    if ( col.findAndRemove(QueryBuilder.start(getPROP_PATH()).is(info[1]).get()) != null ) {
-                        this.context.notifyRemoved(info);
-                    }
+                    final BulkWriteOperation operation = this.getBulkOperation(operations, col);
+                    operation.find(QueryBuilder.start(getPROP_PATH()).is(info[1]).get()).remove();
+                    operation.find(this.getDescendantsQuery(info[1])).remove();
+                    removed.add(info);
                 }
             }
             for(final MongoDBResource changed : this.changedResources.values()) {
 
                 final DBCollection col = this.context.getDatabase().getCollection(changed.getCollection());
                 if ( col != null ) {
-                    final String[] info = new String[] {changed.getCollection(),
-                            changed.getProperties().get(getPROP_PATH()).toString()};
-                    // create or update?
-                    if ( changed.getProperties().get(PROP_ID) != null ) {
-                        col.update(QueryBuilder.start(getPROP_PATH()).is(changed.getProperties().get(getPROP_PATH())).get(),
-                                changed.getProperties());
-                        this.context.notifyUpdated(info);
-                    } else {
-                        // create
-                        col.save(changed.getProperties());
-                        this.context.notifyUpdated(info);
-                    }
+                    this.prepareCollection(col);
+                    final String path = changed.getProperties().get(getPROP_PATH()).toString();
+                    // entries written before the parent path was maintained get it now
+                    this.setPathProperties(changed.getProperties(), path);
+                    this.getBulkOperation(operations, col).find(QueryBuilder.start(getPROP_PATH()).is(path).get())
+                        .upsert().replaceOne(changed.getProperties());
+                    updated.add(new String[] {changed.getCollection(), path});
                 } else {
                     throw new PersistenceException("Unable to create collection " + changed.getCollection(), null, changed.getPath(), null);
                 }
             }
+            for(final Map.Entry<String, BulkWriteOperation> entry : operations.entrySet()) {
+                try {
+                    entry.getValue().execute();
+                } catch ( final MongoException me ) {
+                    throw new PersistenceException("Unable to commit changes to collection " + entry.getKey(), me);
+                }
+            }
+            for(final String[] info : removed) {
+                this.context.notifyRemoved(info);
+            }
+            for(final String[] info : updated) {
+                this.context.notifyUpdated(info);
+            }
         } finally {
             this.revert(resolver);
         }
     }
 
+    private BulkWriteOperation getBulkOperation(final Map<String, BulkWriteOperation> operations, final DBCollection col) {
+        BulkWriteOperation operation = operations.get(col.getName());
+        if ( operation == null ) {
+            operation = col.initializeOrderedBulkOperation();
+            operations.put(col.getName(), operation);
+        }
+        return operation;
+    }
+
     /**
      * @see org.apache.sling.api.resource.ModifyingResourceProvider#hasChanges(ResourceResolver)
      */
@@ -226,12 +261,12 @@ public class MongoDBResourceProvider implements ResourceProvider, ModifyingResou
      * @see org.apache.sling.api.resource.ResourceProvider#getResource(org.apache.sling.api.resource.ResourceResolver, java.lang.String)
      */
     public Resource getResource(final ResourceResolver resourceResolver, final String path) {
-        if ( this.deletedResources.contains(path) ) {
-            return null;
-        }
         if ( this.changedResources.containsKey(path) ) {
             return new MongoDBResource(this.changedResources.get(path));
         }
+        if ( this.isDeleted(path) ) {
+            return null;
+        }
         final String[] info = this.extractResourceInfo(path);
         if ( info != null ) {
             return this.getResource(resourceResolver, path, info);
@@ -243,7 +278,6 @@ public class MongoDBResourceProvider implements ResourceProvider, ModifyingResou
      * Inform about changes of a resource.
      */
     public void changed(final MongoDBResource resource) {
-        this.deletedResources.remove(resource.getPath());
         this.changedResources.put(resource.getPath(), resource);
     }
 
@@ -278,14 +312,19 @@ public class MongoDBResourceProvider implements ResourceProvider, ModifyingResou
             }
             final DBCollection col = this.getCollection(info[0]);
             if ( col != null ) {
+                final String parentPath = (info.length == 1 ? "" : info[1]);
+                // entries without a parent path, not prepared yet or written by other
+                // clients, are still found by a regular expression on the path
                 final String pattern;
                 if ( info.length == 1 ) {
                     pattern = "^([^/])*$";
                 } else {
                     pattern = "^" + Pattern.quote(info[1]) + "/([^/])*$";
                 }
-
-                final DBObject query = QueryBuilder.start(getPROP_PATH()).regex(Pattern.compile(pattern)).get();
+                final DBObject query = QueryBuilder.start().or(
+                        QueryBuilder.start(PROP_PARENT).is(parentPath).get(),
+                        QueryBuilder.start(PROP_PARENT).exists(false)
+                            .and(getPROP_PATH()).regex(Pattern.compile(pattern)).get()).get();
                 final DBCursor cur = col.find(query).
                         sort(BasicDBObjectBuilder.start(getPROP_PATH(), 1).get());
                 return new Iterator<Resource>() {
@@ -372,11 +411,129 @@ public class MongoDBResourceProvider implements ResourceProvider, ModifyingResou
      */
     protected DBCollection getCollection(final String name) {
         if ( this.hasCollection(name) ) {
-            return this.context.getDatabase().getCollection(name);
+            final DBCollection col = this.context.getDatabase().getCollection(name);
+            this.prepareCollection(col);
+            return col;
         }
         return null;
     }
 
+    /**
+     * Create the indexes for path and child lookups once per collection and
+     * add the parent path and depth to entries which do not have them yet.
+     * This runs in the background, the calling thread does not wait for it:
+     * lookups find entries without parent path until they are updated.
+     * The collection is only marked as prepared once this succeeded, otherwise
+     * it is started again on the next access.
+     */
+    protected void prepareCollection(final DBCollection col) {
+        final String name = col.getName();
+        if ( this.context.isPrepared(name) ) {
+            return;
+        }
+        this.context.prepare(name, new Runnable() {
+
+            public void run() {
+                int count = 0;
+                try {
+                    count = addPathProperties(col);
+                } catch ( final RuntimeException re ) {
+                    logger.warn("Unable to prepare collection " + name + ", trying again on next access", re);
+                    context.setPreparationFailed(name);
+                    return;
+                }
+                context.setPrepared(name);
+                if ( count > 0 ) {
+                    logger.info("Added parent paths to {} entries of collection {}", count, name);
+                }
+            }
+        });
+    }
+
+    /**
+     * Create the indexes and add the parent path and depth to all entries without them.
+     * @return The number of updated entries
+     */
+    private int addPathProperties(final DBCollection col) {
+        col.createIndex(new BasicDBObject(getPROP_PATH(), 1));
+        col.createIndex(BasicDBObjectBuilder.start(PROP_PARENT, 1).add(getPROP_PATH(), 1).get());
+
+        final DBCursor cur = col.find(QueryBuilder.start(PROP_PARENT).exists(false).get(),
+                new BasicDBObject(getPROP_PATH(), 1));
+        int count = 0;
+        try {
+            BulkWriteOperation operation = null;
+            while ( cur.hasNext() ) {
+                final DBObject obj = cur.next();
+                final Object path = obj.get(getPROP_PATH());
+                if ( path != null ) {
+                    final DBObject props = new BasicDBObject();
+                    this.setPathProperties(props, path.toString());
+                    if ( operation == null ) {
+                        operation = col.initializeUnorderedBulkOperation();
+                    }
+                    operation.find(new BasicDBObject(PROP_ID, obj.get(PROP_ID))).updateOne(new BasicDBObject("$set", props));
+                    count++;
+                    if ( count % PREPARE_BATCH_SIZE == 0 ) {
+                        operation.execute();
+                        operation = null;
+                    }
+                }
+            }
+            if ( operation != null ) {
+                operation.execute();
+            }
+        } finally {
+            cur.close();
+        }
+        return count;
+    }
+
+    /**
+     * Set the path, parent path and depth properties.
+     */
+    protected void setPathProperties(final DBObject dbObj, final String path) {
+        dbObj.put(getPROP_PATH(), path);
+        final int lastSlash = path.lastIndexOf('/');
+        dbObj.put(PROP_PARENT, lastSlash == -1 ? "" : path.substring(0, lastSlash));
+        int depth = 1;
+        for(int i = 0; i < path.length(); i++) {
+            if ( path.charAt(i) == '/' ) {
+                depth++;
+            }
+        }
+        dbObj.put(PROP_DEPTH, depth);
+    }
+
+    /**
+     * Query for all descendants of a path, a range on the indexed path property.
+     * '0' is the character following '/'.
+     */
+    protected DBObject getDescendantsQuery(final String path) {
+        return QueryBuilder.start(getPROP_PATH()).greaterThan(path + '/').lessThan(path + '0').get();
+    }
+
+    /**
+     * Check if the resource or one of its ancestors has been deleted.
+     */
+    protected boolean isDeleted(final String path) {
+        if ( this.deletedResources.isEmpty() ) {
+            return false;
+        }
+        String current = path;
+        while ( current.length() > 0 ) {
+            if ( this.deletedResources.contains(current) ) {
+                return true;
+            }
+            final int lastSlash = current.lastIndexOf('/');
+            if ( lastSlash < 1 ) {
+                break;
+            }
+            current = current.substring(0, lastSlash);
+        }
+        return false;
+    }
+
     /**
      * Get a resource
      */
@@ -17,10 +17,14 @@
 package org.apache.sling.mongodb.impl;
 
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.ConfigurationPolicy;
+import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Properties;
 import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.PropertyUnbounded;
@@ -86,6 +90,9 @@ public class MongoDBResourceProviderFactory implements ResourceProviderFactory {
     /** The global context passed to each resource provider. */
     private MongoDBContext context;
 
+    /** Prepares the collections in the background. */
+    private ExecutorService preparationExecutor;
+
     @Reference
     private EventAdmin eventAdmin;
 
@@ -116,10 +123,27 @@ public class MongoDBResourceProviderFactory implements ResourceProviderFactory {
         final DB database = m.getDB( db );
         logger.info("Connected to database {}", database);
 
+        this.preparationExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+            public Thread newThread(final Runnable r) {
+                final Thread t = new Thread(r, "Apache Sling MongoDB Collection Preparation");
+                t.setDaemon(true);
+                return t;
+            }
+        });
         this.context = new MongoDBContext(database,
                 roots[0],
                 PropertiesUtil.toStringArray(props.get(PROP_FILTER_COLLECTIONS)),
-                this.eventAdmin);
+                this.eventAdmin,
+                this.preparationExecutor);
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        if ( this.preparationExecutor != null ) {
+            this.preparationExecutor.shutdownNow();
+            this.preparationExecutor = null;
+        }
     }
 
     /**
@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.mongodb.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.apache.sling.api.SlingConstants;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.service.event.Event;
+import org.osgi.service.event.EventAdmin;
+
+import com.github.fakemongo.Fongo;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBObject;
+
+/**
+ * Tests the resource provider against the in-memory Fongo database.
+ */
+public class MongoDBResourceProviderTest {
+
+    private final List<Event> events = new ArrayList<Event>();
+
+    private DB database;
+
+    private MongoDBContext context;
+
+    private MongoDBResourceProvider provider;
+
+    /** The collection preparations, run right away unless deferred. */
+    private final List<Runnable> preparations = new ArrayList<Runnable>();
+
+    private boolean deferPreparations;
+
+    @Before
+    public void setup() {
+        this.database = new Fongo("test").getDB("sling");
+        this.context = new MongoDBContext(this.database, "/mongo", new String[] {"system.indexes"},
+                new EventAdmin() {
+
+                    public void postEvent(final Event event) {
+                        events.add(event);
+                    }
+
+                    public void sendEvent(final Event event) {
+                        events.add(event);
+                    }
+                },
+                new Executor() {
+
+                    public void execute(final Runnable command) {
+                        if ( deferPreparations ) {
+                            preparations.add(command);
+                        } else {
+                            command.run();
+                        }
+                    }
+                });
+        this.provider = new MongoDBResourceProvider(this.context);
+    }
+
+    private void create(final String path) throws PersistenceException {
+        final Map<String, Object> props = new HashMap<String, Object>();
+        props.put("name", path.substring(path.lastIndexOf('/') + 1));
+        this.provider.create(null, path, props);
+    }
+
+    private List<String> listChildren(final String path) {
+        final List<String> names = new ArrayList<String>();
+        final Iterator<Resource> i = this.provider.listChildren(this.provider.getResource(null, path));
+        while ( i.hasNext() ) {
+            names.add(i.next().getName());
+        }
+        return names;
+    }
+
+    private void createTree() throws PersistenceException {
+        create("/mongo/test/a");
+        create("/mongo/test/a/c");
+        create("/mongo/test/a/b");
+        create("/mongo/test/a/b/x");
+        create("/mongo/test/ab");
+        create("/mongo/test/a-1");
+        this.provider.commit(null);
+    }
+
+    @Test
+    public void testParentAndDepth() throws PersistenceException {
+        createTree();
+        final DBObject obj = this.database.getCollection("test").findOne(new BasicDBObject("_path", "a/b/x"));
+        assertNotNull(obj);
+        assertEquals("a/b", obj.get("_parent"));
+        assertEquals(3, ((Number)obj.get("_depth")).intValue());
+
+        final DBObject top = this.database.getCollection("test").findOne(new BasicDBObject("_path", "ab"));
+        assertEquals("", top.get("_parent"));
+        assertEquals(1, ((Number)top.get("_depth")).intValue());
+    }
+
+    @Test
+    public void testListChildren() throws PersistenceException {
+        createTree();
+        assertEquals(Arrays.asList("a", "a-1", "ab"), listChildren("/mongo/test"));
+        assertEquals(Arrays.asList("b", "c"), listChildren("/mongo/test/a"));
+        assertEquals(Collections.singletonList("x"), listChildren("/mongo/test/a/b"));
+        assertTrue(listChildren("/mongo/test/a/b/x").isEmpty());
+    }
+
+    @Test
+    public void testCommitNotifies() throws PersistenceException {
+        createTree();
+        assertEquals(6, events.size());
+        for(final Event e : events) {
+            assertEquals(SlingConstants.TOPIC_RESOURCE_CHANGED, e.getTopic());
+        }
+        assertFalse(this.provider.hasChanges(null));
+    }
+
+    @Test
+    public void testDeleteSubtree() throws PersistenceException {
+        createTree();
+        events.clear();
+
+        this.provider.delete(null, "/mongo/test/a");
+        assertNull(this.provider.getResource(null, "/mongo/test/a"));
+        assertNull(this.provider.getResource(null, "/mongo/test/a/b/x"));
+        assertNotNull(this.provider.getResource(null, "/mongo/test/ab"));
+        assertNotNull(this.provider.getResource(null, "/mongo/test/a-1"));
+
+        // only the deleted resource is tracked
+        assertEquals(Collections.singleton("/mongo/test/a"), this.provider.getDeletedResources());
+
+        this.provider.commit(null);
+        assertEquals(2, this.database.getCollection("test").count());
+        assertNull(this.provider.getResource(null, "/mongo/test/a/b"));
+        assertNotNull(this.provider.getResource(null, "/mongo/test/ab"));
+        assertEquals(1, events.size());
+        assertEquals(SlingConstants.TOPIC_RESOURCE_REMOVED, events.get(0).getTopic());
+        assertEquals("/mongo/test/a", events.get(0).getProperty(SlingConstants.PROPERTY_PATH));
+    }
+
+    @Test
+    public void testRecreateAfterDelete() throws PersistenceException {
+        createTree();
+        this.provider.delete(null, "/mongo/test/a");
+        create("/mongo/test/a");
+        create("/mongo/test/a/b");
+        assertNull(this.provider.getResource(null, "/mongo/test/a/c"));
+        assertNotNull(this.provider.getResource(null, "/mongo/test/a/b"));
+        this.provider.commit(null);
+
+        assertEquals(Arrays.asList("b"), listChildren("/mongo/test/a"));
+        assertTrue(listChildren("/mongo/test/a/b").isEmpty());
+        assertEquals(4, this.database.getCollection("test").count());
+    }
+
+    @Test
+    public void testUpdate() throws PersistenceException {
+        createTree();
+        final MongoDBResource rsrc = (MongoDBResource)this.provider.getResource(null, "/mongo/test/a/b");
+        rsrc.getProperties().put("title", "Hello");
+        rsrc.changed();
+        this.provider.commit(null);
+
+        assertEquals(6, this.database.getCollection("test").count());
+        final DBObject obj = this.database.getCollection("test").findOne(new BasicDBObject("_path", "a/b"));
+        assertEquals("Hello", obj.get("title"));
+        assertEquals("a", obj.get("_parent"));
+    }
+
+    @Test
+    public void testExistingEntriesArePrepared() {
+        this.database.getCollection("legacy").insert(new BasicDBObject("_path", "p"));
+        this.database.getCollection("legacy").insert(new BasicDBObject("_path", "p/q"));
+        this.database.getCollection("legacy").insert(new BasicDBObject("_path", "p/q/r"));
+
+        assertEquals(Collections.singletonList("p"), listChildren("/mongo/legacy"));
+        assertEquals(Collections.singletonList("q"), listChildren("/mongo/legacy/p"));
+        assertEquals(Collections.singletonList("r"), listChildren("/mongo/legacy/p/q"));
+        final DBObject obj = this.database.getCollection("legacy").findOne(new BasicDBObject("_path", "p/q/r"));
+        assertEquals(3, ((Number)obj.get("_depth")).intValue());
+    }
+
+    @Test
+    public void testPreparationInBackground() {
+        this.deferPreparations = true;
+        this.database.getCollection("legacy").insert(new BasicDBObject("_path", "p"));
+        this.database.getCollection("legacy").insert(new BasicDBObject("_path", "p/q"));
+
+        // listed before the preparation ran, which is only started once
+        assertEquals(Collections.singletonList("p"), listChildren("/mongo/legacy"));
+        assertEquals(Collections.singletonList("q"), listChildren("/mongo/legacy/p"));
+        assertEquals(1, this.preparations.size());
+        assertFalse(this.context.isPrepared("legacy"));
+        assertNull(this.database.getCollection("legacy").findOne(new BasicDBObject("_path", "p/q")).get("_parent"));
+
+        this.preparations.get(0).run();
+        assertTrue(this.context.isPrepared("legacy"));
+        assertEquals("p", this.database.getCollection("legacy").findOne(new BasicDBObject("_path", "p/q")).get("_parent"));
+        assertEquals(Collections.singletonList("q"), listChildren("/mongo/legacy/p"));
+        assertEquals(1, this.preparations.size());
+    }
+
+    @Test
+    public void testEntriesWithoutParentAreListed() throws PersistenceException {
+        createTree();
+        // written by another client after the collection has been prepared
+        this.database.getCollection("test").insert(new BasicDBObject("_path", "a/d"));
+        this.database.getCollection("test").insert(new BasicDBObject("_path", "a/d/e"));
+
+        assertTrue(this.context.isPrepared("test"));
+        assertEquals(Arrays.asList("b", "c", "d"), listChildren("/mongo/test/a"));
+        assertEquals(Collections.singletonList("e"), listChildren("/mongo/test/a/d"));
+    }
+
+    @Test(expected=PersistenceException.class)
+    public void testCreateExisting() throws PersistenceException {
+        createTree();
+        create("/mongo/test/a/b");
+    }
+}
@@ -49,11 +49,28 @@ public class ResourceInventoryPrinterFactory implements InventoryPrinter {
     @Property(value = "")
     private static final String PROP_PATH = "path";
 
+    @Property(intValue = 0)
+    private static final String PROP_WORKERS = "workers";
+
     private String path;
 
+    private int workers;
+
     @Activate
     protected void activate(final Map<String, Object> props) {
         this.path = (String)props.get(PROP_PATH);
+        final Object workersValue = props.get(PROP_WORKERS);
+        if ( workersValue instanceof Number ) {
+            this.workers = ((Number)workersValue).intValue();
+        } else if ( workersValue != null ) {
+            try {
+                this.workers = Integer.parseInt(workersValue.toString());
+            } catch (final NumberFormatException nfe) {
+                this.workers = 0;
+            }
+        } else {
+            this.workers = 0;
+        }
     }
 
     @Reference
@@ -71,7 +88,7 @@ public class ResourceInventoryPrinterFactory implements InventoryPrinter {
             resolver = factory.getAdministrativeResourceResolver(null);
             final Resource rootResource = resolver.getResource(this.path);
             if ( rootResource != null ) {
-                final ResourceTraversor rt = new ResourceTraversor(rootResource);
+                final ResourceTraversor rt = new ResourceTraversor(rootResource, this.workers);
                 rt.collectResources();
                 printWriter.write(rt.getJSONObject().toString(2));
 
@@ -18,8 +18,12 @@
 package org.apache.sling.resource.inventory.impl;
 
 import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.sling.api.resource.ParallelResourceVisitor;
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceUtil;
 import org.apache.sling.commons.json.JSONException;
 import org.apache.sling.commons.json.JSONObject;
 
@@ -29,9 +33,23 @@ public class ResourceTraversor {
 
     private final Resource startResource;
 
+    private final int workers;
+
     public ResourceTraversor(final Resource resource)
+    throws JSONException {
+        this(resource, 0);
+    }
+
+    /**
+     * @param resource The start resource
+     * @param workers The number of threads collecting the resources in
+     *        parallel, <code>0</code> to collect them on the calling thread.
+     * @throws JSONException
+     */
+    public ResourceTraversor(final Resource resource, final int workers)
     throws JSONException {
         this.startResource = resource;
+        this.workers = workers;
         this.startObject = this.adapt(resource);
     }
 
@@ -41,7 +59,47 @@ public class ResourceTraversor {
      * @throws JSONException
      */
     public void collectResources() throws JSONException {
-        collectChildren(startResource, this.startObject);
+        if ( this.workers > 0 ) {
+            collectParallel();
+        } else {
+            collectChildren(startResource, this.startObject);
+        }
+    }
+
+    /**
+     * Collect the descendants of startResource with a
+     * {@link ParallelResourceVisitor}. The order of the children in
+     * the JSON tree is not preserved.
+     * @throws JSONException
+     */
+    private void collectParallel() throws JSONException {
+        final Map<String, JSONObject> objects = new ConcurrentHashMap<String, JSONObject>();
+        objects.put(startResource.getPath(), startObject);
+        final ParallelResourceVisitor visitor = new ParallelResourceVisitor(this.workers,
+                ParallelResourceVisitor.DEFAULT_SPLIT_DEPTH) {
+
+            @Override
+            protected void visit(final Resource res) {
+                if ( res.getPath().equals(startResource.getPath()) ) {
+                    return;
+                }
+                final JSONObject parent = objects.get(ResourceUtil.getParent(res.getPath()));
+                try {
+                    final JSONObject o = adapt(res);
+                    objects.put(res.getPath(), o);
+                    synchronized ( parent ) {
+                        parent.put(res.getName(), o);
+                    }
+                } catch (final JSONException e) {
+                    throw new CollectException(e);
+                }
+            }
+        };
+        try {
+            visitor.accept(startResource);
+        } catch (final CollectException e) {
+            throw (JSONException)e.getCause();
+        }
     }
 
     /**
@@ -89,4 +147,16 @@ public class ResourceTraversor {
     public JSONObject getJSONObject() {
         return startObject;
     }
+
+    /**
+     * Carries a {@link JSONException} out of a parallel visit.
+     */
+    private static final class CollectException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        CollectException(final JSONException cause) {
+            super(cause);
+        }
+    }
 }
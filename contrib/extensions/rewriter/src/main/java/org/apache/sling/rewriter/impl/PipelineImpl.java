@@ -59,6 +59,12 @@ public class PipelineImpl implements Processor {
     /** The factory cache. */
     private final FactoryCache factoryCache;
 
+    /** The configuration, if processing times are recorded for it. */
+    private ProcessorConfigurationImpl statisticsConfiguration;
+
+    /** The time spent in setting up and running the pipeline in nanoseconds. */
+    private long processingTime;
+
     /**
      * Setup this pipeline.
      */
@@ -73,7 +79,11 @@ public class PipelineImpl implements Processor {
                      ProcessorConfiguration c)
     throws IOException {
         LOGGER.debug("Setting up pipeline...");
+        final long start = System.nanoTime();
         final PipelineConfiguration config = (PipelineConfiguration)c;
+        if ( c instanceof ProcessorConfigurationImpl ) {
+            this.statisticsConfiguration = (ProcessorConfigurationImpl)c;
+        }
         final ProcessingComponentConfiguration[] transformerConfigs = config.getTransformerConfigurations();
 
         // create components and initialize them
@@ -134,6 +144,7 @@ public class PipelineImpl implements Processor {
 
         this.firstContentHandler = pipelineComponent;
         generator.setContentHandler(this.firstContentHandler);
+        this.processingTime = System.nanoTime() - start;
         LOGGER.debug("Finished pipeline setup.");
     }
 
@@ -181,6 +192,7 @@ public class PipelineImpl implements Processor {
      * @see org.apache.sling.rewriter.Processor#finished(boolean)
      */
     public void finished(final boolean errorOccured) throws IOException {
+        final long start = System.nanoTime();
         try {
             // if an error occurred, we only clean up
             if ( !errorOccured ) {
@@ -211,6 +223,9 @@ public class PipelineImpl implements Processor {
             if ( this.serializer != null ) {
                 this.serializer.dispose();
             }
+            if ( this.statisticsConfiguration != null ) {
+                this.statisticsConfiguration.addProcessingTime(this.processingTime + System.nanoTime() - start);
+            }
         }
     }
 
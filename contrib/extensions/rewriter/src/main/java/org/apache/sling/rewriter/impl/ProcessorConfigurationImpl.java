@@ -19,6 +19,7 @@ package org.apache.sling.rewriter.impl;
 import java.io.PrintWriter;
 import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceUtil;
@@ -98,6 +99,12 @@ public class ProcessorConfigurationImpl implements PipelineConfiguration {
 
     private final String descString;
 
+    /** The number of responses processed with this configuration. */
+    private final AtomicLong processedCount = new AtomicLong();
+
+    /** The total processing time of all responses in nanoseconds. */
+    private final AtomicLong processingTime = new AtomicLong();
+
     /**
      * This is the constructor for a pipeline
      */
@@ -201,6 +208,14 @@ public class ProcessorConfigurationImpl implements PipelineConfiguration {
         pw.println(this.isValid);
         pw.print("Process Error Response : ");
         pw.println(this.processErrorResponse);
+        final long count = this.processedCount.get();
+        pw.print("Processed Responses : ");
+        pw.println(count);
+        if ( count > 0 ) {
+            pw.print("Average Processing Time : ");
+            pw.print(this.processingTime.get() / count / 1000);
+            pw.println(" us");
+        }
         if ( this.isPipeline ) {
             pw.println("Pipeline : ");
             pw.println("    Generator : ");
@@ -221,6 +236,15 @@ public class ProcessorConfigurationImpl implements PipelineConfiguration {
 
     }
 
+    /**
+     * Record the time spent processing a response with this configuration.
+     * @param nanos The processing time in nanoseconds.
+     */
+    void addProcessingTime(final long nanos) {
+        this.processedCount.incrementAndGet();
+        this.processingTime.addAndGet(nanos);
+    }
+
     private void printConfiguration(final PrintWriter pw, final ProcessingComponentConfiguration config) {
         if ( config instanceof ProcessingComponentConfigurationImpl ) {
             ((ProcessingComponentConfigurationImpl)config).printConfiguration(pw);
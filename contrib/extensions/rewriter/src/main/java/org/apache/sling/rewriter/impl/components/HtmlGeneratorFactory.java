@@ -17,9 +17,11 @@
 package org.apache.sling.rewriter.impl.components;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
-import java.io.StringWriter;
+import java.nio.charset.Charset;
 
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Property;
@@ -53,9 +55,14 @@ public class HtmlGeneratorFactory implements GeneratorFactory {
         return new HtmlGenerator(htmlParser);
     }
 
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
     public static final class HtmlGenerator implements Generator {
 
-        private final StringWriter writer;
+        /** The UTF-8 encoded content written to the writer. */
+        private final Buffer buffer;
+
+        private final PrintWriter writer;
 
         private final HtmlParser htmlParser;
 
@@ -63,21 +70,25 @@ public class HtmlGeneratorFactory implements GeneratorFactory {
 
         public HtmlGenerator(final HtmlParser parser) {
             this.htmlParser = parser;
-            this.writer = new StringWriter();
+            this.buffer = new Buffer();
+            // encode directly into the buffer which is then parsed without
+            // creating intermediate strings or copies of the content
+            this.writer = new PrintWriter(new OutputStreamWriter(this.buffer, UTF_8));
         }
 
         /**
          * @see org.apache.sling.rewriter.Generator#finished()
          */
         public void finished() throws IOException, SAXException {
-            this.htmlParser.parse(new ByteArrayInputStream(this.writer.toString().getBytes("UTF-8")), "UTF-8", this.contentHandler);
+            this.writer.flush();
+            this.htmlParser.parse(this.buffer.getInputStream(), "UTF-8", this.contentHandler);
         }
 
         /**
          * @see org.apache.sling.rewriter.Generator#getWriter()
          */
         public PrintWriter getWriter() {
-            return new PrintWriter(writer);
+            return this.writer;
         }
 
         public void init(ProcessingContext context,
@@ -100,4 +111,19 @@ public class HtmlGeneratorFactory implements GeneratorFactory {
             // nothing to do
         }
     }
+
+    /**
+     * Byte array output stream providing an input stream on its
+     * content without copying it.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        Buffer() {
+            super(8192);
+        }
+
+        ByteArrayInputStream getInputStream() {
+            return new ByteArrayInputStream(this.buf, 0, this.count);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.rewriter.impl.components;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.PrintWriter;
+
+import org.apache.sling.commons.html.HtmlParser;
+import org.apache.sling.commons.html.impl.HtmlParserImpl;
+import org.apache.sling.rewriter.impl.components.HtmlGeneratorFactory.HtmlGenerator;
+import org.junit.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class HtmlGeneratorTest {
+
+    private static final String HTML = "<html><head><title>Caf\u00e9 \ud83d\ude00</title>"
+        + "<script type=\"text/javascript\">if (a < b && c > d) { x = '</p>'; }</script></head>"
+        + "<body class=\"main\"><p id='first' title=\"a &amp; b\">Hello &lt;World&gt; \u20ac<br/>"
+        + "<a href=\"/content/page.html?a=1&amp;b=2\">Link</a></p><!-- comment --></body></html>";
+
+    private final HtmlParser parser = new HtmlParserImpl();
+
+    @Test
+    public void testSingleWrite() throws Exception {
+        final String expected = parseAsString(HTML);
+        assertTrue(expected.contains("<p id=\"first\" title=\"a & b\">\nTEXT Hello <World> \u20ac\n"));
+        assertEquals(expected, generate(HTML, HTML.length()));
+    }
+
+    @Test
+    public void testSplitAtEveryPosition() throws Exception {
+        final String expected = parseAsString(HTML);
+        for (int i = 1; i < HTML.length(); i++) {
+            final HtmlGenerator generator = createGenerator();
+            final RecordingHandler handler = new RecordingHandler();
+            generator.setContentHandler(handler);
+            // tags, attributes, entities and surrogate pairs are split
+            generator.getWriter().write(HTML, 0, i);
+            generator.getWriter().write(HTML.substring(i).toCharArray());
+            generator.finished();
+            assertEquals("Split at " + i, expected, handler.toString());
+        }
+    }
+
+    @Test
+    public void testSingleCharacterWrites() throws Exception {
+        final HtmlGenerator generator = createGenerator();
+        final RecordingHandler handler = new RecordingHandler();
+        generator.setContentHandler(handler);
+        for (int i = 0; i < HTML.length(); i++) {
+            generator.getWriter().print(HTML.charAt(i));
+        }
+        generator.finished();
+        assertEquals(parseAsString(HTML), handler.toString());
+    }
+
+    @Test
+    public void testContentLargerThanBuffer() throws Exception {
+        final StringBuilder sb = new StringBuilder("<html><body>");
+        for (int i = 0; i < 2000; i++) {
+            sb.append("<div class=\"item").append(i).append("\">\u00e4\u00f6\u00fc ").append(i).append("</div>");
+        }
+        sb.append("</body></html>");
+        final String html = sb.toString();
+        assertEquals(parseAsString(html), generate(html, 1000));
+    }
+
+    private HtmlGenerator createGenerator() {
+        return new HtmlGenerator(this.parser);
+    }
+
+    /**
+     * Write the content to a new generator in chunks of the given size.
+     */
+    private String generate(final String html, final int chunkSize) throws Exception {
+        final HtmlGenerator generator = createGenerator();
+        final RecordingHandler handler = new RecordingHandler();
+        generator.setContentHandler(handler);
+        for (int i = 0; i < html.length(); i += chunkSize) {
+            final PrintWriter writer = generator.getWriter();
+            writer.write(html.substring(i, Math.min(html.length(), i + chunkSize)));
+        }
+        generator.finished();
+        return handler.toString();
+    }
+
+    /**
+     * Parse the content the way the generator did before it buffered
+     * the content in place: from the bytes of the complete string.
+     */
+    private String parseAsString(final String html) throws Exception {
+        final RecordingHandler handler = new RecordingHandler();
+        this.parser.parse(new ByteArrayInputStream(html.getBytes("UTF-8")), "UTF-8", handler);
+        return handler.toString();
+    }
+
+    /**
+     * Content handler recording the events, merging adjacent characters.
+     */
+    private static final class RecordingHandler extends DefaultHandler {
+
+        private final StringBuilder events = new StringBuilder();
+
+        private final StringBuilder text = new StringBuilder();
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) {
+            flushText();
+            events.append('<').append(localName);
+            for (int i = 0; i < atts.getLength(); i++) {
+                events.append(' ').append(atts.getLocalName(i)).append("=\"").append(atts.getValue(i)).append('"');
+            }
+            events.append(">\n");
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            flushText();
+            events.append("</").append(localName).append(">\n");
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            text.append(ch, start, length);
+        }
+
+        @Override
+        public void endDocument() {
+            flushText();
+            events.append("END\n");
+        }
+
+        private void flushText() {
+            if (text.length() > 0) {
+                events.append("TEXT ").append(text).append('\n');
+                text.setLength(0);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return events.toString();
+        }
+    }
+}
@@ -35,6 +35,10 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.sling.commons.osgi.PropertiesUtil;
@@ -57,6 +61,7 @@ import org.apache.sling.installer.api.tasks.RetryHandler;
 import org.apache.sling.installer.api.tasks.TaskResource;
 import org.apache.sling.installer.api.tasks.TaskResourceGroup;
 import org.apache.sling.installer.api.tasks.TransformationResult;
+import org.apache.sling.installer.core.impl.tasks.BundleInstallTask;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
 import org.osgi.framework.ServiceReference;
@@ -76,6 +81,13 @@ import org.slf4j.LoggerFactory;
 public class OsgiInstallerImpl
 implements OsgiInstaller, ResourceChangeListener, RetryHandler, InfoProvider, Runnable {
 
+    /**
+     * The name of the framework property defining the number of bundle
+     * installs executed in parallel (value is "sling.installer.parallel.installs").
+     * A value lower than 2 (the default) executes all tasks sequentially.
+     */
+    private static final String PARALLEL_INSTALLS = "sling.installer.parallel.installs";
+
     /** The logger */
     private final Logger logger =  LoggerFactory.getLogger(this.getClass());
 
@@ -121,6 +133,9 @@ implements OsgiInstaller, ResourceChangeListener, RetryHandler, InfoProvider, Ru
     private final InstallListener listener;
     private final AtomicLong backgroundTaskCounter = new AtomicLong();
 
+    /** The number of bundle installs executed in parallel. */
+    private final int parallelInstalls;
+
 
     /**
      *  Constructor
@@ -134,6 +149,7 @@ implements OsgiInstaller, ResourceChangeListener, RetryHandler, InfoProvider, Ru
         final File f = FileDataStore.SHARED.getDataFile("RegisteredResourceList.ser");
         this.listener = new InstallListener(ctx, logger);
         this.persistentList = new PersistentResourceList(f, listener);
+        this.parallelInstalls = PropertiesUtil.toInteger(ctx.getProperty(PARALLEL_INSTALLS), 1);
     }
 
     /**
@@ -617,7 +633,7 @@ implements OsgiInstaller, ResourceChangeListener, RetryHandler, InfoProvider, Ru
         return result;
     }
 
-    private enum ACTION {
+    enum ACTION {
         SLEEP,
         SHUTDOWN,
         CYCLE
@@ -625,8 +641,9 @@ implements OsgiInstaller, ResourceChangeListener, RetryHandler, InfoProvider, Ru
 
     /**
      * Execute all tasks
+     * (package private for testing)
      */
-    private ACTION executeTasks(final SortedSet<InstallTask> tasks) {
+    ACTION executeTasks(final SortedSet<InstallTask> tasks) {
         if ( !tasks.isEmpty() ) {
 
             final InstallationContext ctx = new InstallationContext() {
@@ -678,12 +695,30 @@ implements OsgiInstaller, ResourceChangeListener, RetryHandler, InfoProvider, Ru
                     }
                 }
             };
+            final Map<String, long[]> timings = new HashMap<String, long[]>();
             while (this.active && !tasks.isEmpty()) {
                 InstallTask task = null;
                 synchronized (tasks) {
                     task = tasks.first();
                     tasks.remove(task);
                 }
+                // bundle installs do not depend on each other, they are
+                // (optionally) executed in parallel
+                if ( this.parallelInstalls > 1 && task instanceof BundleInstallTask ) {
+                    final List<InstallTask> batch = new ArrayList<InstallTask>();
+                    batch.add(task);
+                    synchronized (tasks) {
+                        while ( !tasks.isEmpty() && tasks.first() instanceof BundleInstallTask ) {
+                            final InstallTask next = tasks.first();
+                            tasks.remove(next);
+                            batch.add(next);
+                        }
+                    }
+                    final long start = System.currentTimeMillis();
+                    this.executeInParallel(batch, ctx);
+                    addTiming(timings, "BundleInstallTask (parallel)", batch.size(), System.currentTimeMillis() - start);
+                    continue;
+                }
                 // async tasks are executed "immediately"
                 if ( task.isAsynchronousTask() ) {
                     logger.debug("Executing async task: {}", task);
@@ -704,6 +739,7 @@ implements OsgiInstaller, ResourceChangeListener, RetryHandler, InfoProvider, Ru
                     // save new state
                     this.cleanupInstallableResources();
                     final InstallTask aSyncTask = task;
+                    final Thread installerThread = Thread.currentThread();
                     final String threadName = "BackgroundTaskThread" + backgroundTaskCounter.incrementAndGet();
                     final Thread t = new Thread(threadName) {
 
@@ -712,8 +748,9 @@ implements OsgiInstaller, ResourceChangeListener, RetryHandler, InfoProvider, Ru
                             logger.debug("Starting background thread {} to execute {}",
                                     Thread.currentThread().getName(),
                                     aSyncTask);
+                            // wait (at most two seconds) for the installer thread to go inactive
                             try {
-                                Thread.sleep(2000L);
+                                installerThread.join(2000L);
                             } catch (final InterruptedException ie) {
                                 // ignore
                             }
@@ -728,13 +765,16 @@ implements OsgiInstaller, ResourceChangeListener, RetryHandler, InfoProvider, Ru
                     t.start();
                     return ACTION.SHUTDOWN;
                 }
+                final long start = System.currentTimeMillis();
                 try {
                     logger.debug("Executing task: {}", task);
                     task.execute(ctx);
                 } catch (final Throwable t) {
                     logger.error("Uncaught exception during task execution!", t);
                 }
+                addTiming(timings, task.getClass().getSimpleName(), 1, System.currentTimeMillis() - start);
             }
+            logTimings(timings);
             // save new state
             final boolean newCycle = this.cleanupInstallableResources();
             if ( newCycle ) {
@@ -745,6 +785,84 @@ implements OsgiInstaller, ResourceChangeListener, RetryHandler, InfoProvider, Ru
         return ACTION.SLEEP;
     }
 
+    /**
+     * Execute the tasks in parallel using at most {@link #parallelInstalls}
+     * threads and wait for all of them to finish.
+     */
+    private void executeInParallel(final List<InstallTask> batch, final InstallationContext ctx) {
+        logger.debug("Executing {} tasks in parallel: {}", batch.size(), batch);
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.parallelInstalls, batch.size()),
+                new ThreadFactory() {
+
+                    public Thread newThread(final Runnable r) {
+                        final Thread t = new Thread(r, "OsgiInstallerTaskThread" + backgroundTaskCounter.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+        try {
+            final List<Callable<Object>> calls = new ArrayList<Callable<Object>>();
+            for(final InstallTask task : batch) {
+                calls.add(new Callable<Object>() {
+
+                    public Object call() {
+                        try {
+                            logger.debug("Executing task: {}", task);
+                            task.execute(ctx);
+                        } catch (final Throwable t) {
+                            logger.error("Uncaught exception during task execution!", t);
+                        }
+                        return null;
+                    }
+                });
+            }
+            executor.invokeAll(calls);
+        } catch (final InterruptedException ie) {
+            logger.warn("Interrupted while executing tasks in parallel.", ie);
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Add the time spent for executing tasks of the given kind.
+     */
+    private static void addTiming(final Map<String, long[]> timings, final String kind, final int count, final long time) {
+        long[] timing = timings.get(kind);
+        if ( timing == null ) {
+            timing = new long[2];
+            timings.put(kind, timing);
+        }
+        timing[0] += count;
+        timing[1] += time;
+    }
+
+    /**
+     * Log the time spent per kind of task in this cycle.
+     */
+    private void logTimings(final Map<String, long[]> timings) {
+        final boolean info = this.parallelInstalls > 1;
+        if ( timings.isEmpty() || !(info || logger.isDebugEnabled()) ) {
+            return;
+        }
+        final StringBuilder sb = new StringBuilder("Executed tasks:");
+        for(final Map.Entry<String, long[]> entry : timings.entrySet()) {
+            sb.append(' ');
+            sb.append(entry.getKey());
+            sb.append('=');
+            sb.append(entry.getValue()[0]);
+            sb.append(" in ");
+            sb.append(entry.getValue()[1]);
+            sb.append("ms");
+        }
+        if ( info ) {
+            logger.info(sb.toString());
+        } else {
+            logger.debug(sb.toString());
+        }
+    }
+
     /**
      * Clean up and compact.
      * @return <code>true</code> if another cycle should be started.
@@ -0,0 +1,297 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.installer.api.InstallableResource;
+import org.apache.sling.installer.api.tasks.InstallTask;
+import org.apache.sling.installer.api.tasks.InstallationContext;
+import org.apache.sling.installer.core.impl.mocks.MockFileDataStore;
+import org.apache.sling.installer.core.impl.tasks.BundleInstallTask;
+import org.apache.sling.installer.core.impl.tasks.MockInstallationListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the execution of the tasks of an installer cycle.
+ */
+public class OsgiInstallerImplTest {
+
+    /** The names of the executed tasks, in order of completion. */
+    private final List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+
+    /** The threads persisting the resource list. */
+    private final List<Thread> savingThreads = Collections.synchronizedList(new ArrayList<Thread>());
+
+    @Before
+    public void setUp() {
+        MockFileDataStore.set();
+    }
+
+    @After
+    public void tearDown() {
+        MockFileDataStore.unset();
+    }
+
+    private OsgiInstallerImpl createInstaller(final String parallelInstalls) throws Exception {
+        final OsgiInstallerImpl installer = new OsgiInstallerImpl(new MockBundleContext() {
+
+            @Override
+            public String getProperty(final String key) {
+                if ( "sling.installer.parallel.installs".equals(key) ) {
+                    return parallelInstalls;
+                }
+                return super.getProperty(key);
+            }
+        });
+        Utilities.setField(installer, "persistentList",
+                new PersistentResourceList(Utilities.getTestFile(), new MockInstallationListener()) {
+
+            @Override
+            public void save() {
+                savingThreads.add(Thread.currentThread());
+                super.save();
+            }
+        });
+        return installer;
+    }
+
+    private static EntityResourceList createResourceGroup(final String url) throws IOException {
+        final InternalResource internal = InternalResource.create("test",
+                new InstallableResource(url, null, new Hashtable<String, Object>(), null, null, null));
+        final EntityResourceList erl = new EntityResourceList("test", new MockInstallationListener());
+        erl.addOrUpdate(RegisteredResourceImpl.create(internal));
+        return erl;
+    }
+
+    /**
+     * An install task which waits for all installs of the batch
+     * to run at the same time.
+     */
+    private class ParallelInstallTask extends BundleInstallTask {
+
+        private final CyclicBarrier barrier;
+
+        private final InstallTask followUp;
+
+        private volatile Thread thread;
+
+        public ParallelInstallTask(final String url, final CyclicBarrier barrier, final InstallTask followUp)
+        throws IOException {
+            super(createResourceGroup(url), null);
+            this.barrier = barrier;
+            this.followUp = followUp;
+        }
+
+        @Override
+        public void execute(final InstallationContext ctx) {
+            this.thread = Thread.currentThread();
+            try {
+                if ( barrier != null ) {
+                    barrier.await(5, TimeUnit.SECONDS);
+                }
+            } catch (final Exception e) {
+                return;
+            }
+            if ( followUp != null ) {
+                ctx.addTaskToCurrentCycle(followUp);
+            }
+            executed.add(getSortKey());
+        }
+
+        @Override
+        public String getSortKey() {
+            return "40-" + getResource().getURL();
+        }
+    }
+
+    /**
+     * A task executed after the installs.
+     */
+    private class SerialTask extends InstallTask {
+
+        private final String sortKey;
+
+        private final boolean async;
+
+        private volatile Thread thread;
+
+        public SerialTask(final String sortKey, final boolean async) {
+            super(null);
+            this.sortKey = sortKey;
+            this.async = async;
+        }
+
+        public SerialTask(final String sortKey) {
+            this(sortKey, false);
+        }
+
+        @Override
+        public void execute(final InstallationContext ctx) {
+            this.thread = Thread.currentThread();
+            executed.add(getSortKey());
+        }
+
+        @Override
+        public String getSortKey() {
+            return sortKey;
+        }
+
+        @Override
+        public boolean isAsynchronousTask() {
+            return async;
+        }
+    }
+
+    @Test
+    public void testSequentialByDefault() throws Exception {
+        final OsgiInstallerImpl installer = createInstaller(null);
+        final SortedSet<InstallTask> tasks = new TreeSet<InstallTask>();
+        final ParallelInstallTask a = new ParallelInstallTask("test:a", null, null);
+        final ParallelInstallTask b = new ParallelInstallTask("test:b", null, null);
+        final SerialTask start = new SerialTask("70-start");
+        tasks.add(start);
+        tasks.add(b);
+        tasks.add(a);
+
+        installer.executeTasks(tasks);
+
+        assertEquals(3, executed.size());
+        assertEquals(a.getSortKey(), executed.get(0));
+        assertEquals(b.getSortKey(), executed.get(1));
+        assertEquals("70-start", executed.get(2));
+        assertSame(Thread.currentThread(), a.thread);
+        assertSame(Thread.currentThread(), b.thread);
+    }
+
+    @Test
+    public void testParallelInstalls() throws Exception {
+        final OsgiInstallerImpl installer = createInstaller("3");
+        final CyclicBarrier barrier = new CyclicBarrier(3);
+        final SortedSet<InstallTask> tasks = new TreeSet<InstallTask>();
+        final List<ParallelInstallTask> installs = new ArrayList<ParallelInstallTask>();
+        for(final String name : new String[] {"a", "b", "c"}) {
+            installs.add(new ParallelInstallTask("test:" + name, barrier, null));
+        }
+        final SerialTask remove = new SerialTask("10-remove");
+        final SerialTask start = new SerialTask("70-start");
+        tasks.add(start);
+        tasks.addAll(installs);
+        tasks.add(remove);
+
+        installer.executeTasks(tasks);
+
+        // all installs passed the barrier, so they ran at the same time
+        assertEquals(5, executed.size());
+        assertFalse(barrier.isBroken());
+        // tasks sorted before and after the installs keep their order
+        assertEquals("10-remove", executed.get(0));
+        assertEquals("70-start", executed.get(4));
+        assertSame(Thread.currentThread(), remove.thread);
+        assertSame(Thread.currentThread(), start.thread);
+        for(final ParallelInstallTask install : installs) {
+            assertTrue(executed.indexOf(install.getSortKey()) > 0);
+            assertTrue(executed.indexOf(install.getSortKey()) < 4);
+            assertTrue(install.thread != Thread.currentThread());
+        }
+    }
+
+    @Test
+    public void testTasksAddedDuringParallelInstalls() throws Exception {
+        final OsgiInstallerImpl installer = createInstaller("2");
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        final SerialTask startA = new SerialTask("70-start-a");
+        final SerialTask startB = new SerialTask("70-start-b");
+        final SortedSet<InstallTask> tasks = new TreeSet<InstallTask>();
+        tasks.add(new ParallelInstallTask("test:a", barrier, startA));
+        tasks.add(new ParallelInstallTask("test:b", barrier, startB));
+        // a task retried by an install is executed again in this cycle
+        final ParallelInstallTask retry = new ParallelInstallTask("test:d", null, null);
+        tasks.add(new ParallelInstallTask("test:c", null, retry));
+
+        installer.executeTasks(tasks);
+
+        assertEquals(6, executed.size());
+        assertEquals(retry.getSortKey(), executed.get(3));
+        assertEquals("70-start-a", executed.get(4));
+        assertEquals("70-start-b", executed.get(5));
+        assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    public void testStatePersistedByInstallerThreadOnly() throws Exception {
+        final OsgiInstallerImpl installer = createInstaller("4");
+        final CyclicBarrier barrier = new CyclicBarrier(4);
+        final SortedSet<InstallTask> tasks = new TreeSet<InstallTask>();
+        for(final String name : new String[] {"a", "b", "c", "d"}) {
+            tasks.add(new ParallelInstallTask("test:" + name, barrier, null));
+        }
+
+        installer.executeTasks(tasks);
+
+        assertEquals(4, executed.size());
+        assertEquals(1, savingThreads.size());
+        assertSame(Thread.currentThread(), savingThreads.get(0));
+    }
+
+    @Test
+    public void testAsyncTaskWaitsForInstallerThread() throws Exception {
+        final OsgiInstallerImpl installer = createInstaller(null);
+        final SerialTask async = new SerialTask("00-async", true);
+        final SortedSet<InstallTask> tasks = new TreeSet<InstallTask>();
+        tasks.add(async);
+
+        final CountDownLatch done = new CountDownLatch(1);
+        final Thread installerThread = new Thread() {
+
+            @Override
+            public void run() {
+                installer.executeTasks(tasks);
+                done.countDown();
+            }
+        };
+        final long start = System.currentTimeMillis();
+        installerThread.start();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        installerThread.join();
+
+        // the task is executed once the installer thread has ended
+        while ( async.thread == null && System.currentTimeMillis() - start < 5000 ) {
+            Thread.sleep(10);
+        }
+        assertTrue(async.thread != null);
+        assertTrue(System.currentTimeMillis() - start < 2000);
+    }
+}
@@ -54,6 +54,18 @@ class WatchedFolder implements EventListener{
 
     private volatile boolean needsScan;
 
+    /**
+     * If more children than this changed between two scans, the whole folder
+     * is scanned instead of the individual children.
+     */
+    static final int MAX_CHANGED_CHILDREN = 100;
+
+    /** Names of the direct children of our folder that changed since the last scan */
+    private final Set<String> changedChildren = new HashSet<String>();
+
+    /** Whether the next scan must process the complete folder */
+    private boolean fullScanRequired = true;
+
     static class ScanResult {
         List<InstallableResource> toAdd = new ArrayList<InstallableResource>();
         List<String> toRemove = new ArrayList<String>();
@@ -87,6 +99,10 @@ class WatchedFolder implements EventListener{
         final boolean noLocal = true;
         session.getWorkspace().getObservationManager().addEventListener(this, eventTypes, path,
                 isDeep, null, null, noLocal);
+        synchronized ( this.changedChildren ) {
+            this.fullScanRequired = true;
+            this.changedChildren.clear();
+        }
         this.needsScan = true;
 
         log.info("Watching folder {} (priority {})", path, priority);
@@ -110,13 +126,60 @@ class WatchedFolder implements EventListener{
     }
 
     /**
-     * Update scan flag whenever an observation event occurs.
+     * Update scan flag whenever an observation event occurs and
+     * remember which children of our folder are affected, so that
+     * the next scan only needs to process those.
      */
     public void onEvent(final EventIterator it) {
         log.debug("JCR events received for path {}", path);
+        synchronized ( this.changedChildren ) {
+            try {
+                while ( it.hasNext() ) {
+                    final Event e = it.nextEvent();
+                    if ( this.fullScanRequired ) {
+                        continue;
+                    }
+                    final String childName = getChildName(e.getPath());
+                    if ( childName == null ) {
+                        this.fullScanRequired = true;
+                    } else {
+                        this.changedChildren.add(childName);
+                        if ( this.changedChildren.size() > MAX_CHANGED_CHILDREN ) {
+                            this.fullScanRequired = true;
+                        }
+                    }
+                }
+            } catch (final RepositoryException re) {
+                log.debug("Unable to get event path, scheduling full scan of " + path, re);
+                this.fullScanRequired = true;
+            }
+            if ( this.fullScanRequired ) {
+                this.changedChildren.clear();
+            }
+        }
         needsScan = true;
     }
 
+    /**
+     * Return the name of the direct child of our folder which contains
+     * the given path, or <code>null</code> if the path is not below
+     * a child of our folder or the name is not unique.
+     */
+    private String getChildName(final String eventPath) {
+        if ( eventPath == null || eventPath.length() <= path.length() + 1
+             || !eventPath.startsWith(path) || eventPath.charAt(path.length()) != '/' ) {
+            return null;
+        }
+        final int pos = eventPath.indexOf('/', path.length() + 1);
+        final String name = (pos == -1 ? eventPath.substring(path.length() + 1)
+                                       : eventPath.substring(path.length() + 1, pos));
+        // same name siblings can't be addressed by name
+        if ( name.indexOf('[') != -1 ) {
+            return null;
+        }
+        return name;
+    }
+
     /**
      * Did an observation event occur in the meantime?
      */
@@ -132,6 +195,15 @@ class WatchedFolder implements EventListener{
         log.debug("Scanning {}", path);
         needsScan = false;
 
+        final boolean fullScan;
+        final Set<String> children;
+        synchronized ( this.changedChildren ) {
+            fullScan = this.fullScanRequired;
+            children = new HashSet<String>(this.changedChildren);
+            this.fullScanRequired = false;
+            this.changedChildren.clear();
+        }
+
         Node folder = null;
         if (session.itemExists(path)) {
         	final Item i = session.getItem(path);
@@ -143,16 +215,34 @@ class WatchedFolder implements EventListener{
         // Return an InstallableResource for all child nodes for which we have a NodeConverter
         final ScanResult result = new ScanResult();
         final Set<String> resourcesSeen = new HashSet<String>();
-        if (folder != null) {
-            scanNode(folder, result, resourcesSeen);
-        }
+        if ( fullScan || folder == null ) {
+            if (folder != null) {
+                scanNode(folder, result, resourcesSeen);
+            }
 
-        // Resources that existed but are not in resourcesSeen need to be
-        // unregistered from OsgiInstaller
-        for(final String url : existingResourceUrls) {
-        	if(!resourcesSeen.contains(url)) {
-                result.toRemove.add(url);
-        	}
+            // Resources that existed but are not in resourcesSeen need to be
+            // unregistered from OsgiInstaller
+            for(final String url : existingResourceUrls) {
+            	if(!resourcesSeen.contains(url)) {
+                    result.toRemove.add(url);
+            	}
+            }
+        } else {
+            // only rescan the changed children
+            for(final String name : children) {
+                if ( folder.hasNode(name) ) {
+                    scanChild(folder.getNode(name), result, resourcesSeen);
+                }
+                final String childPath = folder.getPath() + '/' + name;
+                final String childPrefix = childPath + '/';
+                for(final String url : existingResourceUrls) {
+                    if ( (url.equals(childPath) || url.startsWith(childPrefix))
+                         && !resourcesSeen.contains(url) ) {
+                        result.toRemove.add(url);
+                    }
+                }
+            }
+            log.debug("Scanned {} changed children of {}", children.size(), path);
         }
         for(final String u : result.toRemove) {
         	existingResourceUrls.remove(u);
@@ -172,25 +262,29 @@ class WatchedFolder implements EventListener{
     throws RepositoryException {
         final NodeIterator it = folder.getNodes();
         while(it.hasNext()) {
-            final Node n = it.nextNode();
-            boolean processed = false;
-            for (JcrInstaller.NodeConverter nc : converters) {
-                final InstallableResource r = nc.convertNode(n, priority);
-                if(r != null) {
-                    processed = true;
-                    resourcesSeen.add(r.getId());
-                    final String oldDigest = digests.get(r.getId());
-                    if(r.getDigest().equals(oldDigest)) {
-                        log.debug("Digest didn't change, ignoring " + r);
-                    } else {
-                        result.toAdd.add(r);
-                    }
-                    break;
+            this.scanChild(it.nextNode(), result, resourcesSeen);
+        }
+    }
+
+    private void scanChild(final Node n, final ScanResult result, final Set<String> resourcesSeen)
+    throws RepositoryException {
+        boolean processed = false;
+        for (JcrInstaller.NodeConverter nc : converters) {
+            final InstallableResource r = nc.convertNode(n, priority);
+            if(r != null) {
+                processed = true;
+                resourcesSeen.add(r.getId());
+                final String oldDigest = digests.get(r.getId());
+                if(r.getDigest().equals(oldDigest)) {
+                    log.debug("Digest didn't change, ignoring " + r);
+                } else {
+                    result.toAdd.add(r);
                 }
+                break;
             }
-            if ( !processed ) {
-                this.scanNode(n, result, resourcesSeen);
-            }
+        }
+        if ( !processed ) {
+            this.scanNode(n, result, resourcesSeen);
         }
     }
 }
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.provider.jcr.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.apache.sling.commons.testing.jcr.EventHelper;
+import org.apache.sling.commons.testing.jcr.RepositoryTestBase;
+import org.apache.sling.installer.api.InstallableResource;
+
+/** Test that a WatchedFolder rescans only the children
+ *  affected by changes, and the whole folder if the folder
+ *  itself changes.
+ */
+public class WatchedFolderTest extends RepositoryTestBase {
+
+    private static final String FOLDER = "/libs/foo/watchedfolder/install";
+
+    private static final String [] FILES = { FOLDER + "/a.jar", FOLDER + "/b.jar", FOLDER + "/c.jar" };
+
+    private Session contentSession;
+    private Session watcherSession;
+    private ContentHelper contentHelper;
+    private EventHelper eventHelper;
+    private WatchedFolder watchedFolder;
+
+    /** Paths of the nodes converted during the last scan */
+    private final List<String> converted = Collections.synchronizedList(new ArrayList<String>());
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        contentSession = getRepository().loginAdministrative(null);
+        watcherSession = getRepository().loginAdministrative(null);
+        contentHelper = new ContentHelper(contentSession);
+        contentHelper.cleanupContent();
+        contentSession.save();
+        contentHelper.createFolder(FOLDER);
+        for(String path : FILES) {
+            contentHelper.createOrUpdateFile(path);
+        }
+        eventHelper = new EventHelper(contentSession);
+
+        final List<JcrInstaller.NodeConverter> converters = new ArrayList<JcrInstaller.NodeConverter>();
+        final JcrInstaller.NodeConverter fileConverter = new FileNodeConverter();
+        converters.add(new JcrInstaller.NodeConverter() {
+            public InstallableResource convertNode(Node n, int priority) throws RepositoryException {
+                converted.add(n.getPath());
+                return fileConverter.convertNode(n, priority);
+            }
+        });
+        watchedFolder = new WatchedFolder(watcherSession, FOLDER, 100, converters);
+        watchedFolder.start();
+
+        // initial scan of the complete folder
+        final WatchedFolder.ScanResult result = scan();
+        assertEquals(ids(FILES), ids(result.toAdd));
+        assertTrue(result.toRemove.isEmpty());
+        assertTrue(converted.containsAll(ids(FILES)));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        watchedFolder.stop();
+        eventHelper.dispose();
+        contentHelper.cleanupContent();
+        contentSession.save();
+        contentSession.logout();
+        watcherSession.logout();
+        super.tearDown();
+    }
+
+    public void testAddSingleChild() throws Exception {
+        final String path = FOLDER + "/d.jar";
+        contentHelper.createOrUpdateFile(path);
+
+        final WatchedFolder.ScanResult result = scanAfterEvents();
+        assertEquals(ids(path), ids(result.toAdd));
+        assertTrue(result.toRemove.isEmpty());
+        assertConverted(path);
+    }
+
+    public void testRemoveSingleChild() throws Exception {
+        contentHelper.delete(FILES[1]);
+
+        final WatchedFolder.ScanResult result = scanAfterEvents();
+        assertTrue(result.toAdd.isEmpty());
+        assertEquals(ids(FILES[1]), new HashSet<String>(result.toRemove));
+        assertConverted();
+    }
+
+    public void testChangeSingleChild() throws Exception {
+        contentHelper.createOrUpdateFile(FILES[2], null, System.currentTimeMillis() + 1000);
+
+        final WatchedFolder.ScanResult result = scanAfterEvents();
+        assertEquals(ids(FILES[2]), ids(result.toAdd));
+        assertTrue(result.toRemove.isEmpty());
+        assertConverted(FILES[2]);
+    }
+
+    public void testUnchangedChildNotReported() throws Exception {
+        // a property below the child changes, but not its last modification date
+        contentSession.getNode(FILES[0]).getNode(ContentHelper.JCR_CONTENT).setProperty(ContentHelper.JCR_ENCODING, "UTF-8");
+        contentSession.save();
+
+        final WatchedFolder.ScanResult result = scanAfterEvents();
+        assertTrue(result.toAdd.isEmpty());
+        assertTrue(result.toRemove.isEmpty());
+        assertConverted(FILES[0]);
+    }
+
+    public void testFolderReplaced() throws Exception {
+        // events on the folder itself require a scan of the complete folder
+        final Node parent = contentSession.getNode(FOLDER).getParent();
+        final String name = contentSession.getNode(FOLDER).getName();
+        contentSession.getNode(FOLDER).remove();
+        final Node folder = parent.addNode(name);
+        final Node file = folder.addNode("a.jar", ContentHelper.NT_FILE);
+        final Node res = file.addNode(ContentHelper.JCR_CONTENT, ContentHelper.NT_RESOURCE);
+        res.setProperty(ContentHelper.JCR_LASTMODIFIED, System.currentTimeMillis());
+        res.setProperty(ContentHelper.JCR_DATA, "New data");
+        res.setProperty(ContentHelper.JCR_MIMETYPE, "");
+        contentSession.save();
+
+        final WatchedFolder.ScanResult result = scanAfterEvents();
+        assertEquals(ids(FILES[0]), ids(result.toAdd));
+        assertEquals(ids(FILES[1], FILES[2]), new HashSet<String>(result.toRemove));
+        assertConverted(FILES[0]);
+    }
+
+    public void testFolderRemoved() throws Exception {
+        contentHelper.delete(FOLDER);
+
+        final WatchedFolder.ScanResult result = scanAfterEvents();
+        assertTrue(result.toAdd.isEmpty());
+        assertEquals(ids(FILES), new HashSet<String>(result.toRemove));
+        assertConverted();
+    }
+
+    private WatchedFolder.ScanResult scan() throws Exception {
+        converted.clear();
+        return watchedFolder.scan();
+    }
+
+    /** Wait for the observation events of the last save, then scan */
+    private WatchedFolder.ScanResult scanAfterEvents() throws Exception {
+        eventHelper.waitForEvents(5000L);
+        final long end = System.currentTimeMillis() + 5000L;
+        while(!watchedFolder.needsScan() && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertTrue("Expected " + watchedFolder + " to need a scan", watchedFolder.needsScan());
+        return scan();
+    }
+
+    private void assertConverted(String ... paths) {
+        final Set<String> expected = new HashSet<String>();
+        for(String path : paths) {
+            expected.add(path);
+            expected.add(path + "/" + ContentHelper.JCR_CONTENT);
+        }
+        final Set<String> actual = new HashSet<String>(converted);
+        // nodes below the file node may be visited as well
+        actual.retainAll(expected);
+        assertEquals("Converted nodes", new HashSet<String>(converted), actual);
+        for(String path : paths) {
+            assertTrue("Expected " + path + " to be converted", converted.contains(path));
+        }
+    }
+
+    private static Set<String> ids(String ... paths) {
+        final Set<String> result = new HashSet<String>();
+        for(String path : paths) {
+            result.add(path);
+        }
+        return result;
+    }
+
+    private static Set<String> ids(List<InstallableResource> resources) {
+        final Set<String> result = new HashSet<String>();
+        for(InstallableResource r : resources) {
+            result.add(r.getId());
+        }
+        return result;
+    }
+}
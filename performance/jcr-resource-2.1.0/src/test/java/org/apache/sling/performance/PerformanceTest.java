@@ -28,6 +28,8 @@ import org.apache.sling.jcr.resource.internal.JcrResourceResolverFactoryImpl;
 import org.apache.sling.jcr.resource.internal.helper.MapEntries;
 import org.apache.sling.jcr.resource.internal.helper.Mapping;
 import org.apache.sling.performance.annotation.PerformanceTestSuite;
+import org.apache.sling.performance.tests.ReadValueMapWith20PropertiesTest;
+import org.apache.sling.performance.tests.ReadValueMapWith50PropertiesTest;
 import org.apache.sling.performance.tests.ResolveNonExistingWith10000AliasTest;
 import org.apache.sling.performance.tests.ResolveNonExistingWith10000VanityPathTest;
 import org.apache.sling.performance.tests.ResolveNonExistingWith1000AliasTest;
@@ -114,6 +116,8 @@ public class PerformanceTest {
         testCenter.addTestObject(new ResolveNonExistingWith1000AliasTest(helper));
         testCenter.addTestObject(new ResolveNonExistingWith5000AliasTest(helper));
         testCenter.addTestObject(new ResolveNonExistingWith10000AliasTest(helper));
+        testCenter.addTestObject(new ReadValueMapWith20PropertiesTest(helper));
+        testCenter.addTestObject(new ReadValueMapWith50PropertiesTest(helper));
         //tests.add(new ResolveNonExistingWith30000AliasTest(helper));
                 
         return testCenter;
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.sling.performance.tests;
+
+import javax.jcr.Node;
+
+import junit.framework.Assert;
+import org.apache.jackrabbit.JcrConstants;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.performance.AbstractRepositoryTest;
+import org.apache.sling.performance.TestHelper;
+import org.junit.After;
+import org.junit.Before;
+
+/**
+ * Reads all properties of a node with <code>propertyCount</code> long,
+ * double, boolean and string properties through its value map.
+ * <p>
+ * As the suites run against released API versions, the primitive accessors
+ * and the <code>CompactValueMap</code> are compared by the
+ * <code>ReadValueMapBenchmark</code> of the jcr.resource bundle instead.
+ */
+class ReadValueMapWithManyPropertiesTest extends AbstractRepositoryTest {
+
+    private final TestHelper helper;
+
+    private final int propertyCount;
+
+    private ResourceResolver resResolver;
+
+    private Node rootNode;
+
+    private String nodePath;
+
+    public ReadValueMapWithManyPropertiesTest(TestHelper helper, int propertyCount) {
+        this.helper = helper;
+        this.propertyCount = propertyCount;
+    }
+
+    @After
+    protected void afterSuite() throws Exception {
+        if (helper != null) {
+            helper.dispose();
+        }
+
+        if (rootNode != null) {
+            rootNode.remove();
+        }
+        session.save();
+    }
+
+    @Before
+    protected void beforeSuite() throws Exception {
+        String rootPath = "/test" + System.currentTimeMillis();
+        rootNode = getSession().getRootNode().addNode(rootPath.substring(1), JcrConstants.NT_UNSTRUCTURED);
+
+        Node content = rootNode.addNode("content", JcrConstants.NT_UNSTRUCTURED);
+        for (int i = 0; i < propertyCount; i++) {
+            switch (i % 4) {
+                case 0:
+                    content.setProperty("p" + i, (long) i);
+                    break;
+                case 1:
+                    content.setProperty("p" + i, i + 0.5d);
+                    break;
+                case 2:
+                    content.setProperty("p" + i, i % 3 == 0);
+                    break;
+                default:
+                    content.setProperty("p" + i, "value" + i);
+            }
+        }
+        nodePath = content.getPath();
+        session.save();
+
+        helper.init(rootPath, session, getRepository());
+
+        resResolver = helper.getResourceResolver();
+    }
+
+    protected void runTest() throws Exception {
+        Resource res = resResolver.getResource(nodePath);
+        ValueMap props = res.adaptTo(ValueMap.class);
+        long sum = 0;
+        for (int i = 0; i < propertyCount; i++) {
+            switch (i % 4) {
+                case 0:
+                    sum += props.get("p" + i, 0L);
+                    break;
+                case 1:
+                    sum += props.get("p" + i, 0d).longValue();
+                    break;
+                case 2:
+                    sum += props.get("p" + i, false) ? 1 : 0;
+                    break;
+                default:
+                    sum += props.get("p" + i, "").length();
+            }
+        }
+        Assert.assertTrue(sum > 0);
+    }
+}